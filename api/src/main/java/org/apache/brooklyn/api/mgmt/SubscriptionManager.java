@@ -46,6 +46,8 @@ public interface SubscriptionManager {
      * parameters can include the following:
      * <ul>
      * <li>subscriber - object to identify the subscriber (e.g. entity, or console session uid) 
+     * <li>coalesce - if true, and events for the same producer and sensor are published faster than the listener 
+     *     consumes them, only the latest queued event is delivered (useful for listeners only interested in current values)
      * <li><i>in future</i> - control parameters for the subscription (period, minimum delta for updates, etc)
      * </ul>
      * 
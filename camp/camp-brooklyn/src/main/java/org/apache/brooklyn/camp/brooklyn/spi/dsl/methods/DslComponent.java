@@ -18,9 +18,11 @@
  */
 package org.apache.brooklyn.camp.brooklyn.spi.dsl.methods;
 
+import java.util.Collection;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.mgmt.ExecutionContext;
@@ -37,6 +39,7 @@ import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
 import org.apache.brooklyn.core.mgmt.internal.EntityManagerInternal;
 import org.apache.brooklyn.core.sensor.DependentConfiguration;
 import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.util.core.task.DeferredFutureSupplier;
 import org.apache.brooklyn.util.core.task.TaskBuilder;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.guava.Maybe;
@@ -119,8 +122,9 @@ public class DslComponent extends BrooklynDslDeferredSupplier<Entity> {
         @Override
         public Entity call() throws Exception {
             Iterable<Entity> entitiesToSearch = null;
-            EntityInternal entity = getEntity();
+            final EntityInternal entity = getEntity();
             Predicate<Entity> notSelfPredicate = Predicates.not(Predicates.<Entity>equalTo(entity));
+            Maybe<Entity> indexed;
 
             switch (scope) {
                 case THIS:
@@ -128,6 +132,8 @@ public class DslComponent extends BrooklynDslDeferredSupplier<Entity> {
                 case PARENT:
                     return entity.getParent();
                 case GLOBAL:
+                    indexed = findIndexed(entity, entity().getApplicationId(), Predicates.<Entity>alwaysTrue());
+                    if (indexed.isPresent()) return indexed.get();
                     entitiesToSearch = ((EntityManagerInternal)entity.getManagementContext().getEntityManager())
                         .getAllEntitiesInApplication( entity().getApplication() );
                     break;
@@ -136,6 +142,11 @@ public class DslComponent extends BrooklynDslDeferredSupplier<Entity> {
                 case SCOPE_ROOT:
                     return Entities.catalogItemScopeRoot(entity);
                 case DESCENDANT:
+                    indexed = findIndexed(entity, entity.getApplicationId(), new Predicate<Entity>() {
+                        @Override public boolean apply(Entity input) {
+                            return Entities.isAncestor(input, entity);
+                        }});
+                    if (indexed.isPresent()) return indexed.get();
                     entitiesToSearch = Entities.descendantsWithoutSelf(entity);
                     break;
                 case ANCESTOR:
@@ -161,7 +172,29 @@ public class DslComponent extends BrooklynDslDeferredSupplier<Entity> {
             throw new NoSuchElementException("No entity matching id " + componentId+
                 (scope==Scope.GLOBAL ? "" : ", in scope "+scope+" wrt "+entity+
                 (scopeComponent!=null ? " ("+scopeComponent+" from "+entity()+")" : "")));
-        }        
+        }
+
+        /**
+         * Looks for the entity in the entity manager's index of managed entities by plan id (kept up to date as
+         * plan ids change), rather than checking the config of every entity in scope; scope is checked against
+         * the current hierarchy, so reparenting is allowed for. Returns absent unless exactly one managed entity
+         * is found, so that the caller can fall back to searching in order (which also finds entities not yet
+         * managed, and picks the first in order when the plan id is not unique).
+         */
+        protected Maybe<Entity> findIndexed(EntityInternal entity, String applicationId, Predicate<? super Entity> inScope) {
+            if (applicationId == null) return Maybe.absent();
+            Collection<Entity> candidates = ((EntityManagerInternal)entity.getManagementContext().getEntityManager())
+                    .getEntitiesInApplicationWithPlanId(applicationId, componentId);
+            Predicate<Entity> planIdPredicate = EntityPredicates.configEqualTo(BrooklynCampConstants.PLAN_ID, componentId);
+            Entity result = null;
+            for (Entity candidate : candidates) {
+                // re-check, in case the plan id is being changed concurrently
+                if (!applicationId.equals(candidate.getApplicationId()) || !planIdPredicate.apply(candidate) || !inScope.apply(candidate)) continue;
+                if (result != null) return Maybe.absent();
+                result = candidate;
+            }
+            return (result != null) ? Maybe.of(result) : Maybe.<Entity>absent();
+        }
     }
     
     // -------------------------------
@@ -249,7 +282,7 @@ public class DslComponent extends BrooklynDslDeferredSupplier<Entity> {
     public BrooklynDslDeferredSupplier<?> attributeWhenReady(final String sensorName) {
         return new AttributeWhenReady(this, sensorName);
     }
-    protected static class AttributeWhenReady extends BrooklynDslDeferredSupplier<Object> {
+    protected static class AttributeWhenReady extends BrooklynDslDeferredSupplier<Object> implements DeferredFutureSupplier<Object> {
         private static final long serialVersionUID = 1740899524088902383L;
         private final DslComponent component;
         private final String sensorName;
@@ -263,11 +296,25 @@ public class DslComponent extends BrooklynDslDeferredSupplier<Entity> {
         @Override
         public Task<Object> newTask() {
             Entity targetEntity = component.get();
+            return (Task<Object>) DependentConfiguration.attributeWhenReady(targetEntity, getTargetSensor(targetEntity));
+        }
+
+        /** as {@link #newTask()}, but without a task blocking until the attribute is ready */
+        @SuppressWarnings("unchecked")
+        @Override
+        public Future<Object> getFuture() {
+            Entity targetEntity = component.get();
+            return (Future<Object>) DependentConfiguration.builder()
+                    .attributeWhenReady(targetEntity, getTargetSensor(targetEntity))
+                    .buildFuture();
+        }
+
+        private AttributeSensor<?> getTargetSensor(Entity targetEntity) {
             Sensor<?> targetSensor = targetEntity.getEntityType().getSensor(sensorName);
             if (!(targetSensor instanceof AttributeSensor<?>)) {
                 targetSensor = Sensors.newSensor(Object.class, sensorName);
             }
-            return (Task<Object>) DependentConfiguration.attributeWhenReady(targetEntity, (AttributeSensor<?>)targetSensor);
+            return (AttributeSensor<?>) targetSensor;
         }
 
         @Override
@@ -20,17 +20,21 @@ package org.apache.brooklyn.camp.brooklyn;
 
 import static org.testng.Assert.assertEquals;
 
+import org.apache.brooklyn.api.entity.Application;
 import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.config.ConfigKey;
 import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityPredicates;
+import org.apache.brooklyn.core.mgmt.internal.EntityManagerInternal;
 import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
 @Test
@@ -175,6 +179,81 @@ public class EntityRefsYamlTest extends AbstractYamlTest {
         assertEquals(entity2_1.getConfig(newConfigKey("conf2.1.ancestor2")), entity2);
     }
 
+    @Test
+    public void testRefToEntityByIdAddedAfterDeployment() throws Exception {
+        Entity app = createAndStartApplication(
+                "services:",
+                "- type: " + TestEntity.class.getName(),
+                "  brooklyn.config:",
+                "    conf.component.global: $brooklyn:component(\"global\", \"laterid\")",
+                "    conf.component.descendant: $brooklyn:component(\"descendant\", \"laterid\")");
+        Entity entity = Iterables.getOnlyElement(app.getChildren());
+        Entity child = entity.addChild(EntitySpec.create(TestEntity.class)
+                .configure(BrooklynCampConstants.PLAN_ID, "laterid"));
+        
+        assertEquals(entity.getConfig(newConfigKey("conf.component.global")), child);
+        assertEquals(entity.getConfig(newConfigKey("conf.component.descendant")), child);
+    }
+
+    @Test
+    public void testRefToEntityByIdAfterIdChanged() throws Exception {
+        Entity app = createAndStartApplication(
+                "services:",
+                "- type: " + TestEntity.class.getName(),
+                "  brooklyn.config:",
+                "    conf.component.global: $brooklyn:component(\"global\", \"newid\")",
+                "  brooklyn.children:",
+                "  - type: " + TestEntity.class.getName(),
+                "    id: oldid",
+                "  - type: " + TestEntity.class.getName(),
+                "    id: newid");
+        Entity entity = Iterables.getOnlyElement(app.getChildren());
+        Entity oldChild = Iterables.find(entity.getChildren(), EntityPredicates.configEqualTo(BrooklynCampConstants.PLAN_ID, "oldid"));
+        Entity newChild = Iterables.find(entity.getChildren(), EntityPredicates.configEqualTo(BrooklynCampConstants.PLAN_ID, "newid"));
+        
+        oldChild.config().set(BrooklynCampConstants.PLAN_ID, "newid");
+        newChild.config().set(BrooklynCampConstants.PLAN_ID, "otherid");
+        assertEquals(entity.getConfig(newConfigKey("conf.component.global")), oldChild);
+    }
+
+    @Test
+    public void testRefToEntityByIdDuplicatedByIdChange() throws Exception {
+        Entity app = createAndStartApplication(
+                "services:",
+                "- type: " + TestEntity.class.getName(),
+                "  brooklyn.config:",
+                "    conf.component.global: $brooklyn:component(\"global\", \"newid\")",
+                "  brooklyn.children:",
+                "  - type: " + TestEntity.class.getName(),
+                "    id: oldid",
+                "  - type: " + TestEntity.class.getName(),
+                "    id: newid");
+        Entity entity = Iterables.getOnlyElement(app.getChildren());
+        Entity oldChild = Iterables.find(entity.getChildren(), EntityPredicates.configEqualTo(BrooklynCampConstants.PLAN_ID, "oldid"));
+        
+        // both now have the id, so resolves to the first in the application, as when searching without the index
+        oldChild.config().set(BrooklynCampConstants.PLAN_ID, "newid");
+        Entity expected = Iterables.find(((EntityManagerInternal)mgmt().getEntityManager()).getAllEntitiesInApplication((Application)app),
+                EntityPredicates.configEqualTo(BrooklynCampConstants.PLAN_ID, "newid"));
+        assertEquals(entity.getConfig(newConfigKey("conf.component.global")), expected);
+        assertEquals(((EntityManagerInternal)mgmt().getEntityManager()).getEntitiesInApplicationWithPlanId(app.getId(), "newid").size(), 2);
+    }
+
+    @Test
+    public void testPlanIdIndexUpdatedWhenIdChanged() throws Exception {
+        Entity app = createAndStartApplication(
+                "services:",
+                "- type: " + TestEntity.class.getName(),
+                "  id: oldid");
+        Entity entity = Iterables.getOnlyElement(app.getChildren());
+        EntityManagerInternal entityManager = (EntityManagerInternal) mgmt().getEntityManager();
+        assertEquals(ImmutableList.copyOf(entityManager.getEntitiesInApplicationWithPlanId(app.getId(), "oldid")), ImmutableList.of(entity));
+        
+        entity.config().set(BrooklynCampConstants.PLAN_ID, "newid");
+        assertEquals(ImmutableList.copyOf(entityManager.getEntitiesInApplicationWithPlanId(app.getId(), "oldid")), ImmutableList.of());
+        assertEquals(ImmutableList.copyOf(entityManager.getEntitiesInApplicationWithPlanId(app.getId(), "newid")), ImmutableList.of(entity));
+    }
+
     protected ConfigKey<Object> newConfigKey(String name) {
         return ConfigKeys.newConfigKey(Object.class, name);
     }
@@ -118,6 +118,13 @@ public class BrooklynFeatureEnablement {
      */
     public static final String FEATURE_LOAD_BUNDLE_CATALOG_BOM = FEATURE_PROPERTY_PREFIX+".osgi.catalog_bom";
 
+    /**
+     * Whether entities store attribute values in a {@link java.util.concurrent.ConcurrentHashMap}, giving lock-free reads 
+     * and compare-and-set atomic modifications, rather than a synchronized map 
+     * (the latter preserves the order in which attributes were first set).
+     */
+    public static final String FEATURE_CONCURRENT_ATTRIBUTE_MAP = FEATURE_PROPERTY_PREFIX+".concurrentAttributeMap";
+
     /**
      * Values explicitly set by Java calls.
      */
@@ -149,6 +156,7 @@ public class BrooklynFeatureEnablement {
         setDefault(FEATURE_DEFAULT_STANDBY_IS_HOT_PROPERTY, false);
         setDefault(FEATURE_USE_BROOKLYN_LIVE_OBJECTS_DATAGRID_STORAGE, false);
         setDefault(FEATURE_RENAME_THREADS, false);
+        setDefault(FEATURE_CONCURRENT_ATTRIBUTE_MAP, false);
         setDefault(FEATURE_BACKWARDS_COMPATIBILITY_INFER_CATALOG_ITEM_ON_REBIND, true);
         setDefault(FEATURE_AUTO_FIX_CATALOG_REF_ON_REBIND, false);
         setDefault(FEATURE_SSH_ASYNC_EXEC, false);
@@ -21,6 +21,7 @@ package org.apache.brooklyn.core.enricher;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.brooklyn.api.entity.EntityLocal;
 import org.apache.brooklyn.api.mgmt.rebind.RebindSupport;
@@ -35,9 +36,10 @@ import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.mgmt.rebind.BasicEnricherRebindSupport;
 import org.apache.brooklyn.core.objs.AbstractEntityAdjunct;
+import org.apache.brooklyn.core.sensor.Deadband;
 import org.apache.brooklyn.util.core.flags.TypeCoercions;
 
-import com.google.common.base.Objects;
+import com.google.common.annotations.Beta;
 import com.google.common.collect.Maps;
 
 /**
@@ -48,8 +50,20 @@ public abstract class AbstractEnricher extends AbstractEntityAdjunct implements
     public static final ConfigKey<Boolean> SUPPRESS_DUPLICATES = ConfigKeys.newBooleanConfigKey("enricher.suppressDuplicates",
         "Whether duplicate values published by this enricher should be suppressed");
 
+    @Beta
+    public static final ConfigKey<Double> DEADBAND_ABSOLUTE = ConfigKeys.newDoubleConfigKey("enricher.deadband.absolute",
+        "Numeric values published by this enricher which differ from the current value by no more than this are suppressed "
+        + "(as are duplicate values)");
+
+    @Beta
+    public static final ConfigKey<Double> DEADBAND_RELATIVE = ConfigKeys.newDoubleConfigKey("enricher.deadband.relative",
+        "Numeric values published by this enricher which differ from the current value by no more than this fraction of it "
+        + "are suppressed (as are duplicate values)");
+
     private final EnricherDynamicType enricherType;
     protected Boolean suppressDuplicates;
+    protected Deadband deadband;
+    private final AtomicLong suppressedCount = new AtomicLong();
 
     public AbstractEnricher() {
         this(Maps.newLinkedHashMap());
@@ -87,6 +101,15 @@ public abstract class AbstractEnricher extends AbstractEntityAdjunct implements
         Boolean suppressDuplicates = getConfig(SUPPRESS_DUPLICATES);
         if (suppressDuplicates!=null) 
             this.suppressDuplicates = suppressDuplicates;
+        Double deadbandAbsolute = getConfig(DEADBAND_ABSOLUTE);
+        Double deadbandRelative = getConfig(DEADBAND_RELATIVE);
+        if (deadbandAbsolute!=null || deadbandRelative!=null)
+            this.deadband = Deadband.of(deadbandAbsolute!=null ? deadbandAbsolute : 0, deadbandRelative!=null ? deadbandRelative : 0);
+    }
+
+    /** number of attribute values not published because unchanged (or within the deadband) */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
     }
     
     @Override
@@ -107,10 +130,13 @@ public abstract class AbstractEnricher extends AbstractEntityAdjunct implements
         
         T newVal = TypeCoercions.coerce(val, sensor.getTypeToken());
         if (sensor instanceof AttributeSensor) {
-            if (Boolean.TRUE.equals(suppressDuplicates)) {
+            Deadband suppression = (deadband != null) ? deadband : Boolean.TRUE.equals(suppressDuplicates) ? Deadband.ON_CHANGE : null;
+            if (suppression != null) {
                 T oldValue = entity.getAttribute((AttributeSensor<T>)sensor);
-                if (Objects.equal(oldValue, newVal))
+                if (suppression.isSuppressed(oldValue, newVal)) {
+                    suppressedCount.incrementAndGet();
                     return;
+                }
             }
             entity.sensors().set((AttributeSensor<T>)sensor, newVal);
         } else { 
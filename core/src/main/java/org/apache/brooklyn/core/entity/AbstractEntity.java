@@ -771,6 +771,7 @@ public abstract class AbstractEntity extends AbstractBrooklynObject implements E
             getApplication();
             
             if (changed) {
+                getManagementSupport().noteChanged();
                 sensors().emit(AbstractEntity.GROUP_ADDED, group);
             }
         }
@@ -781,6 +782,7 @@ public abstract class AbstractEntity extends AbstractBrooklynObject implements E
             getApplication();
             
             if (changed) {
+                getManagementSupport().noteChanged();
                 sensors().emit(AbstractEntity.GROUP_REMOVED, group);
             }
         }
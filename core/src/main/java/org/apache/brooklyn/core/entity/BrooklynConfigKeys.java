@@ -49,6 +49,13 @@ public class BrooklynConfigKeys {
     @Deprecated /** @deprecated since 0.7.0 use BrooklynServerConfig routines */
     public static final ConfigKey<String> BROOKLYN_DATA_DIR = BrooklynServerConfig.BROOKLYN_DATA_DIR;
 
+    /** Plan id of an entity created from a blueprint; the entity manager indexes entities by it, for DSL lookups */
+    public static final ConfigKey<String> PLAN_ID = ConfigKeys.builder(String.class, "camp.plan.id")
+            .description("Identifier supplied in the deployment plan for component to which this entity corresponds "
+                        + "(human-readable, for correlating across plan, template, and instance)")
+            .runtimeInheritance(BasicConfigInheritance.NEVER_INHERITED)
+            .build();
+
     public static final ConfigKey<String> ONBOX_BASE_DIR = newStringConfigKey("onbox.base.dir",
             "Default base directory on target machines where Brooklyn config data is stored; " +
             "default depends on the location, either ~/brooklyn-managed-processes or /tmp/brooklyn-${username} on localhost");
@@ -43,6 +43,7 @@ import org.apache.brooklyn.api.effector.Effector;
 import org.apache.brooklyn.api.entity.Application;
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.entity.EntityType;
 import org.apache.brooklyn.api.entity.Group;
 import org.apache.brooklyn.api.entity.drivers.EntityDriver;
 import org.apache.brooklyn.api.entity.drivers.downloads.DownloadResolver;
@@ -688,6 +689,35 @@ public class Entities {
         return Iterables.filter(descendantsAndSelf(root), ofType);
     }
 
+    /**
+     * Returns the entity and its descendants whose {@link EntityType#getName() type name} matches the given predicate,
+     * in no particular order.
+     * <p>
+     * For a managed entity this looks up the entities of each matching type in the entity manager's index, and keeps
+     * those in the tree, rather than walking the whole tree; so it is much quicker when only a few entities of a large
+     * tree match, but slower when most entities in the management context match.
+     */
+    @Beta
+    public static Iterable<Entity> descendantsAndSelfWithTypeName(Entity root, final Predicate<? super String> typeNameMatching) {
+        EntityManager entityManager = isManaged(root) ? ((EntityInternal)root).getManagementContext().getEntityManager() : null;
+        if (!(entityManager instanceof EntityManagerInternal)) {
+            return descendantsAndSelf(root, new Predicate<Entity>() {
+                @Override
+                public boolean apply(Entity input) {
+                    return typeNameMatching.apply(input.getEntityType().getName());
+                }
+            });
+        }
+        Set<Entity> result = Sets.newLinkedHashSet();
+        for (String typeName : ((EntityManagerInternal)entityManager).getEntityTypeNames()) {
+            if (!typeNameMatching.apply(typeName)) continue;
+            for (Entity entity : ((EntityManagerInternal)entityManager).getEntitiesOfType(typeName)) {
+                if (entity.equals(root) || isAncestor(entity, root)) result.add(entity);
+            }
+        }
+        return result;
+    }
+
     /** Returns the entity, its parent, its parent, and so on. */
     @SuppressWarnings("unused")
     public static Iterable<Entity> ancestorsAndSelf(final Entity root) {
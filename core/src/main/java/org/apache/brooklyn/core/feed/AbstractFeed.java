@@ -21,6 +21,7 @@ package org.apache.brooklyn.core.feed;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.brooklyn.api.entity.EntityLocal;
 import org.apache.brooklyn.api.mgmt.rebind.RebindSupport;
@@ -52,6 +53,7 @@ public abstract class AbstractFeed extends AbstractEntityAdjunct implements Feed
     private transient volatile Poller<?> poller;
     private transient volatile boolean activated;
     private transient volatile boolean suspended;
+    private final AtomicLong suppressedSensorUpdates = new AtomicLong();
 
     public AbstractFeed() {
     }
@@ -219,6 +221,16 @@ public abstract class AbstractFeed extends AbstractEntityAdjunct implements Feed
         // TODO Auto-generated method stub
     }
 
+    /** called by poll handlers when a value is not published because unchanged (or within its deadband) */
+    protected void onSensorUpdateSuppressed() {
+        suppressedSensorUpdates.incrementAndGet();
+    }
+
+    /** number of sensor values from this feed not published because unchanged (or within their deadband), since started */
+    public long getSuppressedSensorUpdateCount() {
+        return suppressedSensorUpdates.get();
+    }
+
     /**
      * For overriding.
      */
@@ -20,6 +20,8 @@ package org.apache.brooklyn.core.feed;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.brooklyn.api.entity.EntityLocal;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.core.entity.Attributes;
@@ -27,14 +29,13 @@ import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
 import org.apache.brooklyn.core.entity.lifecycle.Lifecycle.Transition;
+import org.apache.brooklyn.core.sensor.Deadband;
 import org.apache.brooklyn.util.core.flags.TypeCoercions;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Objects;
-
 /**
  * Handler for when polling an entity's attribute. On each poll result the entity's attribute is set.
  * 
@@ -53,7 +54,9 @@ public class AttributePollHandler<V> implements PollHandler<V> {
     @SuppressWarnings("rawtypes")
     private final AttributeSensor sensor;
     private final AbstractFeed feed;
-    private final boolean suppressDuplicates;
+    /** null if all values are published */
+    private final Deadband deadband;
+    private final AtomicLong suppressedCount = new AtomicLong();
     
     // allow 30 seconds before logging at WARN, if there has been no success yet;
     // after success WARN immediately
@@ -73,7 +76,7 @@ public class AttributePollHandler<V> implements PollHandler<V> {
         this.entity = checkNotNull(entity, "entity");
         this.sensor = checkNotNull(config.getSensor(), "sensor");
         this.feed = checkNotNull(feed, "feed");
-        this.suppressDuplicates = config.getSupressDuplicates();
+        this.deadband = (config.getDeadband() != null) ? config.getDeadband() : config.getSupressDuplicates() ? Deadband.ON_CHANGE : null;
     }
 
     @Override
@@ -223,14 +226,21 @@ public class AttributePollHandler<V> implements PollHandler<V> {
             // nothing
         } else {
             Object coercedV = TypeCoercions.coerce(v, sensor.getType());
-            if (suppressDuplicates && Objects.equal(coercedV, entity.getAttribute(sensor))) {
-                // no change; nothing
+            if (deadband != null && deadband.isSuppressed(entity.getAttribute(sensor), coercedV)) {
+                // no (significant) change; nothing
+                suppressedCount.incrementAndGet();
+                feed.onSensorUpdateSuppressed();
             } else {
                 entity.sensors().set(sensor, coercedV);
             }
         }
     }
 
+    /** number of values not published because unchanged (or within the deadband) */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
     @Override
     public String toString() {
         return super.toString()+"["+getDescription()+"]";
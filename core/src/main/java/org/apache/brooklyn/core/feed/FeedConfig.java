@@ -22,6 +22,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.sensor.Deadband;
 import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.feed.http.HttpPollConfig;
 import org.apache.brooklyn.util.collections.MutableList;
@@ -64,6 +65,7 @@ public class FeedConfig<V, T, F extends FeedConfig<V, T, F>> {
     private Function<? super Exception, T> onexception;
     private Predicate<? super V> checkSuccess;
     private boolean suppressDuplicates;
+    private Deadband deadband;
     private boolean enabled = true;
     
     public FeedConfig(AttributeSensor<T> sensor) {
@@ -77,6 +79,7 @@ public class FeedConfig<V, T, F extends FeedConfig<V, T, F>> {
         this.onexception = other.onexception;
         this.checkSuccess = other.checkSuccess;
         this.suppressDuplicates = other.suppressDuplicates;
+        this.deadband = other.deadband;
         this.enabled = other.enabled;
     }
 
@@ -108,6 +111,10 @@ public class FeedConfig<V, T, F extends FeedConfig<V, T, F>> {
     public boolean getSupressDuplicates() {
         return suppressDuplicates;
     }
+
+    public Deadband getDeadband() {
+        return deadband;
+    }
     
     public boolean isEnabled() {
         return enabled;
@@ -204,6 +211,20 @@ public class FeedConfig<V, T, F extends FeedConfig<V, T, F>> {
         return self();
     }
 
+    /**
+     * Suppresses values which differ from the sensor's current value by no more than the given {@link Deadband}
+     * (as well as values which are unchanged, as for {@link #suppressDuplicates(boolean)}).
+     */
+    public F deadband(Deadband val) {
+        deadband = val;
+        return self();
+    }
+
+    /** @see #deadband(Deadband) */
+    public F deadband(double absolute, double relative) {
+        return deadband(Deadband.of(absolute, relative));
+    }
+
     /**
      * Whether this feed is enabled (defaulting to true).
      */
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.feed;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
+import org.apache.brooklyn.util.time.Duration;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Coordinates the periodic polls of all the {@link Poller}s (and so all feeds) of a management context,
+ * so that they do not all run in lockstep.
+ * <p>
+ * If {@link #JITTER} is set, the interval between successive runs of each poll is varied randomly
+ * by up to that fraction of its period (by default polls are exactly periodic). When feeds are started
+ * by rebind (when thousands may start in the same second) their first polls are spread over up to
+ * {@link #REBIND_SPREAD}. At most {@link #MAX_CONCURRENT}
+ * polls run at once; polls due when that many are running are skipped (shed) until their next period,
+ * as are polls whose previous run has not yet finished.
+ * <p>
+ * Also records how late polls start relative to when they were due, in {@link #getMetrics()}.
+ */
+@Beta
+public class PollScheduler {
+
+    public static final ConfigKey<Double> JITTER = ConfigKeys.newDoubleConfigKey(
+            "brooklyn.feeds.poll.jitter",
+            "Fraction of its period by which the interval between runs of a poll is randomly varied, either way, "
+                    + "so that polls of many feeds drift apart; 0 (the default) for exactly periodic polls",
+            0.0);
+
+    public static final ConfigKey<Duration> REBIND_SPREAD = ConfigKeys.newConfigKey(Duration.class,
+            "brooklyn.feeds.poll.rebindSpread",
+            "Maximum time over which the first polls of feeds started on rebind are randomly spread "
+                    + "(limited also by each poll's period); 0 to poll immediately",
+            Duration.THIRTY_SECONDS);
+
+    public static final ConfigKey<Integer> MAX_CONCURRENT = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.feeds.poll.maxConcurrent",
+            "Maximum number of polls running at once across all feeds; polls due when this many are running "
+                    + "are skipped until their next period; 0 for no limit",
+            0);
+
+    /** upper bounds (exclusive) of the lateness histogram buckets, with a final bucket for anything later */
+    private static final long[] LATENESS_BUCKET_MILLIS = {10, 100, 1000, 10*1000};
+    private static final String[] LATENESS_BUCKET_NAMES = {"latenessUnder10ms", "latenessUnder100ms", "latenessUnder1s", "latenessUnder10s", "latenessOver10s"};
+
+    private final double jitter;
+    private final Duration rebindSpread;
+    private final int maxConcurrent;
+    private final Random random = new Random();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong skippedStillRunning = new AtomicLong();
+    private final AtomicLong maxLatenessMillis = new AtomicLong();
+    private final AtomicLongArray latenessHistogram = new AtomicLongArray(LATENESS_BUCKET_NAMES.length);
+
+    private static final Function<ManagementContext, PollScheduler> FACTORY = new Function<ManagementContext, PollScheduler>() {
+        @Override public PollScheduler apply(ManagementContext input) {
+            return new PollScheduler(input);
+        }
+    };
+
+    /**
+     * @return The scheduler shared by all the pollers in the given management context; created lazily.
+     */
+    public static PollScheduler forManagementContext(ManagementContext managementContext) {
+        return ((ManagementContextInternal) managementContext).getSharedInstance(PollScheduler.class, FACTORY);
+    }
+
+    public PollScheduler(ManagementContext managementContext) {
+        this(managementContext.getConfig().getConfig(JITTER),
+                managementContext.getConfig().getConfig(REBIND_SPREAD),
+                managementContext.getConfig().getConfig(MAX_CONCURRENT));
+    }
+
+    public PollScheduler(double jitter, Duration rebindSpread, int maxConcurrent) {
+        Preconditions.checkArgument(jitter >= 0 && jitter < 1, "jitter must be at least 0 and less than 1, but was %s", jitter);
+        this.jitter = jitter;
+        this.rebindSpread = Preconditions.checkNotNull(rebindSpread, "rebindSpread");
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /** delay before the first run of a poll with the given period */
+    public Duration getInitialDelay(Duration period, boolean rebinding) {
+        if (!rebinding) return Duration.ZERO;
+        long spreadMillis = Math.min(period.toMilliseconds(), rebindSpread.toMilliseconds());
+        if (spreadMillis <= 0) return Duration.ZERO;
+        return Duration.millis((long) (random.nextDouble() * spreadMillis));
+    }
+
+    /** delay before the next run of a poll with the given period, varied by the jitter */
+    public Duration getNextDelay(Duration period) {
+        if (jitter == 0) return period;
+        double factor = 1 + jitter * (2 * random.nextDouble() - 1);
+        return Duration.millis(Math.max(1, Math.round(period.toMilliseconds() * factor)));
+    }
+
+    /**
+     * Called when a poll is due, given how late it is; returns false if the poll should be skipped
+     * because {@link #MAX_CONCURRENT} polls are already running. If true, the caller must call
+     * {@link #onPollEnd()} when the poll completes.
+     */
+    public boolean tryStartPoll(long latenessMillis) {
+        recordLateness(latenessMillis);
+        while (true) {
+            int current = active.get();
+            if (maxConcurrent > 0 && current >= maxConcurrent) {
+                shed.incrementAndGet();
+                return false;
+            }
+            if (active.compareAndSet(current, current+1)) {
+                polls.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public void onPollEnd() {
+        active.decrementAndGet();
+    }
+
+    /** records that a poll was skipped because its previous run had not finished */
+    public void onPollStillRunning() {
+        skippedStillRunning.incrementAndGet();
+    }
+
+    public Map<String, Object> getMetrics() {
+        ImmutableMap.Builder<String, Object> result = ImmutableMap.<String, Object>builder()
+                .put("polls", polls.get())
+                .put("active", active.get())
+                .put("shed", shed.get())
+                .put("skippedStillRunning", skippedStillRunning.get())
+                .put("maxLatenessMillis", maxLatenessMillis.get());
+        for (int i = 0; i < LATENESS_BUCKET_NAMES.length; i++) {
+            result.put(LATENESS_BUCKET_NAMES[i], latenessHistogram.get(i));
+        }
+        return result.build();
+    }
+
+    private void recordLateness(long latenessMillis) {
+        long lateness = Math.max(0, latenessMillis);
+        int bucket = 0;
+        while (bucket < LATENESS_BUCKET_MILLIS.length && lateness >= LATENESS_BUCKET_MILLIS[bucket]) {
+            bucket++;
+        }
+        latenessHistogram.incrementAndGet(bucket);
+        while (true) {
+            long max = maxLatenessMillis.get();
+            if (lateness <= max || maxLatenessMillis.compareAndSet(max, lateness)) break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("maxConcurrent", maxConcurrent).add("metrics", getMetrics()).toString();
+    }
+}
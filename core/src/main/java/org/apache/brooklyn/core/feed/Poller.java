@@ -22,6 +22,7 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.brooklyn.api.entity.EntityLocal;
 import org.apache.brooklyn.api.mgmt.Task;
@@ -29,6 +30,7 @@ import org.apache.brooklyn.core.entity.Attributes;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.core.mgmt.rebind.RebindManagerImpl.RebindTracker;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.task.DynamicSequentialTask;
 import org.apache.brooklyn.util.core.task.ScheduledTask;
@@ -63,6 +65,11 @@ public class Poller<V> {
         final PollHandler<? super V> handler;
         final Duration pollPeriod;
         final Runnable wrappedJob;
+        /** whether a run is in progress, so that a run is skipped rather than overlapping a previous run not yet finished */
+        final AtomicBoolean running = new AtomicBoolean();
+        volatile ScheduledTask scheduledTask;
+        /** when the next run is due, for recording how late it starts */
+        volatile long nextDueTime;
         private boolean loggedPreviousException = false;
         
         PollJob(final Callable<V> job, final PollHandler<? super V> handler, Duration period) {
@@ -140,6 +147,9 @@ public class Poller<V> {
             oneOffTasks.add(((EntityInternal)entity).getExecutionContext().submit(task));
         }
         
+        final PollScheduler scheduler = PollScheduler.forManagementContext(((EntityInternal)entity).getManagementContext());
+        boolean rebinding = RebindTracker.isRebinding();
+        
         for (final PollJob<V> pollJob : pollJobs) {
             final String scheduleName = pollJob.handler.getDescription();
             if (pollJob.pollPeriod.compareTo(Duration.ZERO) > 0) {
@@ -150,20 +160,28 @@ public class Poller<V> {
                                 if (!Entities.isManaged(entity)) {
                                     return null;
                                 }
-                                if (onlyIfServiceUp && !Boolean.TRUE.equals(entity.getAttribute(Attributes.SERVICE_UP))) {
+                                try {
+                                    if (onlyIfServiceUp && !Boolean.TRUE.equals(entity.getAttribute(Attributes.SERVICE_UP))) {
+                                        return null;
+                                    }
+                                    runPollJob(scheduler, pollJob);
                                     return null;
+                                } finally {
+                                    scheduleNextRun(scheduler, pollJob);
                                 }
-                                pollJob.wrappedJob.run();
-                                return null; 
                             } } );
                         BrooklynTaskTags.setTransient(task);
                         return task;
                     }
                 };
                 Map<String, ?> taskFlags = MutableMap.of("displayName", "scheduled:" + scheduleName);
+                Duration initialDelay = scheduler.getInitialDelay(pollJob.pollPeriod, rebinding);
                 ScheduledTask task = new ScheduledTask(taskFlags, pollingTaskFactory)
+                        .delay(initialDelay)
                         .period(pollJob.pollPeriod)
                         .cancelOnException(false);
+                pollJob.scheduledTask = task;
+                pollJob.nextDueTime = System.currentTimeMillis() + initialDelay.toMilliseconds();
                 tasks.add(Entities.submit(entity, task));
             } else {
                 if (log.isDebugEnabled()) log.debug("Activating poll (but leaving off, as period {}) for {} (using {})", new Object[] {pollJob.pollPeriod, entity, this});
@@ -171,6 +189,35 @@ public class Poller<V> {
         }
     }
     
+    private void runPollJob(PollScheduler scheduler, PollJob<V> pollJob) {
+        if (!pollJob.running.compareAndSet(false, true)) {
+            if (log.isTraceEnabled()) log.trace("Skipping poll for {} (using {}), as previous poll still running", entity, this);
+            scheduler.onPollStillRunning();
+            return;
+        }
+        try {
+            if (!scheduler.tryStartPoll(System.currentTimeMillis() - pollJob.nextDueTime)) {
+                if (log.isTraceEnabled()) log.trace("Skipping poll for {} (using {}), as too many polls running ({})", new Object[] {entity, this, scheduler});
+                return;
+            }
+            try {
+                pollJob.wrappedJob.run();
+            } finally {
+                scheduler.onPollEnd();
+            }
+        } finally {
+            pollJob.running.set(false);
+        }
+    }
+
+    /** sets the delay before the next run (varied by the scheduler's jitter), applied when the scheduled task resubmits */
+    private void scheduleNextRun(PollScheduler scheduler, PollJob<V> pollJob) {
+        Duration nextDelay = scheduler.getNextDelay(pollJob.pollPeriod);
+        ScheduledTask scheduledTask = pollJob.scheduledTask;
+        if (scheduledTask != null) scheduledTask.period(nextDelay);
+        pollJob.nextDueTime = System.currentTimeMillis() + nextDelay.toMilliseconds();
+    }
+
     public void stop() {
         if (log.isDebugEnabled()) log.debug("Stopping poll for {} (using {})", new Object[] {entity, this});
         if (!started) { 
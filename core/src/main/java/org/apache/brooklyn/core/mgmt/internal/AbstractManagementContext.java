@@ -21,6 +21,7 @@ package org.apache.brooklyn.core.mgmt.internal;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
 
+import java.io.Closeable;
 import java.net.URI;
 import java.net.URL;
 import java.util.Collections;
@@ -81,6 +82,7 @@ import org.apache.brooklyn.util.core.task.BasicExecutionContext;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.groovy.GroovyJavaMethods;
 import org.apache.brooklyn.util.guava.Maybe;
+import org.apache.brooklyn.util.stream.Streams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -185,6 +187,9 @@ public abstract class AbstractManagementContext implements ManagementContextInte
     protected Maybe<URI> uri = Maybe.absent();
     protected CatalogInitialization catalogInitialization;
 
+    /** see {@link #getSharedInstance(Class, Function)}; guarded by itself */
+    private final Map<Class<?>, Object> sharedInstances = MutableMap.of();
+
     public AbstractManagementContext(BrooklynProperties brooklynProperties){
         this(brooklynProperties, null);
     }
@@ -215,6 +220,14 @@ public abstract class AbstractManagementContext implements ManagementContextInte
         running = false;
         rebindManager.stop();
         storage.terminate();
+        List<Object> sharedInstancesToClose;
+        synchronized (sharedInstances) {
+            sharedInstancesToClose = MutableList.copyOf(sharedInstances.values());
+            sharedInstances.clear();
+        }
+        for (Object sharedInstance : sharedInstancesToClose) {
+            if (sharedInstance instanceof Closeable) Streams.closeQuietly((Closeable) sharedInstance);
+        }
         // Don't unmanage everything; different entities get given their events at different times 
         // so can cause problems (e.g. a group finds out that a member is unmanaged, before the
         // group itself has been told that it is unmanaged).
@@ -525,4 +538,17 @@ public abstract class AbstractManagementContext implements ManagementContextInte
         return configSupplierRegistry;
     }
 
+    @Override
+    public <T> T getSharedInstance(Class<T> type, Function<? super ManagementContext, ? extends T> factory) {
+        synchronized (sharedInstances) {
+            if (!isRunning()) throw new IllegalStateException("Management context no longer running");
+            Object result = sharedInstances.get(type);
+            if (result == null) {
+                result = checkNotNull(factory.apply(this), "shared instance of %s", type);
+                sharedInstances.put(type, result);
+            }
+            return type.cast(result);
+        }
+    }
+
 }
@@ -21,7 +21,6 @@ package org.apache.brooklyn.core.mgmt.internal;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -34,6 +33,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.location.Location;
@@ -63,7 +63,9 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.Objects;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 
 /**
  * Deletes record of old tasks, to prevent space leaks and the eating up of more and more memory.
@@ -165,6 +167,13 @@ public class BrooklynGarbageCollector {
     private Duration gcPeriod;
     private volatile boolean running = true;
     
+    private final AtomicLong gcCount = new AtomicLong();
+    private final AtomicLong totalGcTimeNanos = new AtomicLong();
+    private volatile long lastGcTimeNanos;
+    private volatile long maxGcTimeNanos;
+    private volatile int lastDeletedCount;
+    private final AtomicLong totalDeletedCount = new AtomicLong();
+    
     public BrooklynGarbageCollector(BrooklynProperties brooklynProperties, BasicExecutionManager executionManager, BrooklynStorage storage) {
         this.executionManager = executionManager;
         this.storage = storage;
@@ -207,7 +216,9 @@ public class BrooklynGarbageCollector {
     public void gcIteration() {
         try {
             logUsage("brooklyn gc (before)");
-            gcTasks();
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            int deleted = gcTasks();
+            noteGcCompleted(stopwatch.elapsed(TimeUnit.NANOSECONDS), deleted);
             logUsage("brooklyn gc (after)");
             
             double memUsage = 1.0 - 1.0*Runtime.getRuntime().freeMemory() / Runtime.getRuntime().maxMemory();
@@ -230,6 +241,36 @@ public class BrooklynGarbageCollector {
         }
     }
 
+    private void noteGcCompleted(long elapsedNanos, int deleted) {
+        gcCount.incrementAndGet();
+        totalGcTimeNanos.addAndGet(elapsedNanos);
+        lastGcTimeNanos = elapsedNanos;
+        if (elapsedNanos > maxGcTimeNanos) maxGcTimeNanos = elapsedNanos;
+        lastDeletedCount = deleted;
+        totalDeletedCount.addAndGet(deleted);
+        if (LOG.isDebugEnabled())
+            LOG.debug("brooklyn-gc deleted "+deleted+" tasks in "+Duration.nanos(elapsedNanos)+"; "
+                + executionManager.getNumInMemoryTasks()+" tasks retained ("+executionManager.getNumCompletedTasks()+" completed)");
+    }
+
+    /**
+     * Pause times of task garbage collection, and the number of tasks deleted and retained.
+     */
+    @Beta
+    public Map<String, Object> getMetrics() {
+        return MutableMap.<String, Object>builder()
+                .put("gcCount", gcCount.get())
+                .put("lastGcTimeMillis", TimeUnit.NANOSECONDS.toMillis(lastGcTimeNanos))
+                .put("maxGcTimeMillis", TimeUnit.NANOSECONDS.toMillis(maxGcTimeNanos))
+                .put("totalGcTimeMillis", TimeUnit.NANOSECONDS.toMillis(totalGcTimeNanos.get()))
+                .put("lastDeletedCount", lastDeletedCount)
+                .put("totalDeletedCount", totalDeletedCount.get())
+                .put("retainedTaskCount", executionManager.getNumInMemoryTasks())
+                .put("retainedCompletedTaskCount", executionManager.getNumCompletedTasks())
+                .build()
+                .asUnmodifiable();
+    }
+
     public void logUsage(String prefix) {
         if (LOG.isDebugEnabled())
             LOG.debug(prefix+" - using "+getUsageString());
@@ -339,14 +380,9 @@ public class BrooklynGarbageCollector {
      * {@link #maxTasksPerTag} and {@link #maxTaskAge}.
      */
     protected synchronized int gcTasks() {
-        // TODO Must be careful with memory usage here: have seen OOME if we get crazy lots of tasks.
-        // hopefully the use new limits, filters, and use of live lists in some places (added Sep 2014) will help.
-        // 
-        // An option is for getTasksWithTag(tag) to return an ArrayList rather than a LinkedHashSet. That
-        // is a far more memory efficient data structure (e.g. 4 bytes overhead per object rather than 
-        // 32 bytes overhead per object for HashSet).
-        //
-        // More notes on optimization is in the history of this file.
+        // Uses the execution manager's index of completed tasks (oldest first, globally and per tag),
+        // so each pass only visits the tasks it deletes (plus those it decides to keep because of
+        // shared tags), rather than scanning every task in memory; see history of this file for earlier notes.
         
         if (!running) return 0;
         
@@ -356,13 +392,15 @@ public class BrooklynGarbageCollector {
             scheduleCollector(false);
         }
     
+        int deletedCount = 0;
         expireUnmanagedEntityTasks();
-        expireAgedTasks();
-        expireTransientTasks();
+        deletedCount += expireAgedTasks();
+        deletedCount += expireTransientTasks();
         
-        // now look at overcapacity tags, non-entity tags first
+        // now look at overcapacity tags, non-entity tags first;
+        // only tags which have completed tasks need be considered, as only completed tasks can be deleted
         
-        Set<Object> taskTags = executionManager.getTaskTags();
+        Set<Object> taskTags = executionManager.getCompletedTaskTags();
         
         int maxTasksPerEntity = brooklynProperties.getConfig(MAX_TASKS_PER_ENTITY);
         int maxTasksPerTag = brooklynProperties.getConfig(MAX_TASKS_PER_TAG);
@@ -375,17 +413,17 @@ public class BrooklynGarbageCollector {
         for (Object tag : taskTags) {
             if (isTagIgnoredForGc(tag)) continue;
             
-            Set<Task<?>> tasksWithTag = executionManager.tasksWithTagLiveOrNull(tag);
-            if (tasksWithTag==null) continue;
+            int numTasksWithTag = executionManager.getNumTasksWithTag(tag);
+            if (numTasksWithTag==0) continue;
             AtomicInteger overA = null;
             if (tag instanceof WrappedEntity) {
-                int over = tasksWithTag.size() - maxTasksPerEntity;
+                int over = numTasksWithTag - maxTasksPerEntity;
                 if (over>0) {
                     overA = new AtomicInteger(over);
                     taskEntityTagsOverCapacity.put(tag, overA);
                 }
             } else {
-                int over = tasksWithTag.size() - maxTasksPerTag;
+                int over = numTasksWithTag - maxTasksPerTag;
                 if (over>0) {
                     overA = new AtomicInteger(over);
                     taskNonEntityTagsOverCapacity.put(tag, overA);
@@ -396,7 +434,6 @@ public class BrooklynGarbageCollector {
             }
         }
         
-        int deletedCount = 0;
         deletedCount += expireOverCapacityTagsInCategory(taskNonEntityTagsOverCapacity, taskAllTagsOverCapacity, TagCategory.NON_ENTITY_NORMAL, false);
         deletedCount += expireOverCapacityTagsInCategory(taskEntityTagsOverCapacity, taskAllTagsOverCapacity, TagCategory.ENTITY, true);
         deletedCount += expireSubTasksWhoseSubmitterIsExpired();
@@ -437,37 +474,34 @@ public class BrooklynGarbageCollector {
         }
     }
     
-    protected void expireAgedTasks() {
+    protected int expireAgedTasks() {
         Duration maxTaskAge = brooklynProperties.getConfig(MAX_TASK_AGE);
+        long cutoffUtc = System.currentTimeMillis() - maxTaskAge.toMilliseconds();
         
-        Collection<Task<?>> allTasks = executionManager.allTasksLive();
         Collection<Task<?>> tasksToDelete = MutableList.of();
-
-        try {
-            for (Task<?> task: allTasks) {
-                if (!task.isDone()) continue;
-                if (BrooklynTaskTags.isSubTask(task)) continue;
-
-                if (maxTaskAge.isShorterThan(Duration.sinceUtc(task.getEndTimeUtc())))
-                    tasksToDelete.add(task);
-            }
-            
-        } catch (ConcurrentModificationException e) {
-            // delete what we've found so far
-            LOG.debug("Got CME inspecting aged tasks, with "+tasksToDelete.size()+" found for deletion: "+e);
+        // oldest first, so can stop at the first task which is young enough to keep
+        for (Task<?> task: executionManager.getCompletedTasksOldestFirst()) {
+            if (task.getEndTimeUtc() > cutoffUtc) break;
+            if (!task.isDone()) continue;
+            if (BrooklynTaskTags.isSubTask(task)) continue;
+            tasksToDelete.add(task);
         }
         
         for (Task<?> task: tasksToDelete) {
             executionManager.deleteTask(task);
         }
+        return tasksToDelete.size();
     }
     
-    protected void expireTransientTasks() {
-        Set<Task<?>> transientTasks = executionManager.getTasksWithTag(BrooklynTaskTags.TRANSIENT_TASK_TAG);
+    protected int expireTransientTasks() {
+        List<Task<?>> transientTasks = MutableList.copyOf(executionManager.getCompletedTasksWithTagOldestFirst(BrooklynTaskTags.TRANSIENT_TASK_TAG));
+        int deleted = 0;
         for (Task<?> t: transientTasks) {
             if (!t.isDone()) continue;
             executionManager.deleteTask(t);
+            deleted++;
         }
+        return deleted;
     }
     
     protected int expireSubTasksWhoseSubmitterIsExpired() {
@@ -475,28 +509,24 @@ public class BrooklynGarbageCollector {
         if (!brooklynProperties.getConfig(CHECK_SUBTASK_SUBMITTERS))
             return 0;
         
-        Collection<Task<?>> allTasks = executionManager.allTasksLive();
-        Collection<Task<?>> tasksToDelete = MutableList.of();
-        try {
-            for (Task<?> task: allTasks) {
+        int deleted = 0;
+        // deleting tasks can orphan further tasks, so repeat until there are none
+        List<Task<?>> candidates = executionManager.drainCompletedTasksWithDeletedSubmitter();
+        while (!candidates.isEmpty()) {
+            for (Task<?> task: candidates) {
                 if (!task.isDone()) continue;
                 Task<?> submitter = task.getSubmittedByTask();
                 // if we've leaked, ie a subtask which is not a child task, 
                 // and the submitter is GC'd, then delete this also
-                if (submitter!=null && submitter.isDone() && executionManager.getTask(submitter.getId())==null) {
-                    tasksToDelete.add(task);
+                if (submitter!=null && submitter.isDone() && executionManager.getTask(submitter.getId())==null
+                        && executionManager.getTask(task.getId())!=null) {
+                    executionManager.deleteTask(task);
+                    deleted++;
                 }
             }
-            
-        } catch (ConcurrentModificationException e) {
-            // delete what we've found so far
-            LOG.debug("Got CME inspecting aged tasks, with "+tasksToDelete.size()+" found for deletion: "+e);
-        }
-        
-        for (Task<?> task: tasksToDelete) {
-            executionManager.deleteTask(task);
+            candidates = executionManager.drainCompletedTasksWithDeletedSubmitter();
         }
-        return tasksToDelete.size();
+        return deleted;
     }
     
     protected enum TagCategory { 
@@ -525,10 +555,20 @@ public class BrooklynGarbageCollector {
         if (taskTagsInCategoryOverCapacity.isEmpty())
             return 0;
         
-        Collection<Task<?>> tasks = executionManager.allTasksLive();
+        if (LOG.isDebugEnabled())
+            LOG.debug("brooklyn-gc detected "+taskTagsInCategoryOverCapacity.size()+" "+category+" "
+                    + "tags over capacity, expiring old tasks; categories are: "
+                    + taskTagsInCategoryOverCapacity);
+
+        // only tasks with at least one over-capacity tag can be affected, so look at the completed tasks
+        // of those tags, rather than all tasks
         List<Task<?>> tasksToConsiderDeleting = MutableList.of();
-        try {
-            for (Task<?> task: tasks) {
+        Set<Task<?>> tasksSeen = Sets.newIdentityHashSet();
+        for (Object overCapacityTag: MutableList.copyOf(taskTagsInCategoryOverCapacity.keySet())) {
+            if (!taskTagsInCategoryOverCapacity.containsKey(overCapacityTag)) continue;
+            
+            for (Task<?> task: executionManager.getCompletedTasksWithTagOldestFirst(overCapacityTag)) {
+                if (!tasksSeen.add(task)) continue;
                 if (!task.isDone()) continue;
                 
                 Set<Object> tags = task.getTags();
@@ -563,18 +603,10 @@ public class BrooklynGarbageCollector {
                     }
                 }
             }
-
-        } catch (ConcurrentModificationException e) {
-            // do CME's happen with these data structures?
-            // if so, let's just delete what we've found so far
-            LOG.debug("Got CME inspecting tasks, with "+tasksToConsiderDeleting.size()+" found for deletion: "+e);
         }
 
         if (LOG.isDebugEnabled())
-            LOG.debug("brooklyn-gc detected "+taskTagsInCategoryOverCapacity.size()+" "+category+" "
-                    + "tags over capacity, expiring old tasks; "
-                    + tasksToConsiderDeleting.size()+" tasks under consideration; categories are: "
-                    + taskTagsInCategoryOverCapacity);
+            LOG.debug("brooklyn-gc "+tasksToConsiderDeleting.size()+" tasks under consideration in "+category+" tags over capacity");
 
         Collections.sort(tasksToConsiderDeleting, TASKS_OLDEST_FIRST_COMPARATOR);
         // now try deleting tasks which are overcapacity for each (non-entity) tag
@@ -613,38 +645,30 @@ public class BrooklynGarbageCollector {
     }
 
     protected int expireIfOverCapacityGlobally() {
-        Collection<Task<?>> tasksLive = executionManager.allTasksLive();
-        if (tasksLive.size() <= brooklynProperties.getConfig(MAX_TASKS_GLOBAL))
+        int maxTasksGlobal = brooklynProperties.getConfig(MAX_TASKS_GLOBAL);
+        if (executionManager.getNumInMemoryTasks() <= maxTasksGlobal)
             return 0;
-        LOG.debug("brooklyn-gc detected "+tasksLive.size()+" tasks in memory, over global limit, looking at deleting some");
-        
-        try {
-            tasksLive = MutableList.copyOf(tasksLive);
-        } catch (ConcurrentModificationException e) {
-            tasksLive = executionManager.getTasksWithAllTags(MutableList.of());
-        }
-
-        MutableList<Task<?>> tasks = MutableList.of();
-        for (Task<?> task: tasksLive) {
-            if (task.isDone()) {
-                tasks.add(task);
-            }
-        }
+        LOG.debug("brooklyn-gc detected "+executionManager.getNumInMemoryTasks()+" tasks in memory, over global limit, looking at deleting some");
         
-        int numToDelete = tasks.size() - brooklynProperties.getConfig(MAX_TASKS_GLOBAL);
+        int numToDelete = executionManager.getNumCompletedTasks() - maxTasksGlobal;
         if (numToDelete <= 0) {
-            LOG.debug("brooklyn-gc detected only "+tasks.size()+" completed tasks in memory, not over global limit, so not deleting any");
+            LOG.debug("brooklyn-gc detected only "+executionManager.getNumCompletedTasks()+" completed tasks in memory, not over global limit, so not deleting any");
             return 0;
         }
-            
-        Collections.sort(tasks, TASKS_OLDEST_FIRST_COMPARATOR);
+        
+        List<Task<?>> tasksToDelete = MutableList.of();
+        for (Task<?> task: executionManager.getCompletedTasksOldestFirst()) {
+            if (tasksToDelete.size() >= numToDelete) break;
+            if (task.isDone()) tasksToDelete.add(task);
+        }
         
         int numDeleted = 0;
-        while (numDeleted < numToDelete && tasks.size()>numDeleted) {
-            executionManager.deleteTask( tasks.get(numDeleted++) );
+        for (Task<?> task: tasksToDelete) {
+            executionManager.deleteTask(task);
+            numDeleted++;
         }
         if (LOG.isDebugEnabled())
-            LOG.debug("brooklyn-gc deleted "+numDeleted+" tasks as was over global limit, now have "+executionManager.allTasksLive().size());
+            LOG.debug("brooklyn-gc deleted "+numDeleted+" tasks as was over global limit, now have "+executionManager.getNumInMemoryTasks());
         return numDeleted;
     }
 
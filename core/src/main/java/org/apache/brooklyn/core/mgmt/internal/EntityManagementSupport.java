@@ -22,10 +22,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.brooklyn.api.effector.Effector;
 import org.apache.brooklyn.api.entity.Application;
 import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.EntityManager;
 import org.apache.brooklyn.api.mgmt.ExecutionContext;
 import org.apache.brooklyn.api.mgmt.ManagementContext;
 import org.apache.brooklyn.api.mgmt.SubscriptionContext;
@@ -36,6 +38,7 @@ import org.apache.brooklyn.api.sensor.Enricher;
 import org.apache.brooklyn.api.sensor.Feed;
 import org.apache.brooklyn.config.ConfigKey;
 import org.apache.brooklyn.core.entity.AbstractEntity;
+import org.apache.brooklyn.core.entity.BrooklynConfigKeys;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
@@ -43,6 +46,7 @@ import org.apache.brooklyn.core.mgmt.entitlement.Entitlements.EntityAndItem;
 import org.apache.brooklyn.core.mgmt.entitlement.Entitlements.StringAndArgument;
 import org.apache.brooklyn.core.mgmt.internal.NonDeploymentManagementContext.NonDeploymentManagementContextMode;
 import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.text.Identifiers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -92,6 +96,9 @@ public class EntityManagementSupport {
     protected final AtomicBoolean managementFailed = new AtomicBoolean(false);
     
     private volatile EntityChangeListener entityChangeListener = EntityChangeListener.NOOP;
+    
+    private final AtomicLong changeCount = new AtomicLong();
+    private final String changeEpoch = Identifiers.makeRandomId(8);
 
     /**
      * Whether this entity is managed (i.e. "onManagementStarting" has been called, so the framework knows about it,
@@ -402,54 +409,93 @@ public class EntityManagementSupport {
         return entityChangeListener;
     }
     
+    /**
+     * Count of changes to this entity's attributes, config, children, members, locations, tags and adjuncts,
+     * since it was created in this management context. Only ever increases, so can be used for cheap
+     * change detection (e.g. REST ETags); it is not persisted.
+     */
+    @Beta
+    public long getChangeCount() {
+        return changeCount.get();
+    }
+    
+    /**
+     * Random id for this instance, which restarts its {@link #getChangeCount()} at zero; a change count
+     * should only be compared with another from the same epoch (it differs after restart, rebind or failover).
+     */
+    @Beta
+    public String getChangeEpoch() {
+        return changeEpoch;
+    }
+    
+    @Beta
+    public void noteChanged() {
+        changeCount.incrementAndGet();
+    }
+    
     private class EntityChangeListenerImpl implements EntityChangeListener {
         @Override
         public void onChanged() {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onChildrenChanged() {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onLocationsChanged() {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onTagsChanged() {
+            noteChanged();
+            EntityManager entityManager = getManagementContext().getEntityManager();
+            if (entityManager instanceof LocalEntityManager) {
+                ((LocalEntityManager)entityManager).onTagsChanged(entity);
+            }
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onMembersChanged() {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onPolicyAdded(Policy policy) {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onManaged(policy);
         }
         @Override
         public void onEnricherAdded(Enricher enricher) {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onManaged(enricher);
         }
         @Override
         public void onFeedAdded(Feed feed) {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onManaged(feed);
         }
         @Override
         public void onPolicyRemoved(Policy policy) {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onUnmanaged(policy);
         }
         @Override
         public void onEnricherRemoved(Enricher enricher) {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onUnmanaged(enricher);
         }
         @Override
         public void onFeedRemoved(Feed feed) {
+            noteChanged();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onUnmanaged(feed);
         }
@@ -462,6 +508,13 @@ public class EntityManagementSupport {
         }
         @Override
         public void onConfigChanged(ConfigKey<?> key) {
+            noteChanged();
+            if (BrooklynConfigKeys.PLAN_ID.getName().equals(key.getName())) {
+                EntityManager entityManager = getManagementContext().getEntityManager();
+                if (entityManager instanceof LocalEntityManager) {
+                    ((LocalEntityManager)entityManager).onPlanIdChanged(entity);
+                }
+            }
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
@@ -18,15 +18,53 @@
  */
 package org.apache.brooklyn.core.mgmt.internal;
 
+import java.util.Collection;
+
 import org.apache.brooklyn.api.entity.Application;
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.mgmt.EntityManager;
 
+import com.google.common.annotations.Beta;
+
 public interface EntityManagerInternal extends EntityManager, BrooklynObjectManagerInternal<Entity> {
 
     /** gets all entities currently known to the application, including entities that are not yet managed */
     Iterable<Entity> getAllEntitiesInApplication(Application application);
 
     public Iterable<String> getEntityIds();
+
+    /**
+     * Gets the managed entities of the given application with the given plan id (the {@code camp.plan.id} config,
+     * set on entities created from a blueprint), from an index maintained as entities are managed and unmanaged.
+     * Entities not yet managed are not included, nor are changes to the plan id after an entity was managed,
+     * so callers should check the result and fall back to searching if nothing suitable is found.
+     */
+    @Beta
+    Collection<Entity> getEntitiesInApplicationWithPlanId(String applicationId, String planId);
+
+    /**
+     * Gets the managed entities whose {@link Entity#getEntityType() type} has the given name (an exact match, not
+     * including subtypes), from an index maintained as entities are managed and unmanaged.
+     * Returns a read-only view which is cheap to obtain, rather than a copy; it is intended to be iterated promptly,
+     * and may or may not reflect subsequent changes.
+     */
+    @Beta
+    Collection<Entity> getEntitiesOfType(String typeName);
+
+    /**
+     * Gets the names of the {@link Entity#getEntityType() types} of the managed entities, as can be given to
+     * {@link #getEntitiesOfType(String)}; a copy, from the same index.
+     */
+    @Beta
+    Collection<String> getEntityTypeNames();
+
+    /**
+     * Gets the managed entities with the given tag, from an index maintained as entities are managed and unmanaged
+     * and as their tags change.
+     * Returns a read-only view which is cheap to obtain, rather than a copy; it is intended to be iterated promptly,
+     * and may or may not reflect subsequent changes.
+     */
+    @Beta
+    Collection<Entity> getEntitiesWithTag(Object tag);
     
 }
@@ -24,6 +24,7 @@ import groovy.util.ObservableList;
 import java.lang.reflect.Proxy;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,6 +36,7 @@ import javax.annotation.Nullable;
 import org.apache.brooklyn.api.entity.Application;
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.entity.EntityType;
 import org.apache.brooklyn.api.entity.EntityTypeRegistry;
 import org.apache.brooklyn.api.entity.Group;
 import org.apache.brooklyn.api.location.Location;
@@ -46,6 +48,7 @@ import org.apache.brooklyn.api.sensor.Enricher;
 import org.apache.brooklyn.api.sensor.EnricherSpec;
 import org.apache.brooklyn.core.BrooklynLogging;
 import org.apache.brooklyn.core.entity.AbstractEntity;
+import org.apache.brooklyn.core.entity.BrooklynConfigKeys;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.entity.EntityPredicates;
@@ -72,12 +75,13 @@ import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
 public class LocalEntityManager implements EntityManagerInternal {
@@ -110,6 +114,24 @@ public class LocalEntityManager implements EntityManagerInternal {
     /** Proxies of the managed entities that are applications */
     protected final Set<Application> applications = Sets.newConcurrentHashSet();
 
+    /** Proxies of the managed entities which have a plan id, by application id then plan id; guarded by this */
+    protected final Map<String,SetMultimap<String,Entity>> entitiesByApplicationAndPlanId = Maps.newHashMap();
+    
+    /** The application id and plan id under which each entity is in {@link #entitiesByApplicationAndPlanId}; guarded by this */
+    private final Map<String,Map.Entry<String,String>> planIdIndexKeysByEntityId = Maps.newHashMap();
+
+    /** Proxies of the managed entities, by application id; modified holding the lock on this, but read without */
+    protected final ConcurrentMap<String,Set<Entity>> entityProxiesByApplicationId = Maps.newConcurrentMap();
+
+    /** Proxies of the managed entities, by the name of their entity type; modified holding the lock on this, but read without */
+    protected final ConcurrentMap<String,Set<Entity>> entityProxiesByTypeName = Maps.newConcurrentMap();
+
+    /** Proxies of the managed entities, by tag; modified holding the lock on this, but read without */
+    protected final ConcurrentMap<Object,Set<Entity>> entityProxiesByTag = Maps.newConcurrentMap();
+
+    /** The keys under which each entity is in the indexes above; guarded by this */
+    private final Map<String,IndexKeys> indexKeysByEntityId = Maps.newHashMap();
+
     private final BrooklynStorage storage;
     private final Map<String,String> entityTypes;
     private final Set<String> applicationIds;
@@ -195,8 +217,8 @@ public class LocalEntityManager implements EntityManagerInternal {
     
     @Override
     public Collection<Entity> getEntitiesInApplication(Application application) {
-        Predicate<Entity> predicate = EntityPredicates.applicationIdEqualTo(application.getId());
-        return ImmutableList.copyOf(Iterables.filter(entityProxiesById.values(), predicate));
+        // a copy, which callers can keep and iterate at leisure
+        return ImmutableList.copyOf(entitiesInApplicationView(application));
     }
 
     @Override
@@ -206,21 +228,51 @@ public class LocalEntityManager implements EntityManagerInternal {
     
     @Override
     public Collection<Entity> findEntitiesInApplication(Application application, Predicate<? super Entity> filter) {
-        Predicate<Entity> predicate = Predicates.and(EntityPredicates.applicationIdEqualTo(application.getId()), filter);
-        return ImmutableList.copyOf(Iterables.filter(entityProxiesById.values(), predicate));
+        return ImmutableList.copyOf(Iterables.filter(entitiesInApplicationView(application), filter));
     }
 
     @Override
     public Iterable<Entity> getAllEntitiesInApplication(Application application) {
         Predicate<Entity> predicate = EntityPredicates.applicationIdEqualTo(application.getId());
-        Iterable<Entity> allentities = Iterables.concat(preRegisteredEntitiesById.values(), preManagedEntitiesById.values(), entityProxiesById.values());
-        Iterable<Entity> result = Iterables.filter(allentities, predicate);
+        Iterable<Entity> unmanagedEntities = Iterables.filter(
+                Iterables.concat(preRegisteredEntitiesById.values(), preManagedEntitiesById.values()), predicate);
+        Iterable<Entity> result = Iterables.concat(unmanagedEntities, entitiesInApplicationView(application));
         return ImmutableSet.copyOf(Iterables.transform(result, new Function<Entity, Entity>() {
             @Override public Entity apply(Entity input) {
                 return Entities.proxy(input);
             }}));
     }
 
+    @Override
+    public synchronized Collection<Entity> getEntitiesInApplicationWithPlanId(String applicationId, String planId) {
+        SetMultimap<String,Entity> entitiesByPlanId = entitiesByApplicationAndPlanId.get(applicationId);
+        if (entitiesByPlanId == null) return ImmutableList.of();
+        return ImmutableList.copyOf(entitiesByPlanId.get(planId));
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesOfType(String typeName) {
+        return readOnlyView(entityProxiesByTypeName.get(typeName));
+    }
+
+    @Override
+    public Collection<String> getEntityTypeNames() {
+        return ImmutableSet.copyOf(entityProxiesByTypeName.keySet());
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesWithTag(Object tag) {
+        return readOnlyView(entityProxiesByTag.get(tag));
+    }
+
+    private Collection<Entity> entitiesInApplicationView(Application application) {
+        return readOnlyView(entityProxiesByApplicationId.get(application.getId()));
+    }
+
+    private static Collection<Entity> readOnlyView(Set<Entity> entities) {
+        return (entities == null) ? Collections.<Entity>emptySet() : Collections.unmodifiableSet(entities);
+    }
+
     @Override
     public Entity getEntity(String id) {
         return entityProxiesById.get(id);
@@ -476,6 +528,9 @@ public class LocalEntityManager implements EntityManagerInternal {
         entityProxiesById.remove(e.getId());
         entitiesById.remove(e.getId());
         entityModesById.remove(e.getId());
+        synchronized (this) {
+            unindex(e.getId());
+        }
     }
     
     private void stopTasks(Entity entity) {
@@ -666,6 +721,7 @@ public class LocalEntityManager implements EntityManagerInternal {
         entityProxiesById.put(e.getId(), proxyE);
         entityTypes.put(e.getId(), realE.getClass().getName());
         entitiesById.put(e.getId(), realE);
+        index(realE, proxyE);
 
         preManagedEntitiesById.remove(e.getId());
         if ((e instanceof Application) && (e.getParent()==null)) {
@@ -733,6 +789,7 @@ public class LocalEntityManager implements EntityManagerInternal {
             entityProxiesById.remove(e.getId());
             entityModesById.remove(e.getId());
             Object old = entitiesById.remove(e.getId());
+            unindex(e.getId());
 
             entityTypes.remove(e.getId());
             if (old==null) {
@@ -749,6 +806,116 @@ public class LocalEntityManager implements EntityManagerInternal {
         }
     }
 
+    /** adds the newly managed entity to the indexes, replacing any previous entries; caller must hold the lock on this */
+    private void index(Entity realE, Entity proxyE) {
+        unindex(realE.getId());
+        indexPlanId(realE, proxyE);
+        
+        EntityType type = realE.getEntityType();
+        IndexKeys keys = new IndexKeys(proxyE, realE.getApplicationId(), (type != null ? type.getName() : null), realE.tags().getTags());
+        if (keys.applicationId != null) addToIndex(entityProxiesByApplicationId, keys.applicationId, proxyE);
+        if (keys.typeName != null) addToIndex(entityProxiesByTypeName, keys.typeName, proxyE);
+        for (Object tag : keys.tags) {
+            addToIndex(entityProxiesByTag, tag, proxyE);
+        }
+        indexKeysByEntityId.put(realE.getId(), keys);
+    }
+
+    /** caller must hold the lock on this */
+    private void unindex(String entityId) {
+        unindexPlanId(entityId);
+        
+        IndexKeys keys = indexKeysByEntityId.remove(entityId);
+        if (keys == null) return;
+        if (keys.applicationId != null) removeFromIndex(entityProxiesByApplicationId, keys.applicationId, keys.proxy);
+        if (keys.typeName != null) removeFromIndex(entityProxiesByTypeName, keys.typeName, keys.proxy);
+        for (Object tag : keys.tags) {
+            removeFromIndex(entityProxiesByTag, tag, keys.proxy);
+        }
+    }
+
+    /** updates the tag index for a managed entity, called when its tags have changed */
+    synchronized void onTagsChanged(Entity e) {
+        IndexKeys keys = indexKeysByEntityId.get(e.getId());
+        if (keys == null) return;
+        Set<Object> newTags = e.tags().getTags();
+        for (Object tag : Sets.difference(keys.tags, newTags)) {
+            removeFromIndex(entityProxiesByTag, tag, keys.proxy);
+        }
+        for (Object tag : Sets.difference(newTags, keys.tags)) {
+            addToIndex(entityProxiesByTag, tag, keys.proxy);
+        }
+        keys.tags = newTags;
+    }
+
+    /** updates the plan id index for a managed entity, called when its plan id has changed */
+    synchronized void onPlanIdChanged(Entity e) {
+        IndexKeys keys = indexKeysByEntityId.get(e.getId());
+        if (keys == null) return;
+        unindexPlanId(e.getId());
+        indexPlanId(e, keys.proxy);
+    }
+
+    private static <K> void addToIndex(ConcurrentMap<K,Set<Entity>> index, K key, Entity proxyE) {
+        Set<Entity> entities = index.get(key);
+        if (entities == null) {
+            entities = Sets.newConcurrentHashSet();
+            index.put(key, entities);
+        }
+        entities.add(proxyE);
+    }
+
+    private static <K> void removeFromIndex(ConcurrentMap<K,Set<Entity>> index, K key, Entity proxyE) {
+        Set<Entity> entities = index.get(key);
+        if (entities == null) return;
+        entities.remove(proxyE);
+        if (entities.isEmpty()) index.remove(key);
+    }
+
+    /** The keys under which an entity was indexed, so that it can be removed even if those have since changed */
+    private static class IndexKeys {
+        final Entity proxy;
+        final String applicationId;
+        final String typeName;
+        Set<Object> tags;
+        
+        IndexKeys(Entity proxy, String applicationId, String typeName, Set<Object> tags) {
+            this.proxy = proxy;
+            this.applicationId = applicationId;
+            this.typeName = typeName;
+            this.tags = tags;
+        }
+    }
+
+    /** adds the entity to {@link #entitiesByApplicationAndPlanId} if it has a plan id; caller must hold the lock on this */
+    private void indexPlanId(Entity realE, Entity proxyE) {
+        Object planId = ((EntityInternal)realE).config().getLocalRaw(BrooklynConfigKeys.PLAN_ID).orNull();
+        String applicationId = realE.getApplicationId();
+        if (planId instanceof String && applicationId != null) {
+            SetMultimap<String,Entity> entitiesByPlanId = entitiesByApplicationAndPlanId.get(applicationId);
+            if (entitiesByPlanId == null) {
+                entitiesByPlanId = LinkedHashMultimap.create();
+                entitiesByApplicationAndPlanId.put(applicationId, entitiesByPlanId);
+            }
+            entitiesByPlanId.put((String)planId, proxyE);
+            planIdIndexKeysByEntityId.put(realE.getId(), Maps.immutableEntry(applicationId, (String)planId));
+        }
+    }
+
+    /** caller must hold the lock on this */
+    private void unindexPlanId(String entityId) {
+        Map.Entry<String,String> key = planIdIndexKeysByEntityId.remove(entityId);
+        if (key == null) return;
+        SetMultimap<String,Entity> entitiesByPlanId = entitiesByApplicationAndPlanId.get(key.getKey());
+        if (entitiesByPlanId == null) return;
+        // match on id, as the proxy may since have been replaced
+        Iterator<Entity> iter = entitiesByPlanId.get(key.getValue()).iterator();
+        while (iter.hasNext()) {
+            if (entityId.equals(iter.next().getId())) iter.remove();
+        }
+        if (entitiesByPlanId.isEmpty()) entitiesByApplicationAndPlanId.remove(key.getKey());
+    }
+
     private void unmanageOwnedLocations(Entity e) {
         for (Location loc : e.getLocations()) {
             NamedStringTag ownerEntityTag = BrooklynTags.findFirst(BrooklynTags.OWNER_ENTITY_ID, loc.tags().getTags());
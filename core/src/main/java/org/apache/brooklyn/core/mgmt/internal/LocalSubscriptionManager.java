@@ -19,10 +19,10 @@
 package org.apache.brooklyn.core.mgmt.internal;
 
 import static org.apache.brooklyn.util.JavaGroovyEquivalents.elvis;
-import static org.apache.brooklyn.util.JavaGroovyEquivalents.groovyTruth;
 import static org.apache.brooklyn.util.JavaGroovyEquivalents.join;
 import static org.apache.brooklyn.util.JavaGroovyEquivalents.mapOf;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -30,13 +30,16 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.mgmt.ExecutionManager;
 import org.apache.brooklyn.api.mgmt.SubscriptionHandle;
 import org.apache.brooklyn.api.mgmt.SubscriptionManager;
+import org.apache.brooklyn.api.mgmt.Task;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.api.sensor.Sensor;
 import org.apache.brooklyn.api.sensor.SensorEvent;
@@ -54,6 +57,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * A {@link SubscriptionManager} that stores subscription details locally.
@@ -68,13 +72,33 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
 
     private final AtomicLong totalEventsPublishedCount = new AtomicLong();
     private final AtomicLong totalEventsDeliveredCount = new AtomicLong();
+    private final AtomicLong totalEventsCoalescedCount = new AtomicLong();
+    private final AtomicLong totalDeliveryBatchesCount = new AtomicLong();
+    
+    /** max events delivered by one delivery task, before it yields to other tasks for the same subscriber */
+    private static final int MAX_DELIVERY_BATCH_SIZE = 100;
+    
+    /** one mailbox per subscriber execution-manager tag, shared by all of that subscriber's subscriptions;
+     * modified only when synchronized on this manager */
+    private final ConcurrentMap<Object, Mailbox> mailboxesByTag = new ConcurrentHashMap<Object, Mailbox>();
     
     @SuppressWarnings("rawtypes")
     protected final ConcurrentMap<String, Subscription> allSubscriptions = new ConcurrentHashMap<String, Subscription>();
     @SuppressWarnings("rawtypes")
     protected final ConcurrentMap<Object, Set<Subscription>> subscriptionsBySubscriber = new ConcurrentHashMap<Object, Set<Subscription>>();
+    
+    /** marker used in {@link #subscriptionIndex} for a wildcard (null) producer or sensor */
+    private static final Object WILDCARD = new Object() {
+        @Override public String toString() { return "*"; }
+    };
+    
+    /** 
+     * Copy-on-write index of subscriptions, keyed by producer (or {@link #WILDCARD}) and then sensor name (or {@link #WILDCARD}).
+     * Only modified when synchronized on this manager, with the arrays replaced rather than changed,
+     * so that {@link #publish(SensorEvent)} can read it without locking or copying.
+     */
     @SuppressWarnings("rawtypes")
-    protected final ConcurrentMap<Object, Set<Subscription>> subscriptionsByToken = new ConcurrentHashMap<Object, Set<Subscription>>();
+    private final ConcurrentMap<Object, ConcurrentMap<Object, Subscription[]>> subscriptionIndex = new ConcurrentHashMap<Object, ConcurrentMap<Object, Subscription[]>>();
     
     public LocalSubscriptionManager(ExecutionManager m) {
         this.em = m;
@@ -92,6 +116,18 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         return totalEventsDeliveredCount.get();
     }
     
+    /** count of events not delivered because a subscription with the <code>coalesce</code> flag 
+     * had a newer event for the same producer and sensor queued */
+    public long getTotalEventsCoalesced() {
+        return totalEventsCoalescedCount.get();
+    }
+    
+    /** count of tasks submitted to deliver queued events; 
+     * compare with {@link #getTotalEventsDelivered()} to see the average batch size */
+    public long getTotalDeliveryBatches() {
+        return totalDeliveryBatchesCount.get();
+    }
+    
     @SuppressWarnings("unchecked")
     protected synchronized <T> SubscriptionHandle subscribe(Map<String, Object> flags, final Subscription<T> s) {
         Entity producer = s.producer;
@@ -108,12 +144,19 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
             s.subscriberExecutionManagerTagSupplied = false;
         }
         s.eventFilter = (Predicate<SensorEvent<T>>) flags.remove("eventFilter");
+        if (Boolean.TRUE.equals(flags.remove("coalesce"))) {
+            s.latestPendingEvents = new ConcurrentHashMap<Object, SensorEvent<T>>();
+        }
         boolean notifyOfInitialValue = Boolean.TRUE.equals(flags.remove("notifyOfInitialValue"));
         s.flags = flags;
         
         if (LOG.isDebugEnabled()) LOG.debug("Creating subscription {} for {} on {} {} in {}", new Object[] {s.id, s.subscriber, producer, sensor, this});
+        if (!s.subscriberExecutionManagerTagSupplied && s.subscriberExecutionManagerTag!=null) {
+            // subscribers with a caller-supplied tag keep a task per event, as the caller controls how that tag is scheduled
+            s.mailbox = acquireMailbox(s.subscriberExecutionManagerTag);
+        }
         allSubscriptions.put(s.id, s);
-        addToMapOfSets(subscriptionsByToken, makeEntitySensorToken(s.producer, s.sensor), s);
+        addToIndex(s);
         if (s.subscriber!=null) {
             addToMapOfSets(subscriptionsBySubscriber, s.subscriber, s);
         }
@@ -166,15 +209,71 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         return (Set<SubscriptionHandle>) ((Set<?>) elvis(subscriptionsBySubscriber.get(subscriber), Collections.emptySet()));
     }
 
-    public synchronized Set<SubscriptionHandle> getSubscriptionsForEntitySensor(Entity source, Sensor<?> sensor) {
+    public Set<SubscriptionHandle> getSubscriptionsForEntitySensor(Entity source, Sensor<?> sensor) {
+        Object sensorKey = (sensor!=null) ? sensor.getName() : WILDCARD;
         Set<SubscriptionHandle> subscriptions = new LinkedHashSet<SubscriptionHandle>();
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(source, sensor)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(null, sensor)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(source, null)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(null, null)), Collections.emptySet()));
+        if (source!=null) {
+            if (sensor!=null) Collections.addAll(subscriptions, lookupInIndex(source, sensorKey));
+            Collections.addAll(subscriptions, lookupInIndex(WILDCARD, sensorKey));
+            Collections.addAll(subscriptions, lookupInIndex(source, WILDCARD));
+        } else if (sensor!=null) {
+            Collections.addAll(subscriptions, lookupInIndex(WILDCARD, sensorKey));
+        }
+        Collections.addAll(subscriptions, lookupInIndex(WILDCARD, WILDCARD));
         return subscriptions;
     }
 
+    @SuppressWarnings("rawtypes")
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+    
+    /** lock-free lookup in {@link #subscriptionIndex}; the result must not be modified */
+    @SuppressWarnings("rawtypes")
+    private Subscription[] lookupInIndex(Object producerKey, Object sensorKey) {
+        ConcurrentMap<Object, Subscription[]> bySensor = subscriptionIndex.get(producerKey);
+        if (bySensor==null) return NO_SUBSCRIPTIONS;
+        Subscription[] result = bySensor.get(sensorKey);
+        return (result!=null) ? result : NO_SUBSCRIPTIONS;
+    }
+    
+    /** caller must be synchronized on this */
+    @SuppressWarnings("rawtypes")
+    private void addToIndex(Subscription<?> s) {
+        Object producerKey = (s.producer!=null) ? s.producer : WILDCARD;
+        Object sensorKey = (s.sensor!=null) ? s.sensor.getName() : WILDCARD;
+        ConcurrentMap<Object, Subscription[]> bySensor = subscriptionIndex.get(producerKey);
+        if (bySensor==null) {
+            bySensor = new ConcurrentHashMap<Object, Subscription[]>();
+            subscriptionIndex.put(producerKey, bySensor);
+        }
+        Subscription[] old = bySensor.get(sensorKey);
+        Subscription[] updated = (old==null) ? new Subscription[1] : Arrays.copyOf(old, old.length+1);
+        updated[updated.length-1] = s;
+        bySensor.put(sensorKey, updated);
+    }
+    
+    /** caller must be synchronized on this */
+    @SuppressWarnings("rawtypes")
+    private boolean removeFromIndex(Subscription<?> s) {
+        Object producerKey = (s.producer!=null) ? s.producer : WILDCARD;
+        Object sensorKey = (s.sensor!=null) ? s.sensor.getName() : WILDCARD;
+        ConcurrentMap<Object, Subscription[]> bySensor = subscriptionIndex.get(producerKey);
+        if (bySensor==null) return false;
+        Subscription[] old = bySensor.get(sensorKey);
+        if (old==null) return false;
+        int index = Arrays.asList(old).indexOf(s);
+        if (index<0) return false;
+        if (old.length==1) {
+            bySensor.remove(sensorKey);
+            if (bySensor.isEmpty()) subscriptionIndex.remove(producerKey);
+        } else {
+            Subscription[] updated = new Subscription[old.length-1];
+            System.arraycopy(old, 0, updated, 0, index);
+            System.arraycopy(old, index+1, updated, index, old.length-index-1);
+            bySensor.put(sensorKey, updated);
+        }
+        return true;
+    }
+
     /**
      * Unsubscribe the given subscription id.
      *
@@ -185,7 +284,8 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         if (!(sh instanceof Subscription)) throw new IllegalArgumentException("Only subscription handles of type Subscription supported: sh="+sh+"; type="+(sh != null ? sh.getClass().getCanonicalName() : null));
         Subscription s = (Subscription) sh;
         boolean result = allSubscriptions.remove(s.id) != null;
-        boolean b2 = removeFromMapOfCollections(subscriptionsByToken, makeEntitySensorToken(s.producer, s.sensor), s);
+        boolean b2 = removeFromIndex(s);
+        if (b2) releaseMailbox(s.subscriberExecutionManagerTag, s.mailbox);
         assert result==b2;
         if (s.subscriber!=null) {
             boolean b3 = removeFromMapOfCollections(subscriptionsBySubscriber, s.subscriber, s);
@@ -197,7 +297,6 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         return result;
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public <T> void publish(final SensorEvent<T> event) {
         // REVIEW 1459 - execution
         
@@ -214,44 +313,179 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         if (LOG.isTraceEnabled()) LOG.trace("{} got event {}", this, event);
         totalEventsPublishedCount.incrementAndGet();
         
-        Set<Subscription> subs = (Set<Subscription>) ((Set<?>) getSubscriptionsForEntitySensor(event.getSource(), event.getSensor()));
-        if (groovyTruth(subs)) {
-            if (LOG.isTraceEnabled()) LOG.trace("sending {}, {} to {}", new Object[] {event.getSensor().getName(), event, join(subs, ",")});
-            for (Subscription s : subs) {
-                if (s.eventFilter!=null && !s.eventFilter.apply(event))
+        // reads the copy-on-write index without locking; each subscription is in exactly one of these,
+        // so no need to de-dupe (and the order matches getSubscriptionsForEntitySensor)
+        Entity source = event.getSource();
+        Object sensorKey = event.getSensor().getName();
+        if (source!=null) {
+            publishTo(lookupInIndex(source, sensorKey), event);
+        }
+        publishTo(lookupInIndex(WILDCARD, sensorKey), event);
+        if (source!=null) {
+            publishTo(lookupInIndex(source, WILDCARD), event);
+        }
+        publishTo(lookupInIndex(WILDCARD, WILDCARD), event);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> void publishTo(Subscription[] subs, final SensorEvent<T> event) {
+        if (subs.length==0) return;
+        if (LOG.isTraceEnabled()) LOG.trace("sending {}, {} to {}", new Object[] {event.getSensor().getName(), event, join(Arrays.asList(subs), ",")});
+        for (Subscription s : subs) {
+            if (s.eventFilter!=null && !s.eventFilter.apply(event))
+                continue;
+            
+            final Delivery delivery;
+            if (s.latestPendingEvents!=null) {
+                Object key = makeEntitySensorToken(event);
+                if (s.latestPendingEvents.put(key, event)!=null) {
+                    // an older event for this producer+sensor is still queued; it will be delivered as this one
+                    totalEventsCoalescedCount.incrementAndGet();
                     continue;
-                final Subscription sAtClosureCreation = s;
-                
-//                Set<Object> tags = MutableSet.of();
-//                if (s.subscriberExecutionManagerTag!=null) tags.add(s.subscriberExecutionManagerTag);
-//                if (event.getSource()!=null) tags.add(BrooklynTaskTags.tagForContextEntity(event.getSource()));
-//                Map<String, Object> tagsMap = mapOf("tags", (Object)tags);
-                // use code above, instead of line below, if we want subscription deliveries associated with the entity;
-                // that will cause them to be cancelled when the entity is unmanaged
-                // (not sure that is useful, and likely NOT worth the expense, but it might be...) -Alex Oct 2014
+                }
+                delivery = new Delivery(s, key, null);
+            } else {
+                delivery = new Delivery(s, null, event);
+            }
+            
+            if (s.mailbox!=null) {
+                // queued on the subscriber's mailbox, rather than a task per event;
+                // the mailbox's delivery task is tagged with s.subscriberExecutionManagerTag, 
+                // so is run by that tag's SingleThreadedScheduler, in order with any other tasks for the subscriber
+                s.mailbox.enqueue(delivery);
+            } else {
+                // caller-supplied tag: a task per event, scheduled however the caller configured that tag
                 Map<String, Object> tagsMap = mapOf("tag", s.subscriberExecutionManagerTag);
-                
                 em.submit(tagsMap, new Runnable() {
                     @Override
                     public String toString() {
                         return "LSM.publish("+event+")";
                     }
                     public void run() {
-                        try {
-                            int count = sAtClosureCreation.eventCount.incrementAndGet();
-                            if (count > 0 && count % 1000 == 0) LOG.debug("{} events for subscriber {}", count, sAtClosureCreation);
-                            
-                            sAtClosureCreation.listener.onEvent(event);
-                        } catch (Throwable t) {
-                            if (event!=null && event.getSource()!=null && Entities.isNoLongerManaged(event.getSource())) {
-                                LOG.debug("Error processing subscriptions to "+this+", after entity unmanaged: "+t, t);
-                            } else {
-                                LOG.warn("Error processing subscriptions to "+this+": "+t, t);
-                            }
-                        }
+                        deliver(delivery);
                     }});
-                totalEventsDeliveredCount.incrementAndGet();
             }
+            totalEventsDeliveredCount.incrementAndGet();
+        }
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void deliver(Delivery delivery) {
+        Subscription s = delivery.subscription;
+        SensorEvent event = (delivery.coalescingKey!=null) ? (SensorEvent) s.latestPendingEvents.remove(delivery.coalescingKey) : delivery.event;
+        if (event==null) return;
+        try {
+            int count = s.eventCount.incrementAndGet();
+            if (count > 0 && count % 1000 == 0) LOG.debug("{} events for subscriber {}", count, s);
+            
+            s.listener.onEvent(event);
+        } catch (Throwable t) {
+            if (event.getSource()!=null && Entities.isNoLongerManaged(event.getSource())) {
+                LOG.debug("Error processing subscriptions to "+this+", after entity unmanaged: "+t, t);
+            } else {
+                LOG.warn("Error processing subscriptions to "+this+": "+t, t);
+            }
+        }
+    }
+    
+    private Mailbox acquireMailbox(Object tag) {
+        Mailbox result = mailboxesByTag.get(tag);
+        if (result==null) {
+            result = new Mailbox(tag);
+            mailboxesByTag.put(tag, result);
+        }
+        result.subscriptionCount++;
+        return result;
+    }
+    
+    private void releaseMailbox(Object tag, Mailbox mailbox) {
+        if (tag==null || mailbox==null) return;
+        mailbox.subscriptionCount--;
+        if (mailbox.subscriptionCount<=0 && mailboxesByTag.get(tag)==mailbox) {
+            // any events already queued are still delivered, as the mailbox is referenced by the queued deliveries' task
+            mailboxesByTag.remove(tag);
+        }
+    }
+    
+    /** an event queued for a subscription; for coalescing subscriptions, the event is looked up by key at delivery time */
+    @SuppressWarnings("rawtypes")
+    private static class Delivery {
+        final Subscription subscription;
+        final Object coalescingKey;
+        final SensorEvent event;
+        
+        Delivery(Subscription subscription, Object coalescingKey, SensorEvent event) {
+            this.subscription = subscription;
+            this.coalescingKey = coalescingKey;
+            this.event = event;
+        }
+    }
+    
+    /**
+     * Queue of deliveries for one subscriber. At most one delivery task is submitted at a time;
+     * it delivers queued events in order, in batches of up to {@link #MAX_DELIVERY_BATCH_SIZE},
+     * resubmitting itself if more remain.
+     */
+    class Mailbox implements Runnable {
+        private final Object tag;
+        private final ConcurrentLinkedQueue<Delivery> queue = new ConcurrentLinkedQueue<Delivery>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        /** guarded by the subscription manager */
+        int subscriptionCount = 0;
+        
+        Mailbox(Object tag) {
+            this.tag = tag;
+        }
+        
+        void enqueue(Delivery delivery) {
+            queue.add(delivery);
+            scheduleIfNeeded();
+        }
+        
+        private void scheduleIfNeeded() {
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                totalDeliveryBatchesCount.incrementAndGet();
+                Map<String, Object> tagsMap = mapOf("tag", tag);
+                final AtomicBoolean started = new AtomicBoolean(false);
+                final Task<?> task;
+                try {
+                    task = em.submit(tagsMap, new Runnable() {
+                        @Override public void run() {
+                            if (started.compareAndSet(false, true)) Mailbox.this.run();
+                        }
+                        @Override public String toString() {
+                            return Mailbox.this.toString();
+                        }});
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+                task.addListener(new Runnable() {
+                    @Override public void run() {
+                        // if cancelled before it ran, nothing else will clear scheduled; the next event reschedules
+                        if (started.compareAndSet(false, true)) scheduled.set(false);
+                    }}, MoreExecutors.sameThreadExecutor());
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                for (int i=0; i<MAX_DELIVERY_BATCH_SIZE; i++) {
+                    Delivery delivery = queue.poll();
+                    if (delivery==null) break;
+                    deliver(delivery);
+                }
+            } finally {
+                scheduled.set(false);
+                // new events may have arrived after the last poll but before scheduled was cleared
+                scheduleIfNeeded();
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return "LSM.publish("+tag+")";
         }
     }
     
@@ -42,6 +42,7 @@ import org.apache.brooklyn.util.core.task.TaskTags;
 import org.apache.brooklyn.util.guava.Maybe;
 
 import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
 
 public interface ManagementContextInternal extends ManagementContext {
 
@@ -122,4 +123,13 @@ public interface ManagementContextInternal extends ManagementContext {
     @Beta
     ExternalConfigSupplierRegistry getExternalConfigProviderRegistry();
 
+    /**
+     * @return The instance of the given type shared by everything in this management context, created lazily
+     *         with the given factory; if it is {@link java.io.Closeable} it is closed when this management context
+     *         terminates. For layers such as locations to keep per-management-context state (e.g. shared ssh
+     *         connections) without this interface depending on them.
+     */
+    @Beta
+    <T> T getSharedInstance(Class<T> type, Function<? super ManagementContext, ? extends T> factory);
+
 }
@@ -192,5 +192,41 @@ public class NonDeploymentEntityManager implements EntityManagerInternal {
             throw new IllegalStateException("Non-deployment context "+this+" (with no initial management context supplied) is not valid for this operation.");
         }
     }
+
+    @Override
+    public Collection<Entity> getEntitiesInApplicationWithPlanId(String applicationId, String planId) {
+        if (isInitialManagementContextReal()) {
+            return ((EntityManagerInternal)initialManagementContext.getEntityManager()).getEntitiesInApplicationWithPlanId(applicationId, planId);
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesOfType(String typeName) {
+        if (isInitialManagementContextReal()) {
+            return ((EntityManagerInternal)initialManagementContext.getEntityManager()).getEntitiesOfType(typeName);
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public Collection<String> getEntityTypeNames() {
+        if (isInitialManagementContextReal()) {
+            return ((EntityManagerInternal)initialManagementContext.getEntityManager()).getEntityTypeNames();
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesWithTag(Object tag) {
+        if (isInitialManagementContextReal()) {
+            return ((EntityManagerInternal)initialManagementContext.getEntityManager()).getEntitiesWithTag(tag);
+        } else {
+            return Collections.emptyList();
+        }
+    }
     
 }
@@ -42,6 +42,7 @@ import org.apache.brooklyn.api.mgmt.EntityManager;
 import org.apache.brooklyn.api.mgmt.ExecutionContext;
 import org.apache.brooklyn.api.mgmt.ExecutionManager;
 import org.apache.brooklyn.api.mgmt.LocationManager;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
 import org.apache.brooklyn.api.mgmt.SubscriptionContext;
 import org.apache.brooklyn.api.mgmt.Task;
 import org.apache.brooklyn.api.mgmt.entitlement.EntitlementManager;
@@ -73,6 +74,7 @@ import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
 import com.google.common.base.Objects;
 
 public class NonDeploymentManagementContext implements ManagementContextInternal {
@@ -424,7 +426,8 @@ public class NonDeploymentManagementContext implements ManagementContextInternal
         log.warn("Ignoring call to prePreManage("+location+") on "+this);
     }
 
-    private boolean isInitialManagementContextReal() {
+    /** whether this is backed by a real management context, to which operations such as {@link #getSharedInstance(Class, Function)} are delegated */
+    public boolean isInitialManagementContextReal() {
         return (initialManagementContext != null && !(initialManagementContext instanceof NonDeploymentManagementContext));
     }
     
@@ -488,6 +491,12 @@ public class NonDeploymentManagementContext implements ManagementContextInternal
         return initialManagementContext.getExternalConfigProviderRegistry();
     }
 
+    @Override
+    public <T> T getSharedInstance(Class<T> type, Function<? super ManagementContext, ? extends T> factory) {
+        checkInitialManagementContextReal();
+        return initialManagementContext.getSharedInstance(type, factory);
+    }
+
     /**
      * For when the initial management context is not "real"; the changeListener is a no-op, but everything else forbidden.
      * 
@@ -19,6 +19,7 @@
 package org.apache.brooklyn.core.mgmt.internal;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.brooklyn.api.entity.Entity;
@@ -43,6 +44,11 @@ class Subscription<T> implements SubscriptionHandle {
     public final AtomicInteger eventCount = new AtomicInteger();
     public Map<String,Object> flags;
     public Predicate<SensorEvent<T>> eventFilter;
+    /** where events for this subscription are queued for delivery; shared by subscriptions with the same subscriber tag,
+     * or null if the subscriber supplied its own tag, in which case each event is delivered in its own task */
+    LocalSubscriptionManager.Mailbox mailbox;
+    /** non-null if the subscriber asked for events to be coalesced, holding the latest undelivered event per producer and sensor */
+    ConcurrentMap<Object, SensorEvent<T>> latestPendingEvents;
 
     public Subscription(Entity producer, Sensor<T> sensor, SensorEventListener<? super T> listener) {
         this.producer = producer;
@@ -25,6 +25,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
@@ -99,7 +101,15 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             "Maximum number of attempts to serialize a memento (e.g. if first attempts fail because of concurrent modifications of an entity)", 
             5);
 
+    public static final ConfigKey<MementoFormat> PERSISTER_FORMAT = ConfigKeys.newConfigKey(MementoFormat.class,
+            "persister.format",
+            "Encoding used when writing mementos: XML, or COMPACT for deflated XML which is much smaller on disk; "
+            + "both are always readable, so this can be changed at any time (existing items are rewritten as they change, "
+            + "or all at once with BrooklynPersistenceUtils.convertFormat or copy-state)", 
+            MementoFormat.XML);
+
     private final PersistenceObjectStore objectStore;
+    private final MementoFormat format;
     private final MementoSerializer<Object> serializerWithStandardClassLoader;
 
     private final Map<String, StoreObjectAccessorWithLock> writers = new LinkedHashMap<String, PersistenceObjectStore.StoreObjectAccessorWithLock>();
@@ -127,6 +137,8 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         this.serializerWithStandardClassLoader = new RetryingMementoSerializer<Object>(rawSerializer, maxSerializationAttempts);
 
         int maxThreadPoolSize = brooklynProperties.getConfig(PERSISTER_MAX_THREAD_POOL_SIZE);
+        MementoFormat configuredFormat = brooklynProperties.getConfig(PERSISTER_FORMAT);
+        this.format = (configuredFormat != null) ? configuredFormat : MementoFormat.XML;
 
         objectStore.createSubPath("entities");
         objectStore.createSubPath("locations");
@@ -145,6 +157,11 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             }}));
     }
 
+    /** the format used for writes; reads accept any {@link MementoFormat} */
+    public MementoFormat getFormat() {
+        return format;
+    }
+    
     public MementoSerializer<Object> getMementoSerializer() {
         return getSerializerWithStandardClassLoader();
     }
@@ -159,6 +176,22 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         return getSerializerWithCustomClassLoader(lookupContext, cl);
     }
     
+    private MementoSerializer<Object> getSerializerWithCustomClassLoader(LookupContext lookupContext, BrooklynObjectType type, String objectId,
+            ConcurrentMap<String, MementoSerializer<Object>> serializersByCatalogItem) {
+        BrooklynObject item = lookupContext.peek(type, objectId);
+        String catalogItemId = (item == null) ? null : item.getCatalogItemId();
+        if (catalogItemId == null) {
+            return serializerWithStandardClassLoader;
+        }
+        MementoSerializer<Object> result = serializersByCatalogItem.get(catalogItemId);
+        if (result == null) {
+            result = getSerializerWithCustomClassLoader(lookupContext, type, objectId);
+            MementoSerializer<Object> existing = serializersByCatalogItem.putIfAbsent(catalogItemId, result);
+            if (existing != null) result = existing;
+        }
+        return result;
+    }
+    
     protected MementoSerializer<Object> getSerializerWithCustomClassLoader(LookupContext lookupContext, ClassLoader classLoader) {
         int maxSerializationAttempts = brooklynProperties.getConfig(PERSISTER_MAX_SERIALIZATION_ATTEMPTS);
         MementoSerializer<Object> rawSerializer = new XmlMementoSerializer<Object>(classLoader);
@@ -394,12 +427,15 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         Stopwatch stopwatch = Stopwatch.createStarted();
 
         final BrooklynMementoImpl.Builder builder = BrooklynMementoImpl.builder();
+        // mementos are deserialized concurrently on the executor; share one serializer per catalog item
+        // rather than building a new one (and its class loader) for every object
+        final ConcurrentMap<String, MementoSerializer<Object>> serializersByCatalogItem = new ConcurrentHashMap<String, MementoSerializer<Object>>();
         
         Visitor visitor = new Visitor() {
             @Override
             public void visit(BrooklynObjectType type, String objectId, String contents) throws Exception {
                 try {
-                    Memento memento = (Memento) getSerializerWithCustomClassLoader(lookupContext, type, objectId).fromString(contents);
+                    Memento memento = (Memento) getSerializerWithCustomClassLoader(lookupContext, type, objectId, serializersByCatalogItem).fromString(contents);
                     if (memento == null) {
                         LOG.warn("No "+type.toCamelCase()+"-memento deserialized from " + objectId + "; ignoring and continuing");
                     } else {
@@ -636,14 +672,20 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         }
     }
 
+    /** reads the contents at the given path, as XML whatever format it was written in */
     private String read(String subPath) {
         StoreObjectAccessor objectAccessor = objectStore.newAccessor(subPath);
-        return objectAccessor.get();
+        return CompactMementoSerializer.decode(objectAccessor.get());
+    }
+
+    /** encodes XML contents in the configured {@link #getFormat()} for writing */
+    private String encodeForStore(String contents) {
+        return (format == MementoFormat.COMPACT) ? CompactMementoSerializer.encode(contents) : CompactMementoSerializer.decode(contents);
     }
 
     private void persist(String subPath, Memento memento, PersistenceExceptionHandler exceptionHandler) {
         try {
-            getWriter(getPath(subPath, memento.getId())).put(getSerializerWithStandardClassLoader().toString(memento));
+            getWriter(getPath(subPath, memento.getId())).put(encodeForStore(getSerializerWithStandardClassLoader().toString(memento)));
         } catch (Exception e) {
             exceptionHandler.onPersistMementoFailed(memento, e);
         }
@@ -654,7 +696,7 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             if (content==null) {
                 LOG.warn("Null content for "+type+" "+id);
             }
-            getWriter(getPath(subPath, id)).put(content);
+            getWriter(getPath(subPath, id)).put(encodeForStore(content));
         } catch (Exception e) {
             exceptionHandler.onPersistRawMementoFailed(type, id, e);
         }
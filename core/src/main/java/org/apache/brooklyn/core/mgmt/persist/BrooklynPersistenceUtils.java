@@ -41,10 +41,12 @@ import org.apache.brooklyn.api.sensor.Enricher;
 import org.apache.brooklyn.api.sensor.Feed;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
 import org.apache.brooklyn.core.mgmt.ha.ManagementPlaneSyncRecordPersisterToObjectStore;
 import org.apache.brooklyn.core.mgmt.internal.LocalLocationManager;
 import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
 import org.apache.brooklyn.core.mgmt.rebind.PersistenceExceptionHandlerImpl;
+import org.apache.brooklyn.core.mgmt.rebind.RebindExceptionHandlerImpl;
 import org.apache.brooklyn.core.mgmt.rebind.transformer.CompoundTransformer;
 import org.apache.brooklyn.core.mgmt.rebind.transformer.CompoundTransformerLoader;
 import org.apache.brooklyn.core.objs.BrooklynObjectInternal;
@@ -111,6 +113,30 @@ public class BrooklynPersistenceUtils {
         persister.checkpoint(memento, exceptionHandler);
     }
 
+    /**
+     * Rewrites every memento in the given store in the given format, e.g. to migrate existing state to
+     * {@link MementoFormat#COMPACT} (or back to XML) in one pass rather than as items change.
+     * The store may contain a mix of formats beforehand. 
+     * It should not be used on a store which a running server is writing to; copy-state to a new
+     * store with {@link BrooklynMementoPersisterToObjectStore#PERSISTER_FORMAT} set is an alternative.
+     */
+    public static void convertFormat(ManagementContext managementContext, PersistenceObjectStore objectStore, MementoFormat targetFormat) {
+        BrooklynProperties properties = BrooklynProperties.Factory.newEmpty()
+            .addFrom(((ManagementContextInternal)managementContext).getBrooklynProperties());
+        properties.put(BrooklynMementoPersisterToObjectStore.PERSISTER_FORMAT, targetFormat);
+        BrooklynMementoPersisterToObjectStore persister = new BrooklynMementoPersisterToObjectStore(
+            objectStore, properties, managementContext.getCatalogClassLoader());
+        try {
+            Stopwatch timer = Stopwatch.createStarted();
+            BrooklynMementoRawData memento = persister.loadMementoRawData(RebindExceptionHandlerImpl.builder().build());
+            persister.enableWriteAccess();
+            persister.checkpoint(memento, PersistenceExceptionHandlerImpl.builder().build());
+            log.info("Converted "+objectStore.getSummaryName()+" to "+targetFormat+" in "+Time.makeTimeStringRounded(timer));
+        } finally {
+            persister.stop(true);
+        }
+    }
+
     public static void writeManagerMemento(ManagementContext managementContext, ManagementPlaneSyncRecord optionalPlaneRecord,
             PersistenceObjectStore destinationObjectStore) {
         if (optionalPlaneRecord != null) {
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.persist;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.brooklyn.api.mgmt.rebind.mementos.BrooklynMementoPersister.LookupContext;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Writes mementos in a compact, versioned encoding: the XML produced by the delegate is deflated
+ * and base64-encoded behind a {@link #HEADER}. The XML is still the canonical form, so class renames
+ * from {@link DeserializingClassRenamesProvider} and all XStream converters apply exactly as for
+ * {@link XmlMementoSerializer}; and the result is text, so it works with every {@link PersistenceObjectStore}.
+ * <p>
+ * {@link #fromString(String)} detects the format, so plain XML written by older versions still loads.
+ * Use {@link #encode(String)} and {@link #decode(String)} to convert raw contents without deserializing.
+ */
+public class CompactMementoSerializer<T> implements MementoSerializer<T> {
+
+    public static final int VERSION = 1;
+    static final String HEADER_PREFIX = "#BRMZ";
+    public static final String HEADER = HEADER_PREFIX+VERSION+":";
+
+    private final MementoSerializer<T> delegate;
+
+    public CompactMementoSerializer(MementoSerializer<T> delegate) {
+        this.delegate = checkNotNull(delegate, "delegate");
+    }
+
+    @Override
+    public String toString(T memento) {
+        return encode(delegate.toString(memento));
+    }
+
+    @Override
+    public T fromString(String string) {
+        return delegate.fromString(decode(string));
+    }
+
+    @Override
+    public void setLookupContext(LookupContext lookupContext) {
+        delegate.setLookupContext(lookupContext);
+    }
+
+    @Override
+    public void unsetLookupContext() {
+        delegate.unsetLookupContext();
+    }
+
+    /** true if the given contents were written in the compact format (of any version) */
+    public static boolean isCompact(String contents) {
+        return contents!=null && contents.startsWith(HEADER_PREFIX);
+    }
+
+    /** encodes the given (XML) contents in the compact format; contents which are already compact are returned unchanged */
+    public static String encode(String contents) {
+        if (contents==null || isCompact(contents)) return contents;
+        
+        byte[] input = contents.getBytes(Charsets.UTF_8);
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length/4));
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return HEADER + BaseEncoding.base64().encode(out.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** returns the XML for the given contents, decoding them if they are in the compact format */
+    public static String decode(String contents) {
+        if (!isCompact(contents)) return contents;
+        if (!contents.startsWith(HEADER)) {
+            int end = contents.indexOf(':');
+            throw new IllegalStateException("Unsupported memento encoding '"+contents.substring(0, end>0 ? end : Math.min(contents.length(), HEADER.length()))
+                + "'; this version supports "+HEADER+" or plain XML");
+        }
+        
+        byte[] input = BaseEncoding.base64().decode(contents.substring(HEADER.length()));
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length*4);
+            byte[] buf = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buf);
+                if (count==0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compact memento ("+input.length+" bytes)");
+                }
+                out.write(buf, 0, count);
+            }
+            return new String(out.toByteArray(), Charsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -32,6 +32,10 @@ public class PersistenceActivityMetrics {
     long count=0, failureCount=0;
     Long lastSuccessTime, lastDuration, lastFailureTime;
     List<Map<String,Object>> errorMessages = MutableList.of();
+    Map<String,Long> lastPhaseDurations = MutableMap.of();
+    // write-behind, only set if used
+    Map<String,Object> writeBehind = null;
+    long writeBehindWrittenCount = 0, writeBehindDeferredCount = 0;
 
     public void noteSuccess(Duration duration) {
         count++;
@@ -46,6 +50,33 @@ public class PersistenceActivityMetrics {
         lastDuration = duration!=null ? duration.toMilliseconds() : -1;
     }
 
+    /** records the duration of each named phase of the last activity, e.g. rebind, replacing previous values */
+    public synchronized void notePhaseDurations(Map<String,Duration> phaseDurations) {
+        Map<String,Long> result = MutableMap.of();
+        for (Map.Entry<String,Duration> entry: phaseDurations.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toMilliseconds());
+        }
+        lastPhaseDurations = result;
+    }
+
+    /** records a write-behind batch, and the back-pressure remaining after it:
+     * @param batchSize number of items taken for writing
+     * @param pending number of changed items still waiting to be written
+     * @param deferred number of those which were due but did not fit in the batch
+     * @param oldestPendingAgeMillis how long the longest-waiting item has been waiting */
+    public synchronized void noteWriteBehind(int batchSize, int pending, int deferred, long oldestPendingAgeMillis) {
+        writeBehindWrittenCount += batchSize;
+        writeBehindDeferredCount += deferred;
+        Map<String,Object> result = MutableMap.of();
+        result.put("lastBatchSize", batchSize);
+        result.put("pendingCount", pending);
+        result.put("dueButDeferredCount", deferred);
+        result.put("oldestPendingAgeMillis", oldestPendingAgeMillis);
+        result.put("totalWrittenCount", writeBehindWrittenCount);
+        result.put("totalDeferredCount", writeBehindDeferredCount);
+        writeBehind = result;
+    }
+
     public void noteError(String error) {
         noteErrorObject(error);
     }
@@ -72,6 +103,8 @@ public class PersistenceActivityMetrics {
         result.put("lastFailureTimeUtc", lastFailureTime);
         result.put("lastFailureTimeMillisSince", since(lastFailureTime));
         result.put("errorMessages", MutableList.copyOf(errorMessages));
+        result.put("lastPhaseDurations", MutableMap.copyOf(lastPhaseDurations));
+        if (writeBehind!=null) result.put("writeBehind", MutableMap.copyOf(writeBehind));
         return result;
     }
 
@@ -19,7 +19,9 @@
 package org.apache.brooklyn.core.mgmt.rebind;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Semaphore;
@@ -63,6 +65,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
@@ -74,6 +77,13 @@ import com.google.common.collect.Sets;
  * prevent hammering the persister when a bunch of entity attributes change (e.g. when the entity
  * has just polled over JMX/http/etc). Such a scheduled-write approach would be similar to the 
  * Nagle buffering algorithm in TCP (see tcp_nodelay).
+ * <p>
+ * That is available as the write-behind mode, enabled by giving a positive {@code writeBehindWindow}
+ * (see {@link RebindManagerImpl#PERSIST_WRITE_BEHIND_WINDOW}): each changed object is written once it has been 
+ * dirty for a full period, however often it changed in the meantime, by a task which runs 
+ * {@link #WRITE_BEHIND_TICKS_PER_PERIOD} times per period and writes at most {@code writeBehindWindow} objects each time.
+ * Writes are therefore spread out rather than done in one burst per period; if more objects are due than fit 
+ * in the window they wait for subsequent ticks, and that back-pressure is reported in {@link PersistenceActivityMetrics}.
  * 
  * @author aled
  *
@@ -85,7 +95,13 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     protected final AtomicLong checkpointLogCount = new AtomicLong();
     private static final int INITIAL_LOG_WRITES = 5;
 
+    /** number of times per period the write-behind task runs, if enabled */
+    public static final int WRITE_BEHIND_TICKS_PER_PERIOD = 10;
+
     private static class DeltaCollector {
+        /** when each changed object first became dirty since it was last extracted, in that order; only if tracking change times */
+        private final Map<BrooklynObject, Long> firstChangedNanos;
+        
         private Set<Location> locations = Sets.newLinkedHashSet();
         private Set<Entity> entities = Sets.newLinkedHashSet();
         private Set<Policy> policies = Sets.newLinkedHashSet();
@@ -100,6 +116,10 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
         private Set<String> removedFeedIds = Sets.newLinkedHashSet();
         private Set<String> removedCatalogItemIds = Sets.newLinkedHashSet();
 
+        DeltaCollector(boolean trackChangeTimes) {
+            firstChangedNanos = trackChangeTimes ? Maps.<BrooklynObject, Long>newLinkedHashMap() : null;
+        }
+        
         public boolean isEmpty() {
             return locations.isEmpty() && entities.isEmpty() && policies.isEmpty() && 
                     enrichers.isEmpty() && feeds.isEmpty() &&
@@ -112,6 +132,9 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
         public void add(BrooklynObject instance) {
             BrooklynObjectType type = BrooklynObjectType.of(instance);
             getUnsafeCollectionOfType(type).add(instance);
+            if (firstChangedNanos!=null && !firstChangedNanos.containsKey(instance)) {
+                firstChangedNanos.put(instance, System.nanoTime());
+            }
             if (type==BrooklynObjectType.CATALOG_ITEM) {
                 removedCatalogItemIds.remove(instance.getId());
             }
@@ -128,6 +151,49 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
             BrooklynObjectType type = BrooklynObjectType.of(instance);
             getUnsafeCollectionOfType(type).remove(instance);
             getRemovedIdsOfType(type).add(instance.getId());
+            if (firstChangedNanos!=null) firstChangedNanos.remove(instance);
+        }
+
+        /**
+         * Moves into a new collector up to {@code max} of the objects which first changed at or before the cutoff
+         * (oldest first), along with all removals. Requires change times to be tracked.
+         */
+        public DeltaCollector extractDue(long cutoffNanos, int max) {
+            DeltaCollector result = new DeltaCollector(false);
+            Iterator<Map.Entry<BrooklynObject, Long>> iter = firstChangedNanos.entrySet().iterator();
+            while (iter.hasNext() && max-- > 0) {
+                Map.Entry<BrooklynObject, Long> entry = iter.next();
+                if (entry.getValue() - cutoffNanos > 0) break;
+                BrooklynObject instance = entry.getKey();
+                iter.remove();
+                BrooklynObjectType type = BrooklynObjectType.of(instance);
+                getUnsafeCollectionOfType(type).remove(instance);
+                result.getUnsafeCollectionOfType(type).add(instance);
+            }
+            for (BrooklynObjectType type: BrooklynPersistenceUtils.STANDARD_BROOKLYN_OBJECT_TYPE_PERSISTENCE_ORDER) {
+                result.getRemovedIdsOfType(type).addAll(getRemovedIdsOfType(type));
+                getRemovedIdsOfType(type).clear();
+            }
+            return result;
+        }
+
+        /** number of objects which first changed at or before the cutoff; requires change times to be tracked */
+        public int countDue(long cutoffNanos) {
+            int result = 0;
+            for (Long changed : firstChangedNanos.values()) {
+                if (changed - cutoffNanos > 0) break;
+                result++;
+            }
+            return result;
+        }
+
+        /** when the longest-waiting object first changed, or null if none; requires change times to be tracked */
+        public Long oldestChangeNanos() {
+            return firstChangedNanos.isEmpty() ? null : firstChangedNanos.values().iterator().next();
+        }
+        
+        public int pendingCount() {
+            return firstChangedNanos.size();
         }
 
         @SuppressWarnings("unchecked")
@@ -170,8 +236,11 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     private final PersistenceExceptionHandler exceptionHandler;
     
     private final Duration period;
+    
+    /** max objects written per write-behind tick, or 0 to write everything changed once per period */
+    private final int writeBehindWindow;
         
-    private DeltaCollector deltaCollector = new DeltaCollector();
+    private DeltaCollector deltaCollector;
 
     private enum ListenerState { INIT, RUNNING, STOPPING, STOPPED } 
     private volatile ListenerState state = ListenerState.INIT;
@@ -189,17 +258,31 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     private PersistenceActivityMetrics metrics;
     
     public PeriodicDeltaChangeListener(ExecutionContext executionContext, BrooklynMementoPersister persister, PersistenceExceptionHandler exceptionHandler, PersistenceActivityMetrics metrics, Duration period) {
+        this(executionContext, persister, exceptionHandler, metrics, period, 0);
+    }
+    
+    public PeriodicDeltaChangeListener(ExecutionContext executionContext, BrooklynMementoPersister persister, PersistenceExceptionHandler exceptionHandler, PersistenceActivityMetrics metrics, Duration period, int writeBehindWindow) {
         this.executionContext = executionContext;
         this.persister = persister;
         this.exceptionHandler = exceptionHandler;
         this.metrics = metrics;
         this.period = period;
+        this.writeBehindWindow = Math.max(0, writeBehindWindow);
+        this.deltaCollector = newDeltaCollector();
         
         this.persistPoliciesEnabled = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_POLICY_PERSISTENCE_PROPERTY);
         this.persistEnrichersEnabled = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_ENRICHER_PERSISTENCE_PROPERTY);
         this.persistFeedsEnabled = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_FEED_PERSISTENCE_PROPERTY);
     }
     
+    private boolean isWriteBehind() {
+        return writeBehindWindow > 0;
+    }
+    
+    private DeltaCollector newDeltaCollector() {
+        return new DeltaCollector(isWriteBehind());
+    }
+    
     public void start() {
         synchronized (startStopMutex) {
             if (state==ListenerState.RUNNING || (scheduledTask!=null && !scheduledTask.isDone())) {
@@ -212,13 +295,14 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
                 @Override public Task<Void> call() {
                     return Tasks.<Void>builder().dynamic(false).displayName("periodic-persister").body(new Callable<Void>() {
                         public Void call() {
-                            persistNowSafely();
+                            persistNowSafely(false, false);
                             return null;
                         }}).build();
                 }
             };
+            Duration tick = isWriteBehind() ? Duration.millis(Math.max(10, period.toMilliseconds()/WRITE_BEHIND_TICKS_PER_PERIOD)) : period;
             scheduledTask = (ScheduledTask) executionContext.submit(new ScheduledTask(MutableMap.of("displayName", "scheduled[periodic-persister]",
-                "tags", MutableSet.of(BrooklynTaskTags.TRANSIENT_TASK_TAG)), taskFactory).period(period).delay(period));
+                "tags", MutableSet.of(BrooklynTaskTags.TRANSIENT_TASK_TAG)), taskFactory).period(tick).delay(tick));
         }
     }
 
@@ -250,7 +334,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
 
                 // Discard all state that was waiting to be persisted
                 synchronized (this) {
-                    deltaCollector = new DeltaCollector();
+                    deltaCollector = newDeltaCollector();
                 }
             } finally {
                 state = ListenerState.STOPPED;
@@ -272,7 +356,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
                 if (!deltaCollector.isEmpty()) {
                     if (canTrigger) {
                         // but there is data that needs to be written
-                        persistNowSafely(true);
+                        persistNowSafely(true, true);
                     } else {
                         targetWriteCount = writeCount.get()+1;
                     }
@@ -281,7 +365,8 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
                 persistingMutex.release();
             }
             if (targetWriteCount!=null) {
-                while (writeCount.get() <= targetWriteCount) {
+                // in write-behind mode a single write may only take some of the changes, so wait for all
+                while (writeCount.get() <= targetWriteCount || (isWriteBehind() && !isCollectorEmpty())) {
                     Duration left = timer.getDurationRemaining();
                     if (left.isPositive()) {
                         synchronized(writeCount) {
@@ -298,6 +383,10 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
         }
     }
 
+    private synchronized boolean isCollectorEmpty() {
+        return deltaCollector.isEmpty();
+    }
+
     /**
      * Indicates whether persistence is active. 
      * Even when not active, changes will still be tracked unless {@link #isStopped()}.
@@ -343,13 +432,14 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     
     @VisibleForTesting
     public boolean persistNowSafely() {
-        return persistNowSafely(false);
+        return persistNowSafely(false, true);
     }
     
-    private boolean persistNowSafely(boolean alreadyHasMutex) {
+    /** @param flushAll whether to write all changes, or in write-behind mode only those which are due */
+    private boolean persistNowSafely(boolean alreadyHasMutex, boolean flushAll) {
         Stopwatch timer = Stopwatch.createStarted();
         try {
-            persistNowInternal(alreadyHasMutex);
+            persistNowInternal(alreadyHasMutex, flushAll);
             metrics.noteSuccess(Duration.of(timer));
             return true;
         } catch (RuntimeInterruptedException e) {
@@ -374,6 +464,10 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     }
     
     protected void persistNowInternal(boolean alreadyHasMutex) {
+        persistNowInternal(alreadyHasMutex, true);
+    }
+    
+    protected void persistNowInternal(boolean alreadyHasMutex, boolean flushAll) {
         if (!isActive() && state != ListenerState.STOPPING) {
             return;
         }
@@ -385,8 +479,20 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
             // next scheduled persist
             DeltaCollector prevDeltaCollector;
             synchronized (this) {
-                prevDeltaCollector = deltaCollector;
-                deltaCollector = new DeltaCollector();
+                if (flushAll || !isWriteBehind()) {
+                    prevDeltaCollector = deltaCollector;
+                    deltaCollector = newDeltaCollector();
+                } else {
+                    long now = System.nanoTime();
+                    long cutoff = now - period.toNanoseconds();
+                    prevDeltaCollector = deltaCollector.extractDue(cutoff, writeBehindWindow);
+                    Long oldest = deltaCollector.oldestChangeNanos();
+                    metrics.noteWriteBehind(prevDeltaCollector.entities.size() + prevDeltaCollector.locations.size() 
+                                + prevDeltaCollector.policies.size() + prevDeltaCollector.enrichers.size() 
+                                + prevDeltaCollector.feeds.size() + prevDeltaCollector.catalogItems.size(),
+                            deltaCollector.pendingCount(), deltaCollector.countDue(cutoff),
+                            oldest==null ? 0 : TimeUnit.NANOSECONDS.toMillis(now - oldest));
+                }
             }
             
             if (LOG.isDebugEnabled() && shouldLogCheckpoint()) LOG.debug("Checkpointing delta of memento: "
@@ -26,7 +26,12 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -36,6 +41,7 @@ import org.apache.brooklyn.api.entity.Application;
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.location.Location;
 import org.apache.brooklyn.api.mgmt.classloading.BrooklynClassLoadingContext;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
 import org.apache.brooklyn.api.mgmt.ha.ManagementNodeState;
 import org.apache.brooklyn.api.mgmt.rebind.RebindContext;
 import org.apache.brooklyn.api.mgmt.rebind.RebindExceptionHandler;
@@ -73,6 +79,7 @@ import org.apache.brooklyn.core.feed.AbstractFeed;
 import org.apache.brooklyn.core.location.AbstractLocation;
 import org.apache.brooklyn.core.location.internal.LocationInternal;
 import org.apache.brooklyn.core.mgmt.classloading.JavaBrooklynClassLoadingContext;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
 import org.apache.brooklyn.core.mgmt.internal.BrooklynObjectManagementMode;
 import org.apache.brooklyn.core.mgmt.internal.BrooklynObjectManagerInternal;
 import org.apache.brooklyn.core.mgmt.internal.EntityManagerInternal;
@@ -103,8 +110,10 @@ import org.apache.brooklyn.util.time.Time;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -127,6 +136,14 @@ Multi-phase deserialization:
 <li> 8. manage the entities
 </ul>
 
+ The time taken by each phase is recorded in {@link #getPhaseDurations()} and reported in the rebind metrics.
+ If {@link RebindManagerImpl#REBIND_PARALLELISM} is greater than 1, entity reconstruction (6), adjunct association (7)
+ and management (8) are done concurrently for independent application subtrees
+ (as partitioned by {@link TreeUtils#groupByRoot(Map, com.google.common.base.Function)}), so an application is available
+ as soon as its own subtree is managed rather than when the whole estate is. Applications whose entities refer to each
+ other (group members, relations, or entities in config, sensors or adjunct config) are kept in the same subtree.
+ 
+
  If underlying data-store is changed between first and second manifest read (e.g. to add an
  entity), then second phase might try to reconstitute an entity that has not been put in
  the rebindContext. This should not affect normal production usage, because rebind is run
@@ -170,6 +187,8 @@ public abstract class RebindIteration {
     protected final RebindContextImpl rebindContext;
     protected final Reflections reflections;
     protected final BrooklynObjectInstantiator instantiator;
+    /** max number of independent subtrees to process concurrently; see {@link RebindManagerImpl#REBIND_PARALLELISM} */
+    protected final int parallelism;
     
     // populated in the course of a run
     
@@ -179,6 +198,10 @@ public abstract class RebindIteration {
     /** phase is used to ensure our steps are run as we've expected, and documented (in javadoc at top).
      * it's worth the extra effort due to the complication and the subtleties. */
     protected int phase = 0;
+    private static final String[] PHASE_NAMES = { "loadManifestFiles", "rebuildCatalog", "instantiateLocationsAndEntities", 
+        "instantiateMementos", "instantiateAdjuncts", "reconstructEverything", "associateAdjunctsWithEntities", "manageTheObjects" };
+    private Stopwatch phaseTimer;
+    protected final Map<String, Duration> phaseDurations = MutableMap.of();
 
     // set in first phase
     
@@ -190,6 +213,7 @@ public abstract class RebindIteration {
     // set later on
     
     protected BrooklynMemento memento;
+    private List<Map<String, EntityMemento>> entityPartitions;
 
     // set near the end
     
@@ -218,6 +242,8 @@ public abstract class RebindIteration {
         rebindContext = new RebindContextImpl(managementContext, exceptionHandler, classLoader);
         reflections = new Reflections(classLoader).applyClassRenames(DeserializingClassRenamesProvider.loadDeserializingClassRenames());
         instantiator = new BrooklynObjectInstantiator(classLoader, rebindContext, reflections);
+        Integer configuredParallelism = managementContext.getConfig().getConfig(RebindManagerImpl.REBIND_PARALLELISM);
+        parallelism = (configuredParallelism==null || configuredParallelism<1) ? 1 : configuredParallelism;
         
         if (mode==ManagementNodeState.HOT_STANDBY || mode==ManagementNodeState.HOT_BACKUP) {
             rebindContext.setAllReadOnly();
@@ -234,6 +260,11 @@ public abstract class RebindIteration {
         return rebindContext;
     }
     
+    /** time taken by each phase completed so far, keyed by phase name, in phase order */
+    public Map<String, Duration> getPhaseDurations() {
+        return ImmutableMap.copyOf(phaseDurations);
+    }
+    
     protected void doRun() throws Exception {
         loadManifestFiles();
         rebuildCatalog();
@@ -268,10 +299,12 @@ public abstract class RebindIteration {
             exceptionHandler.onDone();
             
             rebindMetrics.noteSuccess(Duration.of(timer));
+            rebindMetrics.notePhaseDurations(phaseDurations);
             noteErrors(exceptionHandler, null);
             
         } catch (Exception e) {
             rebindMetrics.noteFailure(Duration.of(timer));
+            rebindMetrics.notePhaseDurations(phaseDurations);
             
             Exceptions.propagateIfFatal(e);
             noteErrors(exceptionHandler, e);
@@ -284,8 +317,17 @@ public abstract class RebindIteration {
     }
     
     protected void checkEnteringPhase(int targetPhase) {
+        notePhaseCompleted();
         phase++;
         checkContinuingPhase(targetPhase);
+        phaseTimer = Stopwatch.createStarted();
+    }
+    private void notePhaseCompleted() {
+        if (phaseTimer!=null && phase>0) {
+            String name = (phase <= PHASE_NAMES.length) ? PHASE_NAMES[phase-1] : "phase"+phase;
+            phaseDurations.put(name, Duration.of(phaseTimer));
+            phaseTimer = null;
+        }
     }
     protected void checkContinuingPhase(int targetPhase) {
         if (targetPhase!=phase)
@@ -611,20 +653,31 @@ public abstract class RebindIteration {
    
         // Reconstruct entities
         logRebindingDebug("RebindManager reconstructing entities");
-        for (EntityMemento entityMemento : sortParentFirst(memento.getEntityMementos()).values()) {
-            Entity entity = rebindContext.lookup().lookupEntity(entityMemento.getId());
-            logRebindingDebug("RebindManager reconstructing entity {}", entityMemento);
-   
-            if (entity == null) {
-                // usually because of creation-failure, when not using fail-fast
-                exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, entityMemento.getId());
-            } else {
-                try {
-                    entityMemento.injectTypeClass(entity.getClass());
-                    ((EntityInternal)entity).getRebindSupport().reconstruct(rebindContext, entityMemento);
-                } catch (Exception e) {
-                    exceptionHandler.onRebindFailed(BrooklynObjectType.ENTITY, entity, e);
-                }
+        List<Runnable> jobs = Lists.newArrayList();
+        for (final Map<String, EntityMemento> tree : partitionEntityMementos()) {
+            jobs.add(new Runnable() {
+                @Override public void run() {
+                    for (EntityMemento entityMemento : tree.values()) {
+                        reconstructEntity(entityMemento);
+                    }
+                }});
+        }
+        runForEachTree(jobs);
+    }
+
+    private void reconstructEntity(EntityMemento entityMemento) {
+        Entity entity = rebindContext.lookup().lookupEntity(entityMemento.getId());
+        logRebindingDebug("RebindManager reconstructing entity {}", entityMemento);
+
+        if (entity == null) {
+            // usually because of creation-failure, when not using fail-fast
+            exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, entityMemento.getId());
+        } else {
+            try {
+                entityMemento.injectTypeClass(entity.getClass());
+                ((EntityInternal)entity).getRebindSupport().reconstruct(rebindContext, entityMemento);
+            } catch (Exception e) {
+                exceptionHandler.onRebindFailed(BrooklynObjectType.ENTITY, entity, e);
             }
         }
     }
@@ -634,24 +687,35 @@ public abstract class RebindIteration {
         checkEnteringPhase(7);
 
         logRebindingDebug("RebindManager associating adjuncts to entities");
-        for (EntityMemento entityMemento : sortParentFirst(memento.getEntityMementos()).values()) {
-            Entity entity = rebindContext.getEntity(entityMemento.getId());
-            logRebindingDebug("RebindManager associating adjuncts to entity {}", entityMemento);
-   
-            if (entity == null) {
-                // usually because of creation-failure, when not using fail-fast
-                exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, entityMemento.getId());
-            } else {
-                try {
-                    entityMemento.injectTypeClass(entity.getClass());
-                    // TODO these call to the entity which in turn sets the entity on the underlying feeds and enrichers;
-                    // that is taken as the cue to start, but it should not be. start should be a separate call.
-                    ((EntityInternal)entity).getRebindSupport().addPolicies(rebindContext, entityMemento);
-                    ((EntityInternal)entity).getRebindSupport().addEnrichers(rebindContext, entityMemento);
-                    ((EntityInternal)entity).getRebindSupport().addFeeds(rebindContext, entityMemento);
-                } catch (Exception e) {
-                    exceptionHandler.onRebindFailed(BrooklynObjectType.ENTITY, entity, e);
-                }
+        List<Runnable> jobs = Lists.newArrayList();
+        for (final Map<String, EntityMemento> tree : partitionEntityMementos()) {
+            jobs.add(new Runnable() {
+                @Override public void run() {
+                    for (EntityMemento entityMemento : tree.values()) {
+                        associateAdjunctsWithEntity(entityMemento);
+                    }
+                }});
+        }
+        runForEachTree(jobs);
+    }
+
+    private void associateAdjunctsWithEntity(EntityMemento entityMemento) {
+        Entity entity = rebindContext.getEntity(entityMemento.getId());
+        logRebindingDebug("RebindManager associating adjuncts to entity {}", entityMemento);
+
+        if (entity == null) {
+            // usually because of creation-failure, when not using fail-fast
+            exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, entityMemento.getId());
+        } else {
+            try {
+                entityMemento.injectTypeClass(entity.getClass());
+                // TODO these call to the entity which in turn sets the entity on the underlying feeds and enrichers;
+                // that is taken as the cue to start, but it should not be. start should be a separate call.
+                ((EntityInternal)entity).getRebindSupport().addPolicies(rebindContext, entityMemento);
+                ((EntityInternal)entity).getRebindSupport().addEnrichers(rebindContext, entityMemento);
+                ((EntityInternal)entity).getRebindSupport().addFeeds(rebindContext, entityMemento);
+            } catch (Exception e) {
+                exceptionHandler.onRebindFailed(BrooklynObjectType.ENTITY, entity, e);
             }
         }
     }
@@ -683,7 +747,7 @@ public abstract class RebindIteration {
         
         // Manage the top-level apps (causing everything under them to become managed)
         logRebindingDebug("RebindManager managing entities");
-        EntityManagerInternal entityManager = (EntityManagerInternal)managementContext.getEntityManager();
+        final EntityManagerInternal entityManager = (EntityManagerInternal)managementContext.getEntityManager();
         Set<String> oldEntities = Sets.newLinkedHashSet(entityManager.getEntityIds());
         for (Entity entity: rebindContext.getEntities()) {
             ManagementTransitionMode oldMode = updateTransitionMode(entityManager, entity);
@@ -691,21 +755,38 @@ public abstract class RebindIteration {
                 oldEntities.remove(entity.getId());
         }
         List<Application> apps = Lists.newArrayList();
+        // roots in the same partition are managed together, in order, as they may refer to each other
+        List<Map<String, EntityMemento>> trees = partitionEntityMementos();
+        List<List<Entity>> rootsByTree = Lists.newArrayList();
+        for (int i = 0; i < Math.max(1, trees.size()); i++) {
+            rootsByTree.add(Lists.<Entity>newArrayList());
+        }
         for (String rootId : getMementoRootEntities()) {
             Entity entity = rebindContext.getEntity(rootId);
             if (entity == null) {
                 // usually because of creation-failure, when not using fail-fast
                 exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, rootId);
             } else {
-                try {
-                    entityManager.manageRebindedRoot(entity);
-                } catch (Exception e) {
-                    exceptionHandler.onManageFailed(BrooklynObjectType.ENTITY, entity, e);
-                }
+                rootsByTree.get(indexOfTree(trees, rootId)).add(entity);
                 if (entity instanceof Application)
                     apps.add((Application)entity);
             }
         }
+        List<Runnable> jobs = Lists.newArrayList();
+        for (final List<Entity> roots : rootsByTree) {
+            if (roots.isEmpty()) continue;
+            jobs.add(new Runnable() {
+                @Override public void run() {
+                    for (Entity entity : roots) {
+                        try {
+                            entityManager.manageRebindedRoot(entity);
+                        } catch (Exception e) {
+                            exceptionHandler.onManageFailed(BrooklynObjectType.ENTITY, entity, e);
+                        }
+                    }
+                }});
+        }
+        runForEachTree(jobs);
         cleanupOldEntities(oldEntities);
 
         this.applications = apps;
@@ -749,6 +830,7 @@ public abstract class RebindIteration {
     protected void finishingUp() {
         
         checkContinuingPhase(8);
+        notePhaseCompleted();
         
         if (!isEmpty) {
             BrooklynLogging.log(LOG, shouldLogRebinding() ? LoggingLevel.INFO : LoggingLevel.DEBUG, 
@@ -766,6 +848,7 @@ public abstract class RebindIteration {
 
         // Return the top-level applications
         logRebindingDebug("RebindManager complete; apps: {}", getMementoRootEntities());
+        logRebindingDebug("RebindManager phase durations (parallelism {}): {}", parallelism, phaseDurations);
     }
 
     protected void noteErrors(final RebindExceptionHandler exceptionHandler, Exception primaryException) {
@@ -1167,6 +1250,136 @@ public abstract class RebindIteration {
         return RebindManagerImpl.sortParentFirst(nodes);
     }
 
+    /** whether independent subtrees are processed concurrently; never when rebinding active items again */
+    protected boolean isParallel() {
+        return parallelism > 1 && !isRebindingActiveAgain();
+    }
+
+    /**
+     * Entity mementos as independent parent-first subtrees if {@link #isParallel()}, otherwise as a single parent-first group.
+     * Subtrees whose entities refer to each other (see {@link #entityReferences(EntityMemento)}) are merged,
+     * as reconstructing or managing one touches the other.
+     */
+    protected List<Map<String, EntityMemento>> partitionEntityMementos() {
+        if (entityPartitions == null) {
+            if (!isParallel()) {
+                entityPartitions = ImmutableList.of(sortParentFirst(memento.getEntityMementos()));
+            } else {
+                entityPartitions = ImmutableList.copyOf(TreeUtils.groupByRoot(memento.getEntityMementos(), new Function<EntityMemento, Set<String>>() {
+                    @Override public Set<String> apply(EntityMemento input) {
+                        return entityReferences(input);
+                    }}).values());
+            }
+        }
+        return entityPartitions;
+    }
+
+    private static int indexOfTree(List<Map<String, EntityMemento>> trees, String id) {
+        for (int i = 0; i < trees.size(); i++) {
+            if (trees.get(i).containsKey(id)) return i;
+        }
+        return 0;
+    }
+
+    /**
+     * Ids of the other entities referred to by the given entity's memento: its members and relations,
+     * and entities in its config, sensors and custom fields and in the config of its policies, enrichers and feeds
+     * (e.g. an enricher's producer). Only needs to be in memento form, as entity references have been resolved by then.
+     */
+    protected Set<String> entityReferences(EntityMemento entityMemento) {
+        Set<String> result = Sets.newLinkedHashSet();
+        result.addAll(entityMemento.getMembers());
+        for (Set<String> targets : entityMemento.getRelations().values()) {
+            result.addAll(targets);
+        }
+        Set<Object> visited = Sets.newIdentityHashSet();
+        collectEntityIds(entityMemento.getConfig(), result, visited);
+        collectEntityIds(entityMemento.getConfigUnmatched(), result, visited);
+        collectEntityIds(entityMemento.getAttributes(), result, visited);
+        collectEntityIds(entityMemento.getCustomFields(), result, visited);
+        for (String id : entityMemento.getPolicies()) {
+            PolicyMemento adjunctMemento = memento.getPolicyMemento(id);
+            if (adjunctMemento != null) collectEntityIds(adjunctMemento.getConfig(), result, visited);
+        }
+        for (String id : entityMemento.getEnrichers()) {
+            EnricherMemento adjunctMemento = memento.getEnricherMemento(id);
+            if (adjunctMemento != null) collectEntityIds(adjunctMemento.getConfig(), result, visited);
+        }
+        for (String id : entityMemento.getFeeds()) {
+            FeedMemento adjunctMemento = memento.getFeedMemento(id);
+            if (adjunctMemento != null) collectEntityIds(adjunctMemento.getConfig(), result, visited);
+        }
+        result.remove(entityMemento.getId());
+        return result;
+    }
+
+    private static void collectEntityIds(Object value, Set<String> ids, Set<Object> visited) {
+        if (value == null || !visited.add(value)) return;
+        if (value instanceof Entity) {
+            ids.add(((Entity)value).getId());
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                collectEntityIds(entry.getKey(), ids, visited);
+                collectEntityIds(entry.getValue(), ids, visited);
+            }
+        } else if (value instanceof Iterable) {
+            for (Object o : (Iterable<?>)value) {
+                collectEntityIds(o, ids, visited);
+            }
+        } else if (value instanceof Object[]) {
+            for (Object o : (Object[])value) {
+                collectEntityIds(o, ids, visited);
+            }
+        }
+    }
+
+    /**
+     * Runs the given jobs, each of which must only touch its own independent subtree. 
+     * If {@link #isParallel()} they are run on a pool of up to {@link #parallelism} threads,
+     * otherwise in order in the calling thread. Returns when all have completed,
+     * throwing the first failure (e.g. from a fail-fast exception handler).
+     */
+    protected void runForEachTree(List<Runnable> jobs) {
+        if (!isParallel() || jobs.size() <= 1) {
+            for (Runnable job : jobs) {
+                job.run();
+            }
+            return;
+        }
+        
+        final EntitlementContext entitlementContext = Entitlements.getEntitlementContext();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, jobs.size()), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override public Thread newThread(Runnable r) {
+                return new Thread(r, "brooklyn-rebind-"+count.incrementAndGet());
+            }});
+        try {
+            List<Future<?>> futures = Lists.newArrayList();
+            for (final Runnable job : jobs) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override public void run() {
+                        RebindTracker.setRebinding();
+                        Entitlements.setEntitlementContext(entitlementContext);
+                        try {
+                            job.run();
+                        } finally {
+                            Entitlements.clearEntitlementContext();
+                            RebindTracker.reset();
+                        }
+                    }}));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /** logs at debug, except during subsequent read-only rebinds, in which it logs trace */
     protected void logRebindingDebug(String message, Object... args) {
         if (shouldLogRebinding()) {
@@ -110,6 +110,20 @@ public class RebindManagerImpl implements RebindManager {
                 + "then linear regression to allow max 5% at 100 items and above", 
                 QuorumChecks.newLinearRange("[[0,-2],[10,8],[100,95],[200,190]]"));
 
+    public static final ConfigKey<Integer> PERSIST_WRITE_BEHIND_WINDOW =
+            ConfigKeys.newIntegerConfigKey("rebind.persist.writeBehind.window",
+                    "If positive, persist changed items continuously rather than in a burst each persist period: "
+                    + "each item is written once it has been changed for a full period, with at most this many items "
+                    + "serialized and written each tenth of a period; 0 (the default) writes all changes once per period", 
+                    0);
+
+    public static final ConfigKey<Integer> REBIND_PARALLELISM =
+            ConfigKeys.newIntegerConfigKey("rebind.parallelism",
+                    "Number of independent application subtrees to reconstruct and manage concurrently on full rebind; "
+                    + "the default of 1 rebinds them one after another. Applications become visible (e.g. to a read-only REST API "
+                    + "on a hot standby) as soon as their own subtree is managed.", 
+                    1);
+
     public static final Logger LOG = LoggerFactory.getLogger(RebindManagerImpl.class);
 
     private final ManagementContextInternal managementContext;
@@ -237,7 +251,9 @@ public class RebindManagerImpl implements RebindManager {
         
         this.persistenceStoreAccess = checkNotNull(val, "persister");
         
-        this.persistenceRealChangeListener = new PeriodicDeltaChangeListener(managementContext.getServerExecutionContext(), persistenceStoreAccess, exceptionHandler, persistMetrics, periodicPersistPeriod);
+        Integer writeBehindWindow = managementContext.getConfig().getConfig(PERSIST_WRITE_BEHIND_WINDOW);
+        this.persistenceRealChangeListener = new PeriodicDeltaChangeListener(managementContext.getServerExecutionContext(), persistenceStoreAccess, exceptionHandler, persistMetrics, periodicPersistPeriod,
+                writeBehindWindow==null ? 0 : writeBehindWindow);
         this.persistencePublicChangeListener = new SafeChangeListener(persistenceRealChangeListener);
         
         if (persistenceRunning) {
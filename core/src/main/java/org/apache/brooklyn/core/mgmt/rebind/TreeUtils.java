@@ -21,10 +21,16 @@ package org.apache.brooklyn.core.mgmt.rebind;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.brooklyn.api.location.Location;
+import org.apache.brooklyn.api.mgmt.rebind.mementos.TreeNode;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 public class TreeUtils {
@@ -53,4 +59,68 @@ public class TreeUtils {
 
         return result;
     }
+
+    /**
+     * Partitions the given nodes into independent trees, keyed by the id of each tree's root
+     * (i.e. the top-most ancestor present in the map). Each tree is ordered parent-first,
+     * and the trees are in the iteration order of their roots.
+     */
+    public static <T extends TreeNode> Map<String, Map<String, T>> groupByRoot(Map<String, T> nodes) {
+        return groupByRoot(nodes, Functions.constant(ImmutableList.<String>of()));
+    }
+
+    /**
+     * As {@link #groupByRoot(Map)}, but trees are also merged where any node in one refers to a node in another,
+     * as given by the {@code references} function (ids not in the map are ignored). Each group is keyed by the id
+     * of its first root, and ordered parent-first.
+     */
+    public static <T extends TreeNode> Map<String, Map<String, T>> groupByRoot(Map<String, T> nodes, Function<? super T, ? extends Iterable<String>> references) {
+        Map<String, T> sortedNodes = RebindManagerImpl.sortParentFirst(nodes);
+        Map<String, String> rootIds = Maps.newHashMap();
+        Map<String, Integer> rootIndexes = Maps.newHashMap();
+        for (T node : sortedNodes.values()) {
+            String rootId = (node.getParent() == null) ? null : rootIds.get(node.getParent());
+            if (rootId == null) {
+                rootId = node.getId();
+                rootIndexes.put(rootId, rootIndexes.size());
+            }
+            rootIds.put(node.getId(), rootId);
+        }
+        
+        // union-find over the roots, always merging into the earlier root so the result is deterministic
+        Map<String, String> mergedRoots = Maps.newHashMap();
+        for (T node : sortedNodes.values()) {
+            for (String reference : references.apply(node)) {
+                if (!rootIds.containsKey(reference)) continue;
+                String root1 = findMergedRoot(mergedRoots, rootIds.get(node.getId()));
+                String root2 = findMergedRoot(mergedRoots, rootIds.get(reference));
+                if (root1.equals(root2)) continue;
+                if (rootIndexes.get(root1) < rootIndexes.get(root2)) {
+                    mergedRoots.put(root2, root1);
+                } else {
+                    mergedRoots.put(root1, root2);
+                }
+            }
+        }
+        
+        Map<String, Map<String, T>> result = Maps.newLinkedHashMap();
+        for (T node : sortedNodes.values()) {
+            String rootId = findMergedRoot(mergedRoots, rootIds.get(node.getId()));
+            Map<String, T> tree = result.get(rootId);
+            if (tree == null) {
+                tree = Maps.newLinkedHashMap();
+                result.put(rootId, tree);
+            }
+            tree.put(node.getId(), node);
+        }
+        return result;
+    }
+
+    private static String findMergedRoot(Map<String, String> mergedRoots, String rootId) {
+        String next;
+        while ((next = mergedRoots.get(rootId)) != null) {
+            rootId = next;
+        }
+        return rootId;
+    }
 }
@@ -23,9 +23,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.core.BrooklynFeatureEnablement;
 import org.apache.brooklyn.core.BrooklynLogging;
 import org.apache.brooklyn.core.entity.AbstractEntity;
 import org.apache.brooklyn.util.core.flags.TypeCoercions;
@@ -55,45 +58,66 @@ public final class AttributeMap {
 
     // Assumed to be something like a ConcurrentMap passed in.
     private final Map<Collection<String>, Object> values;
+    
+    /** true if {@link #values} is a {@link ConcurrentMap}, so reads need no lock and {@link #modify(AttributeSensor, Function)} uses compare-and-set */
+    private final boolean concurrent;
 
     /**
      * Creates a new AttributeMap.
+     * <p>
+     * Storage is a synchronized map, preserving insertion order; or, if 
+     * {@link BrooklynFeatureEnablement#FEATURE_CONCURRENT_ATTRIBUTE_MAP} is enabled, 
+     * a {@link ConcurrentHashMap} (unordered, with lock-free reads).
      *
      * @param entity the EntityLocal this AttributeMap belongs to.
      * @throws NullPointerException if entity is null
      */
     public AttributeMap(AbstractEntity entity) {
-        // Not using ConcurrentMap, because want to (continue to) allow null values.
-        // Could use ConcurrentMapAcceptingNullVals (with the associated performance hit on entrySet() etc).
-        this(entity, Collections.synchronizedMap(Maps.<Collection<String>, Object>newLinkedHashMap()));
+        // Null values are stored as Marker.NULL, so a ConcurrentMap can be used.
+        this(entity, BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_CONCURRENT_ATTRIBUTE_MAP)
+                ? new ConcurrentHashMap<Collection<String>, Object>()
+                : Collections.synchronizedMap(Maps.<Collection<String>, Object>newLinkedHashMap()));
     }
 
     /**
      * Creates a new AttributeMap.
      *
      * @param entity  the EntityLocal this AttributeMap belongs to.
-     * @param storage the Map in which to store the values - should be concurrent or synchronized.
+     * @param storage the Map in which to store the values - should be concurrent or synchronized;
+     *                if a {@link ConcurrentMap}, reads do not lock and updates through 
+     *                {@link #modify(AttributeSensor, Function)} are atomic via compare-and-set
      * @throws NullPointerException if entity is null
      */
     public AttributeMap(AbstractEntity entity, Map<Collection<String>, Object> storage) {
         this.entity = checkNotNull(entity, "entity must be specified");
         this.values = checkNotNull(storage, "storage map must not be null");
+        this.concurrent = storage instanceof ConcurrentMap;
     }
 
     public Map<Collection<String>, Object> asRawMap() {
+        if (concurrent) {
+            return ImmutableMap.copyOf(values);
+        }
         synchronized (values) {
             return ImmutableMap.copyOf(values);
         }
     }
 
     public Map<String, Object> asMap() {
-        Map<String, Object> result = Maps.newLinkedHashMap();
+        if (concurrent) {
+            return asMapUnsynchronized();
+        }
         synchronized (values) {
-            for (Map.Entry<Collection<String>, Object> entry : values.entrySet()) {
-                String sensorName = Joiner.on('.').join(entry.getKey());
-                Object val = (isNull(entry.getValue())) ? null : entry.getValue();
-                result.put(sensorName, val);
-            }
+            return asMapUnsynchronized();
+        }
+    }
+    
+    private Map<String, Object> asMapUnsynchronized() {
+        Map<String, Object> result = Maps.newLinkedHashMap();
+        for (Map.Entry<Collection<String>, Object> entry : values.entrySet()) {
+            String sensorName = Joiner.on('.').join(entry.getKey());
+            Object val = (isNull(entry.getValue())) ? null : entry.getValue();
+            result.put(sensorName, val);
         }
         return result;
     }
@@ -120,6 +144,7 @@ public final class AttributeMap {
 
         @SuppressWarnings("unchecked")
         T oldValue = (T) values.put(path, newValue);
+        entity.getManagementSupport().noteChanged();
         return (isNull(oldValue)) ? null : oldValue;
     }
 
@@ -150,9 +175,14 @@ public final class AttributeMap {
     }
 
     /**
-     * Where atomicity is desired, the methods in this class synchronize on the {@link #values} map.
+     * Where atomicity is desired, the methods in this class synchronize on the {@link #values} map;
+     * or, if that is a {@link ConcurrentMap}, use compare-and-set, 
+     * in which case the modifier may be invoked more than once under contention.
      */
     public <T> T modify(AttributeSensor<T> attribute, Function<? super T, Maybe<T>> modifier) {
+        if (concurrent) {
+            return modifyConcurrent(attribute, modifier);
+        }
         synchronized (values) {
             T oldValue = getValue(attribute);
             Maybe<? extends T> newValue = modifier.apply(oldValue);
@@ -167,6 +197,33 @@ public final class AttributeMap {
         }
     }
 
+    private <T> T modifyConcurrent(AttributeSensor<T> attribute, Function<? super T, Maybe<T>> modifier) {
+        ConcurrentMap<Collection<String>, Object> concurrentValues = (ConcurrentMap<Collection<String>, Object>) values;
+        Collection<String> path = attribute.getNameParts();
+        while (true) {
+            Object rawOldValue = concurrentValues.get(path);
+            @SuppressWarnings("unchecked")
+            T oldValue = (T) TypeCoercions.coerce(isNull(rawOldValue) ? null : rawOldValue, attribute.getType());
+            Maybe<? extends T> newValue = modifier.apply(oldValue);
+
+            if (!newValue.isPresent()) {
+                if (log.isTraceEnabled()) log.trace("modified attribute {} unchanged; not emitting on {}", new Object[] {attribute.getName(), newValue, this});
+                return oldValue;
+            }
+            Object rawNewValue = (newValue.get() == null) ? typedNull() : newValue.get();
+            boolean set = (rawOldValue == null) 
+                    ? concurrentValues.putIfAbsent(path, rawNewValue) == null
+                    : concurrentValues.replace(path, rawOldValue, rawNewValue);
+            if (set) {
+                if (log.isTraceEnabled()) log.trace("modified attribute {} to {} (was {}) on {}", new Object[] {attribute.getName(), newValue, oldValue, entity});
+                entity.getManagementSupport().noteChanged();
+                entity.emitInternal(attribute, newValue.get());
+                return oldValue;
+            }
+            // else another thread changed the value; retry with the new value
+        }
+    }
+
     public void remove(AttributeSensor<?> attribute) {
         BrooklynLogging.log(log, BrooklynLogging.levelDebugOrTraceIfReadOnly(entity),
             "removing attribute {} on {}", attribute.getName(), entity);
@@ -183,6 +240,7 @@ public final class AttributeMap {
         }
 
         values.remove(path);
+        entity.getManagementSupport().noteChanged();
     }
 
     /**
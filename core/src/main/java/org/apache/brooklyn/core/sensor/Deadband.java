@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.sensor;
+
+import java.io.Serializable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Decides whether a new value for a sensor differs enough from its current value to be worth publishing,
+ * so that feeds and enrichers can avoid publishing values which are unchanged, or which have changed by
+ * no more than a threshold.
+ * <p>
+ * Values which are equal are always suppressed. Numeric values are also suppressed if they differ
+ * from the current value by no more than the absolute threshold, or by no more than the relative threshold
+ * as a fraction of the current value. As the comparison is with the current (i.e. last published) value,
+ * a value which drifts slowly is still published once it has moved beyond the threshold.
+ */
+@Beta
+public class Deadband implements Serializable {
+
+    private static final long serialVersionUID = -5371947297416548813L;
+
+    /** suppresses only values equal to the current value */
+    public static final Deadband ON_CHANGE = new Deadband(0, 0);
+
+    private final double absolute;
+    private final double relative;
+
+    public static Deadband absolute(double threshold) {
+        return of(threshold, 0);
+    }
+
+    public static Deadband relative(double fraction) {
+        return of(0, fraction);
+    }
+
+    public static Deadband of(double absolute, double relative) {
+        return new Deadband(absolute, relative);
+    }
+
+    protected Deadband(double absolute, double relative) {
+        Preconditions.checkArgument(absolute >= 0, "absolute threshold must not be negative, but was %s", absolute);
+        Preconditions.checkArgument(relative >= 0, "relative threshold must not be negative, but was %s", relative);
+        this.absolute = absolute;
+        this.relative = relative;
+    }
+
+    public double getAbsolute() {
+        return absolute;
+    }
+
+    public double getRelative() {
+        return relative;
+    }
+
+    /** whether the new value should not be published, given the sensor's current value */
+    public boolean isSuppressed(Object currentValue, Object newValue) {
+        if (Objects.equal(currentValue, newValue)) return true;
+        if ((absolute > 0 || relative > 0) && currentValue instanceof Number && newValue instanceof Number) {
+            double current = ((Number) currentValue).doubleValue();
+            double diff = Math.abs(((Number) newValue).doubleValue() - current);
+            // NaN and infinite differences are never within the threshold
+            return diff <= absolute || diff <= relative * Math.abs(current);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Deadband)) return false;
+        Deadband o = (Deadband) obj;
+        return absolute == o.absolute && relative == o.relative;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(absolute, relative);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("absolute", absolute).add("relative", relative).toString();
+    }
+}
@@ -23,12 +23,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
@@ -52,6 +52,7 @@ import org.apache.brooklyn.util.collections.CollectionFunctionals;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.task.BasicExecutionContext;
+import org.apache.brooklyn.util.core.task.BasicExecutionManager;
 import org.apache.brooklyn.util.core.task.BasicTask;
 import org.apache.brooklyn.util.core.task.DeferredSupplier;
 import org.apache.brooklyn.util.core.task.DynamicTasks;
@@ -78,10 +79,14 @@ import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
 
 import groovy.lang.Closure;
 
@@ -129,6 +134,16 @@ public class DependentConfiguration {
 
     }
 
+    /** as {@link #attributeWhenReady(Entity, AttributeSensor, Predicate)}, but returning a future which is
+     * completed by a subscription to the sensor, rather than a task which blocks a thread until it is ready
+     * @see Builder#buildFuture() */
+    @Beta
+    public static <T> Future<T> attributeWhenReadyFuture(Entity source, AttributeSensor<T> sensor, Predicate<? super T> ready) {
+        Builder<T, T> builder = builder().attributeWhenReady(source, sensor);
+        if (ready != null) builder.readiness(ready);
+        return builder.buildFuture();
+    }
+
     public static <T,V> Task<V> attributePostProcessedWhenReady(Entity source, AttributeSensor<T> sensor, Closure<Boolean> ready, Closure<V> postProcess) {
         Predicate<? super T> readyPredicate = (ready != null) ? GroovyJavaMethods.predicateFromClosure(ready) : GroovyJavaMethods.truthPredicate();
         Function<? super T, V> postProcessFunction = GroovyJavaMethods.<T,V>functionFromClosure(postProcess);
@@ -253,9 +268,7 @@ public class DependentConfiguration {
             // return immediately if either the ready predicate or the abort conditions hold
             if (ready(value)) return postProcess(value);
             
-            final List<Exception> abortionExceptions = Lists.newCopyOnWriteArrayList();
-            long start = System.currentTimeMillis();
-            
+            List<Exception> abortionExceptions = Lists.newArrayList();
             for (AttributeAndSensorCondition abortCondition : abortSensorConditions) {
                 Object abortValue = abortCondition.source.getAttribute(abortCondition.sensor);
                 if (abortCondition.predicate.apply(abortValue)) {
@@ -272,96 +285,161 @@ public class DependentConfiguration {
             if (entity == null) throw new IllegalStateException("Should only be invoked in a running task with an entity tag; "+
                 current+" has no entity tag ("+current.getStatusDetail(false)+")");
             
-            final LinkedList<T> publishedValues = new LinkedList<T>();
-            final Semaphore semaphore = new Semaphore(0); // could use Exchanger
-            SubscriptionHandle subscription = null;
-            List<SubscriptionHandle> abortSubscriptions = Lists.newArrayList();
-            
+            // the wait is done by the future, completed by the subscriptions; this thread just blocks on it
+            AttributeReadyFuture<T,V> future = new AttributeReadyFuture<T,V>(this, entity).start();
+            String prevBlockingDetails = current.setBlockingDetails(blockingDetails);
             try {
-                subscription = entity.subscriptions().subscribe(source, sensor, new SensorEventListener<T>() {
+                // post-processed here, in the waiting task
+                return future.get().get();
+            } catch (InterruptedException e) {
+                future.cancel(false);
+                throw Exceptions.propagate(e);
+            } catch (ExecutionException e) {
+                throw Exceptions.propagate(e.getCause());
+            } finally {
+                current.setBlockingDetails(prevBlockingDetails);
+            }
+        }
+    }
+
+    /**
+     * A future for the result of {@link WaitInTaskForAttributeReady}, which is completed by subscriptions
+     * (made by the given subscriber entity) to the sensor and to the abort conditions, so no thread is
+     * held while waiting.
+     * <p>
+     * The readiness predicate is applied by the thread starting the wait and then by the subscription listener,
+     * in the subscriber's context. The result is a supplier which applies the post-processing function
+     * (once) when it is first called, so that is done by the thread consuming the value.
+     * Whether the subscriber is still managed, and the timeout, are checked periodically by the
+     * management context's execution manager, without running any user code.
+     */
+    protected static class AttributeReadyFuture<T,V> extends AbstractFuture<Supplier<V>> {
+        
+        private final WaitInTaskForAttributeReady<T,V> waiter;
+        private final Entity subscriber;
+        private final BasicExecutionManager executionManager;
+        private final CountdownTimer timer;
+        private final long start = System.currentTimeMillis();
+        private final List<Exception> abortionExceptions = Lists.newCopyOnWriteArrayList();
+        private final List<SubscriptionHandle> subscriptions = Lists.newCopyOnWriteArrayList();
+        private volatile ScheduledFuture<?> nextCheck;
+        // only used by check, which runs once at start then on the execution manager's scheduler
+        private Duration nextPeriod = ValueResolver.REAL_QUICK_PERIOD;
+
+        protected AttributeReadyFuture(WaitInTaskForAttributeReady<T,V> waiter, Entity subscriber) {
+            this.waiter = checkNotNull(waiter, "waiter");
+            this.subscriber = checkNotNull(subscriber, "subscriber");
+            this.executionManager = (BasicExecutionManager) ((EntityInternal) subscriber).getManagementContext().getExecutionManager();
+            this.timer = waiter.timeout!=null ? waiter.timeout.countdownTimer() : null;
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        protected AttributeReadyFuture<T,V> start() {
+            try {
+                // no need to subscribe if already ready
+                onValue(waiter.source.getAttribute(waiter.sensor));
+                if (isDone()) return this;
+                
+                subscriptions.add(subscriber.subscriptions().subscribe(waiter.source, waiter.sensor, new SensorEventListener<T>() {
                     @Override public void onEvent(SensorEvent<T> event) {
-                        synchronized (publishedValues) { publishedValues.add(event.getValue()); }
-                        semaphore.release();
-                    }});
-                for (final AttributeAndSensorCondition abortCondition : abortSensorConditions) {
-                    abortSubscriptions.add(entity.subscriptions().subscribe(abortCondition.source, abortCondition.sensor, new SensorEventListener<Object>() {
+                        onValue(event.getValue());
+                    }}));
+                for (final AttributeAndSensorCondition abortCondition : waiter.abortSensorConditions) {
+                    subscriptions.add(subscriber.subscriptions().subscribe(abortCondition.source, abortCondition.sensor, new SensorEventListener<Object>() {
                         @Override public void onEvent(SensorEvent<Object> event) {
-                            if (abortCondition.predicate.apply(event.getValue())) {
-                                abortionExceptions.add(new Exception("Abort due to "+abortCondition.source+" -> "+abortCondition.sensor));
-                                semaphore.release();
-                            }
+                            onAbortValue(abortCondition, event.getValue());
                         }}));
-                    Object abortValue = abortCondition.source.getAttribute(abortCondition.sensor);
-                    if (abortCondition.predicate.apply(abortValue)) {
-                        abortionExceptions.add(new Exception("Abort due to "+abortCondition.source+" -> "+abortCondition.sensor));
-                    }
+                    onAbortValue(abortCondition, abortCondition.source.getAttribute(abortCondition.sensor));
                 }
-                if (abortionExceptions.size() > 0) {
-                    throw new CompoundRuntimeException("Aborted waiting for ready from "+source+" "+sensor, abortionExceptions);
+                // in case it changed before subscribing
+                onValue(waiter.source.getAttribute(waiter.sensor));
+                check();
+            } catch (Exception e) {
+                fail(e);
+            }
+            // in case completed by a listener before all subscriptions were added
+            if (isDone()) cleanup();
+            return this;
+        }
+
+        protected void onValue(final T value) {
+            if (isDone()) return;
+            try {
+                if (waiter.ready(value)) {
+                    if (LOG.isDebugEnabled()) LOG.debug("Attribute-ready for {} in entity {}", waiter.sensor, waiter.source);
+                    complete(Suppliers.memoize(new Supplier<V>() {
+                        @Override public V get() {
+                            return waiter.postProcess(value);
+                        }}));
                 }
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
 
-                CountdownTimer timer = timeout!=null ? timeout.countdownTimer() : null;
-                Duration maxPeriod = ValueResolver.PRETTY_QUICK_WAIT;
-                Duration nextPeriod = ValueResolver.REAL_QUICK_PERIOD;
-                while (true) {
-                    // check the source on initial run (could be done outside the loop) 
-                    // and also (optionally) on each iteration in case it is more recent 
-                    value = source.getAttribute(sensor);
-                    if (ready(value)) break;
-
-                    if (timer!=null) {
-                        if (timer.getDurationRemaining().isShorterThan(nextPeriod)) {
-                            nextPeriod = timer.getDurationRemaining();
-                        }
-                        if (timer.isExpired()) {
-                            if (onTimeout.isPresent()) return onTimeout.get();
-                            throw new RuntimeTimeoutException("Unsatisfied after "+Duration.sinceUtc(start));
-                        }
-                    }
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        protected void onAbortValue(AttributeAndSensorCondition abortCondition, Object value) {
+            if (isDone()) return;
+            if (abortCondition.predicate.apply(value)) {
+                abortionExceptions.add(new Exception("Abort due to "+abortCondition.source+" -> "+abortCondition.sensor));
+                fail(new CompoundRuntimeException("Aborted waiting for ready from "+waiter.source+" "+waiter.sensor, abortionExceptions));
+            }
+        }
 
-                    String prevBlockingDetails = current.setBlockingDetails(blockingDetails);
+        /** checks whether unmanaged or timed out, and if still waiting schedules the next check */
+        protected void check() {
+            if (isDone()) return;
+            
+            // if unmanaged then ignore the other conditions
+            if (!waiter.ignoreUnmanaged && Entities.isNoLongerManaged(subscriber)) {
+                if (waiter.onUnmanaged.isPresent()) complete(Suppliers.ofInstance(waiter.onUnmanaged.get()));
+                else fail(new NotManagedException(subscriber));
+                return;
+            }
+            
+            Duration delay = nextPeriod;
+            if (timer!=null) {
+                if (timer.isExpired()) {
+                    if (waiter.onTimeout.isPresent()) complete(Suppliers.ofInstance(waiter.onTimeout.get()));
+                    else fail(new RuntimeTimeoutException("Unsatisfied after "+Duration.sinceUtc(start)));
+                    return;
+                }
+                delay = delay.upperBound(timer.getDurationRemaining());
+            }
+            nextPeriod = nextPeriod.multiply(2).upperBound(ValueResolver.PRETTY_QUICK_WAIT);
+            
+            nextCheck = executionManager.scheduleInternal(new Runnable() {
+                @Override public void run() {
                     try {
-                        if (semaphore.tryAcquire(nextPeriod.toMilliseconds(), TimeUnit.MILLISECONDS)) {
-                            // immediately release so we are available for the next check
-                            semaphore.release();
-                            // if other permits have been made available (e.g. multiple notifications) drain them all as no point running multiple times
-                            semaphore.drainPermits();
-                        }
-                    } finally {
-                        current.setBlockingDetails(prevBlockingDetails);
+                        check();
+                    } catch (Exception e) {
+                        fail(e);
                     }
+                }}, delay);
+            if (isDone()) nextCheck.cancel(false);
+        }
 
-                    // check any subscribed values which have come in first
-                    while (true) {
-                        synchronized (publishedValues) {
-                            if (publishedValues.isEmpty()) break;
-                            value = publishedValues.pop(); 
-                        }
-                        if (ready(value)) break;
-                    }
+        protected void complete(Supplier<V> result) {
+            if (set(result)) cleanup();
+        }
 
-                    // if unmanaged then ignore the other abort conditions
-                    if (!ignoreUnmanaged && Entities.isNoLongerManaged(entity)) {
-                        if (onUnmanaged.isPresent()) return onUnmanaged.get();
-                        throw new NotManagedException(entity);                        
-                    }
-                    
-                    if (abortionExceptions.size() > 0) {
-                        throw new CompoundRuntimeException("Aborted waiting for ready from "+source+" "+sensor, abortionExceptions);
-                    }
+        protected void fail(Throwable error) {
+            if (setException(error)) cleanup();
+        }
 
-                    nextPeriod = nextPeriod.multiply(2).upperBound(maxPeriod);
-                }
-                if (LOG.isDebugEnabled()) LOG.debug("Attribute-ready for {} in entity {}", sensor, source);
-                return postProcess(value);
-            } catch (InterruptedException e) {
-                throw Exceptions.propagate(e);
-            } finally {
-                if (subscription != null) {
-                    entity.subscriptions().unsubscribe(subscription);
-                }
-                for (SubscriptionHandle handle : abortSubscriptions) {
-                    entity.subscriptions().unsubscribe(handle);
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = super.cancel(mayInterruptIfRunning);
+            if (result) cleanup();
+            return result;
+        }
+
+        protected void cleanup() {
+            ScheduledFuture<?> check = nextCheck;
+            if (check != null) check.cancel(false);
+            for (SubscriptionHandle handle : subscriptions) {
+                if (subscriptions.remove(handle)) {
+                    subscriber.subscriptions().unsubscribe(handle);
                 }
             }
         }
@@ -795,6 +873,8 @@ public class DependentConfiguration {
                 .description("Waiting on sensor "+sensor.getName()+" from "+source)
                 .tag("attributeWhenReady")
                 .tag(BrooklynTaskTags.TRANSIENT_TASK_TAG)
+                // waits for sensors set by other (e.g. ssh) tasks, so kept out of the bounded pool for blocking tasks
+                .tag(BrooklynTaskTags.WAITING_TASK)
                 .body(new WaitInTaskForAttributeReady<T,V>(this))
                 .build();
         }
@@ -803,6 +883,22 @@ public class DependentConfiguration {
             validate();
             return new WaitInTaskForAttributeReady<T,V>(this).call();
         }
+        
+        /**
+         * Returns a future for the value, completed by sensor subscriptions rather than by a thread
+         * blocking until the attribute is ready; it can be passed to {@link ValueResolver} as any other future.
+         * The subscriptions are made by the context entity of the current task if there is one,
+         * otherwise by the source entity. Any post-processing is done by the caller of {@link Future#get()}.
+         * Cancelling the future unsubscribes.
+         */
+        @Beta
+        public Future<V> buildFuture() {
+            validate();
+            Entity subscriber = BrooklynTaskTags.getTargetOrContextEntity(Tasks.current());
+            if (subscriber == null) subscriber = source;
+            AttributeReadyFuture<T,V> future = new AttributeReadyFuture<T,V>(new WaitInTaskForAttributeReady<T,V>(this), subscriber).start();
+            return Futures.lazyTransform(future, Suppliers.<V>supplierFunction());
+        }
         @SuppressWarnings({ "unchecked", "rawtypes" })
         private void validate() {
             checkNotNull(source, "Entity source");
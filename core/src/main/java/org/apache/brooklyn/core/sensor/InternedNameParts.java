@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.sensor;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.google.common.collect.ForwardingList;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * The dot-separated parts of a sensor name, as used for keys in {@link AttributeMap}.
+ * <p>
+ * Instances are interned, so all sensors with the same name share one instance,
+ * and the hash code is cached; map lookups with these keys therefore do not re-hash 
+ * the strings and usually succeed on the identity check in equals.
+ * Equal to (and interchangeable with) any other {@link List} with the same elements.
+ */
+final class InternedNameParts extends ForwardingList<String> implements Serializable {
+
+    private static final long serialVersionUID = 1945378510279146386L;
+
+    private static final Interner<InternedNameParts> INTERNER = Interners.newWeakInterner();
+    
+    private final ImmutableList<String> parts;
+    private final int hash;
+    
+    private InternedNameParts(List<String> parts) {
+        this.parts = ImmutableList.copyOf(parts);
+        this.hash = this.parts.hashCode();
+    }
+
+    static List<String> of(List<String> parts) {
+        return INTERNER.intern(new InternedNameParts(parts));
+    }
+    
+    @Override
+    protected List<String> delegate() {
+        return parts;
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public boolean equals(Object object) {
+        if (object == this) return true;
+        if (object instanceof InternedNameParts && ((InternedNameParts)object).hash != hash) return false;
+        return parts.equals(object);
+    }
+
+    /** serialized as a plain list, so the class is not needed to read it back */
+    private Object writeReplace() {
+        return parts;
+    }
+}
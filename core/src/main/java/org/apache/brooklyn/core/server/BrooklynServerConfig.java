@@ -30,7 +30,9 @@ import org.apache.brooklyn.config.StringConfigMap;
 import org.apache.brooklyn.core.catalog.internal.CatalogInitialization;
 import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.util.guava.Maybe;
+import org.apache.brooklyn.util.http.executor.apacheclient.PooledHttpExecutorImpl;
 import org.apache.brooklyn.util.os.Os;
+import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -121,6 +123,16 @@ public class BrooklynServerConfig {
     public static final ConfigKey<Boolean> OSGI_CACHE_CLEAN = ConfigKeys.newBooleanConfigKey("brooklyn.osgi.cache.clean",
         "Whether to delete the OSGi directory before and after use; if unset, it will delete if the node ID forms part of the cache dir path (which by default it does) to avoid file leaks");
 
+    public static final ConfigKey<Boolean> SHARED_HTTP_EXECUTOR_ENABLED = ConfigKeys.newBooleanConfigKey("brooklyn.http.sharedExecutor.enabled",
+        "Whether http feeds which are not given an executor share the management context's pooled http executor, "
+        + "re-using connections and deduplicating identical concurrent GET requests (rather than creating a client for each poll)", true);
+    public static final ConfigKey<Integer> SHARED_HTTP_EXECUTOR_MAX_CONNECTIONS = ConfigKeys.newIntegerConfigKey("brooklyn.http.sharedExecutor.maxConnections",
+        "Maximum number of open connections in each pool of the shared http executor", PooledHttpExecutorImpl.DEFAULT_MAX_CONNECTIONS_TOTAL);
+    public static final ConfigKey<Integer> SHARED_HTTP_EXECUTOR_MAX_CONNECTIONS_PER_HOST = ConfigKeys.newIntegerConfigKey("brooklyn.http.sharedExecutor.maxConnectionsPerHost",
+        "Maximum number of open connections to each host in each pool of the shared http executor", PooledHttpExecutorImpl.DEFAULT_MAX_CONNECTIONS_PER_HOST);
+    public static final ConfigKey<Duration> SHARED_HTTP_EXECUTOR_IDLE_TIMEOUT = ConfigKeys.newConfigKey(Duration.class, "brooklyn.http.sharedExecutor.idleTimeout",
+        "Time after which idle connections of the shared http executor are closed", PooledHttpExecutorImpl.DEFAULT_IDLE_TIMEOUT);
+
     /** @see BrooklynServerPaths#getMgmtBaseDir(ManagementContext) */
     public static String getMgmtBaseDir(ManagementContext mgmt) {
         return BrooklynServerPaths.getMgmtBaseDir(mgmt);
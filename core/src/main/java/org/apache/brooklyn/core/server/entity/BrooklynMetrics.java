@@ -44,6 +44,12 @@ public interface BrooklynMetrics extends Entity {
     public static final AttributeSensor<Long> NUM_ACTIVE_TASKS = new BasicAttributeSensor<Long>(
             Long.class, "brooklyn.metrics.numActiveTasks", "Number of currently active tasks being executed");
 
+    public static final AttributeSensor<Long> NUM_QUEUED_TASKS = new BasicAttributeSensor<Long>(
+            Long.class, "brooklyn.metrics.numQueuedTasks", "Number of tasks submitted to a thread pool but waiting for a thread");
+    
+    public static final AttributeSensor<Long> NUM_POOL_THREADS = new BasicAttributeSensor<Long>(
+            Long.class, "brooklyn.metrics.numPoolThreads", "Number of threads in the task execution pools");
+
     public static final AttributeSensor<Long> TOTAL_EVENTS_PUBLISHED = new BasicAttributeSensor<Long>(
             Long.class, "brooklyn.metrics.totalEventsPublished", "Total number of events published");
     
@@ -32,6 +32,7 @@ import org.apache.brooklyn.api.sensor.SensorEventListener;
 import org.apache.brooklyn.core.BrooklynLogging;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.flags.TypeCoercions;
+import org.apache.brooklyn.util.guava.Maybe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -103,7 +104,10 @@ public abstract class AbstractMultipleSensorAggregator<U> extends AbstractAggreg
                     } else {
                         initialVal = null;
                     }
-                    vs.put(producer, initialVal != null ? initialVal : defaultMemberValue);
+                    Object newVal = initialVal != null ? initialVal : defaultMemberValue;
+                    Maybe<Object> oldVal = vs.containsKey(producer) ? Maybe.ofAllowingNull(vo) : Maybe.<Object>absent();
+                    vs.put(producer, newVal);
+                    onValueChanged(sensor.getName(), producer, oldVal, Maybe.ofAllowingNull(newVal));
                     // NB: see notes on possible race, in Aggregator#onProducerAdded
                 }
             }
@@ -115,8 +119,10 @@ public abstract class AbstractMultipleSensorAggregator<U> extends AbstractAggreg
         synchronized (values) {
             for (Sensor<?> sensor: getSourceSensors()) {
                 Map<Entity,Object> vs = values.get(sensor.getName());
-                if (vs!=null)
-                    vs.remove(producer);
+                if (vs!=null && vs.containsKey(producer)) {
+                    Object oldVal = vs.remove(producer);
+                    onValueChanged(sensor.getName(), producer, Maybe.ofAllowingNull(oldVal), Maybe.<Object>absent());
+                }
             }
         }
         onUpdated();
@@ -131,13 +137,26 @@ public abstract class AbstractMultipleSensorAggregator<U> extends AbstractAggreg
                 if (vs==null) {
                     LOG.debug(this+" received event when no entry for sensor ("+event+"); likely just added or removed, and will initialize subsequently if needed");
                 } else {
+                    Maybe<Object> oldVal = vs.containsKey(e) ? Maybe.ofAllowingNull(vs.get(e)) : Maybe.<Object>absent();
                     vs.put(e, event.getValue());
+                    onValueChanged(event.getSensor().getName(), e, oldVal, Maybe.ofAllowingNull(event.getValue()));
                 }
             }
             onUpdated();
         }
     }
 
+    /**
+     * Called whenever the value held for one producer's sensor changes, including when producers are added
+     * or removed (the old or new value is then absent), while holding the lock on the values.
+     * <p>
+     * Subclasses whose aggregate can be updated from the change alone can override this to maintain it
+     * incrementally, and return it from {@link #compute()} without reading every producer's values
+     * with {@link #getValues(Sensor)}. Values are as received, before any coercion or {@link #valueFilter}.
+     */
+    protected void onValueChanged(String sensorName, Entity producer, Maybe<Object> oldValue, Maybe<Object> newValue) {
+    }
+
     public <T> Map<Entity,T> getValues(Sensor<T> sensor) {
         Map<Entity, T> valuesCopy = copyValues(sensor);
         return coerceValues(valuesCopy, sensor.getType());
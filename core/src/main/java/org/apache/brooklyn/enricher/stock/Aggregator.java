@@ -57,7 +57,7 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
     @SetFromFlag("transformation")
     public static final ConfigKey<Object> TRANSFORMATION_UNTYPED = ConfigKeys.newConfigKey(Object.class, "enricher.transformation.untyped",
         "Specifies a transformation, as a function from a collection to the value, or as a string matching a pre-defined named transformation, "
-        + "such as 'average' (for numbers), 'sum' (for numbers), or 'list' (the default, putting any collection of items into a list)");
+        + "such as 'average', 'sum', 'min', 'max' or 'count' (for numbers), or 'list' (the default, putting any collection of items into a list)");
     public static final ConfigKey<Function<? super Collection<?>, ?>> TRANSFORMATION = ConfigKeys.newConfigKey(new TypeToken<Function<? super Collection<?>, ?>>() {}, "enricher.transformation");
     
     /**
@@ -77,6 +77,13 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
     // We use a synchronizedMap over a ConcurrentHashMap for entities that store null values.
     protected final Map<Entity, T> values = Collections.synchronizedMap(new LinkedHashMap<Entity, T>());
 
+    /**
+     * Running state for {@link #transformation} if it is a stock numeric one, updated as each value changes
+     * so that events need not re-read every member's value; null if values must be recomputed in full.
+     * Guarded by {@link #values}.
+     */
+    private IncrementalNumberAggregation incremental;
+
     public Aggregator() {}
 
     @SuppressWarnings("unchecked")
@@ -100,12 +107,19 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
         } else if (t1!=null && !Objects.equals(t2, this.transformation)) {
             throw new IllegalStateException("Cannot supply both "+TRANSFORMATION_UNTYPED+" and "+TRANSFORMATION+" unless they are equal.");
         }
+        
+        synchronized (values) {
+            this.incremental = IncrementalNumberAggregation.forTransformation(transformation);
+        }
     }
         
     @SuppressWarnings({ "rawtypes", "unchecked" })
     protected Function<? super Collection<?>, ?> lookupTransformation(String t1) {
         if ("average".equalsIgnoreCase(t1)) return new Enrichers.ComputingAverage(null, null, targetSensor.getTypeToken());
         if ("sum".equalsIgnoreCase(t1)) return new Enrichers.ComputingSum(null, null, targetSensor.getTypeToken());
+        if ("min".equalsIgnoreCase(t1)) return new Enrichers.ComputingMin(null, null, targetSensor.getTypeToken());
+        if ("max".equalsIgnoreCase(t1)) return new Enrichers.ComputingMax(null, null, targetSensor.getTypeToken());
+        if ("count".equalsIgnoreCase(t1)) return new Enrichers.ComputingCount(null, null, targetSensor.getTypeToken());
         if ("isQuorate".equalsIgnoreCase(t1)) return new Enrichers.ComputingIsQuorate(targetSensor.getTypeToken(),
                 QuorumChecks.of(config().get(QUORUM_CHECK_TYPE)), config().get(QUORUM_TOTAL_SIZE));
         if ("list".equalsIgnoreCase(t1)) return new ComputingList();
@@ -159,7 +173,7 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
                 } else {
                     initialVal = null;
                 }
-                values.put(producer, initialVal != null ? initialVal : defaultMemberValue);
+                putValue(producer, initialVal != null ? initialVal : defaultMemberValue);
                 //we might skip in onEvent in the short window while !values.containsKey(producer)
                 //but that's okay because the put which would have been done there is done here now
             } else {
@@ -172,7 +186,12 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
     
     @Override
     protected void onProducerRemoved(Entity producer) {
-        values.remove(producer);
+        synchronized (values) {
+            if (values.containsKey(producer)) {
+                T old = values.remove(producer);
+                onValueChanged(true, old, false, null);
+            }
+        }
         onUpdated();
     }
 
@@ -181,7 +200,7 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
         Entity e = event.getSource();
         synchronized (values) {
             if (values.containsKey(e)) {
-                values.put(e, event.getValue());
+                putValue(e, event.getValue());
             } else {
                 if (LOG.isDebugEnabled()) LOG.debug("{} received event for unknown producer ({}); presumably that producer has recently been removed", this, e);
             }
@@ -189,6 +208,27 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
         onUpdated();
     }
 
+    /** caller must hold the lock on {@link #values} */
+    private void putValue(Entity producer, T value) {
+        boolean hadOld = values.containsKey(producer);
+        T old = values.put(producer, value);
+        onValueChanged(hadOld, old, true, value);
+    }
+
+    /** caller must hold the lock on {@link #values} */
+    private void onValueChanged(boolean hadOld, T oldValue, boolean hasNew, T newValue) {
+        if (incremental == null) return;
+        boolean ok = true;
+        if (hadOld && valueFilter.apply(oldValue)) ok = incremental.remove(oldValue);
+        if (ok && hasNew && valueFilter.apply(newValue)) ok = incremental.add(newValue);
+        if (!ok) disableIncremental();
+    }
+
+    private void disableIncremental() {
+        if (LOG.isDebugEnabled()) LOG.debug("{} has non-numeric values so cannot aggregate incrementally; will recompute in full", this);
+        incremental = null;
+    }
+
     protected void onUpdated() {
         try {
             emit(targetSensor, compute());
@@ -201,6 +241,12 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
     @Override
     protected Object compute() {
         synchronized (values) {
+            if (incremental != null) {
+                if (!incremental.isRebuildRequired(values.size()) || incremental.rebuild(Iterables.filter(values.values(), valueFilter))) {
+                    return incremental.result();
+                }
+                disableIncremental();
+            }
             // TODO Could avoid copying when filter not needed
             List<T> vs = MutableList.copyOf(Iterables.filter(values.values(), valueFilter));
             if (transformation==null) return vs;
@@ -75,6 +75,8 @@ public class Enrichers {
     public abstract static class AbstractEnricherBuilder<B extends AbstractEnricherBuilder<B>> extends Builder<B> {
         final Class<? extends Enricher> enricherType;
         Boolean suppressDuplicates;
+        Double deadbandAbsolute;
+        Double deadbandRelative;
         String uniqueTag;
         Set<Object> tags = MutableSet.of();
         
@@ -94,6 +96,14 @@ public class Enrichers {
             this.suppressDuplicates = suppressDuplicates;
             return self();
         }
+        /** suppresses numeric values which differ from the current value by no more than the absolute threshold,
+         * or by no more than the relative threshold as a fraction of the current value (either may be null) */
+        @Beta
+        public B deadband(Double absolute, Double relative) {
+            this.deadbandAbsolute = absolute;
+            this.deadbandRelative = relative;
+            return self();
+        }
 
         protected abstract String getDefaultUniqueTag();
         
@@ -109,6 +119,10 @@ public class Enrichers {
             if (!tags.isEmpty()) spec.tags(tags);
             if (suppressDuplicates!=null)
                 spec.configure(AbstractEnricher.SUPPRESS_DUPLICATES, suppressDuplicates);
+            if (deadbandAbsolute!=null)
+                spec.configure(AbstractEnricher.DEADBAND_ABSOLUTE, deadbandAbsolute);
+            if (deadbandRelative!=null)
+                spec.configure(AbstractEnricher.DEADBAND_RELATIVE, deadbandRelative);
             
             return spec;
         }
@@ -829,7 +843,7 @@ public class Enrichers {
     }
 
     @Beta
-    private abstract static class ComputingNumber<T extends Number> implements Function<Collection<T>, T> {
+    abstract static class ComputingNumber<T extends Number> implements Function<Collection<T>, T> {
         protected final Number defaultValueForUnreportedSensors;
         protected final Number valueToReportIfNoSensors;
         protected final TypeToken<T> typeToken;
@@ -871,6 +885,41 @@ public class Enrichers {
         }
     }
 
+    /** minimum of the values, with {@link Double#compare(double, double)} ordering */
+    @Beta
+    public static class ComputingMin<T extends Number> extends ComputingNumber<T> {
+        public ComputingMin(Number defaultValueForUnreportedSensors, Number valueToReportIfNoSensors, TypeToken<T> typeToken) {
+            super(defaultValueForUnreportedSensors, valueToReportIfNoSensors, typeToken);
+        }
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        @Override public T apply(Collection<T> input) {
+            return (T) extreme((Collection)input, (Number)defaultValueForUnreportedSensors, (Number)valueToReportIfNoSensors, typeToken, false);
+        }
+    }
+
+    /** maximum of the values, with {@link Double#compare(double, double)} ordering */
+    @Beta
+    public static class ComputingMax<T extends Number> extends ComputingNumber<T> {
+        public ComputingMax(Number defaultValueForUnreportedSensors, Number valueToReportIfNoSensors, TypeToken<T> typeToken) {
+            super(defaultValueForUnreportedSensors, valueToReportIfNoSensors, typeToken);
+        }
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        @Override public T apply(Collection<T> input) {
+            return (T) extreme((Collection)input, (Number)defaultValueForUnreportedSensors, (Number)valueToReportIfNoSensors, typeToken, true);
+        }
+    }
+
+    /** number of values reported (including unreported ones if there is a default value for them) */
+    @Beta
+    public static class ComputingCount<T extends Number> extends ComputingNumber<T> {
+        public ComputingCount(Number defaultValueForUnreportedSensors, Number valueToReportIfNoSensors, TypeToken<T> typeToken) {
+            super(defaultValueForUnreportedSensors, valueToReportIfNoSensors, typeToken);
+        }
+        @Override public T apply(Collection<T> input) {
+            return cast(count(input, defaultValueForUnreportedSensors!=null), typeToken);
+        }
+    }
+
     protected static <T extends Number> T average(Collection<T> vals, Number defaultValueForUnreportedSensors, Number valueToReportIfNoSensors, TypeToken<T> type) {
         Double doubleValueToReportIfNoSensors = (valueToReportIfNoSensors == null) ? null : valueToReportIfNoSensors.doubleValue();
         int count = count(vals, defaultValueForUnreportedSensors!=null);
@@ -904,6 +953,22 @@ public class Enrichers {
         return cast(result, type);
     }
     
+    protected static <N extends Number> N extreme(Iterable<? extends Number> vals, Number valueIfNull, Number valueIfNone, TypeToken<N> type, boolean max) {
+        Double result = null;
+        if (vals!=null) {
+            for (Number val : vals) {
+                Number n = (val!=null) ? val : valueIfNull;
+                if (n==null) continue;
+                double d = n.doubleValue();
+                if (result==null || (max ? Double.compare(d, result) > 0 : Double.compare(d, result) < 0)) {
+                    result = d;
+                }
+            }
+        }
+        if (result==null) return cast(valueIfNone, type);
+        return cast(result, type);
+    }
+
     protected static int count(Iterable<? extends Object> vals, boolean includeNullValues) {
         int result = 0;
         if (vals != null) 
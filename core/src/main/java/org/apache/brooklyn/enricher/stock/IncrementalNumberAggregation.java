@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.enricher.stock;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.TreeMultiset;
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Running state for the stock numeric transformations ({@link Enrichers.ComputingSum}, {@link Enrichers.ComputingAverage},
+ * {@link Enrichers.ComputingMin}, {@link Enrichers.ComputingMax} and {@link Enrichers.ComputingCount}),
+ * so that an {@link Aggregator} can apply a change to one member's value without re-reading every member.
+ * Sum, count and average are updated in constant time; min and max use an ordered multiset.
+ * <p>
+ * Results are the same as applying the transformation to all values. To stop floating-point error accumulating,
+ * the running sum is recomputed from all values after as many updates as there are values (so still
+ * constant time per update, amortized), and whenever a non-finite value is removed.
+ * <p>
+ * Not thread-safe; callers must synchronize.
+ */
+class IncrementalNumberAggregation {
+
+    private enum Kind { SUM, AVERAGE, MIN, MAX, COUNT }
+
+    /** fewest updates between rebuilds of the running sum, so that small groups are not rebuilt on every update */
+    private static final int MIN_UPDATES_BETWEEN_REBUILDS = 64;
+
+    private final Kind kind;
+    private final Number valueIfNull;
+    private final Number valueIfNone;
+    private final TypeToken<? extends Number> type;
+
+    private final TreeMultiset<Double> ordered;
+    private double sum;
+    private int count;
+    private int updatesSinceRebuild;
+    private boolean rebuildRequired = true;
+
+    /**
+     * Returns the incremental equivalent of the given transformation,
+     * or null if it is not one of the stock numeric transformations (in which case it must be applied to all values).
+     */
+    @Nullable
+    static IncrementalNumberAggregation forTransformation(@Nullable Object transformation) {
+        if (transformation == null) return null;
+        // exact classes only, as a subclass might compute something else
+        Class<?> clazz = transformation.getClass();
+        Kind kind;
+        if (clazz == Enrichers.ComputingSum.class) kind = Kind.SUM;
+        else if (clazz == Enrichers.ComputingAverage.class) kind = Kind.AVERAGE;
+        else if (clazz == Enrichers.ComputingMin.class) kind = Kind.MIN;
+        else if (clazz == Enrichers.ComputingMax.class) kind = Kind.MAX;
+        else if (clazz == Enrichers.ComputingCount.class) kind = Kind.COUNT;
+        else return null;
+        return new IncrementalNumberAggregation(kind, (Enrichers.ComputingNumber<?>) transformation);
+    }
+
+    private IncrementalNumberAggregation(Kind kind, Enrichers.ComputingNumber<?> transformation) {
+        this.kind = kind;
+        this.valueIfNull = transformation.defaultValueForUnreportedSensors;
+        this.valueIfNone = transformation.valueToReportIfNoSensors;
+        this.type = transformation.typeToken;
+        this.ordered = (kind == Kind.MIN || kind == Kind.MAX) ? TreeMultiset.<Double>create() : null;
+    }
+
+    /** whether {@link #rebuild(Iterable)} must be called before {@link #result()}, given the number of values */
+    boolean isRebuildRequired(int numValues) {
+        if (rebuildRequired) return true;
+        if (ordered != null || kind == Kind.COUNT) return false;
+        return updatesSinceRebuild > Math.max(numValues, MIN_UPDATES_BETWEEN_REBUILDS);
+    }
+
+    /** resets the state to that for the given values; returns false if they cannot be aggregated incrementally */
+    boolean rebuild(Iterable<?> values) {
+        sum = 0;
+        count = 0;
+        if (ordered != null) ordered.clear();
+        for (Object value : values) {
+            if (!update(value, 1)) {
+                rebuildRequired = true;
+                return false;
+            }
+        }
+        updatesSinceRebuild = 0;
+        rebuildRequired = false;
+        return true;
+    }
+
+    /** includes a value; returns false if it cannot be aggregated incrementally */
+    boolean add(@Nullable Object value) {
+        return update(value, 1);
+    }
+
+    /** excludes a value previously included; returns false if it cannot be aggregated incrementally */
+    boolean remove(@Nullable Object value) {
+        return update(value, -1);
+    }
+
+    private boolean update(@Nullable Object value, int sign) {
+        Number n;
+        if (value == null) {
+            // as for the stock transformations, nulls count only if there is a default for them
+            if (valueIfNull == null) return true;
+            n = valueIfNull;
+        } else if (value instanceof Number) {
+            n = (Number) value;
+        } else {
+            return false;
+        }
+        double d = n.doubleValue();
+        count += sign;
+        updatesSinceRebuild++;
+        if (ordered != null) {
+            if (sign > 0) ordered.add(d);
+            else ordered.remove(d);
+        } else if (sign < 0 && (Double.isNaN(d) || Double.isInfinite(d))) {
+            // cannot be subtracted back out of the running sum
+            rebuildRequired = true;
+        } else {
+            sum += sign * d;
+        }
+        return true;
+    }
+
+    Number result() {
+        switch (kind) {
+        case SUM:
+            return (count == 0) ? Enrichers.cast(valueIfNone, type) : Enrichers.cast(sum, type);
+        case AVERAGE:
+            return (count == 0) ? Enrichers.cast(valueIfNone == null ? null : valueIfNone.doubleValue(), type) : Enrichers.cast(sum / count, type);
+        case MIN:
+            return ordered.isEmpty() ? Enrichers.cast(valueIfNone, type) : Enrichers.cast(ordered.firstEntry().getElement(), type);
+        case MAX:
+            return ordered.isEmpty() ? Enrichers.cast(valueIfNone, type) : Enrichers.cast(ordered.lastEntry().getElement(), type);
+        case COUNT:
+            return Enrichers.cast(count, type);
+        default:
+            throw new IllegalStateException("Unexpected aggregation "+kind);
+        }
+    }
+}
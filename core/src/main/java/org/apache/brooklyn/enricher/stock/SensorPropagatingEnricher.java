@@ -145,11 +145,8 @@ public class SensorPropagatingEnricher extends AbstractEnricher implements Senso
         if (log.isTraceEnabled()) log.trace("policy {} got {}, propagating via {}{}", 
                 new Object[] {this, event, entity, (sourceSensor == destinationSensor ? "" : " (as "+destinationSensor+")")});
         
-        if (event.getSensor() instanceof AttributeSensor) {
-            entity.sensors().set((AttributeSensor)destinationSensor, event.getValue());
-        } else {
-            entity.sensors().emit((Sensor)destinationSensor, event.getValue());
-        }       
+        // through emit, so that duplicates (or values within a deadband) can be suppressed
+        emit((Sensor)destinationSensor, event.getValue());
     }
 
     /** useful post-addition to emit current values */
@@ -163,7 +160,8 @@ public class SensorPropagatingEnricher extends AbstractEnricher implements Senso
             if (s instanceof AttributeSensor) {
                 AttributeSensor destinationSensor = (AttributeSensor<?>) getDestinationSensor(s);
                 Object v = source.getAttribute((AttributeSensor)s);
-                if (v != null || includeNullValues) entity.sensors().set(destinationSensor, v);
+                // through emit, as for changes, so that duplicates (or values within a deadband) can be suppressed
+                if (v != null || includeNullValues) emit(destinationSensor, v);
             }
         }
     }
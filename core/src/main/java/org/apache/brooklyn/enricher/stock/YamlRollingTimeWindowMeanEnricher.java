@@ -18,15 +18,12 @@
  */
 package org.apache.brooklyn.enricher.stock;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-
 import org.apache.brooklyn.api.entity.EntityLocal;
 import org.apache.brooklyn.api.sensor.Sensor;
 import org.apache.brooklyn.api.sensor.SensorEvent;
 import org.apache.brooklyn.config.ConfigKey;
 import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.util.math.RollingDoubleWindow;
 import org.apache.brooklyn.util.time.Duration;
 
 import com.google.common.base.Function;
@@ -78,8 +75,8 @@ public class YamlRollingTimeWindowMeanEnricher<T extends Number> extends Abstrac
         
     }
     
-    private final LinkedList<T> values = new LinkedList<T>();
-    private final LinkedList<Long> timestamps = new LinkedList<Long>();
+    /** values and their timestamps */
+    private final RollingDoubleWindow window = new RollingDoubleWindow();
     volatile ConfidenceQualifiedNumber lastAverage = new ConfidenceQualifiedNumber(0d,0d);
     
     @Override
@@ -99,8 +96,7 @@ public class YamlRollingTimeWindowMeanEnricher<T extends Number> extends Abstrac
                 if (event.getValue()==null) {
                     return null;
                 }
-                values.addLast(event.getValue());
-                timestamps.addLast(eventTime);
+                window.add(eventTime, event.getValue().doubleValue());
                 if (eventTime>0) {
                     ConfidenceQualifiedNumber average = getAverage(eventTime, 0);
 
@@ -119,22 +115,17 @@ public class YamlRollingTimeWindowMeanEnricher<T extends Number> extends Abstrac
     }
     
     public ConfidenceQualifiedNumber getAverage(long fromTime, long graceAllowed) {
-        if (timestamps.isEmpty()) {
+        if (window.isEmpty()) {
             return lastAverage = new ConfidenceQualifiedNumber(lastAverage.value, 0.0d);
         }
         
-        long firstTimestamp = -1;
-        Iterator<Long> ti = timestamps.iterator();
-        while (ti.hasNext()) {
-            firstTimestamp = ti.next();
-            if (firstTimestamp>0) break;
-        }
+        long firstTimestamp = window.getFirstPositiveTimestamp();
         if (firstTimestamp<=0) {
             // no values with reasonable timestamps
-            return lastAverage = new ConfidenceQualifiedNumber(values.get(values.size()-1).doubleValue(), 0.0d);
+            return lastAverage = new ConfidenceQualifiedNumber(window.getLastValue(), 0.0d);
         }
 
-        long lastTimestamp = timestamps.get(timestamps.size()-1);
+        long lastTimestamp = window.getLastTimestamp();
 
         long now = fromTime;
         if (lastTimestamp > fromTime - graceAllowed) {
@@ -150,26 +141,12 @@ public class YamlRollingTimeWindowMeanEnricher<T extends Number> extends Abstrac
         Double confidence = ((double)(windowEnd - windowStart)) / timePeriod.toMilliseconds();
         if (confidence <= 0.0000001d) {
             // not enough timestamps in window 
-            double lastValue = values.get(values.size()-1).doubleValue();
+            double lastValue = window.getLastValue();
             return lastAverage = new ConfidenceQualifiedNumber(lastValue, 0.0d);
         }
         
-        long start = windowStart;
-        long end;
-        double weightedAverage = 0.0d;
-        
-        Iterator<T> valuesIter = values.iterator();
-        Iterator<Long> timestampsIter = timestamps.iterator();
-        while (valuesIter.hasNext()) {
-            // Ignores null and out-of-date values (and also values that are received out-of-order, but that shouldn't happen!)
-            Number val = valuesIter.next();
-            Long timestamp = timestampsIter.next();
-            if (val!=null && timestamp >= start) {
-                end = timestamp;
-                weightedAverage += ((end - start) / (confidence * timePeriod.toMilliseconds())) * val.doubleValue();
-                start = timestamp;
-            }
-        }
+        // ignores null and out-of-date values (and also values that are received out-of-order, but that shouldn't happen!)
+        double weightedAverage = window.getTimeWeightedSum(windowStart) / (confidence * timePeriod.toMilliseconds());
         
         return lastAverage = new ConfidenceQualifiedNumber(weightedAverage, confidence);
     }
@@ -180,9 +157,6 @@ public class YamlRollingTimeWindowMeanEnricher<T extends Number> extends Abstrac
     private void pruneValues(long now) {
         // keep one value from before the period, so that we can tell the window's start time
         Duration timePeriod = getConfig(WINDOW_DURATION);
-        while(timestamps.size() > 1 && timestamps.get(1) < (now - timePeriod.toMilliseconds())) {
-            timestamps.removeFirst();
-            values.removeFirst();
-        }
+        window.pruneBefore(now - timePeriod.toMilliseconds());
     }
 }
@@ -43,6 +43,7 @@ import org.apache.brooklyn.core.sensor.BasicNotificationSensor;
 import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.entity.group.zoneaware.BalancingNodePlacementStrategy;
 import org.apache.brooklyn.entity.group.zoneaware.ProportionalZoneFailureDetector;
+import org.apache.brooklyn.util.collections.QuorumCheck;
 import org.apache.brooklyn.util.core.flags.SetFromFlag;
 import org.apache.brooklyn.util.time.Duration;
 
@@ -200,6 +201,90 @@ public interface DynamicCluster extends AbstractGroup, Cluster, MemberReplaceabl
     AttributeSensor<Boolean> CLUSTER_ONE_AND_ALL_MEMBERS_UP = Sensors.newBooleanSensor(
             "cluster.one_and_all.members.up", "True cluster is running, there is on member, and all members are service.isUp");
 
+    @Beta
+    @SetFromFlag("maxConcurrentMemberStarts")
+    ConfigKey<Integer> MAX_CONCURRENT_MEMBER_STARTS = ConfigKeys.newIntegerConfigKey(
+            "dynamiccluster.provisioning.maxConcurrentStarts",
+            "Maximum number of new members to start at once when the cluster grows; "
+            + "reduced automatically while starts are being throttled (see throttlingFilter). "
+            + "If not set (the default) all new members are started at once, unless another provisioning option is set");
+
+    @Beta
+    @SetFromFlag("memberStartBatchSize")
+    ConfigKey<Integer> MEMBER_START_BATCH_SIZE = ConfigKeys.newIntegerConfigKey(
+            "dynamiccluster.provisioning.batchSize",
+            "Number of new members in each wave of starts when the cluster grows; each wave finishes before the next begins. "
+            + "Defaults to maxConcurrentStarts, if set");
+
+    @Beta
+    @SetFromFlag("memberStartQuorum")
+    ConfigKey<QuorumCheck> MEMBER_START_QUORUM = ConfigKeys.newConfigKey(
+            QuorumCheck.class,
+            "dynamiccluster.provisioning.quorum",
+            "If set, growing the cluster returns as soon as the new members started successfully "
+            + "satisfy this check against the number being added (e.g. 'atLeastOne'); "
+            + "the remaining members continue starting in the background",
+            null);
+
+    @Beta
+    @SetFromFlag("throttlingFilter")
+    ConfigKey<Predicate<? super Throwable>> THROTTLING_FILTER = ConfigKeys.newConfigKey(
+            new TypeToken<Predicate<? super Throwable>>() {},
+            "dynamiccluster.provisioning.throttlingFilter",
+            "Identifies member start failures caused by the cloud throttling requests or enforcing quotas, "
+            + "which cause starts to back off and the failed member to be replaced and retried. "
+            + "Default matches errors mentioning throttling, rate limits, 'too many requests' or quota. "
+            + "Only used when a provisioning limit (maxConcurrentStarts, batchSize or quorum) is set",
+            null);
+
+    @Beta
+    @SetFromFlag("throttlingBackoff")
+    ConfigKey<Duration> THROTTLING_BACKOFF = ConfigKeys.newConfigKey(
+            Duration.class,
+            "dynamiccluster.provisioning.throttlingBackoff",
+            "Time for which further member starts are held back after a throttling failure; "
+            + "doubles for each consecutive throttling failure, up to maxThrottlingBackoff",
+            Duration.TEN_SECONDS);
+
+    @Beta
+    @SetFromFlag("maxThrottlingBackoff")
+    ConfigKey<Duration> MAX_THROTTLING_BACKOFF = ConfigKeys.newConfigKey(
+            Duration.class,
+            "dynamiccluster.provisioning.maxThrottlingBackoff",
+            "Maximum time for which further member starts are held back after throttling failures",
+            Duration.FIVE_MINUTES);
+
+    @Beta
+    @SetFromFlag("maxThrottledRetries")
+    ConfigKey<Integer> MAX_THROTTLED_RETRIES = ConfigKeys.newIntegerConfigKey(
+            "dynamiccluster.provisioning.maxThrottledRetries",
+            "Number of times a new member whose start is throttled is replaced by another and retried, before giving up",
+            3);
+
+    @Beta
+    AttributeSensor<Integer> PROVISIONING_PENDING = Sensors.newIntegerSensor(
+            "dynamiccluster.provisioning.pending", "Number of new members waiting to start, when starts are limited");
+
+    @Beta
+    AttributeSensor<Integer> PROVISIONING_IN_PROGRESS = Sensors.newIntegerSensor(
+            "dynamiccluster.provisioning.inProgress", "Number of new members starting, when starts are limited");
+
+    @Beta
+    AttributeSensor<Integer> PROVISIONING_SUCCEEDED = Sensors.newIntegerSensor(
+            "dynamiccluster.provisioning.succeeded", "Number of new members started successfully in the most recent growth, when starts are limited");
+
+    @Beta
+    AttributeSensor<Integer> PROVISIONING_FAILED = Sensors.newIntegerSensor(
+            "dynamiccluster.provisioning.failed", "Number of new members that failed to start in the most recent growth, when starts are limited");
+
+    @Beta
+    AttributeSensor<Integer> PROVISIONING_THROTTLED = Sensors.newIntegerSensor(
+            "dynamiccluster.provisioning.throttled", "Number of member starts throttled in the most recent growth, when starts are limited");
+
+    @Beta
+    AttributeSensor<Integer> PROVISIONING_CONCURRENCY = Sensors.newIntegerSensor(
+            "dynamiccluster.provisioning.concurrency", "Current limit on the number of members started at once, when starts are limited");
+
     /**
      * Changes the cluster size by the given number.
      *
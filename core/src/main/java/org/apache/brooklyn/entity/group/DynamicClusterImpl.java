@@ -64,6 +64,7 @@ import org.apache.brooklyn.feed.function.FunctionFeed;
 import org.apache.brooklyn.feed.function.FunctionPollConfig;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.collections.QuorumCheck;
 import org.apache.brooklyn.util.collections.QuorumCheck.QuorumChecks;
 import org.apache.brooklyn.util.core.flags.TypeCoercions;
 import org.apache.brooklyn.util.core.task.DynamicTasks;
@@ -107,6 +108,10 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
     private static final AttributeSensor<Supplier<Integer>> NEXT_CLUSTER_MEMBER_ID = Sensors.newSensor(new TypeToken<Supplier<Integer>>() {},
             "next.cluster.member.id", "Returns the ID number of the next member to be added");
 
+    /** lower-case text in the errors of member starts which were throttled by the cloud, for the default {@link #THROTTLING_FILTER} */
+    private static final List<String> THROTTLING_ERROR_INDICATORS = ImmutableList.of(
+            "throttl", "rate limit", "ratelimit", "requestlimitexceeded", "too many requests", "quota");
+
     private volatile FunctionFeed clusterOneAndAllMembersUp;
 
     // TODO better mechanism for arbitrary class name to instance type coercion
@@ -360,6 +365,30 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
         }
     }
 
+    protected boolean isMemberStartLimited() {
+        Integer maxConcurrentStarts = getConfig(MAX_CONCURRENT_MEMBER_STARTS);
+        Integer batchSize = getConfig(MEMBER_START_BATCH_SIZE);
+        return (maxConcurrentStarts != null && maxConcurrentStarts > 0) || (batchSize != null && batchSize > 0)
+                || getConfig(MEMBER_START_QUORUM) != null;
+    }
+
+    protected Predicate<? super Throwable> getThrottlingFilter() {
+        Predicate<? super Throwable> result = getConfig(THROTTLING_FILTER);
+        if (result != null) {
+            return result;
+        } else {
+            return new Predicate<Throwable>() {
+                @Override public boolean apply(Throwable input) {
+                    String text = Exceptions.collapseTextIncludingAllCausalMessages(input).toLowerCase();
+                    for (String indicator : THROTTLING_ERROR_INDICATORS) {
+                        if (text.contains(indicator)) return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
     protected int getInitialQuorumSize() {
         int initialSize = getConfig(INITIAL_SIZE).intValue();
         int initialQuorumSize = getConfig(INITIAL_QUORUM_SIZE).intValue();
@@ -812,13 +841,15 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
     }
 
     protected ReferenceWithError<Collection<Entity>> addInEachLocation(Iterable<Location> locations, Map<?,?> flags) {
-        List<Entity> addedEntities = Lists.newArrayList();
+        if (isMemberStartLimited()) {
+            return addInEachLocationLimitingStarts(locations, flags);
+        }
+
         Map<Entity, Location> addedEntityLocations = Maps.newLinkedHashMap();
         Map<Entity, Task<?>> tasks = Maps.newLinkedHashMap();
 
         for (Location loc : locations) {
             Entity entity = addNode(loc, flags);
-            addedEntities.add(entity);
             addedEntityLocations.put(entity, loc);
             if (entity instanceof Startable) {
                 Map<String, ?> args = ImmutableMap.of("locations", MutableList.builder().addIfNotNull(loc).buildImmutable());
@@ -832,6 +863,14 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
         DynamicTasks.queueIfPossible(parallel).orSubmitAsync(this);
         Map<Entity, Throwable> errors = waitForTasksOnEntityStart(tasks);
 
+        return onNodesStarted(addedEntityLocations, errors);
+    }
+
+    /**
+     * Reports the outcome of starting the given new members to the {@link ZoneFailureDetector} (if tracking),
+     * and quarantines or discards those that failed; returns those that started.
+     */
+    protected ReferenceWithError<Collection<Entity>> onNodesStarted(Map<Entity, Location> addedEntityLocations, Map<Entity, Throwable> errors) {
         // if tracking, then report success/fail to the ZoneFailureDetector
         if (isAvailabilityZoneEnabled()) {
             for (Map.Entry<Entity, Location> entry : addedEntityLocations.entrySet()) {
@@ -847,7 +886,7 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
         }
         
         Collection<Entity> result = MutableList.<Entity> builder()
-            .addAll(addedEntities)
+            .addAll(addedEntityLocations.keySet())
             .removeAll(errors.keySet())
             .build();
 
@@ -864,6 +903,239 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
         return ReferenceWithError.newInstanceWithoutError(result);
     }
 
+    /**
+     * As {@link #addInEachLocation(Iterable, Map)}, but starting the new members in waves of {@link #MEMBER_START_BATCH_SIZE},
+     * at most {@link #MAX_CONCURRENT_MEMBER_STARTS} at once (fewer while starts are being throttled, see {@link MemberStartThrottle}),
+     * replacing and retrying members whose start is throttled, and returning as soon as {@link #MEMBER_START_QUORUM} is met (if set).
+     * Progress is published in the provisioning sensors, such as {@link #PROVISIONING_PENDING}.
+     */
+    protected ReferenceWithError<Collection<Entity>> addInEachLocationLimitingStarts(Iterable<Location> locations, final Map<?,?> flags) {
+        // all are added up front, so that the cluster's size includes the members still waiting to start
+        Map<Entity, Location> addedEntityLocations = Maps.newLinkedHashMap();
+        for (Location loc : locations) {
+            addedEntityLocations.put(addNode(loc, flags), loc);
+        }
+        final MemberStartProgress progress = new MemberStartProgress(addedEntityLocations);
+
+        QuorumCheck quorum = getConfig(MEMBER_START_QUORUM);
+        if (quorum == null) {
+            startInWaves(flags, progress);
+            return onNodesStarted(progress.getEntityLocations(), progress.getErrors());
+        }
+
+        int numNodes = addedEntityLocations.size();
+        Task<Void> task = Tasks.<Void>builder()
+                .displayName("starting "+numNodes+" node"+Strings.s(numNodes)+" (in waves)")
+                .body(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        startInWaves(flags, progress);
+                        return null;
+                    }
+                })
+                .build();
+        // submitted rather than queued, so that it can carry on after this returns
+        Entities.submit(this, task);
+        try {
+            if (progress.awaitQuorum(quorum)) {
+                Collection<Entity> started = progress.getStarted();
+                LOG.info("Cluster {} started quorum of {} of {} new members; remainder continue starting in the background", new Object[] {this, started.size(), numNodes});
+                return ReferenceWithError.newInstanceWithoutError(started);
+            }
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        }
+        // all starts ended before the quorum was met, so the failures are cleaned up here rather than in the background
+        task.getUnchecked();
+        return onNodesStarted(progress.getEntityLocations(), progress.getErrors());
+    }
+
+    /**
+     * Starts the members in waves. If the caller has already returned having met the quorum, the failed members
+     * are then cleaned up here, synchronized on {@link #mutex} as they would be when resizing;
+     * otherwise that is left to the caller.
+     */
+    private void startInWaves(Map<?,?> flags, MemberStartProgress progress) {
+        boolean detached;
+        try {
+            List<Entity> entities = ImmutableList.copyOf(progress.getEntityLocations().keySet());
+            Integer maxConcurrentStarts = getConfig(MAX_CONCURRENT_MEMBER_STARTS);
+            Integer batchSize = getConfig(MEMBER_START_BATCH_SIZE);
+            int maxConcurrency = (maxConcurrentStarts != null && maxConcurrentStarts > 0) ? maxConcurrentStarts : Math.max(1, entities.size());
+            int waveSize = (batchSize != null && batchSize > 0) ? batchSize : maxConcurrency;
+            MemberStartThrottle throttle = new MemberStartThrottle(maxConcurrency, getConfig(THROTTLING_BACKOFF), getConfig(MAX_THROTTLING_BACKOFF));
+            progress.publish(throttle);
+
+            List<List<Entity>> waves = Lists.partition(entities, waveSize);
+            for (int i = 0; i < waves.size(); i++) {
+                List<Task<Entity>> starts = Lists.newArrayList();
+                for (Entity entity : waves.get(i)) {
+                    starts.add(newMemberStartTask(entity, progress.getEntityLocations().get(entity), flags, throttle, progress));
+                }
+                Task<List<?>> parallel = Tasks.parallel("starting wave "+(i+1)+" of "+waves.size()+": "+starts.size()+" node"+Strings.s(starts.size())
+                        +" (at most "+maxConcurrency+" at once)", starts);
+                TaskTags.markInessential(parallel);
+                DynamicTasks.queueIfPossible(parallel).orSubmitAsync(this);
+                parallel.blockUntilEnded();
+            }
+        } finally {
+            detached = progress.onEnd();
+        }
+        if (detached) {
+            synchronized (mutex) {
+                onNodesStarted(progress.getEntityLocations(), progress.getErrors());
+            }
+        }
+    }
+
+    private Task<Entity> newMemberStartTask(final Entity member, @Nullable final Location loc, final Map<?,?> flags, final MemberStartThrottle throttle, final MemberStartProgress progress) {
+        return Tasks.<Entity>builder()
+                .displayName("starting "+member)
+                .body(new Callable<Entity>() {
+                    @Override
+                    public Entity call() throws Exception {
+                        int maxRetries = getConfig(MAX_THROTTLED_RETRIES);
+                        int retries = 0;
+                        Entity entity = member;
+                        while (true) {
+                            throttle.acquire();
+                            progress.onStarting(throttle);
+                            Throwable error = null;
+                            try {
+                                if (entity instanceof Startable) {
+                                    Map<String, ?> args = ImmutableMap.of("locations", MutableList.builder().addIfNotNull(loc).buildImmutable());
+                                    Task<Void> start = Effectors.invocation(entity, Startable.START, args).asTask();
+                                    // failure is handled here, so must not fail this task
+                                    TaskTags.markInessential(start);
+                                    DynamicTasks.queue(start).get();
+                                }
+                            } catch (Throwable t) {
+                                error = t;
+                            }
+
+                            if (error == null) {
+                                throttle.onSuccess();
+                                progress.onSucceeded(entity, throttle);
+                                return entity;
+                            }
+                            if (!Exceptions.isFatal(error) && getThrottlingFilter().apply(error)) {
+                                Duration backoff = throttle.onThrottled();
+                                if (retries < maxRetries) {
+                                    retries++;
+                                    LOG.warn("Cluster "+DynamicClusterImpl.this+" throttled starting entity "+entity+"; replacing it and retrying "
+                                            + "(retry "+retries+" of "+maxRetries+") after "+backoff+": "+Exceptions.collapseText(error));
+                                    // stopped rather than just discarded, in case it was provisioned before being throttled
+                                    stopThrottledNode(entity);
+                                    Entity replacement = addNode(loc, flags);
+                                    progress.onThrottled(entity, replacement, throttle);
+                                    entity = replacement;
+                                    continue;
+                                }
+                            } else {
+                                throttle.onFailure();
+                            }
+                            progress.onFailed(entity, error, throttle);
+                            Exceptions.propagateIfFatal(error);
+                            Throwable interesting = Exceptions.getFirstInteresting(error);
+                            LOG.error("Cluster "+DynamicClusterImpl.this+" failed to start entity "+entity+" (removing): "+interesting, interesting);
+                            LOG.debug("Trace for: Cluster "+DynamicClusterImpl.this+" failed to start entity "+entity+" (removing): "+error, error);
+                            throw Exceptions.propagate(error);
+                        }
+                    }
+                })
+                .build();
+    }
+
+    /** Progress of starting new members when starts are limited, published in the provisioning sensors. */
+    private class MemberStartProgress {
+        private final int total;
+        private final Map<Entity, Location> entityLocations;
+        private final Map<Entity, Throwable> errors = Maps.newLinkedHashMap();
+        private final List<Entity> started = Lists.newArrayList();
+        private int pending;
+        private int inProgress;
+        private int throttled;
+        private boolean ended;
+        private boolean detached;
+
+        MemberStartProgress(Map<Entity, Location> addedEntityLocations) {
+            this.entityLocations = Maps.newLinkedHashMap(addedEntityLocations);
+            this.total = addedEntityLocations.size();
+            this.pending = total;
+        }
+
+        synchronized void onStarting(MemberStartThrottle throttle) {
+            pending--;
+            inProgress++;
+            publish(throttle);
+        }
+
+        synchronized void onSucceeded(Entity entity, MemberStartThrottle throttle) {
+            inProgress--;
+            started.add(entity);
+            publish(throttle);
+            notifyAll();
+        }
+
+        synchronized void onThrottled(Entity entity, Entity replacement, MemberStartThrottle throttle) {
+            inProgress--;
+            pending++;
+            throttled++;
+            entityLocations.put(replacement, entityLocations.remove(entity));
+            publish(throttle);
+        }
+
+        synchronized void onFailed(Entity entity, Throwable error, MemberStartThrottle throttle) {
+            inProgress--;
+            errors.put(entity, error);
+            publish(throttle);
+        }
+
+        /** returns whether the caller stopped waiting for the starts to end, having met the quorum */
+        synchronized boolean onEnd() {
+            ended = true;
+            notifyAll();
+            return detached;
+        }
+
+        /**
+         * waits until the members started satisfy the quorum (returning true, after which the remaining starts
+         * are left to finish in the background), or all starts have ended (returning false)
+         */
+        synchronized boolean awaitQuorum(QuorumCheck quorum) throws InterruptedException {
+            while (true) {
+                if (ended) return false;
+                if (quorum.isQuorate(started.size(), total)) {
+                    detached = true;
+                    return true;
+                }
+                wait();
+            }
+        }
+
+        synchronized Map<Entity, Location> getEntityLocations() {
+            // locations can be null, if the member spec has its own
+            return Maps.newLinkedHashMap(entityLocations);
+        }
+
+        synchronized Map<Entity, Throwable> getErrors() {
+            return Maps.newLinkedHashMap(errors);
+        }
+
+        synchronized List<Entity> getStarted() {
+            return ImmutableList.copyOf(started);
+        }
+
+        synchronized void publish(MemberStartThrottle throttle) {
+            sensors().set(PROVISIONING_PENDING, pending);
+            sensors().set(PROVISIONING_IN_PROGRESS, inProgress);
+            sensors().set(PROVISIONING_SUCCEEDED, started.size());
+            sensors().set(PROVISIONING_FAILED, errors.size());
+            sensors().set(PROVISIONING_THROTTLED, throttled);
+            sensors().set(PROVISIONING_CONCURRENCY, throttle.getLimit());
+        }
+    }
+
     protected void quarantineFailedNodes(Map<Entity, Throwable> failedEntities) {
         for (Map.Entry<Entity, Throwable> entry : failedEntities.entrySet()) {
             Entity entity = entry.getKey();
@@ -879,6 +1151,29 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
         }
     }
 
+    /**
+     * Stops and removes a member whose start was throttled, before it is replaced; if it will not stop,
+     * it is quarantined (if enabled) so that it can be cleaned up by hand.
+     */
+    protected void stopThrottledNode(Entity entity) {
+        removeMember(entity);
+        try {
+            if (entity instanceof Startable) {
+                entity.invoke(Startable.STOP, Collections.<String,Object>emptyMap()).getUnchecked();
+            }
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            if (isQuarantineEnabled()) {
+                LOG.warn("Cluster "+this+" failed to stop throttled entity "+entity+" (quarantining): "+Exceptions.collapseText(e));
+                sensors().emit(ENTITY_QUARANTINED, entity);
+                getQuarantineGroup().addMember(entity);
+                return;
+            }
+            LOG.warn("Cluster "+this+" failed to stop throttled entity "+entity+" (discarding): "+Exceptions.collapseText(e));
+        }
+        discardNode(entity);
+    }
+
     protected void cleanupFailedNodes(Collection<Entity> failedEntities) {
         // TODO Could also call stop on them?
         for (Entity entity : failedEntities) {
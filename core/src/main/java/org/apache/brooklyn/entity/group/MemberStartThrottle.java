@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.entity.group;
+
+import org.apache.brooklyn.util.time.Duration;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Limits how many members of a {@link DynamicClusterImpl} are started at once while it grows.
+ * <p>
+ * The limit adapts to the cloud's behaviour: each start failing because of throttling (or quota) halves it
+ * and holds back further starts for a backoff period (doubling on each consecutive throttling failure, up to a maximum);
+ * each successful start raises it by one again, up to the configured maximum.
+ * <p>
+ * Thread-safe.
+ */
+class MemberStartThrottle {
+
+    private final int maxConcurrency;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private int limit;
+    private int inProgress;
+    private Duration backoff;
+    private long resumeTime;
+
+    MemberStartThrottle(int maxConcurrency, Duration initialBackoff, Duration maxBackoff) {
+        Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency must be positive");
+        this.maxConcurrency = maxConcurrency;
+        this.initialBackoff = Preconditions.checkNotNull(initialBackoff, "initialBackoff");
+        this.maxBackoff = Preconditions.checkNotNull(maxBackoff, "maxBackoff");
+        this.limit = maxConcurrency;
+    }
+
+    /** blocks until another start is allowed, i.e. fewer than the limit are in progress and any backoff has passed */
+    synchronized void acquire() throws InterruptedException {
+        while (true) {
+            long delay = resumeTime - System.currentTimeMillis();
+            if (delay > 0) {
+                wait(delay);
+            } else if (inProgress < limit) {
+                inProgress++;
+                return;
+            } else {
+                wait();
+            }
+        }
+    }
+
+    /** records that a start {@link #acquire() acquired} succeeded */
+    synchronized void onSuccess() {
+        release();
+        backoff = null;
+        if (limit < maxConcurrency) limit++;
+    }
+
+    /** records that a start {@link #acquire() acquired} failed for a reason other than throttling */
+    synchronized void onFailure() {
+        release();
+    }
+
+    /** records that a start {@link #acquire() acquired} was throttled; returns the time for which further starts are held back */
+    synchronized Duration onThrottled() {
+        release();
+        limit = Math.max(1, limit / 2);
+        backoff = (backoff == null) ? initialBackoff : Duration.min(backoff.multiply(2), maxBackoff);
+        resumeTime = System.currentTimeMillis() + backoff.toMilliseconds();
+        return backoff;
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    synchronized int getInProgress() {
+        return inProgress;
+    }
+
+    private void release() {
+        Preconditions.checkState(inProgress > 0, "No start in progress");
+        inProgress--;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getClass().getSimpleName()+"[limit="+limit+"; inProgress="+inProgress+"; backoff="+backoff+"]";
+    }
+}
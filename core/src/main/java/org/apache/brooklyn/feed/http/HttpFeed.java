@@ -34,15 +34,20 @@ import java.util.concurrent.TimeUnit;
 import org.apache.brooklyn.api.entity.EntityLocal;
 import org.apache.brooklyn.api.location.Location;
 import org.apache.brooklyn.api.location.MachineLocation;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.config.StringConfigMap;
 import org.apache.brooklyn.config.ConfigKey;
 import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.feed.AbstractFeed;
 import org.apache.brooklyn.core.feed.AttributePollHandler;
 import org.apache.brooklyn.core.feed.DelegatingPollHandler;
 import org.apache.brooklyn.core.feed.Poller;
 import org.apache.brooklyn.core.location.Locations;
 import org.apache.brooklyn.core.location.Machines;
+import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
+import org.apache.brooklyn.core.server.BrooklynServerConfig;
 import org.apache.brooklyn.util.executor.HttpExecutorFactory;
 import org.apache.brooklyn.util.guava.Maybe;
 import org.apache.brooklyn.util.http.HttpToolResponse;
@@ -52,6 +57,7 @@ import org.apache.brooklyn.util.http.executor.HttpExecutor;
 import org.apache.brooklyn.util.http.executor.HttpRequest;
 import org.apache.brooklyn.util.http.executor.HttpResponse;
 import org.apache.brooklyn.util.http.executor.apacheclient.HttpExecutorImpl;
+import org.apache.brooklyn.util.http.executor.apacheclient.PooledHttpExecutorImpl;
 import org.apache.brooklyn.util.stream.Streams;
 import org.apache.brooklyn.util.time.Duration;
 import org.apache.http.auth.Credentials;
@@ -59,6 +65,8 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
@@ -311,7 +319,9 @@ public class HttpFeed extends AbstractFeed {
                 Map<String, Object> httpExecutorProps = location.get().getAllConfig(true);
                 httpExecutor = httpExecutorFactory.getHttpExecutor(httpExecutorProps);
             } else {
-                httpExecutor = HttpExecutorImpl.newInstance();
+                // resolved when started, to the management context's shared executor if enabled;
+                // not stored here so that it is not persisted, and so identical polls of different entities are equal
+                httpExecutor = null;
             }
         }
 
@@ -350,8 +360,17 @@ public class HttpFeed extends AbstractFeed {
     @Override
     protected void preStart() {
         SetMultimap<HttpPollIdentifier, HttpPollConfig<?>> polls = getConfig(POLLS);
+        HttpExecutor defaultHttpExecutor = null;
 
         for (final HttpPollIdentifier pollInfo : polls.keySet()) {
+            final HttpExecutor httpExecutor;
+            if (pollInfo.httpExecutor != null) {
+                httpExecutor = pollInfo.httpExecutor;
+            } else {
+                if (defaultHttpExecutor == null) defaultHttpExecutor = newDefaultHttpExecutor();
+                httpExecutor = defaultHttpExecutor;
+            }
+
             // Though HttpClients are thread safe and can take advantage of connection pooling
             // and authentication caching, the httpcomponents documentation says:
             //    "While HttpClient instances are thread safe and can be shared between multiple
@@ -380,7 +399,7 @@ public class HttpFeed extends AbstractFeed {
                                 pollInfo.credentials.get().getPassword());
                     }
 
-                    HttpResponse response =  pollInfo.httpExecutor.execute(new HttpRequest.Builder()
+                    HttpResponse response =  httpExecutor.execute(new HttpRequest.Builder()
                             .headers(pollInfo.headers)
                             .uri(pollInfo.uriProvider.get())
                             .credentials(creds)
@@ -398,6 +417,39 @@ public class HttpFeed extends AbstractFeed {
         }
     }
 
+    private static final Function<ManagementContext, HttpExecutor> SHARED_HTTP_EXECUTOR_FACTORY = new Function<ManagementContext, HttpExecutor>() {
+        @Override public HttpExecutor apply(ManagementContext input) {
+            StringConfigMap config = input.getConfig();
+            return new PooledHttpExecutorImpl(
+                    config.getConfig(BrooklynServerConfig.SHARED_HTTP_EXECUTOR_MAX_CONNECTIONS),
+                    config.getConfig(BrooklynServerConfig.SHARED_HTTP_EXECUTOR_MAX_CONNECTIONS_PER_HOST),
+                    config.getConfig(BrooklynServerConfig.SHARED_HTTP_EXECUTOR_IDLE_TIMEOUT));
+        }
+    };
+
+    /**
+     * @return The pooled http executor shared by the http feeds in the given management context which are not given
+     *         their own executor; created lazily, and closed when the management context terminates.
+     */
+    @Beta
+    public static HttpExecutor sharedHttpExecutor(ManagementContext managementContext) {
+        return ((ManagementContextInternal) managementContext).getSharedInstance(HttpExecutor.class, SHARED_HTTP_EXECUTOR_FACTORY);
+    }
+
+    /**
+     * The executor for polls not given one by the builder or the location: the management context's
+     * {@link #sharedHttpExecutor(ManagementContext) shared executor}, unless
+     * {@link BrooklynServerConfig#SHARED_HTTP_EXECUTOR_ENABLED disabled}.
+     */
+    protected HttpExecutor newDefaultHttpExecutor() {
+        ManagementContext mgmt = ((EntityInternal) entity).getManagementContext();
+        if (Boolean.TRUE.equals(mgmt.getConfig().getConfig(BrooklynServerConfig.SHARED_HTTP_EXECUTOR_ENABLED))) {
+            return sharedHttpExecutor(mgmt);
+        } else {
+            return HttpExecutorImpl.newInstance();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     protected Poller<HttpToolResponse> getPoller() {
         return  (Poller<HttpToolResponse>) super.getPoller();
@@ -35,6 +35,7 @@ import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.feed.AbstractFeed;
 import org.apache.brooklyn.core.feed.AttributePollHandler;
 import org.apache.brooklyn.core.feed.DelegatingPollHandler;
+import org.apache.brooklyn.core.feed.PollHandler;
 import org.apache.brooklyn.core.feed.Poller;
 import org.apache.brooklyn.core.location.Locations;
 import org.apache.brooklyn.core.location.Machines;
@@ -43,16 +44,23 @@ import org.slf4j.LoggerFactory;
 import org.apache.brooklyn.location.ssh.SshMachineLocation;
 import org.apache.brooklyn.util.core.config.ConfigBag;
 import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.guava.Maybe;
+import org.apache.brooklyn.util.text.Identifiers;
+import org.apache.brooklyn.util.text.StringEscapes.BashStringEscapes;
 import org.apache.brooklyn.util.time.Duration;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import com.google.common.reflect.TypeToken;
 
 /**
@@ -100,6 +108,10 @@ public class SshFeed extends AbstractFeed {
     
     public static final ConfigKey<Boolean> EXEC_AS_COMMAND = ConfigKeys.newBooleanConfigKey("execAsCommand");
     
+    public static final ConfigKey<Boolean> BATCH_POLLS = ConfigKeys.newBooleanConfigKey("batchPolls",
+            "Whether to run all commands which poll with the same period as a single remote script, "
+            + "i.e. one ssh session per poll rather than one per command", false);
+    
     @SuppressWarnings("serial")
     public static final ConfigKey<SetMultimap<SshPollIdentifier, SshPollConfig<?>>> POLLS = ConfigKeys.newConfigKey(
             new TypeToken<SetMultimap<SshPollIdentifier, SshPollConfig<?>>>() {},
@@ -116,6 +128,7 @@ public class SshFeed extends AbstractFeed {
         private Duration period = Duration.of(500, TimeUnit.MILLISECONDS);
         private List<SshPollConfig<?>> polls = Lists.newArrayList();
         private boolean execAsCommand = false;
+        private boolean batchPolls = false;
         private String uniqueTag;
         private volatile boolean built;
         
@@ -157,6 +170,15 @@ public class SshFeed extends AbstractFeed {
             execAsCommand = false;
             return this;
         }
+        /**
+         * Combines the commands of all polls which share a period into one script, executed in a single
+         * ssh session; the output is demultiplexed so each poll sees its own stdout, stderr and exit status.
+         */
+        public Builder batchPolls() { return batchPolls(true); }
+        public Builder batchPolls(boolean val) {
+            batchPolls = val;
+            return this;
+        }
         public Builder uniqueTag(String uniqueTag) {
             this.uniqueTag = uniqueTag;
             return this;
@@ -209,6 +231,7 @@ public class SshFeed extends AbstractFeed {
         config().set(ONLY_IF_SERVICE_UP, builder.onlyIfServiceUp);
         config().set(MACHINE, builder.machine);
         config().set(EXEC_AS_COMMAND, builder.execAsCommand);
+        config().set(BATCH_POLLS, builder.batchPolls);
         
         SetMultimap<SshPollIdentifier, SshPollConfig<?>> polls = HashMultimap.<SshPollIdentifier,SshPollConfig<?>>create();
         for (SshPollConfig<?> config : builder.polls) {
@@ -233,6 +256,8 @@ public class SshFeed extends AbstractFeed {
     @Override
     protected void preStart() {
         SetMultimap<SshPollIdentifier, SshPollConfig<?>> polls = config().get(POLLS);
+        boolean batchPolls = Boolean.TRUE.equals(config().get(BATCH_POLLS));
+        Map<Long, Map<SshPollIdentifier, DelegatingPollHandler<SshPollValue>>> batches = Maps.newLinkedHashMap();
         
         for (final SshPollIdentifier pollInfo : polls.keySet()) {
             Set<SshPollConfig<?>> configs = polls.get(pollInfo);
@@ -244,6 +269,16 @@ public class SshFeed extends AbstractFeed {
                 if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
             }
             
+            if (batchPolls) {
+                Map<SshPollIdentifier, DelegatingPollHandler<SshPollValue>> batch = batches.get(minPeriod);
+                if (batch == null) {
+                    batch = Maps.newLinkedHashMap();
+                    batches.put(minPeriod, batch);
+                }
+                batch.put(pollInfo, new DelegatingPollHandler<SshPollValue>(handlers));
+                continue;
+            }
+            
             getPoller().scheduleAtFixedRate(
                     new Callable<SshPollValue>() {
                         public SshPollValue call() throws Exception {
@@ -252,6 +287,29 @@ public class SshFeed extends AbstractFeed {
                     new DelegatingPollHandler<SshPollValue>(handlers),
                     minPeriod);
         }
+        
+        for (Map.Entry<Long, Map<SshPollIdentifier, DelegatingPollHandler<SshPollValue>>> batch : batches.entrySet()) {
+            final List<SshPollIdentifier> pollInfos = ImmutableList.copyOf(batch.getValue().keySet());
+            if (pollInfos.size() == 1) {
+                // nothing to combine
+                final SshPollIdentifier pollInfo = pollInfos.get(0);
+                getPoller().scheduleAtFixedRate(
+                        new Callable<SshPollValue>() {
+                            public SshPollValue call() throws Exception {
+                                return exec(pollInfo.command.get(), pollInfo.env.get());
+                            }}, 
+                        batch.getValue().get(pollInfo),
+                        batch.getKey());
+            } else {
+                getBatchPoller().scheduleAtFixedRate(
+                        new Callable<Map<SshPollIdentifier, Maybe<SshPollValue>>>() {
+                            public Map<SshPollIdentifier, Maybe<SshPollValue>> call() throws Exception {
+                                return execBatch(pollInfos);
+                            }}, 
+                        new BatchPollHandler(batch.getValue()),
+                        batch.getKey());
+            }
+        }
     }
     
     @SuppressWarnings("unchecked")
@@ -259,6 +317,153 @@ public class SshFeed extends AbstractFeed {
         return (Poller<SshPollValue>) super.getPoller();
     }
     
+    @SuppressWarnings("unchecked")
+    private Poller<Map<SshPollIdentifier, Maybe<SshPollValue>>> getBatchPoller() {
+        return (Poller<Map<SshPollIdentifier, Maybe<SshPollValue>>>) super.getPoller();
+    }
+    
+    /**
+     * Hands each poll's part of a batched result to that poll's handlers; a poll whose part
+     * could not be found in the output is treated as having thrown an exception.
+     */
+    private static class BatchPollHandler implements PollHandler<Map<SshPollIdentifier, Maybe<SshPollValue>>> {
+        private final Map<SshPollIdentifier, DelegatingPollHandler<SshPollValue>> delegates;
+        
+        BatchPollHandler(Map<SshPollIdentifier, DelegatingPollHandler<SshPollValue>> delegates) {
+            this.delegates = ImmutableMap.copyOf(delegates);
+        }
+        
+        @Override
+        public boolean checkSuccess(Map<SshPollIdentifier, Maybe<SshPollValue>> val) {
+            // success or failure is decided per poll, in onSuccess
+            return true;
+        }
+
+        @Override
+        public void onSuccess(Map<SshPollIdentifier, Maybe<SshPollValue>> val) {
+            for (Map.Entry<SshPollIdentifier, DelegatingPollHandler<SshPollValue>> entry : delegates.entrySet()) {
+                DelegatingPollHandler<SshPollValue> delegate = entry.getValue();
+                Maybe<SshPollValue> result = val.get(entry.getKey());
+                if (result == null || result.isAbsent()) {
+                    delegate.onException(new IllegalStateException("No result for "+delegate.getDescription()+" in batched ssh poll output"));
+                } else if (delegate.checkSuccess(result.get())) {
+                    delegate.onSuccess(result.get());
+                } else {
+                    delegate.onFailure(result.get());
+                }
+            }
+        }
+
+        @Override
+        public void onFailure(Map<SshPollIdentifier, Maybe<SshPollValue>> val) {
+            onSuccess(val);
+        }
+
+        @Override
+        public void onException(Exception exception) {
+            for (DelegatingPollHandler<SshPollValue> delegate : delegates.values()) {
+                delegate.onException(exception);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "batch"+delegates.values();
+        }
+        
+        @Override
+        public String toString() {
+            return super.toString()+"["+getDescription()+"]";
+        }
+    }
+    
+    private Map<SshPollIdentifier, Maybe<SshPollValue>> execBatch(List<SshPollIdentifier> pollInfos) throws IOException {
+        String boundary = "BROOKLYN-SSH-FEED-"+Identifiers.makeRandomId(8);
+        List<String> commands = Lists.newArrayList();
+        List<Map<String, String>> envs = Lists.newArrayList();
+        for (SshPollIdentifier pollInfo : pollInfos) {
+            commands.add(pollInfo.command.get());
+            envs.add(pollInfo.env.get());
+        }
+        String script = batchScript(boundary, commands, envs);
+        SshPollValue combined = exec(script, ImmutableMap.<String, String>of());
+        
+        List<Maybe<SshPollValue>> results = parseBatchOutput(combined.getMachine(), boundary, combined.getStdout(), commands.size());
+        Map<SshPollIdentifier, Maybe<SshPollValue>> result = Maps.newLinkedHashMap();
+        for (int i = 0; i < pollInfos.size(); i++) {
+            result.put(pollInfos.get(i), results.get(i));
+        }
+        if (log.isTraceEnabled()) log.trace("Ssh batched poll for {} of {} commands, exit status {}", new Object[] {combined.getMachine(), commands.size(), combined.getExitStatus()});
+        return result;
+    }
+    
+    /**
+     * Builds a script running each command in its own subshell (with its own env), writing
+     * each command's stdout, stderr and exit status between lines starting with the boundary.
+     * <p>
+     * The script header normally turns on <code>bash -e</code>. That is turned off for the batch itself,
+     * as otherwise one failing command would stop the script and lose the results of every later command,
+     * but restored in each command's subshell so each command runs as it would if not batched.
+     */
+    @VisibleForTesting
+    static String batchScript(String boundary, List<String> commands, List<? extends Map<String, String>> envs) {
+        StringBuilder result = new StringBuilder();
+        result.append("case $- in *e*) _brooklyn_errexit=-e ;; *) _brooklyn_errexit=+e ;; esac\n");
+        result.append("set +e\n");
+        result.append("_brooklyn_err=$(mktemp 2>/dev/null || echo /tmp/brooklyn-ssh-feed-$$.err)\n");
+        for (int i = 0; i < commands.size(); i++) {
+            result.append("echo '"+boundary+" out "+i+"'\n");
+            result.append("(\n");
+            result.append("set $_brooklyn_errexit\n");
+            Map<String, String> env = envs.get(i);
+            if (env != null) {
+                for (Map.Entry<String, String> entry : env.entrySet()) {
+                    result.append("export "+entry.getKey()+"="+BashStringEscapes.wrapBash(entry.getValue())+"\n");
+                }
+            }
+            result.append(commands.get(i)+"\n");
+            result.append(") 2>\"$_brooklyn_err\"\n");
+            result.append("_brooklyn_rc=$?\n");
+            result.append("echo\n");
+            result.append("echo '"+boundary+" err "+i+"'\n");
+            result.append("cat \"$_brooklyn_err\"\n");
+            result.append("echo\n");
+            result.append("echo \""+boundary+" exit "+i+" $_brooklyn_rc\"\n");
+        }
+        result.append("rm -f \"$_brooklyn_err\"\n");
+        return result.toString();
+    }
+    
+    /** Splits the output of a {@link #batchScript(String, List, List)} back into per-command values. */
+    @VisibleForTesting
+    static List<Maybe<SshPollValue>> parseBatchOutput(SshMachineLocation machine, String boundary, String output, int count) {
+        List<Maybe<SshPollValue>> result = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            String outMarker = boundary+" out "+i+"\n";
+            String errMarker = "\n"+boundary+" err "+i+"\n";
+            String exitMarker = "\n"+boundary+" exit "+i+" ";
+            int outStart = output.indexOf(outMarker);
+            int outEnd = (outStart < 0) ? -1 : output.indexOf(errMarker, outStart + outMarker.length());
+            int errEnd = (outEnd < 0) ? -1 : output.indexOf(exitMarker, outEnd + errMarker.length());
+            if (errEnd < 0) {
+                result.add(Maybe.<SshPollValue>absent("No output for command "+i));
+                continue;
+            }
+            String stdout = output.substring(outStart + outMarker.length(), outEnd);
+            String stderr = output.substring(outEnd + errMarker.length(), errEnd);
+            int exitStart = errEnd + exitMarker.length();
+            int exitEnd = output.indexOf('\n', exitStart);
+            String exit = (exitEnd < 0) ? output.substring(exitStart) : output.substring(exitStart, exitEnd);
+            Integer exitStatus = Ints.tryParse(exit.trim());
+            if (exitStatus == null) {
+                result.add(Maybe.<SshPollValue>absent("Unparseable exit status '"+exit+"' for command "+i));
+                continue;
+            }
+            result.add(Maybe.of(new SshPollValue(machine, exitStatus, stdout, stderr)));
+        }
+        return result;
+    }
+    
     private SshPollValue exec(String command, Map<String,String> env) throws IOException {
         SshMachineLocation machine = getMachine();
         Boolean execAsCommand = config().get(EXEC_AS_COMMAND);
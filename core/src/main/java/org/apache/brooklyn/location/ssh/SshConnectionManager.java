@@ -0,0 +1,460 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.location.ssh;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.core.task.ScheduledTask;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.exceptions.RuntimeInterruptedException;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.HostAndPort;
+
+/**
+ * Shares ssh connections between all {@link SshMachineLocation} instances of a management context,
+ * rather than each location holding its own pool.
+ * <p>
+ * Connections are keyed by host, port, user and credentials (in fact by all the properties
+ * used to construct the {@link SshTool}, other than those which can be supplied per command).
+ * The number of concurrent sessions against any one host:port is limited by
+ * {@link #MAX_SESSIONS_PER_HOST}, regardless of how many locations point at that host
+ * (e.g. in a BYON estate); callers block until a session is free.
+ * <p>
+ * With {@link #MAX_CHANNELS_PER_CONNECTION} greater than 1, concurrent commands are multiplexed
+ * as separate channels over a single connection; by default each connection is leased exclusively.
+ * Connections which are unused for {@link #IDLE_TIMEOUT} are closed.
+ */
+@Beta
+public class SshConnectionManager implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SshConnectionManager.class);
+
+    public static final ConfigKey<Boolean> ENABLED = ConfigKeys.newBooleanConfigKey(
+            "brooklyn.ssh.connectionManager.enabled",
+            "Whether ssh machine locations should share connections through the management context's "
+                    + "connection manager (unless overridden on the location with 'sshSharedConnections')",
+            false);
+
+    public static final ConfigKey<Integer> MAX_SESSIONS_PER_HOST = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.ssh.connectionManager.maxSessionsPerHost",
+            "Maximum number of concurrent ssh sessions to any one host:port, across all locations",
+            8);
+
+    public static final ConfigKey<Integer> MAX_CHANNELS_PER_CONNECTION = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.ssh.connectionManager.maxChannelsPerConnection",
+            "Maximum number of concurrent sessions multiplexed over a single ssh connection; "
+                    + "1 means each connection is used by one command at a time",
+            1);
+
+    public static final ConfigKey<Duration> IDLE_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "brooklyn.ssh.connectionManager.idleTimeout",
+            "Time after which an unused shared ssh connection is closed",
+            Duration.FIVE_MINUTES);
+
+    public static final ConfigKey<Duration> SESSION_WAIT_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "brooklyn.ssh.connectionManager.sessionWaitTimeout",
+            "Maximum time to wait for a free session when a host is at its session limit",
+            Duration.minutes(10));
+
+    /**
+     * Identifies connections which can be shared. Only host, port and user are shown in
+     * {@link #toString()}, so that credentials are not logged.
+     */
+    public static class ConnectionKey {
+        private final HostAndPort hostAndPort;
+        private final String user;
+        private final Map<String, ?> properties;
+
+        public ConnectionKey(HostAndPort hostAndPort, String user, Map<String, ?> properties) {
+            this.hostAndPort = hostAndPort;
+            this.user = user;
+            this.properties = Collections.unmodifiableMap(new HashMap<String, Object>(properties));
+        }
+
+        public HostAndPort getHostAndPort() {
+            return hostAndPort;
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ConnectionKey)) return false;
+            ConnectionKey o = (ConnectionKey) obj;
+            return Objects.equal(hostAndPort, o.hostAndPort) && Objects.equal(user, o.user) && Objects.equal(properties, o.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(hostAndPort, user, properties);
+        }
+
+        @Override
+        public String toString() {
+            return user+"@"+hostAndPort;
+        }
+    }
+
+    private static class SharedConnection {
+        final SshTool tool;
+        List<SharedConnection> pool;
+        int activeChannels;
+        long lastUsedNanos = System.nanoTime();
+        boolean closeWhenIdle;
+
+        SharedConnection(SshTool tool) {
+            this.tool = tool;
+        }
+    }
+
+    private final ManagementContext managementContext;
+    private final int maxSessionsPerHost;
+    private final int maxChannelsPerConnection;
+    private final Duration idleTimeout;
+    private final Duration sessionWaitTimeout;
+
+    private final ConcurrentMap<ConnectionKey, List<SharedConnection>> connections = new ConcurrentHashMap<ConnectionKey, List<SharedConnection>>();
+    private final ConcurrentMap<HostAndPort, Semaphore> sessionsPerHost = new ConcurrentHashMap<HostAndPort, Semaphore>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong openConnections = new AtomicLong();
+    private final AtomicLong activeSessions = new AtomicLong();
+
+    private final Object cleanupMutex = new Object();
+    private Task<?> cleanupTask;
+    private volatile boolean closed;
+
+    private static final Function<ManagementContext, SshConnectionManager> FACTORY = new Function<ManagementContext, SshConnectionManager>() {
+        @Override public SshConnectionManager apply(ManagementContext input) {
+            return new SshConnectionManager(input);
+        }
+    };
+
+    /**
+     * @return The connection manager shared by all ssh machine locations in the given management context
+     *         which opt in to it; created lazily, and closed when the management context terminates.
+     */
+    public static SshConnectionManager forManagementContext(ManagementContext managementContext) {
+        return ((ManagementContextInternal) managementContext).getSharedInstance(SshConnectionManager.class, FACTORY);
+    }
+
+    public SshConnectionManager(ManagementContext managementContext) {
+        this.managementContext = managementContext;
+        this.maxSessionsPerHost = Math.max(1, managementContext.getConfig().getConfig(MAX_SESSIONS_PER_HOST));
+        this.maxChannelsPerConnection = Math.max(1, managementContext.getConfig().getConfig(MAX_CHANNELS_PER_CONNECTION));
+        this.idleTimeout = managementContext.getConfig().getConfig(IDLE_TIMEOUT);
+        this.sessionWaitTimeout = managementContext.getConfig().getConfig(SESSION_WAIT_TIMEOUT);
+    }
+
+    /**
+     * Runs the task with a connection for the given key, re-using an existing connection if one
+     * has a free channel, or otherwise opening a new one with the given connector.
+     *
+     * @param closeAfterUse whether to close the connection once it is no longer in use
+     */
+    public <T> T exec(ConnectionKey key, Supplier<? extends SshTool> connector, boolean closeAfterUse, Function<? super SshTool, T> task) {
+        if (closed) throw new IllegalStateException("Ssh connection manager closed");
+        addCleanupTask();
+
+        Semaphore hostSessions = getHostSessions(key.getHostAndPort());
+        acquireSession(key, hostSessions);
+        try {
+            SharedConnection connection = lease(key, connector);
+            try {
+                if (closeAfterUse) {
+                    synchronized (connection.pool) {
+                        connection.closeWhenIdle = true;
+                    }
+                }
+                return task.apply(connection.tool);
+            } finally {
+                release(key, connection);
+            }
+        } finally {
+            activeSessions.decrementAndGet();
+            hostSessions.release();
+        }
+    }
+
+    private Semaphore getHostSessions(HostAndPort hostAndPort) {
+        Semaphore result = sessionsPerHost.get(hostAndPort);
+        if (result == null) {
+            sessionsPerHost.putIfAbsent(hostAndPort, new Semaphore(maxSessionsPerHost, true));
+            result = sessionsPerHost.get(hostAndPort);
+        }
+        return result;
+    }
+
+    private void acquireSession(ConnectionKey key, Semaphore hostSessions) {
+        if (!hostSessions.tryAcquire()) {
+            waits.incrementAndGet();
+            if (LOG.isDebugEnabled()) LOG.debug("Ssh session limit ({}) reached for {}; waiting", maxSessionsPerHost, key.getHostAndPort());
+            Tasks.setBlockingDetails("Waiting for free ssh session to "+key.getHostAndPort());
+            try {
+                if (!hostSessions.tryAcquire(sessionWaitTimeout.toMilliseconds(), TimeUnit.MILLISECONDS)) {
+                    throw new IllegalStateException("Timeout after "+sessionWaitTimeout+" waiting for free ssh session to "
+                            +key.getHostAndPort()+" (limit "+maxSessionsPerHost+")");
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeInterruptedException(e);
+            } finally {
+                Tasks.setBlockingDetails(null);
+            }
+        }
+        activeSessions.incrementAndGet();
+    }
+
+    private SharedConnection lease(ConnectionKey key, Supplier<? extends SshTool> connector) {
+        List<SharedConnection> pool = getPool(key);
+        List<SharedConnection> dead = MutableList.of();
+        SharedConnection result = null;
+        synchronized (pool) {
+            for (Iterator<SharedConnection> iter = pool.iterator(); iter.hasNext();) {
+                SharedConnection contender = iter.next();
+                if (contender.activeChannels >= maxChannelsPerConnection || contender.closeWhenIdle) continue;
+                if (contender.activeChannels == 0 && !isViable(contender.tool)) {
+                    iter.remove();
+                    dead.add(contender);
+                    continue;
+                }
+                contender.activeChannels++;
+                result = contender;
+                break;
+            }
+        }
+        for (SharedConnection connection : dead) {
+            disconnect(key, connection);
+        }
+        if (result != null) {
+            hits.incrementAndGet();
+            if (LOG.isTraceEnabled()) LOG.trace("Re-using shared ssh connection {} for {}", result.tool, key);
+            return result;
+        }
+
+        misses.incrementAndGet();
+        if (LOG.isDebugEnabled()) LOG.debug("Opening new shared ssh connection for {}", key);
+        result = new SharedConnection(connector.get());
+        result.activeChannels = 1;
+        openConnections.incrementAndGet();
+        while (true) {
+            // the pool may have been evicted (when empty) while we were connecting; retry against the current one
+            pool = getPool(key);
+            synchronized (pool) {
+                if (connections.get(key) == pool) {
+                    pool.add(result);
+                    result.pool = pool;
+                    return result;
+                }
+            }
+        }
+    }
+
+    private List<SharedConnection> getPool(ConnectionKey key) {
+        List<SharedConnection> result = connections.get(key);
+        if (result == null) {
+            connections.putIfAbsent(key, MutableList.<SharedConnection>of());
+            result = connections.get(key);
+        }
+        return result;
+    }
+
+    private void release(ConnectionKey key, SharedConnection connection) {
+        boolean close = false;
+        List<SharedConnection> pool = connection.pool;
+        synchronized (pool) {
+            connection.activeChannels--;
+            connection.lastUsedNanos = System.nanoTime();
+            if (connection.activeChannels == 0 && (connection.closeWhenIdle || closed)) {
+                pool.remove(connection);
+                close = true;
+            }
+        }
+        if (close) disconnect(key, connection);
+    }
+
+    private boolean isViable(SshTool tool) {
+        try {
+            return tool.isConnected();
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            return false;
+        }
+    }
+
+    private void disconnect(ConnectionKey key, SharedConnection connection) {
+        openConnections.decrementAndGet();
+        if (LOG.isDebugEnabled()) LOG.debug("Closing shared ssh connection {} for {}", connection.tool, key);
+        try {
+            connection.tool.disconnect();
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            if (LOG.isDebugEnabled()) LOG.debug("Problem closing shared ssh connection for "+key, e);
+        }
+    }
+
+    /** Closes all connections which have not been used within the idle timeout. */
+    public void evictIdle() {
+        evictIdle(idleTimeout);
+    }
+
+    @Beta
+    public void evictIdle(Duration maxIdle) {
+        long cutoff = System.nanoTime() - maxIdle.toNanoseconds();
+        for (Map.Entry<ConnectionKey, List<SharedConnection>> entry : connections.entrySet()) {
+            List<SharedConnection> pool = entry.getValue();
+            List<SharedConnection> idle = MutableList.of();
+            synchronized (pool) {
+                for (Iterator<SharedConnection> iter = pool.iterator(); iter.hasNext();) {
+                    SharedConnection contender = iter.next();
+                    if (contender.activeChannels == 0 && contender.lastUsedNanos - cutoff <= 0) {
+                        iter.remove();
+                        idle.add(contender);
+                    }
+                }
+                if (pool.isEmpty()) {
+                    connections.remove(entry.getKey(), pool);
+                }
+            }
+            for (SharedConnection connection : idle) {
+                evictions.incrementAndGet();
+                disconnect(entry.getKey(), connection);
+            }
+        }
+    }
+
+    /** Marks all connections for the given key to be closed as soon as they are no longer in use. */
+    public void invalidate(ConnectionKey key) {
+        List<SharedConnection> pool = connections.get(key);
+        if (pool == null) return;
+        List<SharedConnection> idle = MutableList.of();
+        synchronized (pool) {
+            for (Iterator<SharedConnection> iter = pool.iterator(); iter.hasNext();) {
+                SharedConnection contender = iter.next();
+                if (contender.activeChannels == 0) {
+                    iter.remove();
+                    idle.add(contender);
+                } else {
+                    contender.closeWhenIdle = true;
+                }
+            }
+        }
+        for (SharedConnection connection : idle) {
+            disconnect(key, connection);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        return ImmutableMap.<String, Object>builder()
+                .put("hits", hits.get())
+                .put("misses", misses.get())
+                .put("waits", waits.get())
+                .put("evictions", evictions.get())
+                .put("openConnections", openConnections.get())
+                .put("activeSessions", activeSessions.get())
+                .put("hosts", sessionsPerHost.size())
+                .build();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (cleanupMutex) {
+            if (cleanupTask != null) cleanupTask.cancel(false);
+            cleanupTask = null;
+        }
+        Set<ConnectionKey> keys = connections.keySet();
+        for (ConnectionKey key : keys) {
+            invalidate(key);
+        }
+        if (LOG.isDebugEnabled()) LOG.debug("Closed ssh connection manager; final metrics {}", getMetrics());
+    }
+
+    protected void addCleanupTask() {
+        synchronized (cleanupMutex) {
+            if (cleanupTask != null && !cleanupTask.isDone()) return;
+            if (!managementContext.isRunning()) return;
+
+            Callable<Task<?>> cleanupTaskFactory = new Callable<Task<?>>() {
+                @Override public Task<Void> call() {
+                    return Tasks.<Void>builder().dynamic(false).tag(BrooklynTaskTags.TRANSIENT_TASK_TAG)
+                        .displayName("ssh connection manager cleaner").body(new Callable<Void>() {
+                        @Override public Void call() {
+                            try {
+                                evictIdle();
+                            } catch (Exception e) {
+                                // Don't rethrow: if we throw an exception, then our task will never get executed again
+                                LOG.warn("Problem evicting idle shared ssh connections", e);
+                            }
+                            return null;
+                        }}).build();
+                }
+            };
+            Duration period = Duration.max(Duration.min(idleTimeout, Duration.ONE_MINUTE), Duration.ONE_SECOND);
+            cleanupTask = managementContext.getExecutionManager().submit(new ScheduledTask(
+                    MutableMap.of("displayName", "scheduled[ssh connection manager cleaner]"), cleanupTaskFactory)
+                    .period(period)
+                    .delay(period));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("connections", connections.size()).add("metrics", getMetrics()).toString();
+    }
+
+    Collection<ConnectionKey> getConnectionKeys() {
+        return connections.keySet();
+    }
+}
@@ -175,6 +175,10 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     public static final ConfigKey<Duration> SSH_CACHE_EXPIRY_DURATION = ConfigKeys.newConfigKey(Duration.class,
             "sshCacheExpiryDuration", "Expiry time for unused cached ssh connections", Duration.FIVE_MINUTES);
 
+    public static final ConfigKey<Boolean> SSH_SHARED_CONNECTIONS = ConfigKeys.newConfigKey(Boolean.class,
+            "sshSharedConnections", "Whether to use the management context's shared ssh connections (see SshConnectionManager), "
+                    + "rather than a pool per location; defaults to "+SshConnectionManager.ENABLED.getName(), null);
+
     public static final ConfigKey<MachineDetails> MACHINE_DETAILS = ConfigKeys.newConfigKey(
             MachineDetails.class,
             "machineDetails");
@@ -258,6 +262,16 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
             SshTool.PROP_SCRIPT_HEADER, SshTool.PROP_PERMISSIONS, SshTool.PROP_LAST_MODIFICATION_DATE,
             SshTool.PROP_LAST_ACCESS_DATE, SshTool.PROP_OWNER_UID, SshTool.PROP_SSH_RETRY_DELAY);
 
+    /**
+     * Config keys which describe the location rather than the connection, so are ignored when deciding
+     * whether a shared connection (see {@link SshConnectionManager}) can be re-used by another location.
+     */
+    @Beta
+    public static final Set<ConfigKey<?>> NON_CONNECTION_SSH_PROPS = ImmutableSet.<ConfigKey<?>>of(
+            PARENT_LOCATION, TEMPORARY_LOCATION, MACHINE_DETAILS, DETECT_MACHINE_DETAILS,
+            PRIVATE_ADDRESSES, TCP_PORT_MAPPINGS, SSH_CACHE_EXPIRY_DURATION, SSH_SHARED_CONNECTIONS,
+            LOG_PREFIX, NO_STDOUT_LOGGING, NO_STDERR_LOGGING);
+
     public static final Set<HasConfigKey<?>> ALL_SSH_CONFIG_KEYS =
             ImmutableSet.<HasConfigKey<?>>builder()
                     .addAll(ConfigUtils.getStaticKeysOnClass(SshMachineLocation.class))
@@ -373,12 +387,7 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
                     }
                 });
 
-        final Set<String> reusableSshProperties = ImmutableSet.copyOf(
-                Iterables.transform(REUSABLE_SSH_PROPS, new Function<ConfigKey<?>, String>() {
-                    @Override public String apply(ConfigKey<?> input) {
-                        return input.getName();
-                    }
-                }));
+        final Set<String> reusableSshProperties = getReusableSshPropertyNames();
         // Groovy-eclipse compiler refused to compile `KeyTransformingSameTypeLoadingCache.from(...)`
         return new KeyTransformingSameTypeLoadingCache<Map<String, ?>, Pool<SshTool>>(
                 delegate,
@@ -392,6 +401,15 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
                 });
     }
 
+    private static Set<String> getReusableSshPropertyNames() {
+        return ImmutableSet.copyOf(
+                Iterables.transform(REUSABLE_SSH_PROPS, new Function<ConfigKey<?>, String>() {
+                    @Override public String apply(ConfigKey<?> input) {
+                        return input.getName();
+                    }
+                }));
+    }
+
     private BasicPool<SshTool> buildPool(final Map<String, ?> properties) {
         return BasicPool.<SshTool>builder()
                 .name(getDisplayName()+"@"+address+":"+getPort()+
@@ -588,6 +606,9 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     }
 
     protected <T> T execSsh(final Map<String, ?> props, final Function<ShellTool, T> task) {
+        if (isUsingSharedConnections()) {
+            return execSshShared(props, task);
+        }
         final LoadingCache<Map<String, ?>, Pool<SshTool>> sshPoolCache = getSshPoolCache();
         Pool<SshTool> pool = sshPoolCache.getUnchecked(props);
         if (LOG.isTraceEnabled()) {
@@ -613,62 +634,102 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
         }
     }
 
+    protected boolean isUsingSharedConnections() {
+        if (getManagementContext() == null || !getManagementContext().isRunning()) return false;
+        Boolean result = getConfig(SSH_SHARED_CONNECTIONS);
+        if (result == null) result = getManagementContext().getConfig().getConfig(SshConnectionManager.ENABLED);
+        return Boolean.TRUE.equals(result);
+    }
+
+    protected <T> T execSshShared(final Map<String, ?> props, final Function<ShellTool, T> task) {
+        final ConfigBag args = getSshToolArgs(props);
+        Map<String, Object> keyProps = new HashMap<String, Object>(args.getAllConfig());
+        keyProps.keySet().removeAll(getReusableSshPropertyNames());
+        for (ConfigKey<?> nonConnectionKey : NON_CONNECTION_SSH_PROPS) {
+            keyProps.remove(nonConnectionKey.getName());
+        }
+        HostAndPort hostAndPort = HostAndPort.fromParts(args.get(SshTool.PROP_HOST), args.get(SshTool.PROP_PORT));
+        SshConnectionManager.ConnectionKey key = new SshConnectionManager.ConnectionKey(hostAndPort, args.get(SshTool.PROP_USER), keyProps);
+
+        SshConnectionManager manager = SshConnectionManager.forManagementContext(getManagementContext());
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("{} execSsh using shared connections for {}: {}", new Object[] {this, key, manager});
+        }
+        return manager.exec(key, new Supplier<SshTool>() {
+                @Override public SshTool get() {
+                    return connectSsh(args);
+                }},
+                truth(props.get(CLOSE_CONNECTION.getName())),
+                task);
+    }
+
     protected SshTool connectSsh() {
         return connectSsh(ImmutableMap.of());
     }
 
     protected boolean previouslyConnected = false;
     protected SshTool connectSsh(Map props) {
-        try {
-            if (!truth(user)) {
-                String newUser = getUser();
-                if (LOG.isTraceEnabled()) LOG.trace("For "+this+", setting user in connectSsh: oldUser="+user+"; newUser="+newUser);
-                user = newUser;
-            }
+        return connectSsh(getSshToolArgs(props));
+    }
 
-            ConfigBag args = new ConfigBag()
-                .configure(SshTool.PROP_USER, user)
-                // default value of host, overridden if SSH_HOST is supplied
-                .configure(SshTool.PROP_HOST, address.getHostName());
-
-            for (Map.Entry<ConfigKey<?>, ?> entry: config().getBag().getAllConfigAsConfigKeyMap().entrySet()) {
-                boolean include = false;
-                String keyName = entry.getKey().getName();
-                if (keyName.startsWith(SshTool.BROOKLYN_CONFIG_KEY_PREFIX)) {
-                    keyName = Strings.removeFromStart(keyName, SshTool.BROOKLYN_CONFIG_KEY_PREFIX);
-                    include = true;
-                }
-                
-                if (keyName.startsWith(SSH_TOOL_CLASS_PROPERTIES_PREFIX)) {
-                    keyName = Strings.removeFromStart(keyName, SSH_TOOL_CLASS_PROPERTIES_PREFIX);
-                    include = true;
-                }
-                
-                if (ALL_SSH_CONFIG_KEY_NAMES.contains(keyName)) {
-                    // key should be included, and does not need to be changed
-
-                    // TODO make this config-setting mechanism more universal
-                    // currently e.g. it will not admit a tool-specific property.
-                    // thinking either we know about the tool here,
-                    // or we don't allow unadorned keys to be set
-                    // (require use of BROOKLYN_CONFIG_KEY_PREFIX)
-                    include = true;
-                }
-                
-                if (include) {
-                    args.putStringKey(keyName, config().get(entry.getKey()));
-                }
+    /** 
+     * Returns the properties with which to construct the ssh tool, combining this location's
+     * config with the given (explicit) properties.
+     */
+    protected ConfigBag getSshToolArgs(Map<?, ?> props) {
+        if (!truth(user)) {
+            String newUser = getUser();
+            if (LOG.isTraceEnabled()) LOG.trace("For "+this+", setting user in connectSsh: oldUser="+user+"; newUser="+newUser);
+            user = newUser;
+        }
+
+        ConfigBag args = new ConfigBag()
+            .configure(SshTool.PROP_USER, user)
+            // default value of host, overridden if SSH_HOST is supplied
+            .configure(SshTool.PROP_HOST, address.getHostName());
+
+        for (Map.Entry<ConfigKey<?>, ?> entry: config().getBag().getAllConfigAsConfigKeyMap().entrySet()) {
+            boolean include = false;
+            String keyName = entry.getKey().getName();
+            if (keyName.startsWith(SshTool.BROOKLYN_CONFIG_KEY_PREFIX)) {
+                keyName = Strings.removeFromStart(keyName, SshTool.BROOKLYN_CONFIG_KEY_PREFIX);
+                include = true;
+            }
+            
+            if (keyName.startsWith(SSH_TOOL_CLASS_PROPERTIES_PREFIX)) {
+                keyName = Strings.removeFromStart(keyName, SSH_TOOL_CLASS_PROPERTIES_PREFIX);
+                include = true;
+            }
+            
+            if (ALL_SSH_CONFIG_KEY_NAMES.contains(keyName)) {
+                // key should be included, and does not need to be changed
+
+                // TODO make this config-setting mechanism more universal
+                // currently e.g. it will not admit a tool-specific property.
+                // thinking either we know about the tool here,
+                // or we don't allow unadorned keys to be set
+                // (require use of BROOKLYN_CONFIG_KEY_PREFIX)
+                include = true;
+            }
+            
+            if (include) {
+                args.putStringKey(keyName, config().get(entry.getKey()));
             }
+        }
 
-            // Explicit props trump all.
-            args.putAll(props);
+        // Explicit props trump all.
+        args.putAll(props);
 
-            if (LOG.isTraceEnabled()) LOG.trace("creating ssh session for "+Sanitizer.sanitize(args));
-            if (!user.equals(args.get(SshTool.PROP_USER))) {
-                LOG.warn("User mismatch configuring ssh for "+this+": preferring user "+args.get(SshTool.PROP_USER)+" over "+user);
-                user = args.get(SshTool.PROP_USER);
-            }
+        if (LOG.isTraceEnabled()) LOG.trace("creating ssh session for "+Sanitizer.sanitize(args));
+        if (!user.equals(args.get(SshTool.PROP_USER))) {
+            LOG.warn("User mismatch configuring ssh for "+this+": preferring user "+args.get(SshTool.PROP_USER)+" over "+user);
+            user = args.get(SshTool.PROP_USER);
+        }
+        return args;
+    }
 
+    private SshTool connectSsh(ConfigBag args) {
+        try {
             // look up tool class
             String sshToolClass = args.get(SSH_TOOL_CLASS);
             String legacySshToolClass = args.get(SshTool.PROP_TOOL_CLASS);
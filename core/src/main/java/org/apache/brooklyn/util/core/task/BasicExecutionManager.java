@@ -23,21 +23,26 @@ import groovy.lang.Closure;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
@@ -50,13 +55,17 @@ import org.apache.brooklyn.api.mgmt.ExecutionManager;
 import org.apache.brooklyn.api.mgmt.HasTaskChildren;
 import org.apache.brooklyn.api.mgmt.Task;
 import org.apache.brooklyn.api.mgmt.TaskAdaptable;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.config.ConfigMap;
 import org.apache.brooklyn.core.BrooklynFeatureEnablement;
+import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.config.Sanitizer;
 import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.core.task.TaskInternal.TaskCancellationMode;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.exceptions.RuntimeInterruptedException;
+import org.apache.brooklyn.util.guava.Maybe;
 import org.apache.brooklyn.util.text.Identifiers;
 import org.apache.brooklyn.util.text.Strings;
 import org.apache.brooklyn.util.time.CountdownTimer;
@@ -68,7 +77,6 @@ import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.CaseFormat;
 import com.google.common.base.Function;
-import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -85,6 +93,44 @@ public class BasicExecutionManager implements ExecutionManager {
 
     private static final boolean RENAME_THREADS = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_RENAME_THREADS);
     
+    /** How the execution manager maps tasks on to threads. */
+    @Beta
+    public static enum ThreadingMode {
+        /** a new thread (or an idle pooled one) for every task; the historic default */
+        UNBOUNDED,
+        /** a bounded work-stealing pool for most tasks, with tasks tagged {@link TaskTags#BLOCKING_TASK}
+         * on a separate bounded pool and tasks tagged {@link TaskTags#WAITING_TASK} on an unbounded one;
+         * tasks waiting on other tasks let the work-stealing pool compensate */
+        WORK_STEALING,
+        /** a new virtual thread for every task, if the JVM supports them (java 21+), 
+         * otherwise falls back to {@link #UNBOUNDED}; 
+         * suits very large numbers of concurrent blocking tasks such as ssh and http polls.
+         * Note that a virtual thread blocking inside a <code>synchronized</code> block may pin its carrier thread. */
+        VIRTUAL
+    }
+    
+    @Beta
+    public static final ConfigKey<ThreadingMode> THREADING_MODE = ConfigKeys.newConfigKey(ThreadingMode.class,
+        "brooklyn.executionManager.threadingMode", 
+        "how tasks are mapped on to threads: UNBOUNDED (thread per concurrent task), "
+        + "WORK_STEALING (bounded work-stealing pool, with a separate pool for blocking tasks), "
+        + "or VIRTUAL (virtual thread per task where the JVM supports it, otherwise UNBOUNDED)", 
+        ThreadingMode.UNBOUNDED);
+
+    @Beta
+    public static final ConfigKey<Integer> WORK_STEALING_PARALLELISM = ConfigKeys.newIntegerConfigKey(
+        "brooklyn.executionManager.workStealing.parallelism", 
+        "target number of threads actively running tasks in WORK_STEALING mode "
+        + "(0 means 4 times the number of available processors)", 
+        0);
+
+    @Beta
+    public static final ConfigKey<Integer> BLOCKING_POOL_MAX_THREADS = ConfigKeys.newIntegerConfigKey(
+        "brooklyn.executionManager.blockingPool.maxThreads", 
+        "maximum number of threads for tasks tagged as blocking (e.g. ssh and http calls) in WORK_STEALING mode; "
+        + "further blocking tasks are queued", 
+        256);
+    
     private static class PerThreadCurrentTaskHolder {
         public static final ThreadLocal<Task<?>> perThreadCurrentTask = new ThreadLocal<Task<?>>();
     }
@@ -97,24 +143,35 @@ public class BasicExecutionManager implements ExecutionManager {
     
     private final ThreadFactory daemonThreadFactory;
     
+    private final ThreadingMode threadingMode;
+    
     private final ExecutorService runner;
+    
+    /** where tasks tagged {@link TaskTags#BLOCKING_TASK} run; same as {@link #runner} in {@link ThreadingMode#UNBOUNDED} mode */
+    private final ExecutorService blockingRunner;
+    
+    /** where tasks tagged {@link TaskTags#WAITING_TASK} run; unbounded, so that waiters cannot hold up 
+     * the (bounded) pools running the tasks they wait for; same as {@link #runner} other than in {@link ThreadingMode#WORK_STEALING} mode */
+    private final ExecutorService waitingRunner;
+    
+    /** the pool behind {@link #runner} in {@link ThreadingMode#WORK_STEALING} mode, otherwise null */
+    private final ForkJoinPool workStealingPool;
         
     private final ScheduledExecutorService delayedRunner;
     
     // TODO Could have a set of all knownTasks; but instead we're having a separate set per tag,
     // so the same task could be listed multiple times if it has multiple tags...
 
-    //access to this field AND to members in this field is synchronized, 
-    //to allow us to preserve order while guaranteeing thread-safe
-    //(but more testing is needed before we are completely sure it is thread-safe!)
-    //synch blocks are as finely grained as possible for efficiency;
-    //NB CopyOnWriteArraySet is a perf bottleneck, and the simple map makes it easier to remove when a tag is empty
-    private Map<Object,Set<Task<?>>> tasksByTag = new HashMap<Object,Set<Task<?>>>();
+    /** tasks by tag, in submission order; concurrent, so submission, lookup and GC do not contend on a lock */
+    private final TaskTagIndex tasksByTag = new TaskTagIndex();
     
     private ConcurrentMap<String,Task<?>> tasksById = new ConcurrentHashMap<String,Task<?>>();
 
     private ConcurrentMap<Object, TaskScheduler> schedulerByTag = new ConcurrentHashMap<Object, TaskScheduler>();
 
+    /** finished tasks in order of completion, for use by garbage collection */
+    private final TaskCompletionIndex completionIndex = new TaskCompletionIndex();
+
     /** count of all tasks submitted, including finished */
     private final AtomicLong totalTaskCount = new AtomicLong();
     
@@ -135,19 +192,96 @@ public class BasicExecutionManager implements ExecutionManager {
     };
     
     public BasicExecutionManager(String contextid) {
+        this(contextid, null);
+    }
+    
+    /**
+     * @param config  optional configuration, e.g. brooklyn properties, used to look up {@link #THREADING_MODE} and related keys
+     */
+    public BasicExecutionManager(String contextid, ConfigMap config) {
         threadFactory = newThreadFactory(contextid);
         daemonThreadFactory = new ThreadFactoryBuilder()
                 .setThreadFactory(threadFactory)
                 .setDaemon(true)
                 .build();
-                
-        // use Executors.newCachedThreadPool(daemonThreadFactory), but timeout of 1s rather than 60s for better shutdown!
-        runner = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
-                daemonThreadFactory);
+        
+        ThreadingMode mode = getConfig(config, THREADING_MODE);
+        if (mode==null) mode = ThreadingMode.UNBOUNDED;
+        ExecutorService virtualThreadRunner = null;
+        if (mode==ThreadingMode.VIRTUAL) {
+            Maybe<ExecutorService> virtual = newVirtualThreadPerTaskExecutor(contextid);
+            if (virtual.isPresent()) {
+                virtualThreadRunner = virtual.get();
+            } else {
+                log.warn("Virtual threads not supported in this JVM ("+System.getProperty("java.version")+"), "
+                        + "execution manager "+contextid+" falling back to "+ThreadingMode.UNBOUNDED+" threading mode");
+                if (log.isDebugEnabled()) log.debug("Unable to create virtual thread executor", ((Maybe.Absent<?>)virtual).getException());
+                mode = ThreadingMode.UNBOUNDED;
+            }
+        }
+        threadingMode = mode;
+        
+        switch (threadingMode) {
+        case VIRTUAL:
+            workStealingPool = null;
+            runner = virtualThreadRunner;
+            // virtual threads are cheap to block, so no need for separate pools
+            blockingRunner = runner;
+            waitingRunner = runner;
+            break;
+            
+        case WORK_STEALING:
+            int parallelism = getConfig(config, WORK_STEALING_PARALLELISM);
+            if (parallelism<=0) parallelism = 4*Runtime.getRuntime().availableProcessors();
+            workStealingPool = new ForkJoinPool(parallelism, newForkJoinWorkerThreadFactory(contextid), 
+                    new UncaughtExceptionHandlerImplementation(), false);
+            runner = new ForkJoinPoolExecutorService(workStealingPool);
+            
+            int maxBlockingThreads = getConfig(config, BLOCKING_POOL_MAX_THREADS);
+            ThreadPoolExecutor blockingPool = new ThreadPoolExecutor(maxBlockingThreads, maxBlockingThreads, 10L, TimeUnit.SECONDS, 
+                    new LinkedBlockingQueue<Runnable>(), daemonThreadFactory);
+            blockingPool.allowCoreThreadTimeOut(true);
+            blockingRunner = blockingPool;
+            
+            waitingRunner = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
+                    daemonThreadFactory);
+            break;
+            
+        case UNBOUNDED:
+        default:
+            workStealingPool = null;
+            // use Executors.newCachedThreadPool(daemonThreadFactory), but timeout of 1s rather than 60s for better shutdown!
+            runner = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
+                    daemonThreadFactory);
+            blockingRunner = runner;
+            waitingRunner = runner;
+        }
             
         delayedRunner = new ScheduledThreadPoolExecutor(1, daemonThreadFactory);
     }
     
+    /**
+     * Creates an executor starting a new virtual thread for each task, 
+     * using reflection as virtual threads are only available from java 21.
+     */
+    private Maybe<ExecutorService> newVirtualThreadPerTaskExecutor(String contextid) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "brooklyn-execmanager-"+contextid+"-vt-", 0L);
+            builder = builderClass.getMethod("uncaughtExceptionHandler", Thread.UncaughtExceptionHandler.class).invoke(builder, new UncaughtExceptionHandlerImplementation());
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return Maybe.of((ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory));
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            return Maybe.absent(e);
+        }
+    }
+    
+    private static <T> T getConfig(ConfigMap config, ConfigKey<T> key) {
+        return (config!=null) ? config.getConfig(key) : key.getDefaultValue();
+    }
+    
     private final static class UncaughtExceptionHandlerImplementation implements Thread.UncaughtExceptionHandler {
         @Override
         public void uncaughtException(Thread t, Throwable e) {
@@ -167,6 +301,48 @@ public class BasicExecutionManager implements ExecutionManager {
                 .build();
     }
     
+    /** 
+     * As {@link #newThreadFactory(String)}, but for the worker threads in {@link ThreadingMode#WORK_STEALING} mode.
+     * Called by constructor, so the same caveats apply.
+     */
+    protected ForkJoinPool.ForkJoinWorkerThreadFactory newForkJoinWorkerThreadFactory(final String contextid) {
+        final AtomicLong count = new AtomicLong();
+        return new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread result = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                result.setName("brooklyn-execmanager-"+contextid+"-ws-"+count.getAndIncrement());
+                return result;
+            }
+        };
+    }
+    
+    /**
+     * Exposes a {@link ForkJoinPool} as a plain {@link ExecutorService}, so that submitted jobs are wrapped
+     * in a {@link java.util.concurrent.FutureTask} rather than a {@link java.util.concurrent.ForkJoinTask}.
+     * This matters because {@link java.util.concurrent.ForkJoinTask#get()} called from a worker may run 
+     * the awaited job in the caller's thread, which would clobber the caller's {@link Tasks#current()} 
+     * and thread name. Blocking on a {@link java.util.concurrent.FutureTask} instead is reported to 
+     * the pool by {@link BasicTask} (via {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}),
+     * so the pool can add threads rather than deadlock.
+     */
+    private static class ForkJoinPoolExecutorService extends AbstractExecutorService {
+        private final ForkJoinPool pool;
+        
+        ForkJoinPoolExecutorService(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+        @Override public void execute(Runnable command) { pool.execute(command); }
+        @Override public void shutdown() { pool.shutdown(); }
+        @Override public List<Runnable> shutdownNow() { return pool.shutdownNow(); }
+        @Override public boolean isShutdown() { return pool.isShutdown(); }
+        @Override public boolean isTerminated() { return pool.isTerminated(); }
+        @Override public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return pool.awaitTermination(timeout, unit);
+        }
+        @Override public String toString() { return super.toString()+"["+pool+"]"; }
+    }
+    
     public void shutdownNow() {
         shutdownNow(null);
     }
@@ -177,17 +353,21 @@ public class BasicExecutionManager implements ExecutionManager {
     @Beta
     public boolean shutdownNow(Duration howLongToWaitForTermination) {
         runner.shutdownNow();
+        if (blockingRunner!=runner) blockingRunner.shutdownNow();
+        if (waitingRunner!=runner) waitingRunner.shutdownNow();
         delayedRunner.shutdownNow();
         if (howLongToWaitForTermination!=null) {
             CountdownTimer timer = howLongToWaitForTermination.countdownTimer();
             try {
                 runner.awaitTermination(timer.getDurationRemaining().toMilliseconds(), TimeUnit.MILLISECONDS);
+                if (timer.isLive() && blockingRunner!=runner) blockingRunner.awaitTermination(timer.getDurationRemaining().toMilliseconds(), TimeUnit.MILLISECONDS);
+                if (timer.isLive() && waitingRunner!=runner) waitingRunner.awaitTermination(timer.getDurationRemaining().toMilliseconds(), TimeUnit.MILLISECONDS);
                 if (timer.isLive()) delayedRunner.awaitTermination(timer.getDurationRemaining().toMilliseconds(), TimeUnit.MILLISECONDS);
             } catch (InterruptedException e) {
                 throw Exceptions.propagate(e);
             }
         }
-        return runner.isTerminated() && delayedRunner.isTerminated();
+        return runner.isTerminated() && blockingRunner.isTerminated() && waitingRunner.isTerminated() && delayedRunner.isTerminated();
     }
     
     public void addListener(ExecutionListener listener) {
@@ -205,15 +385,13 @@ public class BasicExecutionManager implements ExecutionManager {
      * a reference to it as a tag.
      */
     public void deleteTag(Object tag) {
-        Set<Task<?>> tasks;
-        synchronized (tasksByTag) {
-            tasks = tasksByTag.remove(tag);
-        }
+        Set<Task<?>> tasks = tasksByTag.removeTag(tag);
         if (tasks != null) {
             for (Task<?> task : tasks) {
                 deleteTask(task);
             }
         }
+        completionIndex.onTagDeleted(tag);
     }
 
     public void deleteTask(Task<?> task) {
@@ -230,19 +408,10 @@ public class BasicExecutionManager implements ExecutionManager {
 
     protected boolean deleteTaskNonRecursive(Task<?> task) {
         Set<?> tags = checkNotNull(task, "task").getTags();
-        for (Object tag : tags) {
-            synchronized (tasksByTag) {
-                Set<Task<?>> tasks = tasksWithTagLiveOrNull(tag);
-                if (tasks != null) {
-                    tasks.remove(task);
-                    if (tasks.isEmpty()) {
-                        tasksByTag.remove(tag);
-                    }
-                }
-            }
-        }
+        tasksByTag.remove(task, tags);
         Task<?> removed = tasksById.remove(task.getId());
         incompleteTaskIds.remove(task.getId());
+        completionIndex.onDeleted(task);
         if (removed!=null && removed.isSubmitted() && !removed.isDone()) {
             log.warn("Deleting submitted task before completion: "+removed+"; this task will continue to run in the background outwith "+this+", but perhaps it should have been cancelled?");
         }
@@ -273,24 +442,56 @@ public class BasicExecutionManager implements ExecutionManager {
         return tasksById.size();
     }
 
-    private Set<Task<?>> tasksWithTagCreating(Object tag) {
-        Preconditions.checkNotNull(tag);
-        synchronized (tasksByTag) {
-            Set<Task<?>> result = tasksWithTagLiveOrNull(tag);
-            if (result==null) {
-                result = Collections.synchronizedSet(new LinkedHashSet<Task<?>>());
-                tasksByTag.put(tag, result);
-            }
-            return result;
+    @Beta
+    public ThreadingMode getThreadingMode() {
+        return threadingMode;
+    }
+    
+    /** count of tasks submitted to a thread pool but waiting for a thread; 
+     * always zero in {@link ThreadingMode#UNBOUNDED} mode (approximate in other modes) */
+    @Beta
+    public long getNumQueuedTasks() {
+        long result = 0;
+        if (workStealingPool!=null) {
+            result += workStealingPool.getQueuedSubmissionCount() + workStealingPool.getQueuedTaskCount();
+        } else if (runner instanceof ThreadPoolExecutor) {
+            result += ((ThreadPoolExecutor)runner).getQueue().size();
+        }
+        if (blockingRunner!=runner && blockingRunner instanceof ThreadPoolExecutor) {
+            result += ((ThreadPoolExecutor)blockingRunner).getQueue().size();
+        }
+        return result;
+    }
+    
+    /** count of threads currently in the execution manager's pools (excluding the scheduled-task thread);
+     * always zero in {@link ThreadingMode#VIRTUAL} mode, where threads are not pooled */
+    @Beta
+    public long getNumPoolThreads() {
+        long result = 0;
+        if (workStealingPool!=null) {
+            result += workStealingPool.getPoolSize();
+        } else if (runner instanceof ThreadPoolExecutor) {
+            result += ((ThreadPoolExecutor)runner).getPoolSize();
         }
+        if (blockingRunner!=runner && blockingRunner instanceof ThreadPoolExecutor) {
+            result += ((ThreadPoolExecutor)blockingRunner).getPoolSize();
+        }
+        if (waitingRunner!=runner && waitingRunner instanceof ThreadPoolExecutor) {
+            result += ((ThreadPoolExecutor)waitingRunner).getPoolSize();
+        }
+        return result;
     }
 
-    /** exposes live view, for internal use only */
+    /** exposes live (weakly consistent, unmodifiable) view, for internal use only */
     @Beta
     public Set<Task<?>> tasksWithTagLiveOrNull(Object tag) {
-        synchronized (tasksByTag) {
-            return tasksByTag.get(tag);
-        }
+        return tasksByTag.liveOrNull(tag);
+    }
+
+    /** count of tasks in memory with the given tag */
+    @Beta
+    public int getNumTasksWithTag(Object tag) {
+        return tasksByTag.size(tag);
     }
 
     @Override
@@ -311,9 +512,7 @@ public class BasicExecutionManager implements ExecutionManager {
     public Set<Task<?>> getTasksWithTag(Object tag) {
         Set<Task<?>> result = tasksWithTagLiveOrNull(tag);
         if (result==null) return Collections.emptySet();
-        synchronized (result) {
-            return (Set<Task<?>>)Collections.unmodifiableSet(new LinkedHashSet<Task<?>>(result));
-        }
+        return (Set<Task<?>>)Collections.unmodifiableSet(new LinkedHashSet<Task<?>>(result));
     }
     
     @Override
@@ -323,9 +522,7 @@ public class BasicExecutionManager implements ExecutionManager {
         while (ti.hasNext()) {
             Set<Task<?>> tasksForTag = tasksWithTagLiveOrNull(ti.next());
             if (tasksForTag!=null) {
-                synchronized (tasksForTag) {
-                    result.addAll(tasksForTag);
-                }
+                result.addAll(tasksForTag);
             }
         }
         return Collections.unmodifiableSet(result);
@@ -355,11 +552,56 @@ public class BasicExecutionManager implements ExecutionManager {
     /** live view of all tasks, for internal use only */
     @Beta
     public Collection<Task<?>> allTasksLive() { return tasksById.values(); }
+
+    /** live view of finished tasks still in memory, oldest completion first; for internal use only */
+    @Beta
+    public Collection<Task<?>> getCompletedTasksOldestFirst() {
+        return completionIndex.completedOldestFirst();
+    }
+
+    /** live view of finished tasks with the given tag still in memory, oldest completion first; for internal use only */
+    @Beta
+    public Collection<Task<?>> getCompletedTasksWithTagOldestFirst(Object tag) {
+        return completionIndex.completedWithTagOldestFirst(tag);
+    }
+
+    /** tags of finished tasks still in memory */
+    @Beta
+    public Set<Object> getCompletedTaskTags() {
+        return completionIndex.tags();
+    }
+
+    @Beta
+    public int getNumCompletedTasks() {
+        return completionIndex.size();
+    }
+
+    @Beta
+    public int getNumCompletedTasksWithTag(Object tag) {
+        return completionIndex.size(tag);
+    }
+
+    /**
+     * Returns finished tasks whose submitter has been deleted since the last call,
+     * i.e. background tasks which have been leaked by their submitter; for internal use only.
+     */
+    @Beta
+    public List<Task<?>> drainCompletedTasksWithDeletedSubmitter() {
+        return completionIndex.drainTasksWithDeletedSubmitter();
+    }
+
+    protected void onTaskCompleted(Task<?> task) {
+        if (!tasksById.containsKey(task.getId())) return;
+        Task<?> submitter = task.getSubmittedByTask();
+        boolean submitterDeleted = submitter != null && !tasksById.containsKey(submitter.getId());
+        if (completionIndex.onCompleted(task, submitterDeleted) && !tasksById.containsKey(task.getId())) {
+            // deleted concurrently
+            completionIndex.onDeleted(task);
+        }
+    }
     
     public Set<Object> getTaskTags() { 
-        synchronized (tasksByTag) {
-            return Collections.unmodifiableSet(Sets.newLinkedHashSet(tasksByTag.keySet())); 
-        }
+        return Collections.unmodifiableSet(Sets.newLinkedHashSet(tasksByTag.tags())); 
     }
 
     public Task<?> submit(Runnable r) { return submit(new LinkedHashMap<Object,Object>(1), r); }
@@ -378,6 +620,15 @@ public class BasicExecutionManager implements ExecutionManager {
         }
     }
 
+    /**
+     * Runs the given job after the given delay on the thread which starts scheduled tasks, without creating a task for it.
+     * For internal use only, for short jobs which must not block and do not run user code (e.g. timeout checks).
+     */
+    @Beta
+    public ScheduledFuture<?> scheduleInternal(Runnable job, Duration delay) {
+        return delayedRunner.schedule(job, delay.toNanoseconds(), TimeUnit.NANOSECONDS);
+    }
+
     public <T> Task<T> scheduleWith(Task<T> task) { return scheduleWith(Collections.emptyMap(), task); }
     public <T> Task<T> scheduleWith(Map<?,?> flags, Task<T> task) {
         synchronized (task) {
@@ -638,6 +889,7 @@ public class BasicExecutionManager implements ExecutionManager {
 
         @Override
         public void run() {
+            onTaskCompleted(task);
             try {
                 ((TaskInternal<?>)task).runListeners();
             } catch (Exception e) {
@@ -692,6 +944,10 @@ public class BasicExecutionManager implements ExecutionManager {
         if (schedulers!=null && !schedulers.isEmpty()) {
             if (schedulers.size()>1) log.warn("multiple schedulers detected, using only the first, for "+task+": "+schedulers);
             future = schedulers.iterator().next().submit(job);
+        } else if (TaskTags.isWaiting(task)) {
+            future = waitingRunner.submit(job);
+        } else if (TaskTags.isBlocking(task)) {
+            future = blockingRunner.submit(job);
         } else {
             future = runner.submit(job);
         }
@@ -727,9 +983,7 @@ public class BasicExecutionManager implements ExecutionManager {
         if (flags.get("tag")!=null) ((TaskInternal<?>)task).getMutableTags().add(flags.remove("tag"));
         if (flags.get("tags")!=null) ((TaskInternal<?>)task).getMutableTags().addAll((Collection<?>)flags.remove("tags"));
 
-        for (Object tag: ((TaskInternal<?>)task).getTags()) {
-            tasksWithTagCreating(tag).add(task);
-        }
+        tasksByTag.add(task, ((TaskInternal<?>)task).getTags());
     }
 
     protected void beforeStartScheduledTaskSubmissionIteration(Map<?,?> flags, Task<?> task) {
@@ -805,6 +1059,7 @@ public class BasicExecutionManager implements ExecutionManager {
             incompleteTaskIds.remove(task.getId());
             invokeCallback(flags.get("newTaskEndCallback"), task);
             ((TaskInternal<?>)task).setEndTimeUtc(System.currentTimeMillis());
+            onTaskCompleted(task);
         }
 
         if (startedInThisThread) {
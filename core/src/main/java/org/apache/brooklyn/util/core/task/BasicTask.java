@@ -37,6 +37,8 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -358,7 +360,7 @@ public class BasicTask<T> implements TaskInternal<T> {
             if (!isDone())
                 Tasks.setBlockingTask(this);
             blockUntilStarted();
-            return internalFuture.get();
+            return awaitFuture(internalFuture);
         } finally {
             Tasks.resetBlockingTask();
         }
@@ -414,11 +416,11 @@ public class BasicTask<T> implements TaskInternal<T> {
             boolean started = blockUntilStarted(timeout);
             if (!started) return false;
             if (timeout==null) {
-                internalFuture.get();
+                awaitFuture(internalFuture);
             } else {
                 long remaining = endTime - System.currentTimeMillis();
                 if (remaining>0)
-                    internalFuture.get(remaining, TimeUnit.MILLISECONDS);
+                    awaitFuture(internalFuture, remaining, TimeUnit.MILLISECONDS);
             }
             return isDone();
         } catch (Throwable t) {
@@ -462,14 +464,77 @@ public class BasicTask<T> implements TaskInternal<T> {
                 return internalFuture.get(Math.max(remaining, 1000), TimeUnit.MILLISECONDS);
             }
         } else if (remaining == null) {
-            return internalFuture.get();
+            return awaitFuture(internalFuture);
         } else if (remaining > 0) {
-            return internalFuture.get(remaining, TimeUnit.MILLISECONDS);
+            return awaitFuture(internalFuture, remaining, TimeUnit.MILLISECONDS);
         } else {
             throw new TimeoutException();
         }
     }
 
+    /**
+     * Waits on the given future. If called from a {@link ForkJoinPool} worker (as used by 
+     * {@link BasicExecutionManager.ThreadingMode#WORK_STEALING}), the wait is declared to the pool
+     * as a managed block so the pool can compensate with another thread, rather than starving 
+     * the tasks being waited on.
+     */
+    static <T> T awaitFuture(Future<T> future) throws InterruptedException, ExecutionException {
+        if (!future.isDone() && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+            ForkJoinPool.managedBlock(new FutureBlocker(future, null));
+        }
+        return future.get();
+    }
+
+    /** As {@link #awaitFuture(Future)}, with a timeout */
+    static <T> T awaitFuture(Future<T> future, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!future.isDone() && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+            ForkJoinPool.managedBlock(new FutureBlocker(future, unit.toNanos(timeout)));
+            if (!future.isDone()) throw new TimeoutException();
+            return future.get();
+        }
+        return future.get(timeout, unit);
+    }
+
+    /**
+     * Waits until the given future is done, or the timeout (if not null) elapses, without getting its result;
+     * as {@link #awaitFuture(Future)}, a wait in a {@link ForkJoinPool} worker is declared to the pool as a managed block.
+     * For callers which then get the result themselves, e.g. with {@link org.apache.brooklyn.util.time.Durations#get(Future, Duration)}.
+     */
+    static void awaitDone(Future<?> future, Duration timeout) throws InterruptedException {
+        if (timeout != null && !timeout.isPositive()) return;
+        if (!future.isDone() && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+            ForkJoinPool.managedBlock(new FutureBlocker(future, (timeout == null) ? null : timeout.nanos()));
+        }
+    }
+
+    private static class FutureBlocker implements ForkJoinPool.ManagedBlocker {
+        private final Future<?> future;
+        private final Long timeoutNanos;
+        
+        FutureBlocker(Future<?> future, Long timeoutNanos) {
+            this.future = future;
+            this.timeoutNanos = timeoutNanos;
+        }
+        @Override
+        public boolean block() throws InterruptedException {
+            try {
+                if (timeoutNanos==null) future.get();
+                else future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                // reported to the caller when it gets the result
+            } catch (CancellationException e) {
+                // as above
+            } catch (TimeoutException e) {
+                // caller checks isDone
+            }
+            return true;
+        }
+        @Override
+        public boolean isReleasable() {
+            return future.isDone();
+        }
+    }
+
     @Override
     public T getUnchecked(Duration duration) {
         try {
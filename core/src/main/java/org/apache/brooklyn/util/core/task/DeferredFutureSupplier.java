@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import java.util.concurrent.Future;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * A {@link DeferredSupplier} whose value can also be obtained as a {@link Future} which is completed
+ * without a thread waiting for it (e.g. by a subscription).
+ * <p>
+ * {@link ValueResolver} waits on that future directly, rather than running {@link #get()} in a task
+ * which blocks until the value is available, and cancels it if it gives up waiting.
+ */
+@Beta
+public interface DeferredFutureSupplier<T> extends DeferredSupplier<T> {
+
+    /** returns a future for the value; cancelling it releases anything held while waiting for the value */
+    Future<T> getFuture();
+}
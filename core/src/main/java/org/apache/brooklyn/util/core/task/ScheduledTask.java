@@ -57,7 +57,7 @@ public class ScheduledTask extends BasicTask<Object> {
      * this may be modified for subsequent submissions by a running task generated by the factory 
      * using {@link #getSubmittedByTask().setPeriod(Duration)}
      */
-    protected Duration period = null;
+    protected volatile Duration period = null;
 
     /**
      * Optional, set as flag in constructor; defaults to null meaning no limit.
@@ -74,6 +74,7 @@ public class ScheduledTask extends BasicTask<Object> {
     Class<? extends Exception> lastThrownType;
 
     public int getRunCount() { return runCount; }
+    public Duration getPeriod() { return period; }
     public ScheduledFuture<?> getNextScheduled() { return (ScheduledFuture<?>)internalFuture; }
 
     public ScheduledTask(Callable<Task<?>> taskFactory) {
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.brooklyn.api.mgmt.Task;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Concurrent map from keys (e.g. tags) to tasks ordered by a sequence number, used by
+ * {@link TaskTagIndex} and {@link TaskCompletionIndex}. Keys whose tasks are all removed are discarded.
+ * <p>
+ * Adding and removing for a key lock only that key's entry. An entry is retired (and removed from the map)
+ * under its lock when it becomes empty, and tasks are never added to a retired entry, so a task added
+ * concurrently with the last removal goes into a new entry rather than being lost.
+ */
+abstract class SequencedTaskIndex {
+
+    /** tasks for one key; compared by identity (unlike its {@link #view}) so it can be removed from the map conditionally */
+    private final class Entry {
+        final ConcurrentSkipListMap<Long, Task<?>> tasks = new ConcurrentSkipListMap<Long, Task<?>>();
+        final Set<Task<?>> view = new TasksView(this);
+        // guarded by this
+        int size;
+        boolean retired;
+
+        /** returns false if retired, in which case the caller should retry with the current entry */
+        synchronized boolean add(long seq, Task<?> task) {
+            if (retired) return false;
+            if (tasks.put(seq, task) == null) size++;
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+
+    /** live view of the tasks for one key, in sequence order */
+    private final class TasksView extends AbstractSet<Task<?>> {
+        private final Entry entry;
+
+        TasksView(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Iterator<Task<?>> iterator() {
+            return Iterators.unmodifiableIterator(entry.tasks.values().iterator());
+        }
+
+        @Override
+        public int size() {
+            return entry.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return entry.tasks.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Task)) return false;
+            Long seq = sequenceOf((Task<?>) o);
+            return seq != null && entry.tasks.containsKey(seq);
+        }
+    }
+
+    private final ConcurrentMap<Object, Entry> byKey = new ConcurrentHashMap<Object, Entry>();
+
+    /** the sequence number under which the given task is indexed, or null if it is not */
+    protected abstract Long sequenceOf(Task<?> task);
+
+    void add(Object key, long seq, Task<?> task) {
+        while (true) {
+            Entry entry = byKey.get(key);
+            if (entry == null) {
+                Entry newEntry = new Entry();
+                entry = byKey.putIfAbsent(key, newEntry);
+                if (entry == null) entry = newEntry;
+            }
+            if (entry.add(seq, task)) return;
+            // retired entries are removed from the map when retired; make sure before retrying
+            byKey.remove(key, entry);
+        }
+    }
+
+    /** removes the task from the given key, discarding the key if that leaves it empty; returns true if removed */
+    boolean remove(Object key, long seq) {
+        Entry entry = byKey.get(key);
+        if (entry == null) return false;
+        synchronized (entry) {
+            if (entry.retired || entry.tasks.remove(seq) == null) return false;
+            entry.size--;
+            if (entry.size == 0) {
+                entry.retired = true;
+                byKey.remove(key, entry);
+            }
+            return true;
+        }
+    }
+
+    /** removes the key, returning its tasks (or null if none) */
+    Set<Task<?>> removeKey(Object key) {
+        while (true) {
+            Entry entry = byKey.get(key);
+            if (entry == null) return null;
+            synchronized (entry) {
+                if (!entry.retired) {
+                    entry.retired = true;
+                    byKey.remove(key, entry);
+                    return entry.view;
+                }
+            }
+        }
+    }
+
+    /** live view of the tasks for the given key, or null if there are none */
+    Set<Task<?>> get(Object key) {
+        Entry entry = byKey.get(key);
+        return (entry == null) ? null : entry.view;
+    }
+
+    int size(Object key) {
+        Entry entry = byKey.get(key);
+        return (entry == null) ? 0 : entry.size();
+    }
+
+    /** live view of the keys in use */
+    Set<Object> keys() {
+        return Collections.unmodifiableSet(byKey.keySet());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.util.collections.MutableList;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Indexes the finished tasks of a {@link BasicExecutionManager} in order of completion,
+ * both globally and per tag, so that garbage collection can find the oldest tasks
+ * (overall, or for an over-capacity tag) without scanning every task in memory.
+ * <p>
+ * Also tracks finished tasks by the id of the task which submitted them, so that tasks
+ * whose submitter has been deleted can be found directly.
+ */
+class TaskCompletionIndex {
+
+    private static class Entry {
+        final long seq;
+        final Set<Object> tags;
+        final String submitterId;
+
+        Entry(long seq, Set<Object> tags, String submitterId) {
+            this.seq = seq;
+            this.tags = tags;
+            this.submitterId = submitterId;
+        }
+    }
+
+    private class CompletedTasksIndex extends SequencedTaskIndex {
+        @Override
+        protected Long sequenceOf(Task<?> task) {
+            Entry entry = entriesByTaskId.get(task.getId());
+            return (entry == null) ? null : entry.seq;
+        }
+    }
+
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final ConcurrentSkipListMap<Long, Task<?>> completed = new ConcurrentSkipListMap<Long, Task<?>>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final ConcurrentMap<String, Entry> entriesByTaskId = new ConcurrentHashMap<String, Entry>();
+    private final SequencedTaskIndex byTag = new CompletedTasksIndex();
+    private final SequencedTaskIndex bySubmitterId = new CompletedTasksIndex();
+    private final ConcurrentLinkedQueue<String> deletedSubmitterIds = new ConcurrentLinkedQueue<String>();
+
+    /** records the task as finished, unless already recorded; returns true if newly recorded */
+    boolean onCompleted(Task<?> task, boolean submitterDeleted) {
+        long seq = nextSeq.incrementAndGet();
+        Task<?> submitter = task.getSubmittedByTask();
+        Entry entry = new Entry(seq, ImmutableSet.copyOf(task.getTags()), submitter == null ? null : submitter.getId());
+        if (entriesByTaskId.putIfAbsent(task.getId(), entry) != null) return false;
+
+        completed.put(seq, task);
+        completedCount.incrementAndGet();
+        for (Object tag : entry.tags) {
+            byTag.add(tag, seq, task);
+        }
+        if (entry.submitterId != null) {
+            bySubmitterId.add(entry.submitterId, seq, task);
+            if (submitterDeleted) deletedSubmitterIds.add(entry.submitterId);
+        }
+        return true;
+    }
+
+    void onDeleted(Task<?> task) {
+        Entry entry = entriesByTaskId.remove(task.getId());
+        if (entry == null) return;
+
+        if (completed.remove(entry.seq) != null) completedCount.decrementAndGet();
+        for (Object tag : entry.tags) {
+            byTag.remove(tag, entry.seq);
+        }
+        if (entry.submitterId != null) {
+            bySubmitterId.remove(entry.submitterId, entry.seq);
+        }
+        if (bySubmitterId.get(task.getId()) != null) {
+            deletedSubmitterIds.add(task.getId());
+        }
+    }
+
+    void onTagDeleted(Object tag) {
+        byTag.removeKey(tag);
+    }
+
+    /** live view of finished tasks, oldest first */
+    Collection<Task<?>> completedOldestFirst() {
+        return Collections.unmodifiableCollection(completed.values());
+    }
+
+    /** live view of finished tasks with the given tag, oldest first */
+    Collection<Task<?>> completedWithTagOldestFirst(Object tag) {
+        Set<Task<?>> tasks = byTag.get(tag);
+        return (tasks == null) ? Collections.<Task<?>>emptyList() : tasks;
+    }
+
+    int size() {
+        return completedCount.get();
+    }
+
+    int size(Object tag) {
+        return byTag.size(tag);
+    }
+
+    Set<Object> tags() {
+        return byTag.keys();
+    }
+
+    /**
+     * Returns finished tasks whose submitter was deleted since the last call
+     * (and which are themselves still present).
+     */
+    List<Task<?>> drainTasksWithDeletedSubmitter() {
+        List<Task<?>> result = MutableList.of();
+        String submitterId;
+        while ((submitterId = deletedSubmitterIds.poll()) != null) {
+            Set<Task<?>> submitted = bySubmitterId.get(submitterId);
+            if (submitted != null) result.addAll(submitted);
+        }
+        return result;
+    }
+}
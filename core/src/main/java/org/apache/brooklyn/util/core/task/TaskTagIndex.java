@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.brooklyn.api.mgmt.Task;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Concurrent index of the tasks of a {@link BasicExecutionManager} by tag, without a global lock.
+ * <p>
+ * Each tag's tasks are kept in submission order, and exposed as weakly consistent live views
+ * (iteration never throws {@link java.util.ConcurrentModificationException}) with constant-time size.
+ */
+class TaskTagIndex {
+
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final ConcurrentMap<String, Long> seqByTaskId = new ConcurrentHashMap<String, Long>();
+    private final SequencedTaskIndex byTag = new SequencedTaskIndex() {
+        @Override protected Long sequenceOf(Task<?> task) {
+            return seqByTaskId.get(task.getId());
+        }
+    };
+
+    /** indexes the task under each of the given tags */
+    void add(Task<?> task, Iterable<?> tags) {
+        Long seq = seqByTaskId.get(task.getId());
+        if (seq == null) {
+            Long newSeq = nextSeq.incrementAndGet();
+            seq = seqByTaskId.putIfAbsent(task.getId(), newSeq);
+            if (seq == null) seq = newSeq;
+        }
+        for (Object tag : tags) {
+            byTag.add(Preconditions.checkNotNull(tag, "tag"), seq, task);
+        }
+    }
+
+    /** removes the task from each of the given tags, discarding tags which become empty */
+    void remove(Task<?> task, Iterable<?> tags) {
+        Long seq = seqByTaskId.remove(task.getId());
+        if (seq == null) return;
+        for (Object tag : tags) {
+            byTag.remove(tag, seq);
+        }
+    }
+
+    /** removes the tag, returning the tasks which had it (or null if none) */
+    Set<Task<?>> removeTag(Object tag) {
+        return byTag.removeKey(tag);
+    }
+
+    /** live view of the tasks with the given tag, or null if there are none */
+    Set<Task<?>> liveOrNull(Object tag) {
+        return byTag.get(tag);
+    }
+
+    int size(Object tag) {
+        return byTag.size(tag);
+    }
+
+    /** live view of the tags in use */
+    Set<Object> tags() {
+        return byTag.keys();
+    }
+}
@@ -35,6 +35,15 @@ public class TaskTags {
     /** marks a task which is a subtask of another */
     public static final String SUB_TASK_TAG = "SUB-TASK";
 
+    /** marks a task which spends most of its time blocked on I/O (e.g. ssh or http calls),
+     * so may be run on a separate pool by {@link BasicExecutionManager} */
+    public static final String BLOCKING_TASK = "blocking";
+
+    /** marks a task which spends most of its time waiting for something done by other tasks (e.g. a sensor being set),
+     * so must not take a thread from the pools which run those tasks; takes precedence over {@link #BLOCKING_TASK}
+     * in {@link BasicExecutionManager} */
+    public static final String WAITING_TASK = "waiting";
+
     public static void addTagDynamically(TaskAdaptable<?> task, final Object tag) {
         ((BasicTask<?>)task.asTask()).applyTagModifier(new Function<Set<Object>, Void>() {
             public Void apply(@Nullable Set<Object> input) {
@@ -59,6 +68,14 @@ public class TaskTags {
         return hasTag(task, INESSENTIAL_TASK);
     }
 
+    public static boolean isBlocking(Task<?> task) {
+        return hasTag(task, BLOCKING_TASK);
+    }
+
+    public static boolean isWaiting(Task<?> task) {
+        return hasTag(task, WAITING_TASK);
+    }
+
     public static boolean hasTag(Task<?> task, Object tag) {
         return task.getTags().contains(tag);
     }
@@ -68,4 +85,9 @@ public class TaskTags {
         return task;
     }
 
+    public static <U,V extends TaskAdaptable<U>> V markBlocking(V task) {
+        addTagDynamically(task, BLOCKING_TASK);
+        return task;
+    }
+
 }
@@ -47,6 +47,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /** 
  * Resolves a given object, as follows:
@@ -307,7 +308,7 @@ public class ValueResolver<T> implements DeferredSupplier<T> {
                 if (!vfuture.isDone()) {
                     Callable<Maybe> callable = new Callable<Maybe>() {
                         public Maybe call() throws Exception {
-                            return Durations.get(vfuture, timer);
+                            return getWithinTimer(vfuture, timer);
                         } };
 
                     String description = getDescription();
@@ -322,8 +323,15 @@ public class ValueResolver<T> implements DeferredSupplier<T> {
 
             } else if (v instanceof DeferredSupplier<?>) {
                 final DeferredSupplier<?> ds = (DeferredSupplier<?>) v;
+                boolean embed = (!Boolean.FALSE.equals(embedResolutionInTask) && (exec!=null || timeout!=null)) || Boolean.TRUE.equals(embedResolutionInTask);
 
-                if ((!Boolean.FALSE.equals(embedResolutionInTask) && (exec!=null || timeout!=null)) || Boolean.TRUE.equals(embedResolutionInTask)) {
+                if (ds instanceof DeferredFutureSupplier<?> && (exec!=null || !embed)) {
+                    // wait on the supplier's future here, rather than on a task blocked until the value is available
+                    Maybe<Object> vm = getFromFuture((DeferredFutureSupplier<?>) ds, embed ? exec : null, timer);
+                    if (vm.isAbsent()) return (Maybe<T>)vm;
+                    v = vm.get();
+                    
+                } else if (embed) {
                     if (exec==null)
                         return Maybe.absent("Embedding in task needed for '"+getDescription()+"' but no execution context available");
                         
@@ -427,6 +435,59 @@ public class ValueResolver<T> implements DeferredSupplier<T> {
         return new ValueResolver(v, type, this).getMaybe();
     }
 
+    /**
+     * Gets the supplier's future (in a short task in the given execution context, if not null, so that it has
+     * that context's entity), then waits for its value, cancelling the future if the timer expires first.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Maybe<Object> getFromFuture(final DeferredFutureSupplier<?> ds, ExecutionContext exec, final CountdownTimer timer) throws Exception {
+        final Future<?> future;
+        if (exec!=null) {
+            TaskBuilder<Future<?>> tb = Tasks.<Future<?>>builder()
+                    .body(new Callable<Future<?>>() {
+                        public Future<?> call() {
+                            return ds.getFuture();
+                        } })
+                    .displayName("Subscribing for dependent value")
+                    .description(getDescription())
+                    .tagIfNotNull(BrooklynTaskTags.getTargetOrContextEntityTag(Tasks.current()));
+            if (isTransientTask) tb.tag(BrooklynTaskTags.TRANSIENT_TASK_TAG);
+            final Task<Future<?>> ft = exec.submit(tb.build());
+            Maybe<Future<?>> fm = Durations.get(ft, timer);
+            if (fm.isAbsent()) {
+                // getting the future does not block, so let it finish and cancel the future as soon as it is obtained,
+                // as no one will wait on it (cancelling the task instead could lose the future and leave it subscribed)
+                ft.addListener(new Runnable() {
+                    public void run() {
+                        if (ft.isCancelled() || ft.isError()) return;
+                        Future<?> f = ft.getUnchecked();
+                        if (f!=null) f.cancel(true);
+                    } }, MoreExecutors.sameThreadExecutor());
+                return (Maybe) fm;
+            }
+            future = fm.get();
+        } else {
+            future = ds.getFuture();
+        }
+        
+        Callable<Maybe> callable = new Callable<Maybe>() {
+            public Maybe call() throws Exception {
+                return getWithinTimer(future, timer);
+            } };
+        Maybe<Object> vm = Tasks.withBlockingDetails("Waiting for "+getDescription(), callable);
+        if (vm.isAbsent()) future.cancel(true);
+        return vm;
+    }
+
+    /**
+     * As {@link Durations#get(Future, CountdownTimer)}, but in a work-stealing pool the wait is declared to the pool
+     * (as waiting on a {@link BasicTask} is), so that many waiters do not starve the tasks which would complete their futures.
+     */
+    private static <T> Maybe<T> getWithinTimer(Future<T> future, CountdownTimer timer) throws InterruptedException {
+        BasicTask.awaitDone(future, (timer == null) ? null : timer.getDurationRemaining());
+        return Durations.get(future, timer);
+    }
+
     protected String getDescription() {
         return description!=null ? description : ""+value;
     }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.text;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+/**
+ * Caches parsed FreeMarker templates by a hash of their contents, so that the same template
+ * (e.g. a driver's install or customize script, rendered for every member of a cluster)
+ * is parsed once rather than every time it is processed by {@link TemplateProcessor}.
+ * <p>
+ * Parsed templates are safe to process concurrently, and all share a single FreeMarker
+ * {@link Configuration} which is not modified after creation.
+ * At most {@link #MAX_SIZE} templates are kept, the least recently used being evicted first.
+ */
+@Beta
+public class TemplateCache {
+
+    public static final ConfigKey<Integer> MAX_SIZE = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.templates.cache.maxSize",
+            "Maximum number of parsed templates cached for reuse (by hash of their contents); "
+                    + "0 to parse templates every time they are processed",
+            1000);
+
+    /** name given to all templates, as they are identified by contents rather than by name */
+    private static final String TEMPLATE_NAME = "config";
+
+    private static final Configuration CONFIGURATION = new Configuration();
+
+    private final int maxSize;
+    private final Cache<String, Template> templates;
+
+    private static final Function<ManagementContext, TemplateCache> FACTORY = new Function<ManagementContext, TemplateCache>() {
+        @Override public TemplateCache apply(ManagementContext input) {
+            return new TemplateCache(input);
+        }
+    };
+
+    /**
+     * @return The cache shared by all template processing for entities and locations in the given management context;
+     *         created lazily.
+     */
+    public static TemplateCache forManagementContext(ManagementContext managementContext) {
+        return ((ManagementContextInternal) managementContext).getSharedInstance(TemplateCache.class, FACTORY);
+    }
+
+    public TemplateCache(ManagementContext managementContext) {
+        this(managementContext.getConfig().getConfig(MAX_SIZE));
+    }
+
+    public TemplateCache(int maxSize) {
+        Preconditions.checkArgument(maxSize >= 0, "maxSize must not be negative, but was %s", maxSize);
+        this.maxSize = maxSize;
+        this.templates = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /** Returns the parsed template with the given contents, parsing it only if not cached */
+    public Template getTemplate(final String templateContents) throws IOException {
+        String key = Hashing.sha256().hashString(templateContents, Charsets.UTF_8).toString();
+        try {
+            return templates.get(key, new Callable<Template>() {
+                @Override public Template call() throws IOException {
+                    return newTemplate(templateContents);
+                }});
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Exceptions.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+
+    /** Parses the given template contents, without caching */
+    public static Template newTemplate(String templateContents) throws IOException {
+        return new Template(TEMPLATE_NAME, new StringReader(templateContents), CONFIGURATION);
+    }
+
+    public Map<String, Object> getMetrics() {
+        CacheStats stats = templates.stats();
+        return ImmutableMap.<String, Object>builder()
+                .put("size", templates.size())
+                .put("hits", stats.hitCount())
+                .put("misses", stats.missCount())
+                .put("evictions", stats.evictionCount())
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("maxSize", maxSize).add("metrics", getMetrics()).toString();
+    }
+}
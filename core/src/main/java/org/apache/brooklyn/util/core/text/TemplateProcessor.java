@@ -25,7 +25,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.drivers.EntityDriver;
@@ -37,6 +39,7 @@ import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.location.internal.LocationInternal;
 import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
+import org.apache.brooklyn.core.mgmt.internal.NonDeploymentManagementContext;
 import org.apache.brooklyn.core.sensor.DependentConfiguration;
 import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.util.collections.MutableMap;
@@ -49,8 +52,7 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
 
-import freemarker.cache.StringTemplateLoader;
-import freemarker.template.Configuration;
+import freemarker.core.Environment;
 import freemarker.template.ObjectWrapper;
 import freemarker.template.Template;
 import freemarker.template.TemplateHashModel;
@@ -510,19 +512,21 @@ public class TemplateProcessor {
         return processTemplateContents(templateContents, root);
     }
     
-    /** Processes template contents against the given {@link TemplateHashModel}. */
+    /** Processes template contents against the given {@link TemplateHashModel}.
+     * The parsed template is cached in the {@link TemplateCache#forManagementContext(ManagementContext) management context}
+     * of the entity or location of the given model, if any. */
     public static String processTemplateContents(String templateContents, final TemplateHashModel substitutions) {
         try {
-            Configuration cfg = new Configuration();
-            StringTemplateLoader templateLoader = new StringTemplateLoader();
-            templateLoader.putTemplate("config", templateContents);
-            cfg.setTemplateLoader(templateLoader);
-            Template template = cfg.getTemplate("config");
+            Template template = getTemplate(templateContents, substitutions);
 
             // TODO could expose CAMP '$brooklyn:' style dsl, based on template.createProcessingEnvironment
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             Writer out = new OutputStreamWriter(baos);
-            template.process(substitutions, out);
+            Environment env = template.createProcessingEnvironment(substitutions, out);
+            // the template's configuration is shared, so use the current defaults (as a new configuration would)
+            env.setLocale(Locale.getDefault());
+            env.setTimeZone(TimeZone.getDefault());
+            env.process();
             out.flush();
 
             return new String(baos.toByteArray());
@@ -533,4 +537,22 @@ public class TemplateProcessor {
             throw Exceptions.propagate(e);
         }
     }
+
+    private static Template getTemplate(String templateContents, TemplateHashModel substitutions) throws IOException {
+        ManagementContext mgmt = null;
+        if (substitutions instanceof EntityAndMapTemplateModel) {
+            mgmt = ((EntityAndMapTemplateModel)substitutions).mgmt;
+        } else if (substitutions instanceof LocationAndMapTemplateModel) {
+            mgmt = ((LocationAndMapTemplateModel)substitutions).mgmt;
+        }
+        if (mgmt instanceof NonDeploymentManagementContext && !((NonDeploymentManagementContext)mgmt).isInitialManagementContextReal()) {
+            // nothing to scope a cache to; parse every time
+            mgmt = null;
+        }
+        if (mgmt instanceof ManagementContextInternal && mgmt.isRunning()) {
+            return TemplateCache.forManagementContext(mgmt).getTemplate(templateContents);
+        } else {
+            return TemplateCache.newTemplate(templateContents);
+        }
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.entity;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.core.sensor.AttributeMap;
+import org.apache.brooklyn.core.sensor.Sensors;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Runs the {@link AttributeMapTest} tests against {@link ConcurrentHashMap} storage.
+ */
+public class ConcurrentAttributeMapTest extends AttributeMapTest {
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() {
+        super.setUp();
+        map = new AttributeMap(entityImpl, new ConcurrentHashMap<Collection<String>,Object>());
+    }
+
+    @Test
+    public void testNullValuesStoredAndRetrieved() throws Exception {
+        AttributeSensor<String> sensor = Sensors.newStringSensor("a.b", "");
+        
+        map.update(sensor, "val");
+        map.update(sensor, null);
+        
+        assertNull(map.getValue(sensor));
+        assertTrue(map.asMap().containsKey("a.b"));
+        assertNull(map.asMap().get("a.b"));
+    }
+
+    @Test
+    public void testNamePartsInternedButEqualToPlainLists() throws Exception {
+        AttributeSensor<String> sensor1 = Sensors.newStringSensor("x.y", "");
+        AttributeSensor<String> sensor2 = Sensors.newStringSensor("x.y", "");
+        
+        assertTrue(sensor1.getNameParts() == sensor2.getNameParts());
+        assertEquals(sensor1.getNameParts(), ImmutableList.of("x", "y"));
+        assertEquals(ImmutableList.of("x", "y"), sensor1.getNameParts());
+        assertEquals(sensor1.getNameParts().hashCode(), ImmutableList.of("x", "y").hashCode());
+    }
+}
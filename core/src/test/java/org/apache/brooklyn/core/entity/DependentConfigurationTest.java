@@ -19,12 +19,15 @@
 package org.apache.brooklyn.core.entity;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -42,7 +45,10 @@ import org.apache.brooklyn.test.Asserts;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.task.BasicTask;
+import org.apache.brooklyn.util.core.task.DeferredFutureSupplier;
+import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.guava.Maybe;
 import org.apache.brooklyn.util.javalang.JavaClassNames;
 import org.apache.brooklyn.util.text.StringPredicates;
 import org.apache.brooklyn.util.time.Duration;
@@ -362,6 +368,76 @@ public class DependentConfigurationTest extends BrooklynAppUnitTestSupport {
         }
     }
 
+    @Test
+    public void testAttributeWhenReadyFuture() throws Exception {
+        Future<String> future = DependentConfiguration.attributeWhenReadyFuture(entity, TestEntity.NAME, null);
+        assertFalse(future.isDone());
+        
+        entity.sensors().set(TestEntity.NAME, "myval");
+        assertEquals(future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS), "myval");
+    }
+
+    @Test
+    public void testAttributeWhenReadyFutureWithAbort() throws Exception {
+        Future<String> future = DependentConfiguration.builder()
+                .attributeWhenReady(entity, TestEntity.NAME)
+                .abortIf(entity2, TestEntity.SEQUENCE, Predicates.equalTo(1))
+                .buildFuture();
+        assertFalse(future.isDone());
+        
+        entity2.sensors().set(TestEntity.SEQUENCE, 1);
+        try {
+            future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            if (!e.toString().contains("Aborted waiting for ready")) throw e;
+        }
+    }
+
+    @Test
+    public void testAttributeWhenReadyFuturePostProcessesInCallerOfGet() throws Exception {
+        final AtomicReference<Thread> postProcessThread = new AtomicReference<Thread>();
+        Future<String> future = DependentConfiguration.builder()
+                .attributeWhenReady(entity, TestEntity.NAME)
+                .postProcess(new Function<String, String>() {
+                    @Override public String apply(String input) {
+                        postProcessThread.set(Thread.currentThread());
+                        return input+"mysuffix";
+                    }})
+                .buildFuture();
+        
+        entity.sensors().set(TestEntity.NAME, "myval");
+        assertEquals(future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS), "myvalmysuffix");
+        assertEquals(postProcessThread.get(), Thread.currentThread());
+    }
+
+    @Test
+    public void testAttributeWhenReadyFutureResolvedByValueResolverWithoutTask() throws Exception {
+        final AtomicReference<Future<Integer>> lastFuture = new AtomicReference<Future<Integer>>();
+        DeferredFutureSupplier<Integer> supplier = new DeferredFutureSupplier<Integer>() {
+            @Override public Integer get() {
+                throw new UnsupportedOperationException("should be resolved from its future");
+            }
+            @Override public Future<Integer> getFuture() {
+                Future<Integer> result = DependentConfiguration.builder()
+                        .attributeWhenReady(entity, TestEntity.SEQUENCE)
+                        .buildFuture();
+                lastFuture.set(result);
+                return result;
+            }};
+        
+        Maybe<Integer> result = Tasks.resolving(supplier).as(Integer.class).context(app).timeout(Duration.ZERO).getMaybe();
+        assertTrue(result.isAbsent(), "result="+result);
+        // the future may be obtained after the resolver has given up waiting for it
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertTrue(lastFuture.get() != null && lastFuture.get().isCancelled());
+            }});
+        
+        entity.sensors().set(TestEntity.SEQUENCE, 1);
+        assertEquals(Tasks.resolving(supplier).as(Integer.class).context(app).timeout(Duration.millis(TIMEOUT_MS)).get(), (Integer) 1);
+    }
+
     @Test
     public void testListAttributeWhenReadyFromMultipleEntities() throws Exception {
         final Task<List<String>> t = submit(DependentConfiguration.builder()
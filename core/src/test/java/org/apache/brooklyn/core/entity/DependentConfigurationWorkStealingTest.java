@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.entity;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.core.sensor.DependentConfiguration;
+import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.core.task.BasicExecutionManager;
+import org.apache.brooklyn.util.core.task.BasicExecutionManager.ThreadingMode;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link DependentConfiguration#attributeWhenReady(org.apache.brooklyn.api.entity.Entity, org.apache.brooklyn.api.sensor.AttributeSensor)}
+ * with the execution manager in {@link ThreadingMode#WORK_STEALING} mode, with deliberately small pools.
+ */
+public class DependentConfigurationWorkStealingTest extends BrooklynAppUnitTestSupport {
+
+    private static final int MAX_BLOCKING_THREADS = 2;
+
+    @Override
+    protected BrooklynProperties getBrooklynProperties() {
+        BrooklynProperties result = BrooklynProperties.Factory.newEmpty();
+        result.put(BasicExecutionManager.THREADING_MODE, ThreadingMode.WORK_STEALING);
+        result.put(BasicExecutionManager.WORK_STEALING_PARALLELISM, 2);
+        result.put(BasicExecutionManager.BLOCKING_POOL_MAX_THREADS, MAX_BLOCKING_THREADS);
+        return result;
+    }
+
+    @Test
+    public void testMoreAttributeWhenReadyWaitersThanBlockingThreads() throws Exception {
+        final TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        final List<Task<String>> waiters = MutableList.of();
+        for (int i = 0; i < 3*MAX_BLOCKING_THREADS; i++) {
+            waiters.add(mgmt.getExecutionManager().submit(DependentConfiguration.attributeWhenReady(entity, TestEntity.NAME)));
+        }
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                for (Task<String> waiter : waiters) {
+                    assertTrue(waiter.isBegun(), "waiter not started: "+waiter);
+                }
+            }});
+
+        // set by a blocking task, as an ssh command would, which must not be queued behind the waiters
+        mgmt.getExecutionManager().submit(Tasks.builder()
+                .displayName("setting name")
+                .tag(BrooklynTaskTags.BLOCKING_TASK)
+                .body(new Runnable() {
+                    @Override public void run() {
+                        entity.sensors().set(TestEntity.NAME, "ready");
+                    }})
+                .build());
+
+        for (Task<String> waiter : waiters) {
+            assertEquals(waiter.get(Duration.TEN_SECONDS), "ready");
+        }
+    }
+}
@@ -31,9 +31,11 @@ import org.apache.brooklyn.core.entity.EntityAndAttribute;
 import org.apache.brooklyn.core.entity.EntityInitializers;
 import org.apache.brooklyn.core.location.SimulatedLocation;
 import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.core.test.entity.TestApplication;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.test.Asserts;
 import org.apache.brooklyn.util.collections.MutableSet;
+import org.apache.brooklyn.util.text.StringPredicates;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -84,6 +86,22 @@ public class EntitiesTest extends BrooklynAppUnitTestSupport {
         Asserts.assertEqualsIgnoringOrder(Entities.descendants(app, Predicates.instanceOf(TestEntity.class)), ImmutableList.of(entity, entity2));
     }
     
+    @Test
+    public void testDescendantsAndSelfWithTypeName() throws Exception {
+        TestEntity grandchild = entity.addChild(EntitySpec.create(TestEntity.class));
+        TestApplication otherApp = mgmt.getEntityManager().createEntity(EntitySpec.create(TestApplication.class)
+                .child(EntitySpec.create(TestEntity.class)));
+        
+        Asserts.assertEqualsIgnoringOrder(Entities.descendantsAndSelfWithTypeName(app, Predicates.equalTo(TestEntity.class.getName())), 
+                ImmutableList.of(entity, entity2, grandchild));
+        Asserts.assertEqualsIgnoringOrder(Entities.descendantsAndSelfWithTypeName(entity, StringPredicates.matchesRegex(".*\\.TestEntity")), 
+                ImmutableList.of(entity, grandchild));
+        Asserts.assertEqualsIgnoringOrder(Entities.descendantsAndSelfWithTypeName(app, Predicates.alwaysTrue()), 
+                ImmutableList.of(app, entity, entity2, grandchild));
+        Asserts.assertEqualsIgnoringOrder(Entities.descendantsAndSelfWithTypeName(otherApp, Predicates.alwaysTrue()), 
+                Entities.descendantsAndSelf(otherApp));
+    }
+    
     @Test
     public void testDescendantsWithExplicitIncludeSelf() throws Exception {
         Asserts.assertEqualsIgnoringOrder(Entities.descendants(app, Predicates.alwaysTrue(), true), ImmutableList.of(app, entity, entity2));
@@ -22,9 +22,14 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Collection;
+
+import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.api.mgmt.EntityManager;
+import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.factory.ApplicationBuilder;
+import org.apache.brooklyn.core.mgmt.internal.EntityManagerInternal;
 import org.apache.brooklyn.core.objs.proxy.EntityProxy;
 import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
 import org.apache.brooklyn.core.test.entity.TestApplication;
@@ -80,4 +85,60 @@ public class EntityManagerTest extends BrooklynAppUnitTestSupport {
         Asserts.assertEqualsIgnoringOrder(entityManager.findEntities(Predicates.instanceOf(TestApplication.class)), ImmutableList.of(app, app2));
         Asserts.assertEqualsIgnoringOrder(entityManager.findEntitiesInApplication(app, Predicates.instanceOf(TestApplication.class)), ImmutableList.of(app));
     }
+
+    @Test
+    public void testGetEntitiesInApplicationExcludesUnmanaged() {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity child = entity.createAndManageChild(EntitySpec.create(TestEntity.class));
+        Entities.unmanage(entity);
+        
+        Asserts.assertEqualsIgnoringOrder(entityManager.getEntitiesInApplication(app), ImmutableList.of(app));
+        assertFalse(entityManager.getEntitiesInApplication(app).contains(child));
+    }
+    
+    @Test
+    public void testGetEntitiesInApplicationReturnsCopy() {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        Collection<Entity> entities = entityManager.getEntitiesInApplication(app);
+        TestEntity entity2 = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        
+        Asserts.assertEqualsIgnoringOrder(entities, ImmutableList.of(app, entity));
+        Asserts.assertEqualsIgnoringOrder(entityManager.getEntitiesInApplication(app), ImmutableList.of(app, entity, entity2));
+    }
+    
+    @Test
+    public void testGetEntitiesOfType() {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity child = entity.createAndManageChild(EntitySpec.create(TestEntity.class));
+        EntityManagerInternal entityManagerInternal = (EntityManagerInternal) entityManager;
+        
+        Asserts.assertEqualsIgnoringOrder(entityManagerInternal.getEntitiesOfType(TestEntity.class.getName()), ImmutableList.of(entity, child));
+        Asserts.assertEqualsIgnoringOrder(entityManagerInternal.getEntitiesOfType(TestApplication.class.getName()), ImmutableList.of(app));
+        
+        Asserts.assertEqualsIgnoringOrder(entityManagerInternal.getEntityTypeNames(), ImmutableList.of(TestEntity.class.getName(), TestApplication.class.getName()));
+        
+        Entities.unmanage(child);
+        Asserts.assertEqualsIgnoringOrder(entityManagerInternal.getEntitiesOfType(TestEntity.class.getName()), ImmutableList.of(entity));
+        
+        Entities.unmanage(entity);
+        Asserts.assertEqualsIgnoringOrder(entityManagerInternal.getEntityTypeNames(), ImmutableList.of(TestApplication.class.getName()));
+    }
+    
+    @Test
+    public void testGetEntitiesWithTag() {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class).tag("tag1"));
+        TestEntity entity2 = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        EntityManagerInternal entityManagerInternal = (EntityManagerInternal) entityManager;
+        
+        Asserts.assertEqualsIgnoringOrder(entityManagerInternal.getEntitiesWithTag("tag1"), ImmutableList.of(entity));
+        
+        entity2.tags().addTag("tag1");
+        entity.tags().removeTag("tag1");
+        entity.tags().addTag("tag2");
+        Asserts.assertEqualsIgnoringOrder(entityManagerInternal.getEntitiesWithTag("tag1"), ImmutableList.of(entity2));
+        Asserts.assertEqualsIgnoringOrder(entityManagerInternal.getEntitiesWithTag("tag2"), ImmutableList.of(entity));
+        
+        Entities.unmanage(entity2);
+        assertTrue(entityManagerInternal.getEntitiesWithTag("tag1").isEmpty());
+    }
 }
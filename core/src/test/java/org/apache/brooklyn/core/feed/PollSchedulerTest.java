@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.feed;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.Test;
+
+public class PollSchedulerTest {
+
+    @Test
+    public void testNextDelayVariedWithinJitter() {
+        PollScheduler scheduler = new PollScheduler(0.1, Duration.THIRTY_SECONDS, 0);
+        boolean varied = false;
+        for (int i = 0; i < 100; i++) {
+            long delay = scheduler.getNextDelay(Duration.ONE_SECOND).toMilliseconds();
+            assertTrue(delay >= 900 && delay <= 1100, "delay="+delay);
+            if (delay != 1000) varied = true;
+        }
+        assertTrue(varied);
+    }
+
+    @Test
+    public void testNextDelayExactWithoutJitter() {
+        PollScheduler scheduler = new PollScheduler(0, Duration.THIRTY_SECONDS, 0);
+        assertEquals(scheduler.getNextDelay(Duration.ONE_SECOND), Duration.ONE_SECOND);
+    }
+
+    @Test
+    public void testInitialDelaySpreadOnlyOnRebind() {
+        PollScheduler scheduler = new PollScheduler(0.1, Duration.millis(500), 0);
+        assertEquals(scheduler.getInitialDelay(Duration.ONE_MINUTE, false), Duration.ZERO);
+        for (int i = 0; i < 100; i++) {
+            // spread limited by the rebind spread, and by the period
+            long delay = scheduler.getInitialDelay(Duration.ONE_MINUTE, true).toMilliseconds();
+            assertTrue(delay >= 0 && delay < 500, "delay="+delay);
+            delay = scheduler.getInitialDelay(Duration.millis(100), true).toMilliseconds();
+            assertTrue(delay >= 0 && delay < 100, "delay="+delay);
+        }
+    }
+
+    @Test
+    public void testShedsPollsOverMaxConcurrent() {
+        PollScheduler scheduler = new PollScheduler(0.1, Duration.THIRTY_SECONDS, 2);
+        assertTrue(scheduler.tryStartPoll(0));
+        assertTrue(scheduler.tryStartPoll(0));
+        assertFalse(scheduler.tryStartPoll(0));
+        scheduler.onPollEnd();
+        assertTrue(scheduler.tryStartPoll(0));
+
+        Map<String, Object> metrics = scheduler.getMetrics();
+        assertEquals(metrics.get("polls"), 3L);
+        assertEquals(metrics.get("shed"), 1L);
+        assertEquals(metrics.get("active"), 2);
+    }
+
+    @Test
+    public void testRecordsLateness() {
+        PollScheduler scheduler = new PollScheduler(0.1, Duration.THIRTY_SECONDS, 0);
+        scheduler.tryStartPoll(-5);
+        scheduler.tryStartPoll(5);
+        scheduler.tryStartPoll(50);
+        scheduler.tryStartPoll(20*1000);
+
+        Map<String, Object> metrics = scheduler.getMetrics();
+        assertEquals(metrics.get("latenessUnder10ms"), 2L);
+        assertEquals(metrics.get("latenessUnder100ms"), 1L);
+        assertEquals(metrics.get("latenessUnder1s"), 0L);
+        assertEquals(metrics.get("latenessOver10s"), 1L);
+        assertEquals(metrics.get("maxLatenessMillis"), 20*1000L);
+    }
+}
@@ -18,8 +18,16 @@
  */
 package org.apache.brooklyn.core.feed;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.EntitySpec;
@@ -34,14 +42,21 @@ import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
 import org.apache.brooklyn.feed.function.FunctionFeed;
 import org.apache.brooklyn.feed.function.FunctionPollConfig;
+import org.apache.brooklyn.test.Asserts;
 import org.apache.brooklyn.util.core.task.DynamicTasks;
+import org.apache.brooklyn.util.core.task.ScheduledTask;
 import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.time.Duration;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Functions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 public class PollerTest extends BrooklynAppUnitTestSupport {
 
@@ -83,6 +98,126 @@ public class PollerTest extends BrooklynAppUnitTestSupport {
         EntityAsserts.assertAttributeEqualsContinually(timeoutFlags, fee, FeedExceptionEntity.FLAG, true);
     }
 
+    @Test
+    public void testPollIntervalsVariedByConfiguredJitter() {
+        mgmt.getBrooklynProperties().put(PollScheduler.JITTER, 0.5);
+        final List<Duration> periods = Collections.synchronizedList(Lists.<Duration>newArrayList());
+        Poller<Integer> poller = new Poller<Integer>(app, false);
+        poller.scheduleAtFixedRate(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    // the period for this run, as set by the previous run
+                    periods.add(((ScheduledTask) Tasks.current().getSubmittedByTask()).getPeriod());
+                    return 1;
+                }},
+                new NoopPollHandler<Integer>(), Duration.millis(10));
+        poller.start();
+        try {
+            Asserts.succeedsEventually(new Runnable() {
+                @Override
+                public void run() {
+                    assertTrue(periods.size() >= 20, "periods="+periods);
+                }});
+        } finally {
+            poller.stop();
+        }
+
+        Set<Duration> distinctPeriods = Sets.newHashSet();
+        synchronized (periods) {
+            for (Duration period : periods.subList(1, periods.size())) {
+                assertTrue(period.toMilliseconds() >= 5 && period.toMilliseconds() <= 15, "periods="+periods);
+                distinctPeriods.add(period);
+            }
+        }
+        assertTrue(distinctPeriods.size() > 1, "periods="+periods);
+    }
+
+    @Test
+    public void testPollIntervalsExactByDefault() {
+        final List<Duration> periods = Collections.synchronizedList(Lists.<Duration>newArrayList());
+        Poller<Integer> poller = new Poller<Integer>(app, false);
+        poller.scheduleAtFixedRate(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    periods.add(((ScheduledTask) Tasks.current().getSubmittedByTask()).getPeriod());
+                    return 1;
+                }},
+                new NoopPollHandler<Integer>(), Duration.millis(10));
+        poller.start();
+        try {
+            Asserts.succeedsEventually(new Runnable() {
+                @Override
+                public void run() {
+                    assertTrue(periods.size() >= 5, "periods="+periods);
+                }});
+        } finally {
+            poller.stop();
+        }
+
+        assertEquals(ImmutableSet.copyOf(periods), ImmutableSet.of(Duration.millis(10)));
+    }
+
+    /** as on suspend then resume of a feed, while its poll is still running */
+    @Test
+    public void testPollSkippedWhilePreviousRunOfSamePollStillRunning() {
+        final CountDownLatch firstRunStarted = new CountDownLatch(1);
+        final CountDownLatch finishFirstRun = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        final AtomicInteger concurrentRuns = new AtomicInteger();
+        final AtomicInteger maxConcurrentRuns = new AtomicInteger();
+        Poller<Integer> poller = new Poller<Integer>(app, false);
+        poller.scheduleAtFixedRate(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    int concurrent = concurrentRuns.incrementAndGet();
+                    if (concurrent > maxConcurrentRuns.get()) maxConcurrentRuns.set(concurrent);
+                    try {
+                        if (runs.incrementAndGet() == 1) {
+                            firstRunStarted.countDown();
+                            // not interrupted when the poller is stopped
+                            Uninterruptibles.awaitUninterruptibly(finishFirstRun);
+                        }
+                        return 1;
+                    } finally {
+                        concurrentRuns.decrementAndGet();
+                    }
+                }},
+                new NoopPollHandler<Integer>(), Duration.millis(10));
+        poller.start();
+        try {
+            Uninterruptibles.awaitUninterruptibly(firstRunStarted);
+            poller.stop();
+            poller.start();
+            
+            final PollScheduler scheduler = PollScheduler.forManagementContext(mgmt);
+            Asserts.succeedsEventually(new Runnable() {
+                @Override
+                public void run() {
+                    assertTrue((Long) scheduler.getMetrics().get("skippedStillRunning") >= 2, "metrics="+scheduler.getMetrics());
+                }});
+            assertEquals(runs.get(), 1);
+            
+            finishFirstRun.countDown();
+            Asserts.succeedsEventually(new Runnable() {
+                @Override
+                public void run() {
+                    assertTrue(runs.get() >= 3, "runs="+runs);
+                }});
+        } finally {
+            finishFirstRun.countDown();
+            poller.stop();
+        }
+        assertEquals(maxConcurrentRuns.get(), 1);
+    }
+
+    private static class NoopPollHandler<V> implements PollHandler<V> {
+        @Override public boolean checkSuccess(V val) { return true; }
+        @Override public void onSuccess(V val) {}
+        @Override public void onFailure(V val) {}
+        @Override public void onException(Exception exception) {}
+        @Override public String getDescription() { return "noop"; }
+    }
+
     @ImplementedBy(FeedExceptionEntityImpl.class)
     public static interface FeedExceptionEntity extends Entity {
         ConfigKey<ThrowingPoller> POLLER = ConfigKeys.newConfigKey(ThrowingPoller.class, "poller");
@@ -238,6 +238,29 @@ public class EntityExecutionManagerTest {
         assertTaskCountForEntitySoon(e, 5);
     }
     
+    @Test
+    public void testGcAtGlobalLimitDeletesOldestCompletedTasks() throws Exception {
+        app = TestApplication.Factory.newManagedInstanceForTests();
+        e = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        BasicExecutionManager em = (BasicExecutionManager) app.getManagementContext().getExecutionManager();
+        
+        ((BrooklynProperties)app.getManagementContext().getConfig()).put(
+            BrooklynGarbageCollector.MAX_TASKS_GLOBAL, 2);
+
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (int count=0; count<5; count++)
+            tasks.add(runEmptyTaskWithNameAndTags(e, "task"+count, ManagementContextInternal.NON_TRANSIENT_TASK_TAG));
+
+        forceGc();
+        Collection<Task<?>> remaining = BrooklynTaskTags.getTasksInEntityContext(em, e);
+        assertEquals(ImmutableSet.copyOf(remaining), ImmutableSet.of(tasks.get(3), tasks.get(4)), "remaining="+remaining);
+        
+        Map<String, Object> metrics = ((LocalManagementContext)app.getManagementContext()).getGarbageCollector().getMetrics();
+        assertTrue((Long)metrics.get("gcCount") >= 1, "metrics="+metrics);
+        assertTrue((Integer)metrics.get("lastDeletedCount") >= 3, "metrics="+metrics);
+        assertEquals(metrics.get("retainedCompletedTaskCount"), em.getNumCompletedTasks(), "metrics="+metrics);
+    }
+    
     @Test
     public void testGcDynamicTaskAtNormalTagLimit() throws Exception {
         app = TestApplication.Factory.newManagedInstanceForTests();
@@ -19,9 +19,11 @@
 package org.apache.brooklyn.core.mgmt.internal;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -31,15 +33,26 @@ import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.api.mgmt.SubscriptionHandle;
 import org.apache.brooklyn.api.mgmt.SubscriptionManager;
+import org.apache.brooklyn.api.mgmt.Task;
 import org.apache.brooklyn.api.sensor.SensorEvent;
 import org.apache.brooklyn.api.sensor.SensorEventListener;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.entity.group.BasicGroup;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.task.BasicExecutionManager;
+import org.apache.brooklyn.util.core.task.SingleThreadedScheduler;
+import org.apache.brooklyn.util.core.task.Tasks;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Sets;
+
 /**
  * testing the {@link SubscriptionManager} and associated classes.
  */
@@ -171,4 +184,136 @@ public class LocalSubscriptionManagerTest extends BrooklynAppUnitTestSupport {
         if (threadException.get() != null) throw threadException.get();
     }
 
+    @Test
+    public void testEventsDeliveredInOrderInBatches() throws Exception {
+        final int numEvents = 1000;
+        final List<Integer> received = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch firstEventReceived = new CountDownLatch(1);
+        final CountDownLatch continueDelivery = new CountDownLatch(1);
+        LocalSubscriptionManager subscriptionManager = (LocalSubscriptionManager) mgmt.getSubscriptionManager();
+        long batchesBefore = subscriptionManager.getTotalDeliveryBatches();
+        app.subscriptions().subscribe(entity, TestEntity.SEQUENCE, new SensorEventListener<Integer>() {
+            @Override public void onEvent(SensorEvent<Integer> event) {
+                received.add(event.getValue());
+                firstEventReceived.countDown();
+                try {
+                    continueDelivery.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }});
+        List<Integer> expected = MutableList.of();
+        // hold up delivery of the first event, so the rest are queued behind it
+        entity.sensors().set(TestEntity.SEQUENCE, 0);
+        expected.add(0);
+        assertTrue(firstEventReceived.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        for (int i = 1; i < numEvents; i++) {
+            entity.sensors().set(TestEntity.SEQUENCE, i);
+            expected.add(i);
+        }
+        continueDelivery.countDown();
+        
+        Asserts.eventually(new Supplier<Integer>() {
+            @Override public Integer get() { return received.size(); }
+        }, Predicates.equalTo(numEvents));
+        assertEquals(received, expected);
+        long batches = subscriptionManager.getTotalDeliveryBatches() - batchesBefore;
+        assertTrue(batches < numEvents, "batches="+batches);
+    }
+
+    @Test
+    public void testSubscriberSuppliedTagGetsTaskPerEvent() throws Exception {
+        final int numEvents = 10;
+        final List<Integer> received = new CopyOnWriteArrayList<Integer>();
+        final Set<Task<?>> deliveryTasks = Sets.newConcurrentHashSet();
+        LocalSubscriptionManager subscriptionManager = (LocalSubscriptionManager) mgmt.getSubscriptionManager();
+        long batchesBefore = subscriptionManager.getTotalDeliveryBatches();
+        String tag = "testSubscriberSuppliedTag";
+        ((BasicExecutionManager) mgmt.getExecutionManager()).setTaskSchedulerForTag(tag, SingleThreadedScheduler.class);
+        subscriptionManager.subscribe(MutableMap.<String,Object>of("subscriber", app, "subscriberExecutionManagerTag", tag), entity, TestEntity.SEQUENCE, 
+                new SensorEventListener<Integer>() {
+                    @Override public void onEvent(SensorEvent<Integer> event) {
+                        deliveryTasks.add(Tasks.current());
+                        received.add(event.getValue());
+                    }});
+        List<Integer> expected = MutableList.of();
+        for (int i = 0; i < numEvents; i++) {
+            entity.sensors().set(TestEntity.SEQUENCE, i);
+            expected.add(i);
+        }
+        
+        Asserts.eventually(new Supplier<Integer>() {
+            @Override public Integer get() { return received.size(); }
+        }, Predicates.equalTo(numEvents));
+        assertEquals(received, expected);
+        assertEquals(deliveryTasks.size(), numEvents);
+        assertEquals(subscriptionManager.getTotalDeliveryBatches(), batchesBefore);
+    }
+
+    @Test
+    public void testEventsDeliveredAfterQueuedDeliveryCancelled() throws Exception {
+        final List<Integer> received = new CopyOnWriteArrayList<Integer>();
+        String subscriber = "testEventsDeliveredAfterQueuedDeliveryCancelled";
+        String tag = "subscription-delivery-string["+subscriber+"]";
+        mgmt.getSubscriptionManager().subscribe(MutableMap.<String,Object>of("subscriber", subscriber), entity, TestEntity.SEQUENCE, 
+                new SensorEventListener<Integer>() {
+                    @Override public void onEvent(SensorEvent<Integer> event) {
+                        received.add(event.getValue());
+                    }});
+        
+        // hold up the subscriber's (single-threaded) tasks, so the delivery task is queued and can be cancelled before it runs
+        final CountDownLatch continueBlocker = new CountDownLatch(1);
+        final Task<?> blocker = mgmt.getExecutionManager().submit(MutableMap.of("tag", tag), new Runnable() {
+            @Override public void run() {
+                try {
+                    continueBlocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }});
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertTrue(blocker.isBegun());
+            }});
+        entity.sensors().set(TestEntity.SEQUENCE, 1);
+        for (Task<?> task : mgmt.getExecutionManager().getTasksWithTag(tag)) {
+            if (!task.isBegun()) task.cancel(false);
+        }
+        continueBlocker.countDown();
+        
+        entity.sensors().set(TestEntity.SEQUENCE, 2);
+        Asserts.eventually(new Supplier<List<Integer>>() {
+            @Override public List<Integer> get() { return MutableList.copyOf(received); }
+        }, Predicates.<List<Integer>>equalTo(MutableList.of(1, 2)));
+    }
+
+    @Test
+    public void testCoalescingSubscriptionGetsLatestValue() throws Exception {
+        final List<Integer> received = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch firstEventReceived = new CountDownLatch(1);
+        final CountDownLatch continueDelivery = new CountDownLatch(1);
+        mgmt.getSubscriptionManager().subscribe(MutableMap.<String,Object>of("subscriber", app, "coalesce", true), entity, TestEntity.SEQUENCE, 
+                new SensorEventListener<Integer>() {
+                    @Override public void onEvent(SensorEvent<Integer> event) {
+                        received.add(event.getValue());
+                        firstEventReceived.countDown();
+                        try {
+                            continueDelivery.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }});
+        entity.sensors().set(TestEntity.SEQUENCE, 0);
+        assertTrue(firstEventReceived.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        for (int i = 1; i <= 100; i++) {
+            entity.sensors().set(TestEntity.SEQUENCE, i);
+        }
+        continueDelivery.countDown();
+        
+        Asserts.eventually(new Supplier<Integer>() {
+            @Override public Integer get() { return received.isEmpty() ? null : received.get(received.size()-1); }
+        }, Predicates.equalTo(100));
+        assertEquals(received, MutableList.of(0, 100));
+        assertTrue(((LocalSubscriptionManager)mgmt.getSubscriptionManager()).getTotalEventsCoalesced() >= 99);
+    }
 }
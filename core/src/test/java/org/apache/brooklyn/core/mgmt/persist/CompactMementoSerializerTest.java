@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.persist;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import org.apache.brooklyn.util.net.UserAndHostAndPort;
+import org.apache.brooklyn.util.text.Strings;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+
+public class CompactMementoSerializerTest {
+
+    private XmlMementoSerializer<Object> xmlSerializer;
+    private CompactMementoSerializer<Object> serializer;
+    
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        xmlSerializer = new XmlMementoSerializer<Object>(CompactMementoSerializerTest.class.getClassLoader());
+        serializer = new CompactMementoSerializer<Object>(xmlSerializer);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        UserAndHostAndPort obj = UserAndHostAndPort.fromParts("myuser", "myhost", 1234);
+        String serializedForm = serializer.toString(obj);
+        assertTrue(serializedForm.startsWith(CompactMementoSerializer.HEADER), serializedForm);
+        assertEquals(serializer.fromString(serializedForm), obj);
+        assertEquals(CompactMementoSerializer.decode(serializedForm), xmlSerializer.toString(obj));
+    }
+
+    @Test
+    public void testReadsPlainXml() throws Exception {
+        UserAndHostAndPort obj = UserAndHostAndPort.fromParts("myuser", "myhost", 1234);
+        String xml = xmlSerializer.toString(obj);
+        assertFalse(CompactMementoSerializer.isCompact(xml));
+        assertEquals(serializer.fromString(xml), obj);
+        assertEquals(CompactMementoSerializer.decode(xml), xml);
+    }
+
+    @Test
+    public void testEncodeIsIdempotentAndSmaller() throws Exception {
+        String xml = "<a>"+Strings.repeat("<b>some repeated content</b>", 1000)+"</a>";
+        String encoded = CompactMementoSerializer.encode(xml);
+        assertEquals(CompactMementoSerializer.encode(encoded), encoded);
+        assertTrue(encoded.length() < xml.length()/10, "encoded="+encoded.length()+"; xml="+xml.length());
+        assertEquals(CompactMementoSerializer.decode(encoded), xml);
+    }
+
+    @Test
+    public void testNonAsciiContent() throws Exception {
+        String xml = "<a>été 日本</a>";
+        assertEquals(CompactMementoSerializer.decode(CompactMementoSerializer.encode(xml)), xml);
+    }
+
+    @Test
+    public void testAppliesClassRenames() throws Exception {
+        serializer = new CompactMementoSerializer<Object>(new XmlMementoSerializer<Object>(CompactMementoSerializerTest.class.getClassLoader(),
+                ImmutableMap.of("old.package.name.UserAndHostAndPort", UserAndHostAndPort.class.getName())));
+        String oldXml = Joiner.on("\n").join(
+                "<old.package.name.UserAndHostAndPort>",
+                "<user>myuser</user>",
+                "<hostAndPort>",
+                "<host>myhost</host>",
+                "<port>1234</port>",
+                "<hasBracketlessColons>false</hasBracketlessColons>",
+                "</hostAndPort>",
+                "</old.package.name.UserAndHostAndPort>");
+        assertEquals(serializer.fromString(CompactMementoSerializer.encode(oldXml)), UserAndHostAndPort.fromParts("myuser", "myhost", 1234));
+    }
+
+    @Test
+    public void testRejectsUnknownVersion() throws Exception {
+        try {
+            CompactMementoSerializer.decode(CompactMementoSerializer.HEADER_PREFIX+"99:AAAA");
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("Unsupported memento encoding"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.rebind;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.mgmt.ha.HighAvailabilityMode;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.mgmt.persist.BrooklynMementoPersisterToObjectStore;
+import org.apache.brooklyn.core.mgmt.persist.BrooklynPersistenceUtils;
+import org.apache.brooklyn.core.mgmt.persist.CompactMementoSerializer;
+import org.apache.brooklyn.core.mgmt.persist.FileBasedObjectStore;
+import org.apache.brooklyn.core.mgmt.persist.MementoFormat;
+import org.apache.brooklyn.core.mgmt.persist.PersistMode;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+
+public class RebindCompactFormatTest extends RebindTestFixtureWithApp {
+
+    @Override
+    protected BrooklynProperties createBrooklynProperties() {
+        BrooklynProperties result = super.createBrooklynProperties();
+        result.put(BrooklynMementoPersisterToObjectStore.PERSISTER_FORMAT, MementoFormat.COMPACT);
+        return result;
+    }
+
+    @Test
+    public void testWritesCompactAndRebinds() throws Exception {
+        TestEntity origE = origApp.createAndManageChild(EntitySpec.create(TestEntity.class));
+        origE.sensors().set(TestEntity.NAME, "myname");
+        RebindTestUtils.waitForPersisted(origApp);
+        
+        assertTrue(CompactMementoSerializer.isCompact(readEntityFile(origE.getId())));
+        
+        newApp = rebind();
+        TestEntity newE = (TestEntity) Iterables.getOnlyElement(newApp.getChildren());
+        assertEquals(newE.getId(), origE.getId());
+        assertEquals(newE.getAttribute(TestEntity.NAME), "myname");
+    }
+
+    @Test
+    public void testConvertFormat() throws Exception {
+        TestEntity origE = origApp.createAndManageChild(EntitySpec.create(TestEntity.class));
+        RebindTestUtils.waitForPersisted(origApp);
+        origManagementContext.getRebindManager().stopPersistence();
+        String compact = readEntityFile(origE.getId());
+        
+        FileBasedObjectStore objectStore = new FileBasedObjectStore(mementoDir);
+        objectStore.injectManagementContext(origManagementContext);
+        objectStore.prepareForSharedUse(PersistMode.AUTO, HighAvailabilityMode.DISABLED);
+        BrooklynPersistenceUtils.convertFormat(origManagementContext, objectStore, MementoFormat.XML);
+        
+        String xml = readEntityFile(origE.getId());
+        assertFalse(CompactMementoSerializer.isCompact(xml), xml);
+        assertEquals(xml, CompactMementoSerializer.decode(compact));
+    }
+
+    private String readEntityFile(String id) throws Exception {
+        return Files.toString(new File(new File(mementoDir, "entities"), id), Charsets.UTF_8);
+    }
+}
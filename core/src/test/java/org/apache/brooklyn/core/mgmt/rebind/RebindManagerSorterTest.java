@@ -18,6 +18,7 @@
  */
 package org.apache.brooklyn.core.mgmt.rebind;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -41,7 +42,10 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 
 public class RebindManagerSorterTest {
@@ -116,6 +120,61 @@ public class RebindManagerSorterTest {
         assertOrder(sortedNodes, ImmutableList.of(e1a, e1b));
     }
     
+    @Test
+    public void testGroupByRoot() throws Exception {
+        TestApplication app2 = TestApplication.Factory.newManagedInstanceForTests();
+        mgmts.add(app2.getManagementContext());
+
+        TestEntity e1a = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e1b = e1a.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e2a = app2.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e2b = e2a.createAndManageChild(EntitySpec.create(TestEntity.class));
+        
+        Map<String, EntityMemento> nodes = toMementos(ImmutableList.of(e2b, e1b, e2a, e1a, app, app2));
+        Map<String, Map<String, EntityMemento>> trees = TreeUtils.groupByRoot(nodes);
+        assertEquals(trees.keySet(), ImmutableSet.of(app2.getId(), app.getId()));
+        assertOrder(trees.get(app.getId()), ImmutableList.of(app, e1a, e1b));
+        assertEquals(trees.get(app.getId()).size(), 3);
+        assertOrder(trees.get(app2.getId()), ImmutableList.of(app2, e2a, e2b));
+        assertEquals(trees.get(app2.getId()).size(), 3);
+    }
+
+    @Test
+    public void testGroupByRootMergesTreesThatReferenceEachOther() throws Exception {
+        TestApplication app2 = TestApplication.Factory.newManagedInstanceForTests();
+        mgmts.add(app2.getManagementContext());
+        TestApplication app3 = TestApplication.Factory.newManagedInstanceForTests();
+        mgmts.add(app3.getManagementContext());
+
+        TestEntity e1a = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e2a = app2.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e3a = app3.createAndManageChild(EntitySpec.create(TestEntity.class));
+        final Map<String, String> references = ImmutableMap.of(e2a.getId(), e1a.getId());
+        
+        Map<String, EntityMemento> nodes = toMementos(ImmutableList.of(e3a, e2a, e1a, app3, app2, app));
+        Map<String, Map<String, EntityMemento>> trees = TreeUtils.groupByRoot(nodes, new Function<EntityMemento, Iterable<String>>() {
+            @Override public Iterable<String> apply(EntityMemento input) {
+                return references.containsKey(input.getId()) ? ImmutableList.of(references.get(input.getId())) : ImmutableList.<String>of();
+            }});
+        assertEquals(trees.keySet(), ImmutableSet.of(app3.getId(), app2.getId()));
+        assertOrder(trees.get(app2.getId()), ImmutableList.of(app2, e2a), ImmutableList.of(app, e1a));
+        assertEquals(trees.get(app2.getId()).size(), 4);
+        assertOrder(trees.get(app3.getId()), ImmutableList.of(app3, e3a));
+        assertEquals(trees.get(app3.getId()).size(), 2);
+    }
+
+    @Test
+    public void testGroupByRootWhenNodesMissing() throws Exception {
+        TestEntity e1a = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e1b = e1a.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e2a = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        
+        Map<String, EntityMemento> nodes = toMementos(ImmutableList.of(e1b, e1a, e2a));
+        Map<String, Map<String, EntityMemento>> trees = TreeUtils.groupByRoot(nodes);
+        assertEquals(trees.keySet(), ImmutableSet.of(e1a.getId(), e2a.getId()));
+        assertOrder(trees.get(e1a.getId()), ImmutableList.of(e1a, e1b));
+    }
+    
     @SuppressWarnings("unchecked")
     private void assertOrder(Map<String, ? extends TreeNode> nodes, Iterable<? extends Identifiable> order) {
         assertOrders(nodes, order);
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.rebind;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.entity.Group;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.test.entity.TestApplication;
+import org.apache.brooklyn.core.test.entity.TestApplicationNoEnrichersImpl;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.entity.group.BasicGroup;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+public class RebindParallelTest extends RebindTestFixtureWithApp {
+
+    @Override
+    protected BrooklynProperties createBrooklynProperties() {
+        BrooklynProperties result = super.createBrooklynProperties();
+        result.put(RebindManagerImpl.REBIND_PARALLELISM, 4);
+        return result;
+    }
+
+    @Test
+    public void testRebindsIndependentAppsInParallel() throws Exception {
+        List<TestApplication> origApps = Lists.newArrayList();
+        origApps.add(origApp);
+        for (int i = 1; i < 10; i++) {
+            origApps.add(origManagementContext.getEntityManager().createEntity(EntitySpec.create(TestApplication.class, TestApplicationNoEnrichersImpl.class)));
+        }
+        for (int i = 0; i < origApps.size(); i++) {
+            TestEntity child = origApps.get(i).createAndManageChild(EntitySpec.create(TestEntity.class));
+            TestEntity grandchild = child.createAndManageChild(EntitySpec.create(TestEntity.class));
+            grandchild.sensors().set(TestEntity.SEQUENCE, i);
+        }
+        
+        newApp = rebind();
+        
+        for (int i = 0; i < origApps.size(); i++) {
+            Entity app = newManagementContext.getEntityManager().getEntity(origApps.get(i).getId());
+            assertNotNull(app, "app "+i);
+            Entity child = Iterables.getOnlyElement(app.getChildren());
+            Entity grandchild = Iterables.getOnlyElement(child.getChildren());
+            assertEquals(grandchild.getAttribute(TestEntity.SEQUENCE), (Integer)i);
+            assertTrue(newManagementContext.getEntityManager().isManaged(grandchild), "grandchild "+i);
+        }
+    }
+
+    @Test
+    public void testRebindsGroupWithMembersInOtherApp() throws Exception {
+        TestApplication origApp2 = origManagementContext.getEntityManager().createEntity(EntitySpec.create(TestApplication.class, TestApplicationNoEnrichersImpl.class));
+        List<TestEntity> origMembers = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            origMembers.add(origApp2.createAndManageChild(EntitySpec.create(TestEntity.class)));
+        }
+        BasicGroup origGroup = origApp.createAndManageChild(EntitySpec.create(BasicGroup.class));
+        for (TestEntity member : origMembers) {
+            origGroup.addMember(member);
+        }
+        
+        newApp = rebind();
+        
+        Group newGroup = (Group) newManagementContext.getEntityManager().getEntity(origGroup.getId());
+        assertEquals(newGroup.getMembers().size(), origMembers.size());
+        for (TestEntity origMember : origMembers) {
+            Entity newMember = newManagementContext.getEntityManager().getEntity(origMember.getId());
+            assertTrue(newGroup.getMembers().contains(newMember), "member="+newMember+"; members="+newGroup.getMembers());
+            assertEquals(ImmutableList.copyOf(newMember.groups()), ImmutableList.of(newGroup));
+            assertTrue(newManagementContext.getEntityManager().isManaged(newMember), "member="+newMember);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReportsPhaseDurations() throws Exception {
+        origApp.createAndManageChild(EntitySpec.create(TestEntity.class));
+        
+        newApp = rebind();
+        
+        Map<String, Object> rebindMetrics = (Map<String, Object>) newManagementContext.getRebindManager().getMetrics().get("rebind");
+        Map<String, Long> phaseDurations = (Map<String, Long>) rebindMetrics.get("lastPhaseDurations");
+        assertEquals(phaseDurations.size(), 8, "phaseDurations="+phaseDurations);
+        assertTrue(phaseDurations.containsKey("instantiateMementos"), "phaseDurations="+phaseDurations);
+        assertTrue(phaseDurations.containsKey("manageTheObjects"), "phaseDurations="+phaseDurations);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.rebind;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.test.Asserts;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class RebindWriteBehindTest extends RebindTestFixtureWithApp {
+
+    @Override
+    protected int getPersistPeriodMillis() {
+        return 100;
+    }
+    
+    @Override
+    protected BrooklynProperties createBrooklynProperties() {
+        BrooklynProperties result = super.createBrooklynProperties();
+        result.put(RebindManagerImpl.PERSIST_WRITE_BEHIND_WINDOW, 2);
+        return result;
+    }
+
+    @Test
+    public void testRebindsAllChanges() throws Exception {
+        List<TestEntity> origEntities = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            TestEntity entity = origApp.createAndManageChild(EntitySpec.create(TestEntity.class));
+            entity.sensors().set(TestEntity.SEQUENCE, i);
+            origEntities.add(entity);
+        }
+        
+        newApp = rebind();
+        
+        for (int i = 0; i < origEntities.size(); i++) {
+            Entity newEntity = newManagementContext.getEntityManager().getEntity(origEntities.get(i).getId());
+            assertNotNull(newEntity, "entity "+i);
+            assertEquals(newEntity.getAttribute(TestEntity.SEQUENCE), (Integer)i);
+        }
+    }
+
+    @Test
+    public void testWritesInBoundedBatchesAndReportsMetrics() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            origApp.createAndManageChild(EntitySpec.create(TestEntity.class)).sensors().set(TestEntity.SEQUENCE, i);
+        }
+        
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                Map<String, Object> writeBehind = getWriteBehindMetrics();
+                assertNotNull(writeBehind);
+                assertEquals(writeBehind.get("pendingCount"), 0, "writeBehind="+writeBehind);
+                assertTrue((Long)writeBehind.get("totalWrittenCount") >= 10, "writeBehind="+writeBehind);
+            }});
+        
+        Map<String, Object> writeBehind = getWriteBehindMetrics();
+        assertTrue((Integer)writeBehind.get("lastBatchSize") <= 2, "writeBehind="+writeBehind);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getWriteBehindMetrics() {
+        Map<String, Object> persistMetrics = (Map<String, Object>) origManagementContext.getRebindManager().getMetrics().get("persist");
+        return (Map<String, Object>) persistMetrics.get("writeBehind");
+    }
+}
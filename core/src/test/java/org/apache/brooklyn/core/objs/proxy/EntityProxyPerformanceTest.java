@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.objs.proxy;
+
+import static org.testng.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.objs.proxy.EntityProxyImpl.MethodKind;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.core.test.qa.performance.AbstractPerformanceTest;
+import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Calls per second for dispatching entity proxy calls. The method dispatch tests compare working out
+ * how to handle a method from its signature on every call (as {@link EntityProxyImpl#invoke(Object, Method, Object[])}
+ * used to) with looking it up in {@link EntityProxyImpl#METHOD_KINDS}; the rest of the proxy call is unchanged.
+ * The sensor and config tests make one proxied call per iteration, with the same call on the real entity as a baseline.
+ */
+public class EntityProxyPerformanceTest extends AbstractPerformanceTest {
+
+    private static final int NUM_ITERATIONS = 1000000;
+
+    private TestEntity proxy;
+    private TestEntity real;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        proxy = app.createAndManageChild(EntitySpec.create(TestEntity.class).configure(TestEntity.CONF_NAME, "myname"));
+        proxy.sensors().set(TestEntity.SEQUENCE, 123);
+        real = (TestEntity) Entities.deproxy(proxy);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testMethodDispatchFromSignature() throws Exception {
+        final Method readOnlyMethod = Entity.class.getMethod("getAttribute", AttributeSensor.class);
+        final Method effectorMethod = TestEntity.class.getMethod("myEffector");
+        measure(PerformanceTestDescriptor.create()
+                .summary("EntityProxyPerformanceTest.testMethodDispatchFromSignature")
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(100000 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        assertEquals(MethodKind.of(readOnlyMethod), MethodKind.PERMITTED_READ_ONLY);
+                        assertEquals(MethodKind.of(effectorMethod), MethodKind.OTHER);
+                    }}));
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testMethodDispatchCached() throws Exception {
+        // the cache is keyed by identity, so look up the methods once, as a proxy class does
+        final Method readOnlyMethod = Entity.class.getMethod("getAttribute", AttributeSensor.class);
+        final Method effectorMethod = TestEntity.class.getMethod("myEffector");
+        measure(PerformanceTestDescriptor.create()
+                .summary("EntityProxyPerformanceTest.testMethodDispatchCached")
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(100000 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        assertEquals(EntityProxyImpl.METHOD_KINDS.getUnchecked(readOnlyMethod), MethodKind.PERMITTED_READ_ONLY);
+                        assertEquals(EntityProxyImpl.METHOD_KINDS.getUnchecked(effectorMethod), MethodKind.OTHER);
+                    }}));
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testGetAttributeThroughProxy() {
+        measureGetAttribute("EntityProxyPerformanceTest.testGetAttributeThroughProxy", proxy);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testGetAttributeOnRealEntity() {
+        measureGetAttribute("EntityProxyPerformanceTest.testGetAttributeOnRealEntity", real);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testGetConfigThroughProxy() {
+        measureGetConfig("EntityProxyPerformanceTest.testGetConfigThroughProxy", proxy);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testGetConfigOnRealEntity() {
+        measureGetConfig("EntityProxyPerformanceTest.testGetConfigOnRealEntity", real);
+    }
+
+    protected void measureGetAttribute(String summary, final Entity entity) {
+        measure(PerformanceTestDescriptor.create()
+                .summary(summary)
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(100000 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        assertEquals(entity.getAttribute(TestEntity.SEQUENCE), (Integer) 123);
+                    }}));
+    }
+
+    protected void measureGetConfig(String summary, final Entity entity) {
+        // getConfig rather than config().get, so the whole read is one call through the proxy
+        // (with config().get only config() is proxied)
+        measure(PerformanceTestDescriptor.create()
+                .summary(summary)
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(10000 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        assertEquals(entity.getConfig(TestEntity.CONF_NAME), "myname");
+                    }}));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.sensor;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class DeadbandTest {
+
+    @Test
+    public void testOnChangeSuppressesOnlyEqualValues() {
+        assertTrue(Deadband.ON_CHANGE.isSuppressed("a", "a"));
+        assertTrue(Deadband.ON_CHANGE.isSuppressed(null, null));
+        assertFalse(Deadband.ON_CHANGE.isSuppressed("a", "b"));
+        assertFalse(Deadband.ON_CHANGE.isSuppressed(null, 1));
+        assertFalse(Deadband.ON_CHANGE.isSuppressed(1, 2));
+    }
+
+    @Test
+    public void testAbsoluteThreshold() {
+        Deadband deadband = Deadband.absolute(5);
+        assertTrue(deadband.isSuppressed(100, 105));
+        assertTrue(deadband.isSuppressed(100, 95.5d));
+        assertFalse(deadband.isSuppressed(100, 106));
+        assertFalse(deadband.isSuppressed(null, 100));
+        assertFalse(deadband.isSuppressed(100, null));
+        assertFalse(deadband.isSuppressed("100", "101"));
+    }
+
+    @Test
+    public void testRelativeThreshold() {
+        Deadband deadband = Deadband.relative(0.1);
+        assertTrue(deadband.isSuppressed(200L, 220L));
+        assertTrue(deadband.isSuppressed(-200, -180));
+        assertFalse(deadband.isSuppressed(200, 221));
+        assertFalse(deadband.isSuppressed(0, 1));
+    }
+
+    @Test
+    public void testNonFiniteValuesNotSuppressed() {
+        Deadband deadband = Deadband.of(5, 0.1);
+        assertFalse(deadband.isSuppressed(100d, Double.NaN));
+        assertFalse(deadband.isSuppressed(Double.NaN, 100d));
+        assertFalse(deadband.isSuppressed(100d, Double.POSITIVE_INFINITY));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.test.qa.performance;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.Enricher;
+import org.apache.brooklyn.api.sensor.EnricherSpec;
+import org.apache.brooklyn.core.sensor.BasicSensorEvent;
+import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.enricher.stock.Aggregator;
+import org.apache.brooklyn.enricher.stock.Enrichers;
+import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Events per second that an {@link Aggregator} can process, as the number of members grows.
+ * Events are passed straight to the aggregator so that subscription delivery is not measured.
+ */
+public class AggregatorPerformanceTest extends AbstractPerformanceTest {
+
+    private static final int NUM_ITERATIONS = 10000;
+    private static final List<Integer> MEMBER_COUNTS = ImmutableList.of(10, 100, 1000, 2000);
+
+    private static final AttributeSensor<Integer> LOAD = Sensors.newIntegerSensor("test.load");
+    private static final AttributeSensor<Integer> TOTAL_LOAD = Sensors.newIntegerSensor("test.load.total");
+
+    /** incremental, so the rate should not depend on the number of members */
+    @Test(groups={"Integration", "Acceptance"})
+    public void testSumEventsPerSecondByMemberCount() throws Exception {
+        for (int numMembers : MEMBER_COUNTS) {
+            measureEvents("AggregatorPerformanceTest.testSumEventsPerSecondByMemberCount."+numMembers, numMembers,
+                    Enrichers.builder()
+                            .aggregating(LOAD)
+                            .publishing(TOTAL_LOAD)
+                            .fromChildren()
+                            .computingSum()
+                            .build(),
+                    1000 * PERFORMANCE_EXPECTATION);
+        }
+    }
+
+    /** a custom transformation sees every member's value on each event, for comparison */
+    @Test(groups={"Integration", "Acceptance"})
+    public void testCustomTransformationEventsPerSecondByMemberCount() throws Exception {
+        Function<Collection<Integer>, Integer> customSum = new Function<Collection<Integer>, Integer>() {
+            @Override public Integer apply(Collection<Integer> input) {
+                int result = 0;
+                for (Integer val : input) {
+                    if (val != null) result += val;
+                }
+                return result;
+            }
+        };
+        for (int numMembers : MEMBER_COUNTS) {
+            measureEvents("AggregatorPerformanceTest.testCustomTransformationEventsPerSecondByMemberCount."+numMembers, numMembers,
+                    Enrichers.builder()
+                            .aggregating(LOAD)
+                            .publishing(TOTAL_LOAD)
+                            .fromChildren()
+                            .computing(customSum)
+                            .build(),
+                    10 * PERFORMANCE_EXPECTATION);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void measureEvents(String summary, int numMembers, EnricherSpec<?> spec, double minRatePerSec) {
+        TestEntity parent = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        final List<TestEntity> members = Lists.newArrayList();
+        for (int i = 0; i < numMembers; i++) {
+            TestEntity member = parent.createAndManageChild(EntitySpec.create(TestEntity.class));
+            member.sensors().set(LOAD, 0);
+            members.add(member);
+        }
+        Enricher enricher = parent.enrichers().add(spec);
+        final Aggregator<Integer, Integer> aggregator = (Aggregator<Integer, Integer>) enricher;
+        final AtomicInteger iter = new AtomicInteger();
+
+        measure(PerformanceTestDescriptor.create()
+                .summary(summary)
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(minRatePerSec)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        int i = iter.getAndIncrement();
+                        aggregator.onEvent(new BasicSensorEvent<Integer>(LOAD, members.get(i % members.size()), i));
+                    }}));
+    }
+}
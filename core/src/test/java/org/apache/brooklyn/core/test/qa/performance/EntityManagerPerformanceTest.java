@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.test.qa.performance;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.EntityPredicates;
+import org.apache.brooklyn.core.entity.factory.ApplicationBuilder;
+import org.apache.brooklyn.core.mgmt.internal.EntityManagerInternal;
+import org.apache.brooklyn.core.test.entity.TestApplication;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.entity.stock.BasicEntity;
+import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
+import org.apache.brooklyn.util.text.StringPredicates;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+/**
+ * Queries per second for the entity queries behind REST listings, with many entities managed. Each "before" test
+ * runs the query as it was implemented before the entity manager's indexes, and the matching "after" test runs it
+ * as it is now:
+ * <ul>
+ * <li>an application's descendants of a given type (the {@code typeRegex} of the REST descendants listings),
+ *     by walking the application's tree, and by {@link Entities#descendantsAndSelfWithTypeName(Entity, Predicate)};
+ * <li>the entities in an application, by filtering all entities, and by {@link EntityManagerInternal#getEntitiesInApplication(org.apache.brooklyn.api.entity.Application)}.
+ * </ul>
+ */
+public class EntityManagerPerformanceTest extends AbstractPerformanceTest {
+
+    private static final int NUM_APPS = 20;
+    private static final int NUM_ENTITIES_PER_APP = 250;
+    private static final int NUM_BASIC_ENTITIES_PER_APP = NUM_ENTITIES_PER_APP / 50;
+    private static final int NUM_ITERATIONS = 1000;
+    private static final String TYPE_REGEX = ".*\\.BasicEntity";
+
+    private EntityManagerInternal entityManager;
+    private List<TestApplication> apps;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        entityManager = (EntityManagerInternal) mgmt.getEntityManager();
+        apps = Lists.newArrayList(app);
+        for (int i = 1; i < NUM_APPS; i++) {
+            apps.add(ApplicationBuilder.newManagedApp(EntitySpec.create(TestApplication.class), mgmt));
+        }
+        for (TestApplication a : apps) {
+            // a few levels deep, as in a typical deployment of clusters of software processes
+            TestEntity parent = null;
+            for (int i = 0; i < NUM_ENTITIES_PER_APP; i++) {
+                if (i % 50 == 0) {
+                    a.createAndManageChild(EntitySpec.create(BasicEntity.class));
+                } else if (i % 10 == 1) {
+                    parent = a.createAndManageChild(EntitySpec.create(TestEntity.class));
+                } else {
+                    parent.createAndManageChild(EntitySpec.create(TestEntity.class));
+                }
+            }
+        }
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testDescendantsOfTypeBefore() {
+        measureQuery("EntityManagerPerformanceTest.testDescendantsOfTypeBefore", new Runnable() {
+            @Override public void run() {
+                Iterable<Entity> result = Iterables.filter(Entities.descendantsAndSelf(randomApp()), new Predicate<Entity>() {
+                    @Override public boolean apply(Entity input) {
+                        return input.getEntityType().getName().matches(TYPE_REGEX);
+                    }});
+                assertEquals(Iterables.size(result), NUM_BASIC_ENTITIES_PER_APP);
+            }});
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testDescendantsOfTypeAfter() {
+        measureQuery("EntityManagerPerformanceTest.testDescendantsOfTypeAfter", new Runnable() {
+            @Override public void run() {
+                Iterable<Entity> result = Entities.descendantsAndSelfWithTypeName(randomApp(), StringPredicates.<String>matchesRegex(TYPE_REGEX));
+                assertEquals(Iterables.size(result), NUM_BASIC_ENTITIES_PER_APP);
+            }});
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testEntitiesInApplicationBefore() {
+        measureQuery("EntityManagerPerformanceTest.testEntitiesInApplicationBefore", new Runnable() {
+            @Override public void run() {
+                Iterable<Entity> result = ImmutableList.copyOf(Iterables.filter(entityManager.getEntities(),
+                        EntityPredicates.applicationIdEqualTo(randomApp().getId())));
+                assertEquals(Iterables.size(result), NUM_ENTITIES_PER_APP + 1);
+            }});
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testEntitiesInApplicationAfter() {
+        measureQuery("EntityManagerPerformanceTest.testEntitiesInApplicationAfter", new Runnable() {
+            @Override public void run() {
+                assertEquals(entityManager.getEntitiesInApplication(randomApp()).size(), NUM_ENTITIES_PER_APP + 1);
+            }});
+    }
+
+    protected TestApplication randomApp() {
+        return apps.get((int) (Math.random() * apps.size()));
+    }
+
+    protected void measureQuery(String summary, Runnable job) {
+        measure(PerformanceTestDescriptor.create()
+                .summary(summary)
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(100 * PERFORMANCE_EXPECTATION)
+                .job(job));
+    }
+}
@@ -21,6 +21,10 @@ package org.apache.brooklyn.core.test.qa.performance;
 import static org.testng.Assert.assertTrue;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.brooklyn.api.entity.EntitySpec;
@@ -28,6 +32,7 @@ import org.apache.brooklyn.api.mgmt.Task;
 import org.apache.brooklyn.api.sensor.SensorEvent;
 import org.apache.brooklyn.api.sensor.SensorEventListener;
 import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.test.Asserts;
 import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
@@ -107,6 +112,55 @@ public class EntityPerformanceTest extends AbstractPerformanceTest {
             }});
     }
 
+    /**
+     * Many threads setting (different) sensors on the same entity, while others read them;
+     * compare runs with and without {@link org.apache.brooklyn.core.BrooklynFeatureEnablement#FEATURE_CONCURRENT_ATTRIBUTE_MAP}.
+     */
+    @Test(groups={"Integration", "Acceptance"})
+    public void testUpdateAttributeUnderContention() throws Exception {
+        final int numThreads = 8;
+        final int numSetsPerThread = 100;
+        int numIterations = numIterations();
+        double minRatePerSec = 10 * PERFORMANCE_EXPECTATION; // i.e. 10*800 sets per sec
+        final AtomicInteger i = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        
+        try {
+            measure(PerformanceTestDescriptor.create()
+                    .summary("EntityPerformanceTest.testUpdateAttributeUnderContention")
+                    .iterations(numIterations)
+                    .minAcceptablePerSecond(minRatePerSec)
+                    .job(new Runnable() {
+                        public void run() {
+                            List<Future<?>> futures = Lists.newArrayList();
+                            for (int t = 0; t < numThreads; t++) {
+                                final boolean reader = (t % 2 == 1);
+                                futures.add(executor.submit(new Callable<Void>() {
+                                    public Void call() {
+                                        for (int j = 0; j < numSetsPerThread; j++) {
+                                            if (reader) {
+                                                entity.sensors().get(TestEntity.SEQUENCE);
+                                                ((EntityInternal)entity).getAllAttributes();
+                                            } else {
+                                                entity.sensors().set(TestEntity.SEQUENCE, i.getAndIncrement());
+                                            }
+                                        }
+                                        return null;
+                                    }}));
+                            }
+                            for (Future<?> future : futures) {
+                                try {
+                                    future.get();
+                                } catch (Exception e) {
+                                    throw Exceptions.propagate(e);
+                                }
+                            }
+                        }}));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test(groups={"Integration", "Acceptance"})
     public void testInvokeEffector() {
         int numIterations = numIterations();
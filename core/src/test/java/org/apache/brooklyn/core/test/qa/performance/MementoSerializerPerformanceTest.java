@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.test.qa.performance;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.mgmt.rebind.mementos.Memento;
+import org.apache.brooklyn.core.mgmt.persist.BrooklynPersistenceUtils;
+import org.apache.brooklyn.core.mgmt.persist.CompactMementoSerializer;
+import org.apache.brooklyn.core.mgmt.persist.MementoSerializer;
+import org.apache.brooklyn.core.mgmt.persist.XmlMementoSerializer;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Compares {@link XmlMementoSerializer} with {@link CompactMementoSerializer}, for time to serialize and 
+ * deserialize entity mementos and for the total size of the persisted estate.
+ */
+public class MementoSerializerPerformanceTest extends AbstractPerformanceTest {
+
+    protected List<Memento> mementos;
+    protected MementoSerializer<Object> xmlSerializer;
+    protected MementoSerializer<Object> compactSerializer;
+    
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        
+        xmlSerializer = new XmlMementoSerializer<Object>(getClass().getClassLoader());
+        compactSerializer = new CompactMementoSerializer<Object>(xmlSerializer);
+        mementos = MutableList.of();
+        for (int i = 0; i < numEntities(); i++) {
+            TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class)
+                    .configure(TestEntity.CONF_NAME, "name-"+i)
+                    .configure(TestEntity.CONF_MAP_THING, MutableMap.of("key1", "val-"+i, "key2", "http://10.0.0."+(i%256)+":8080/")));
+            entity.sensors().set(TestEntity.SEQUENCE, i);
+            entity.sensors().set(TestEntity.NAME, "entity-"+i);
+            mementos.add(BrooklynPersistenceUtils.newObjectMemento(entity));
+        }
+    }
+
+    protected int numEntities() {
+        return 1000;
+    }
+    
+    @Test(groups={"Integration", "Acceptance"})
+    public void testSizeOnDisk() {
+        long xmlChars = 0, compactChars = 0;
+        for (Memento memento : mementos) {
+            String xml = xmlSerializer.toString(memento);
+            xmlChars += xml.length();
+            compactChars += CompactMementoSerializer.encode(xml).length();
+        }
+        System.out.println("MementoSerializerPerformanceTest.testSizeOnDisk: "+mementos.size()+" entities; "
+                + "xml="+xmlChars+" chars; compact="+compactChars+" chars; ratio="+((double)xmlChars/compactChars));
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testSerializeXml() {
+        runSerialize("MementoSerializerPerformanceTest.testSerializeXml", xmlSerializer);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testSerializeCompact() {
+        runSerialize("MementoSerializerPerformanceTest.testSerializeCompact", compactSerializer);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testDeserializeXml() {
+        runDeserialize("MementoSerializerPerformanceTest.testDeserializeXml", xmlSerializer);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testDeserializeCompact() {
+        runDeserialize("MementoSerializerPerformanceTest.testDeserializeCompact", compactSerializer);
+    }
+
+    protected void runSerialize(String summary, final MementoSerializer<Object> serializer) {
+        final AtomicInteger counter = new AtomicInteger();
+        measure(PerformanceTestDescriptor.create()
+                .summary(summary)
+                .iterations(mementos.size())
+                .minAcceptablePerSecond(100 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    public void run() {
+                        serializer.toString(mementos.get(counter.getAndIncrement() % mementos.size()));
+                    }}));
+    }
+
+    protected void runDeserialize(String summary, final MementoSerializer<Object> serializer) {
+        final List<String> serialized = MutableList.of();
+        for (Memento memento : mementos) {
+            serialized.add(serializer.toString(memento));
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        measure(PerformanceTestDescriptor.create()
+                .summary(summary)
+                .iterations(serialized.size())
+                .minAcceptablePerSecond(100 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    public void run() {
+                        int i = counter.getAndIncrement() % serialized.size();
+                        Memento result = (Memento) serializer.fromString(serialized.get(i));
+                        assertEquals(result.getId(), mementos.get(i).getId());
+                    }}));
+    }
+}
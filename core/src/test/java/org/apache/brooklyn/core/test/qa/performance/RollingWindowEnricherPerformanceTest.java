@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.test.qa.performance;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.EnricherSpec;
+import org.apache.brooklyn.core.sensor.BasicSensorEvent;
+import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.enricher.stock.YamlRollingTimeWindowMeanEnricher;
+import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Events per second and memory per enricher for rolling time-window means, with a full one minute window
+ * of values at 10ms intervals. Events are passed straight to the enricher so that subscription delivery is not measured.
+ */
+public class RollingWindowEnricherPerformanceTest extends AbstractPerformanceTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RollingWindowEnricherPerformanceTest.class);
+
+    private static final int NUM_ITERATIONS = 100000;
+    private static final long EVENT_INTERVAL_MILLIS = 10;
+    private static final Duration WINDOW = Duration.ONE_MINUTE;
+
+    private static final AttributeSensor<Double> LOAD = Sensors.newDoubleSensor("test.load");
+    private static final AttributeSensor<Double> LOAD_MEAN = Sensors.newDoubleSensor("test.load.mean");
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testTimeWindowMeanEventsPerSecond() throws Exception {
+        final TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        final YamlRollingTimeWindowMeanEnricher<Double> enricher = addEnricher(entity);
+        final AtomicInteger iter = new AtomicInteger();
+
+        measure(PerformanceTestDescriptor.create()
+                .summary("RollingWindowEnricherPerformanceTest.testTimeWindowMeanEventsPerSecond")
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(10000 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        int i = iter.incrementAndGet();
+                        enricher.onEvent(new BasicSensorEvent<Double>(LOAD, entity, (double) (i % 100), i * EVENT_INTERVAL_MILLIS));
+                    }}));
+    }
+
+    @Test(groups={"Acceptance"})
+    public void testMemoryPerTimeWindowMeanEnricher() throws Exception {
+        int numEnrichers = 100;
+        int eventsPerWindow = (int) (WINDOW.toMilliseconds() / EVENT_INTERVAL_MILLIS);
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+
+        long memBefore = usedMemoryAfterGc();
+        List<YamlRollingTimeWindowMeanEnricher<Double>> enrichers = Lists.newArrayList();
+        for (int e = 0; e < numEnrichers; e++) {
+            YamlRollingTimeWindowMeanEnricher<Double> enricher = addEnricher(entity);
+            for (int i = 1; i <= eventsPerWindow; i++) {
+                enricher.onEvent(new BasicSensorEvent<Double>(LOAD, entity, (double) (i % 100), i * EVENT_INTERVAL_MILLIS));
+            }
+            enrichers.add(enricher);
+        }
+        long memAfter = usedMemoryAfterGc();
+
+        LOG.info("RollingWindowEnricherPerformanceTest.testMemoryPerTimeWindowMeanEnricher: "+enrichers.size()+" enrichers "
+                + "with "+eventsPerWindow+" values each used approx "+((memAfter - memBefore) / numEnrichers)+" bytes per enricher");
+    }
+
+    @SuppressWarnings("unchecked")
+    private YamlRollingTimeWindowMeanEnricher<Double> addEnricher(TestEntity entity) {
+        return (YamlRollingTimeWindowMeanEnricher<Double>) entity.enrichers().add(EnricherSpec.create(YamlRollingTimeWindowMeanEnricher.class)
+                .configure(YamlRollingTimeWindowMeanEnricher.SOURCE_SENSOR, LOAD)
+                .configure(YamlRollingTimeWindowMeanEnricher.TARGET_SENSOR, LOAD_MEAN)
+                .configure(YamlRollingTimeWindowMeanEnricher.WINDOW_DURATION, WINDOW));
+    }
+
+    private long usedMemoryAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+}
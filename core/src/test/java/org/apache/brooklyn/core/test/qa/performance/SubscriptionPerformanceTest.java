@@ -18,15 +18,26 @@
  */
 package org.apache.brooklyn.core.test.qa.performance;
 
+import static org.testng.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.mgmt.SubscriptionHandle;
 import org.apache.brooklyn.api.mgmt.SubscriptionManager;
+import org.apache.brooklyn.api.sensor.Sensor;
 import org.apache.brooklyn.api.sensor.SensorEvent;
 import org.apache.brooklyn.api.sensor.SensorEventListener;
+import org.apache.brooklyn.core.mgmt.internal.LocalSubscriptionManager;
+import org.apache.brooklyn.core.sensor.BasicSensorEvent;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
 import org.apache.brooklyn.util.collections.MutableMap;
@@ -35,10 +46,15 @@ import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class SubscriptionPerformanceTest extends AbstractPerformanceTest {
 
     private static final int NUM_ITERATIONS = 10000;
+    private static final int NUM_MANY_ENTITIES = 10000;
+    private static final int NUM_SUBSCRIPTIONS_PER_ENTITY = 10;
+    private static final int NUM_MANY_ENTITIES_ITERATIONS = 100000;
     
     TestEntity entity;
     List<TestEntity> entities;
@@ -152,4 +168,114 @@ public class SubscriptionPerformanceTest extends AbstractPerformanceTest {
             throw exception.get();
         }
     }
+
+    /**
+     * Publish throughput when the subscription index is large: 10k entities with 10 subscriptions each
+     * (100k subscriptions), publishing directly to the subscription manager so that the cost measured
+     * is dominated by finding the matching subscriptions rather than by delivery.
+     * See {@link #testFindSubscriptionsWithManyEntitiesBefore()} for the lookup alone, as it was before the
+     * copy-on-write index.
+     */
+    @Test(groups={"Acceptance"})
+    public void testPublishWithManyEntitiesAndSubscriptions() throws Exception {
+        final List<TestEntity> producers = subscribeManyEntities(null);
+        final LocalSubscriptionManager lsm = (LocalSubscriptionManager) subscriptionManager;
+        final AtomicInteger iter = new AtomicInteger();
+        
+        measure(PerformanceTestDescriptor.create()
+                .summary("SubscriptionPerformanceTest.testPublishWithManyEntitiesAndSubscriptions")
+                .iterations(NUM_MANY_ENTITIES_ITERATIONS)
+                .minAcceptablePerSecond(10000 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        int i = iter.getAndIncrement();
+                        lsm.publish(new BasicSensorEvent<Integer>(TestEntity.SEQUENCE, producers.get(i % producers.size()), i));
+                    }}));
+    }
+
+    /**
+     * Baseline for {@link #testFindSubscriptionsWithManyEntitiesAfter()}: finds the subscriptions for a published
+     * event as publish did before the copy-on-write index, with sets of subscriptions keyed by producer and sensor,
+     * looked up while holding the manager's lock and merged into a new set for every event.
+     */
+    @Test(groups={"Acceptance"})
+    public void testFindSubscriptionsWithManyEntitiesBefore() throws Exception {
+        final Map<Object, Set<SubscriptionHandle>> subscriptionsByToken = Maps.newHashMap();
+        final List<TestEntity> producers = subscribeManyEntities(subscriptionsByToken);
+        final AtomicInteger iter = new AtomicInteger();
+        
+        measureFindSubscriptions("SubscriptionPerformanceTest.testFindSubscriptionsWithManyEntitiesBefore", new Runnable() {
+            @Override public void run() {
+                Entity source = producers.get(iter.getAndIncrement() % producers.size());
+                Set<SubscriptionHandle> subscriptions = new LinkedHashSet<SubscriptionHandle>();
+                synchronized (subscriptionsByToken) {
+                    addAllIfPresent(subscriptions, subscriptionsByToken.get(token(source, TestEntity.SEQUENCE)));
+                    addAllIfPresent(subscriptions, subscriptionsByToken.get(token(null, TestEntity.SEQUENCE)));
+                    addAllIfPresent(subscriptions, subscriptionsByToken.get(token(source, null)));
+                    addAllIfPresent(subscriptions, subscriptionsByToken.get(token(null, null)));
+                }
+                assertEquals(subscriptions.size(), 1);
+            }});
+    }
+
+    @Test(groups={"Acceptance"})
+    public void testFindSubscriptionsWithManyEntitiesAfter() throws Exception {
+        final List<TestEntity> producers = subscribeManyEntities(null);
+        final LocalSubscriptionManager lsm = (LocalSubscriptionManager) subscriptionManager;
+        final AtomicInteger iter = new AtomicInteger();
+        
+        measureFindSubscriptions("SubscriptionPerformanceTest.testFindSubscriptionsWithManyEntitiesAfter", new Runnable() {
+            @Override public void run() {
+                Entity source = producers.get(iter.getAndIncrement() % producers.size());
+                assertEquals(lsm.getSubscriptionsForEntitySensor(source, TestEntity.SEQUENCE).size(), 1);
+            }});
+    }
+
+    /**
+     * Creates {@link #NUM_MANY_ENTITIES} entities, each with {@link #NUM_SUBSCRIPTIONS_PER_ENTITY} subscriptions
+     * of which only one is to {@link TestEntity#SEQUENCE}; if given a map, also indexes the subscriptions in it
+     * as the subscription manager used to.
+     */
+    protected List<TestEntity> subscribeManyEntities(Map<Object, Set<SubscriptionHandle>> subscriptionsByToken) {
+        List<TestEntity> producers = Lists.newArrayList();
+        for (int i = 0; i < NUM_MANY_ENTITIES; i++) {
+            producers.add(app.createAndManageChild(EntitySpec.create(TestEntity.class)));
+        }
+        SensorEventListener<Object> noopListener = new SensorEventListener<Object>() {
+            public void onEvent(SensorEvent<Object> event) {
+            }};
+        for (TestEntity producer : producers) {
+            for (int i = 0; i < NUM_SUBSCRIPTIONS_PER_ENTITY; i++) {
+                // only one subscription per entity matches the published sensor, the rest are unrelated
+                Sensor<?> sensor = (i==0) ? TestEntity.SEQUENCE : TestEntity.NAME;
+                SubscriptionHandle handle = subscriptionManager.subscribe(MutableMap.<String, Object>of("subscriber", "s"+i), producer, sensor, noopListener);
+                if (subscriptionsByToken != null) {
+                    Object token = token(producer, sensor);
+                    Set<SubscriptionHandle> subscriptions = subscriptionsByToken.get(token);
+                    if (subscriptions == null) {
+                        subscriptions = Sets.newLinkedHashSet();
+                        subscriptionsByToken.put(token, subscriptions);
+                    }
+                    subscriptions.add(handle);
+                }
+            }
+        }
+        return producers;
+    }
+
+    private static Object token(Entity producer, Sensor<?> sensor) {
+        return Arrays.asList(producer, (sensor != null) ? sensor.getName() : null);
+    }
+
+    private static void addAllIfPresent(Set<SubscriptionHandle> result, Set<SubscriptionHandle> subscriptions) {
+        if (subscriptions != null) result.addAll(subscriptions);
+    }
+
+    protected void measureFindSubscriptions(String summary, Runnable job) {
+        measure(PerformanceTestDescriptor.create()
+                .summary(summary)
+                .iterations(NUM_MANY_ENTITIES_ITERATIONS)
+                .minAcceptablePerSecond(10000 * PERFORMANCE_EXPECTATION)
+                .job(job));
+    }
 }
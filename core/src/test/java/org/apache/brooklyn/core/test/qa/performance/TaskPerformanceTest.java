@@ -22,6 +22,8 @@ package org.apache.brooklyn.core.test.qa.performance;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
@@ -106,6 +108,48 @@ public class TaskPerformanceTest extends AbstractPerformanceTest {
                 .completionLatch(completionLatch));
     }
     
+    /**
+     * Submits tagged tasks from many threads at once, while also reading the tag views, to measure
+     * contention on the execution manager's index of tasks by tag.
+     */
+    @Test(groups={"Integration", "Acceptance"})
+    public void testExecuteRunnableWithTagsConcurrently() throws Exception {
+        double minRatePerSec = 1000 * PERFORMANCE_EXPECTATION;
+        final int numThreads = 64;
+        
+        final AtomicInteger counter = new AtomicInteger();
+        final CountDownLatch completionLatch = new CountDownLatch(1);
+
+        final Runnable work = new Runnable() { public void run() {
+                int val = counter.incrementAndGet();
+                if (val >= numIterations) completionLatch.countDown();
+            }
+        };
+        
+        final ExecutorService submitters = Executors.newFixedThreadPool(numThreads);
+        try {
+            final AtomicInteger submitterCount = new AtomicInteger();
+            final Runnable submitAndQuery = new Runnable() { public void run() {
+                    String ownTag = "submitter-"+(submitterCount.incrementAndGet() % numThreads);
+                    executionManager.submit(MutableMap.of("tags", ImmutableList.of("a", ownTag)), work);
+                    executionManager.getTasksWithTag(ownTag);
+                }
+            };
+            
+            measure(PerformanceTestDescriptor.create()
+                    .summary("TaskPerformanceTest.testExecuteRunnableWithTagsConcurrently")
+                    .iterations(numIterations)
+                    .minAcceptablePerSecond(minRatePerSec)
+                    .job(new Runnable() {
+                        public void run() {
+                            submitters.submit(submitAndQuery);
+                        }})
+                    .completionLatch(completionLatch));
+        } finally {
+            submitters.shutdownNow();
+        }
+    }
+    
     @Test(groups={"Integration", "Acceptance"})
     public void testExecuteWithSingleThreadedScheduler() throws Exception {
         double minRatePerSec = 1000 * PERFORMANCE_EXPECTATION;
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.test.qa.performance;
+
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.test.performance.PerformanceTestDescriptor;
+import org.apache.brooklyn.util.core.text.TemplateCache;
+import org.apache.brooklyn.util.core.text.TemplateProcessor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Renders per second of a typical install script template, with the parsed template cached
+ * in the management context, and parsed on every render (as when there is no management context).
+ */
+public class TemplateProcessorPerformanceTest extends AbstractPerformanceTest {
+
+    private static final int NUM_ITERATIONS = 10000;
+
+    private static final String TEMPLATE = Joiner.on("\n").join(
+            "#!/bin/bash",
+            "export INSTALL_DIR=${installDir}",
+            "export RUN_DIR=${runDir}",
+            "export VERSION=${version}",
+            "mkdir -p ${installDir}",
+            "cd ${installDir}",
+            "<#list ports as port>",
+            "echo \"opening port ${port?c}\"",
+            "</#list>",
+            "<#if debug>",
+            "set -x",
+            "</#if>",
+            "curl -o app.tgz ${downloadUrl}",
+            "tar xzf app.tgz",
+            "echo \"installed ${version} to ${installDir}\"");
+
+    private EntityInternal entity;
+    private Map<String, Object> substitutions;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        entity = (EntityInternal) app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        substitutions = ImmutableMap.<String, Object>builder()
+                .put("version", "1.2.3")
+                .put("installDir", "/opt/install/app-1.2.3")
+                .put("runDir", "/opt/run/app")
+                .put("ports", ImmutableMap.of("http", 8080, "https", 8443).values())
+                .put("debug", false)
+                .put("downloadUrl", "http://example.com/app-1.2.3.tgz")
+                .build();
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testRenderWithCachedTemplate() {
+        measure(PerformanceTestDescriptor.create()
+                .summary("TemplateProcessorPerformanceTest.testRenderWithCachedTemplate")
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(1000 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        String result = TemplateProcessor.processTemplateContents(TEMPLATE, entity, substitutions);
+                        assertTrue(result.contains("opening port 8443"), result);
+                    }}));
+        Map<String, Object> metrics = TemplateCache.forManagementContext(mgmt).getMetrics();
+        assertTrue((Long) metrics.get("hits") > (Long) metrics.get("misses"), "metrics="+metrics);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testRenderParsingEveryTime() {
+        measure(PerformanceTestDescriptor.create()
+                .summary("TemplateProcessorPerformanceTest.testRenderParsingEveryTime")
+                .iterations(NUM_ITERATIONS)
+                .minAcceptablePerSecond(100 * PERFORMANCE_EXPECTATION)
+                .job(new Runnable() {
+                    @Override public void run() {
+                        // no management context, so not cached
+                        String result = TemplateProcessor.processTemplateContents(TEMPLATE, substitutions);
+                        assertTrue(result.contains("opening port 8443"), result);
+                    }}));
+    }
+}
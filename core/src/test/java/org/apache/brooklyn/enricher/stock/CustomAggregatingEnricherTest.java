@@ -19,11 +19,13 @@
 package org.apache.brooklyn.enricher.stock;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.api.location.LocationSpec;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.EnricherSpec;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityAsserts;
 import org.apache.brooklyn.core.location.SimulatedLocation;
@@ -41,6 +43,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
 public class CustomAggregatingEnricherTest extends BrooklynAppUnitTestSupport {
 
@@ -548,4 +551,85 @@ public class CustomAggregatingEnricherTest extends BrooklynAppUnitTestSupport {
         producer1.sensors().set(intSensor, 2);
         EntityAsserts.assertAttributeEqualsEventually(entity, target, 5);
     }
+
+    @Test
+    public void testNamedMinMaxAndCountTransformations() {
+        AttributeSensor<Integer> minTarget = new BasicAttributeSensor<Integer>(Integer.class, "min sensor");
+        AttributeSensor<Integer> maxTarget = new BasicAttributeSensor<Integer>(Integer.class, "max sensor");
+        AttributeSensor<Integer> countTarget = new BasicAttributeSensor<Integer>(Integer.class, "count sensor");
+        entity.enrichers().add(namedAggregatorSpec(intSensor, minTarget, "min"));
+        entity.enrichers().add(namedAggregatorSpec(intSensor, maxTarget, "max"));
+        entity.enrichers().add(namedAggregatorSpec(intSensor, countTarget, "count"));
+
+        TestEntity p1 = entity.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity p2 = entity.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity p3 = entity.createAndManageChild(EntitySpec.create(TestEntity.class));
+        p1.sensors().set(intSensor, 3);
+        p2.sensors().set(intSensor, 1);
+        p3.sensors().set(intSensor, 2);
+        EntityAsserts.assertAttributeEqualsEventually(entity, minTarget, 1);
+        EntityAsserts.assertAttributeEqualsEventually(entity, maxTarget, 3);
+        EntityAsserts.assertAttributeEqualsEventually(entity, countTarget, 3);
+
+        p2.sensors().set(intSensor, 5);
+        EntityAsserts.assertAttributeEqualsEventually(entity, minTarget, 2);
+        EntityAsserts.assertAttributeEqualsEventually(entity, maxTarget, 5);
+
+        Entities.unmanage(p2);
+        EntityAsserts.assertAttributeEqualsEventually(entity, maxTarget, 3);
+        EntityAsserts.assertAttributeEqualsEventually(entity, countTarget, 2);
+    }
+
+    @Test
+    public void testSumIsCorrectAfterManyUpdates() {
+        entity.enrichers().add(Enrichers.builder()
+                .aggregating(intSensor)
+                .publishing(target)
+                .computingSum()
+                .fromChildren()
+                .build());
+
+        List<TestEntity> producers = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            producers.add(entity.createAndManageChild(EntitySpec.create(TestEntity.class)));
+        }
+        // enough updates that the running sum is rebuilt from all values several times
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < producers.size(); i++) {
+                producers.get(i).sensors().set(intSensor, round + i);
+            }
+        }
+        EntityAsserts.assertAttributeEqualsEventually(entity, target, 99+100+101+102+103);
+
+        Entities.unmanage(producers.get(0));
+        EntityAsserts.assertAttributeEqualsEventually(entity, target, 100+101+102+103);
+    }
+
+    @Test
+    public void testAverageRecoversWhenNonFiniteValueReplaced() {
+        AttributeSensor<Double> doubleTarget = new BasicAttributeSensor<Double>(Double.class, "double target");
+        entity.enrichers().add(Enrichers.builder()
+                .aggregating(doubleSensor)
+                .publishing(doubleTarget)
+                .computingAverage()
+                .fromChildren()
+                .build());
+
+        TestEntity p1 = entity.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity p2 = entity.createAndManageChild(EntitySpec.create(TestEntity.class));
+        p1.sensors().set(doubleSensor, 1d);
+        p2.sensors().set(doubleSensor, Double.NaN);
+        EntityAsserts.assertAttributeEqualsEventually(entity, doubleTarget, Double.NaN);
+
+        p2.sensors().set(doubleSensor, 3d);
+        EntityAsserts.assertAttributeEqualsEventually(entity, doubleTarget, 2d);
+    }
+
+    private EnricherSpec<?> namedAggregatorSpec(AttributeSensor<Integer> source, AttributeSensor<Integer> publishing, String transformation) {
+        return EnricherSpec.create(Aggregator.class)
+                .configure(Aggregator.SOURCE_SENSOR, source)
+                .configure(Aggregator.TARGET_SENSOR, publishing)
+                .configure(Aggregator.FROM_CHILDREN, true)
+                .configure(Aggregator.TRANSFORMATION_UNTYPED, transformation);
+    }
 }
@@ -26,6 +26,7 @@ import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.api.sensor.Enricher;
 import org.apache.brooklyn.api.sensor.SensorEvent;
+import org.apache.brooklyn.core.enricher.AbstractEnricher;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityAdjuncts;
 import org.apache.brooklyn.core.entity.EntityAsserts;
@@ -252,6 +253,28 @@ public class EnrichersTest extends BrooklynAppUnitTestSupport {
         EntityAsserts.assertAttributeEqualsEventually(entity, STR1, null);
     }
     
+    @Test
+    public void testPropagatingWithDeadband() {
+        RecordingSensorEventListener<Integer> record = new RecordingSensorEventListener<>();
+        app.getManagementContext().getSubscriptionManager().subscribe(entity, NUM1, record);
+
+        Enricher enricher = entity.enrichers().add(Enrichers.builder()
+                .propagating(ImmutableList.of(NUM1))
+                .from(entity2)
+                .deadband(5d, null)
+                .build());
+        
+        entity2.sensors().set(NUM1, 100);
+        EntityAsserts.assertAttributeEqualsEventually(entity, NUM1, 100);
+        entity2.sensors().set(NUM1, 104);
+        entity2.sensors().set(NUM1, 100);
+        entity2.sensors().set(NUM1, 110);
+        EntityAsserts.assertAttributeEqualsEventually(entity, NUM1, 110);
+
+        Asserts.eventually(Suppliers.ofInstance(record), CollectionFunctionals.sizeEquals(2));
+        Assert.assertEquals(((AbstractEnricher)enricher).getSuppressedCount(), 2);
+    }
+    
     @Test
     public void testPropagatingAndRenaming() {
         entity.enrichers().add(Enrichers.builder()
@@ -18,12 +18,15 @@
  */
 package org.apache.brooklyn.enricher.stock;
 
+import static org.testng.Assert.assertEquals;
+
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.api.sensor.SensorEvent;
 import org.apache.brooklyn.api.sensor.SensorEventListener;
+import org.apache.brooklyn.core.enricher.AbstractEnricher;
 import org.apache.brooklyn.core.entity.EntityAsserts;
 import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
@@ -95,6 +98,21 @@ public class SensorPropagatingEnricherDeprecatedTest extends BrooklynAppUnitTest
         EntityAsserts.assertAttributeEqualsContinually(MutableMap.of("timeout", 100), app, TestEntity.SEQUENCE, null);
     }
     
+    @Test
+    public void testEmitAllAttributesSuppressesDuplicates() {
+        entity.sensors().set(TestEntity.NAME, "foo");
+        app.sensors().set(TestEntity.NAME, "foo");
+        SensorPropagatingEnricher enricher = SensorPropagatingEnricher.newInstanceListeningTo(entity, TestEntity.NAME);
+        enricher.config().set(AbstractEnricher.SUPPRESS_DUPLICATES, true);
+
+        enricher.addToEntityAndEmitAll(app);
+        assertEquals(enricher.getSuppressedCount(), 1);
+
+        entity.sensors().set(TestEntity.NAME, "bar");
+        EntityAsserts.assertAttributeEqualsEventually(app, TestEntity.NAME, "bar");
+        assertEquals(enricher.getSuppressedCount(), 1);
+    }
+
     @Test
     public void testPropagatingAsDifferentSensor() {
         final AttributeSensor<String> ANOTHER_ATTRIBUTE = Sensors.newStringSensor("another.attribute", "");
@@ -56,6 +56,7 @@ import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
 import org.apache.brooklyn.core.entity.lifecycle.ServiceStateLogic;
 import org.apache.brooklyn.core.entity.trait.Changeable;
 import org.apache.brooklyn.core.entity.trait.FailingEntity;
+import org.apache.brooklyn.core.entity.trait.FailingEntity.RecordingEventListener;
 import org.apache.brooklyn.core.entity.trait.Resizable;
 import org.apache.brooklyn.core.location.SimulatedLocation;
 import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
@@ -68,6 +69,7 @@ import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.collections.MutableSet;
 import org.apache.brooklyn.util.collections.QuorumCheck.QuorumChecks;
 import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.time.Duration;
 import org.apache.brooklyn.util.time.Time;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
@@ -700,6 +702,189 @@ public class DynamicClusterTest extends BrooklynAppUnitTestSupport {
         assertEquals(Iterables.getOnlyElement(quarantineMembers), Iterables.getOnlyElement(children));
     }
 
+    @Test
+    public void testLimitedStartsDoNotExceedMaxConcurrentStarts() throws Exception {
+        DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(TestEntity.class))
+                .configure(DynamicCluster.MAX_CONCURRENT_MEMBER_STARTS, 2)
+                .configure(DynamicCluster.MEMBER_START_BATCH_SIZE, 3)
+                .configure(DynamicCluster.INITIAL_SIZE, 0));
+        RecordingSensorEventListener<Integer> inProgress = new RecordingSensorEventListener<>();
+        app.subscriptions().subscribe(cluster, DynamicCluster.PROVISIONING_IN_PROGRESS, inProgress);
+        cluster.start(ImmutableList.of(loc));
+
+        cluster.resize(7);
+
+        assertEquals(cluster.getCurrentSize(), (Integer)7);
+        for (Entity member : cluster.getMembers()) {
+            assertEquals(member.sensors().get(Attributes.SERVICE_UP), Boolean.TRUE);
+        }
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_SUCCEEDED), (Integer)7);
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_FAILED), (Integer)0);
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_PENDING), (Integer)0);
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_IN_PROGRESS), (Integer)0);
+        for (Integer val : inProgress.getEventValues()) {
+            assertTrue(val <= 2, "inProgress="+val);
+        }
+    }
+
+    @Test
+    public void testThrottledStartsAreRetriedWithNewMembers() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        RecordingEventListener listener = new RecordingEventListener();
+        DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(FailingEntity.class)
+                        .configure(FailingEntity.LISTENER, listener)
+                        .configure(FailingEntity.FAIL_ON_START_CONDITION, new Predicate<FailingEntity>() {
+                            @Override public boolean apply(FailingEntity input) {
+                                // the first two starts are throttled
+                                return counter.getAndIncrement() < 2;
+                            }}))
+                .configure(DynamicCluster.MAX_CONCURRENT_MEMBER_STARTS, 1)
+                .configure(DynamicCluster.THROTTLING_FILTER, Predicates.alwaysTrue())
+                .configure(DynamicCluster.THROTTLING_BACKOFF, Duration.millis(10))
+                .configure(DynamicCluster.INITIAL_SIZE, 0));
+        cluster.start(ImmutableList.of(loc));
+
+        cluster.resize(3);
+
+        assertEquals(cluster.getCurrentSize(), (Integer)3);
+        assertEquals(Iterables.size(Iterables.filter(cluster.getChildren(), FailingEntity.class)), 3);
+        assertTrue(cluster.sensors().get(DynamicCluster.QUARANTINE_GROUP).getMembers().isEmpty());
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_THROTTLED), (Integer)2);
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_SUCCEEDED), (Integer)3);
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_FAILED), (Integer)0);
+
+        // the throttled members were stopped before being replaced, not just unmanaged
+        List<Entity> stopped = Lists.newArrayList();
+        for (Object[] event : listener.events) {
+            if ("stop".equals(event[1])) stopped.add((Entity) event[0]);
+        }
+        assertEquals(stopped.size(), 2, "stopped="+stopped);
+        for (Entity entity : stopped) {
+            assertFalse(Entities.isManaged(entity), "entity="+entity);
+        }
+    }
+
+    @Test
+    public void testThrottledMemberThatFailsToStopIsQuarantined() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(FailingEntity.class)
+                        .configure(FailingEntity.FAIL_ON_START_CONDITION, new Predicate<FailingEntity>() {
+                            @Override public boolean apply(FailingEntity input) {
+                                // the first start is throttled
+                                return counter.getAndIncrement() < 1;
+                            }})
+                        .configure(FailingEntity.FAIL_ON_STOP, true))
+                .configure(DynamicCluster.MAX_CONCURRENT_MEMBER_STARTS, 1)
+                .configure(DynamicCluster.THROTTLING_FILTER, Predicates.alwaysTrue())
+                .configure(DynamicCluster.THROTTLING_BACKOFF, Duration.millis(10))
+                .configure(DynamicCluster.QUARANTINE_FAILED_ENTITIES, true)
+                .configure(DynamicCluster.INITIAL_SIZE, 0));
+        cluster.start(ImmutableList.of(loc));
+
+        cluster.resize(1);
+
+        assertEquals(cluster.getCurrentSize(), (Integer)1);
+        Entity quarantined = Iterables.getOnlyElement(cluster.sensors().get(DynamicCluster.QUARANTINE_GROUP).getMembers());
+        assertTrue(Entities.isManaged(quarantined));
+        assertFalse(cluster.getMembers().contains(quarantined));
+    }
+
+    @Test
+    public void testThrottledStartsFailAfterMaxRetries() throws Exception {
+        DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(FailingEntity.class)
+                        .configure(FailingEntity.FAIL_ON_START, true))
+                .configure(DynamicCluster.MAX_CONCURRENT_MEMBER_STARTS, 1)
+                .configure(DynamicCluster.THROTTLING_FILTER, Predicates.alwaysTrue())
+                .configure(DynamicCluster.THROTTLING_BACKOFF, Duration.millis(10))
+                .configure(DynamicCluster.MAX_THROTTLED_RETRIES, 2)
+                .configure(DynamicCluster.INITIAL_SIZE, 0));
+        cluster.start(ImmutableList.of(loc));
+
+        resizeExpectingError(cluster, 1);
+
+        assertEquals(cluster.getCurrentSize(), (Integer)0);
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_THROTTLED), (Integer)2);
+        assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_FAILED), (Integer)1);
+        assertEquals(cluster.sensors().get(DynamicCluster.QUARANTINE_GROUP).getMembers().size(), 1);
+    }
+
+    @Test
+    public void testResizeReturnsOnceMemberStartQuorumMet() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger counter = new AtomicInteger();
+        DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(FailingEntity.class)
+                        .configure(FailingEntity.FAIL_ON_START_CONDITION, new Predicate<FailingEntity>() {
+                            @Override public boolean apply(FailingEntity input) {
+                                // all but the first start block until the latch is released
+                                if (counter.getAndIncrement() > 0) {
+                                    try {
+                                        latch.await();
+                                    } catch (InterruptedException e) {
+                                        throw Exceptions.propagate(e);
+                                    }
+                                }
+                                return false;
+                            }}))
+                .configure(DynamicCluster.MEMBER_START_BATCH_SIZE, 1)
+                .configure(DynamicCluster.MEMBER_START_QUORUM, QuorumChecks.atLeastOne())
+                .configure(DynamicCluster.INITIAL_SIZE, 0));
+        cluster.start(ImmutableList.of(loc));
+
+        try {
+            Collection<Entity> added = cluster.resizeByDelta(3);
+
+            assertEquals(added.size(), 1);
+            assertEquals(cluster.getCurrentSize(), (Integer)3);
+            assertEquals(cluster.sensors().get(DynamicCluster.PROVISIONING_SUCCEEDED), (Integer)1);
+        } finally {
+            latch.countDown();
+        }
+        EntityAsserts.assertAttributeEqualsEventually(cluster, DynamicCluster.PROVISIONING_SUCCEEDED, 3);
+        assertEquals(cluster.getCurrentSize(), (Integer)3);
+    }
+
+    @Test
+    public void testMembersFailingAfterMemberStartQuorumMetAreQuarantined() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger counter = new AtomicInteger();
+        final DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(FailingEntity.class)
+                        .configure(FailingEntity.FAIL_ON_START_CONDITION, new Predicate<FailingEntity>() {
+                            @Override public boolean apply(FailingEntity input) {
+                                // all but the first start block until the latch is released, then fail
+                                if (counter.getAndIncrement() == 0) return false;
+                                try {
+                                    latch.await();
+                                } catch (InterruptedException e) {
+                                    throw Exceptions.propagate(e);
+                                }
+                                return true;
+                            }}))
+                .configure(DynamicCluster.MEMBER_START_BATCH_SIZE, 1)
+                .configure(DynamicCluster.MEMBER_START_QUORUM, QuorumChecks.atLeastOne())
+                .configure(DynamicCluster.QUARANTINE_FAILED_ENTITIES, true)
+                .configure(DynamicCluster.INITIAL_SIZE, 0));
+        cluster.start(ImmutableList.of(loc));
+
+        try {
+            assertEquals(cluster.resizeByDelta(3).size(), 1);
+        } finally {
+            latch.countDown();
+        }
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(cluster.sensors().get(DynamicCluster.QUARANTINE_GROUP).getMembers().size(), 2);
+                assertEquals(cluster.getCurrentSize(), (Integer)1);
+            }});
+        // and the background clean-up has released the mutex
+        assertEquals(cluster.resize(0), (Integer)0);
+    }
+
     @Test
     public void defaultRemovalStrategyShutsDownNewestFirstWhenResizing() throws Exception {
         final List<Entity> creationOrder = Lists.newArrayList();
@@ -106,6 +106,26 @@ public class FunctionFeedTest extends BrooklynAppUnitTestSupport {
         });
     }
     
+    @Test
+    public void testSuppressesValuesWithinDeadband() throws Exception {
+        feed = FunctionFeed.builder()
+                .entity(entity)
+                .poll(new FunctionPollConfig<Integer,Integer>(SENSOR_INT)
+                        .period(1)
+                        .callable(new IncrementingCallable())
+                        .deadband(1000, 0))
+                .build();
+
+        Asserts.succeedsEventually(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(feed.getSuppressedSensorUpdateCount() > 2, "suppressed=" + feed.getSuppressedSensorUpdateCount());
+            }
+        });
+        // the first value is published; later values are within the deadband of it
+        EntityAsserts.assertAttributeEquals(entity, SENSOR_INT, 0);
+    }
+    
     @Test
     public void testFeedDeDupe() throws Exception {
         testPollsFunctionRepeatedlyToSetAttribute();
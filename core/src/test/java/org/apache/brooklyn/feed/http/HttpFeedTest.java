@@ -19,6 +19,7 @@
 package org.apache.brooklyn.feed.http;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.net.URL;
@@ -28,6 +29,7 @@ import java.util.concurrent.Callable;
 import org.apache.brooklyn.api.entity.EntityLocal;
 import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.api.location.Location;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityFunctions;
@@ -37,12 +39,15 @@ import org.apache.brooklyn.core.feed.FeedConfig;
 import org.apache.brooklyn.core.feed.PollConfig;
 import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.core.test.entity.LocalManagementContextForTests;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.test.Asserts;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.http.BetterMockWebServer;
 import org.apache.brooklyn.util.http.HttpToolResponse;
+import org.apache.brooklyn.util.http.executor.HttpExecutor;
+import org.apache.brooklyn.util.http.executor.HttpRequest;
 import org.apache.brooklyn.util.guava.Functionals;
 import org.apache.brooklyn.util.net.Networking;
 import org.apache.brooklyn.util.time.Duration;
@@ -382,6 +387,26 @@ public class HttpFeedTest extends BrooklynAppUnitTestSupport {
     }
     
 
+    @Test
+    public void testSharedHttpExecutorClosedWhenManagementContextTerminates() throws Exception {
+        ManagementContext otherMgmt = LocalManagementContextForTests.newInstance();
+        HttpExecutor executor;
+        try {
+            executor = HttpFeed.sharedHttpExecutor(otherMgmt);
+            assertSame(HttpFeed.sharedHttpExecutor(otherMgmt), executor);
+            assertEquals(executor.execute(new HttpRequest.Builder().method("GET").uri(baseUrl.toURI()).build()).code(), 200);
+        } finally {
+            Entities.destroyAll(otherMgmt);
+        }
+        try {
+            executor.execute(new HttpRequest.Builder().method("GET").uri(baseUrl.toURI()).build());
+            Asserts.shouldHaveFailedPreviously();
+        } catch (IllegalStateException e) {
+            Asserts.expectedFailureContains(e, "closed");
+        }
+    }
+
+
     private <T> void assertSensorEventually(final AttributeSensor<T> sensor, final T expectedVal, long timeout) {
         Asserts.succeedsEventually(ImmutableMap.of("timeout", timeout), new Callable<Void>() {
             public Void call() {
@@ -240,6 +240,39 @@ public class SshFeedIntegrationTest extends BrooklynAppUnitTestSupport {
         log.info("vals from dynamic sensors are: "+val1.trim()+" and "+val2.trim());
     }
 
+    @Test(groups="Integration")
+    public void testBatchedPollsAfterFailingCommandStillGetTheirResults() throws Exception {
+        final AttributeSensor<String> sensorFirst = Sensors.newStringSensor("first", "");
+        final AttributeSensor<String> sensorLast = Sensors.newStringSensor("last", "");
+        final AttributeSensor<Integer> sensorLastExit = Sensors.newIntegerSensor("lastExit", "");
+        feed = SshFeed.builder()
+                .entity(entity)
+                .machine(machine)
+                .batchPolls()
+                .poll(new SshPollConfig<String>(sensorFirst)
+                        .command("echo first")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .poll(new SshPollConfig<Integer>(SENSOR_INT)
+                        .command("echo middle; exit 1")
+                        .checkSuccess(Predicates.alwaysTrue())
+                        .onSuccess(SshValueFunctions.exitStatus()))
+                .poll(new SshPollConfig<String>(sensorLast)
+                        .command("echo last")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .poll(new SshPollConfig<Integer>(sensorLastExit)
+                        .command("echo last")
+                        .checkSuccess(Predicates.alwaysTrue())
+                        .onSuccess(SshValueFunctions.exitStatus()))
+                .build();
+
+        EntityAsserts.assertAttributeEqualsEventually(entity, SENSOR_INT, 1);
+        EntityAsserts.assertAttributeEventually(entity, sensorFirst, 
+            Predicates.compose(Predicates.equalTo("first"), StringFunctions.trim()));
+        EntityAsserts.assertAttributeEventually(entity, sensorLast, 
+            Predicates.compose(Predicates.equalTo("last"), StringFunctions.trim()));
+        EntityAsserts.assertAttributeEqualsEventually(entity, sensorLastExit, 0);
+    }
+
     private String assertDifferentOneInOutput(final TestEntity entity2) {
         String val = entity2.getAttribute(SENSOR_STRING);
         Assert.assertTrue(val.startsWith("count"), "val="+val);
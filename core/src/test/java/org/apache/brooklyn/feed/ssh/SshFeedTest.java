@@ -19,7 +19,10 @@
 package org.apache.brooklyn.feed.ssh;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +36,9 @@ import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.location.localhost.LocalhostMachineProvisioningLocation;
 import org.apache.brooklyn.location.ssh.SshMachineLocation;
 import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.core.internal.ssh.ShellTool;
+import org.apache.brooklyn.util.core.internal.ssh.process.ProcessTool;
+import org.apache.brooklyn.util.guava.Maybe;
 import org.apache.brooklyn.util.stream.Streams;
 import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
@@ -45,6 +51,7 @@ import com.google.common.base.Functions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 public class SshFeedTest extends BrooklynAppUnitTestSupport {
@@ -161,6 +168,97 @@ public class SshFeedTest extends BrooklynAppUnitTestSupport {
             }});
     }
 
+    @Test
+    public void testBatchesCommandsWithSamePeriod() throws Exception {
+        final RecordingSshMachineLocation recordingMachine = mgmt.getLocationManager().createLocation(LocationSpec.create(RecordingSshMachineLocation.class));
+        app.start(ImmutableList.of(recordingMachine));
+        
+        final String cmd = "myCommand";
+        final String cmd2 = "myCommand2";
+        
+        feed = SshFeed.builder()
+                .period(Duration.PRACTICALLY_FOREVER)
+                .entity(entity)
+                .batchPolls()
+                .poll(new SshPollConfig<String>(SENSOR_STRING)
+                        .command(cmd)
+                        .onSuccess(Functions.constant("success")))
+                .poll(new SshPollConfig<String>(SENSOR_STRING2)
+                        .env(ImmutableMap.of("mykey", "myval"))
+                        .command(cmd2)
+                        .onSuccess(Functions.constant("success")))
+                .build();
+        
+        // Expect a single script, containing both commands
+        Asserts.succeedsEventually(new Runnable() {
+            public void run() {
+                assertEquals(RecordingSshMachineLocation.execScriptCalls.size(), 1, "calls="+RecordingSshMachineLocation.execScriptCalls);
+                String script = Iterables.getOnlyElement(RecordingSshMachineLocation.execScriptCalls.get(0));
+                assertTrue(script.contains(cmd+"\n"), script);
+                assertTrue(script.contains(cmd2+"\n"), script);
+                assertTrue(script.contains("export mykey="), script);
+            }});
+    }
+
+    @Test
+    public void testParseBatchOutput() throws Exception {
+        String boundary = "BOUNDARY";
+        String output = "BOUNDARY out 0\n"
+                + "line1\nline2\n\n"
+                + "BOUNDARY err 0\n"
+                + "\n"
+                + "BOUNDARY exit 0 0\n"
+                + "BOUNDARY out 1\n"
+                + "no-newline\n"
+                + "BOUNDARY err 1\n"
+                + "oops\n\n"
+                + "BOUNDARY exit 1 123\n";
+        
+        List<Maybe<SshPollValue>> results = SshFeed.parseBatchOutput(null, boundary, output, 3);
+        
+        assertEquals(results.get(0).get().getStdout(), "line1\nline2\n");
+        assertEquals(results.get(0).get().getStderr(), "");
+        assertEquals(results.get(0).get().getExitStatus(), 0);
+        assertEquals(results.get(1).get().getStdout(), "no-newline");
+        assertEquals(results.get(1).get().getStderr(), "oops\n");
+        assertEquals(results.get(1).get().getExitStatus(), 123);
+        assertTrue(results.get(2).isAbsent());
+    }
+
+    @Test
+    public void testBatchScriptRunsEachCommandInSubshell() throws Exception {
+        String script = SshFeed.batchScript("BOUNDARY", ImmutableList.of("exit 1", "echo hi"), 
+                ImmutableList.of(ImmutableMap.<String, String>of(), ImmutableMap.of("k", "v w")));
+        
+        assertTrue(script.contains("(\nset $_brooklyn_errexit\nexit 1\n) 2>"), script);
+        assertTrue(script.contains("(\nset $_brooklyn_errexit\nexport k=\"v w\"\necho hi\n) 2>"), script);
+    }
+
+    @Test(groups="Integration") // runs bash locally
+    public void testBatchScriptContinuesAfterFailingCommand() throws Exception {
+        String script = SshFeed.batchScript("BOUNDARY", 
+                ImmutableList.of("echo first", "echo second; exit 1", "echo third; false; echo not-reached", "echo fourth"), 
+                Collections.nCopies(4, ImmutableMap.<String, String>of()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        // run as a script, so with the default script header's "bash -e", as the feed does
+        int exitStatus = new ProcessTool().execScript(
+                ImmutableMap.of(ShellTool.PROP_OUT_STREAM.getName(), out, ShellTool.PROP_NO_EXTRA_OUTPUT.getName(), true), 
+                ImmutableList.of(script));
+        List<Maybe<SshPollValue>> results = SshFeed.parseBatchOutput(null, "BOUNDARY", new String(out.toByteArray()), 4);
+        
+        assertEquals(exitStatus, 0, "out="+out);
+        assertEquals(results.get(0).get().getStdout().trim(), "first");
+        assertEquals(results.get(0).get().getExitStatus(), 0);
+        assertEquals(results.get(1).get().getStdout().trim(), "second");
+        assertEquals(results.get(1).get().getExitStatus(), 1);
+        // each command still runs with "-e", as when not batched
+        assertEquals(results.get(2).get().getStdout().trim(), "third");
+        assertEquals(results.get(2).get().getExitStatus(), 1);
+        assertEquals(results.get(3).get().getStdout().trim(), "fourth");
+        assertEquals(results.get(3).get().getExitStatus(), 0);
+    }
+
     public static class RecordingSshMachineLocation extends SshMachineLocation {
         public static List<List<String>> execScriptCalls = Lists.newCopyOnWriteArrayList();
 
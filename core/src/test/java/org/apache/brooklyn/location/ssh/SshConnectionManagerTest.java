@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.location.ssh;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.brooklyn.api.location.LocationSpec;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.internal.ssh.RecordingSshTool;
+import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.net.HostAndPort;
+
+public class SshConnectionManagerTest extends BrooklynAppUnitTestSupport {
+
+    @Override
+    protected BrooklynProperties getBrooklynProperties() {
+        BrooklynProperties result = BrooklynProperties.Factory.newEmpty();
+        result.put(SshConnectionManager.ENABLED, true);
+        result.put(SshConnectionManager.MAX_SESSIONS_PER_HOST, 2);
+        return result;
+    }
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        RecordingSshTool.clear();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    @Override
+    public void tearDown() throws Exception {
+        RecordingSshTool.clear();
+        super.tearDown();
+    }
+
+    @Test
+    public void testLocationsForSameHostShareConnection() throws Exception {
+        SshMachineLocation machine1 = newMachine("myname");
+        SshMachineLocation machine2 = newMachine("myname");
+
+        machine1.execCommands("mySummary", ImmutableList.of("myCommand"));
+        machine2.execCommands("mySummary", ImmutableList.of("myCommand"));
+
+        assertEquals(RecordingSshTool.constructorProps.size(), 1, "props="+RecordingSshTool.constructorProps);
+        Map<String, Object> metrics = SshConnectionManager.forManagementContext(mgmt).getMetrics();
+        assertEquals(metrics.get("misses"), 1L, "metrics="+metrics);
+        assertEquals(metrics.get("hits"), 1L, "metrics="+metrics);
+        assertEquals(metrics.get("openConnections"), 1L, "metrics="+metrics);
+        assertEquals(metrics.get("activeSessions"), 0L, "metrics="+metrics);
+    }
+
+    @Test
+    public void testDifferentUsersDoNotShareConnection() throws Exception {
+        newMachine("user1").execCommands("mySummary", ImmutableList.of("myCommand"));
+        newMachine("user2").execCommands("mySummary", ImmutableList.of("myCommand"));
+
+        assertEquals(RecordingSshTool.constructorProps.size(), 2, "props="+RecordingSshTool.constructorProps);
+    }
+
+    @Test
+    public void testLocationCanOptOut() throws Exception {
+        SshMachineLocation machine = mgmt.getLocationManager().createLocation(LocationSpec.create(SshMachineLocation.class)
+                .configure("address", "localhost")
+                .configure("user", "myname")
+                .configure(SshMachineLocation.SSH_SHARED_CONNECTIONS, false)
+                .configure(SshMachineLocation.SSH_TOOL_CLASS, RecordingSshTool.class.getName()));
+        machine.execCommands("mySummary", ImmutableList.of("myCommand"));
+
+        assertEquals(SshConnectionManager.forManagementContext(mgmt).getMetrics().get("misses"), 0L);
+    }
+
+    @Test
+    public void testIdleConnectionsEvicted() throws Exception {
+        newMachine("myname").execCommands("mySummary", ImmutableList.of("myCommand"));
+        SshConnectionManager manager = SshConnectionManager.forManagementContext(mgmt);
+
+        manager.evictIdle(Duration.ZERO);
+        assertEquals(manager.getMetrics().get("evictions"), 1L);
+        assertEquals(manager.getMetrics().get("openConnections"), 0L);
+
+        newMachine("myname").execCommands("mySummary", ImmutableList.of("myCommand"));
+        assertEquals(manager.getMetrics().get("misses"), 2L);
+    }
+
+    @Test
+    public void testSessionsPerHostLimited() throws Exception {
+        final SshConnectionManager manager = SshConnectionManager.forManagementContext(mgmt);
+        final SshConnectionManager.ConnectionKey key = new SshConnectionManager.ConnectionKey(
+                HostAndPort.fromParts("localhost", 22), "myname", ImmutableMap.<String, Object>of());
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(mgmt.getExecutionManager().submit(MutableMap.of(), new Callable<Void>() {
+                @Override public Void call() {
+                    return manager.exec(key, newConnector(), false, new Function<SshTool, Void>() {
+                        @Override public Void apply(SshTool input) {
+                            int now = concurrent.incrementAndGet();
+                            synchronized (maxConcurrent) {
+                                maxConcurrent.set(Math.max(maxConcurrent.get(), now));
+                            }
+                            try {
+                                release.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                throw new RuntimeException(e);
+                            }
+                            concurrent.decrementAndGet();
+                            return null;
+                        }});
+                }}));
+        }
+        Thread.sleep(250);
+        assertEquals(maxConcurrent.get(), 2);
+        release.countDown();
+        for (Task<?> task : tasks) {
+            task.get(Duration.TEN_SECONDS);
+        }
+        assertEquals(maxConcurrent.get(), 2);
+        assertTrue((Long)manager.getMetrics().get("waits") >= 3, "metrics="+manager.getMetrics());
+        assertEquals(manager.getMetrics().get("openConnections"), 2L);
+    }
+
+    private SshMachineLocation newMachine(String user) {
+        return mgmt.getLocationManager().createLocation(LocationSpec.create(SshMachineLocation.class)
+                .configure("address", "localhost")
+                .configure("user", user)
+                .configure(SshMachineLocation.SSH_TOOL_CLASS, RecordingSshTool.class.getName()));
+    }
+
+    private Supplier<SshTool> newConnector() {
+        return new Supplier<SshTool>() {
+            @Override public SshTool get() {
+                SshTool result = new RecordingSshTool(ImmutableMap.of());
+                result.connect();
+                return result;
+            }};
+    }
+}
@@ -28,7 +28,9 @@ import static org.testng.Assert.fail;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
@@ -241,6 +243,92 @@ public class BasicTaskExecutionTest {
         assertEquals(em.getTasksWithAllTags(ImmutableList.of("not_there","A")), ImmutableSet.of());
     }
     
+    @Test
+    public void testTagIndexConsistentUnderConcurrentSubmitAndDelete() throws Exception {
+        final int numThreads = 16;
+        final int numTasksPerThread = 200;
+        final List<Exception> exceptions = Lists.newCopyOnWriteArrayList();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = Lists.newArrayList();
+        for (int i = 0; i < numThreads; i++) {
+            final String ownTag = "thread-"+i;
+            Thread thread = new Thread() {
+                @Override public void run() {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < numTasksPerThread; j++) {
+                            Task<?> t = em.submit(MutableMap.of("tags", ImmutableList.of("shared", ownTag)), newNoop());
+                            t.get();
+                            // readers iterate the live views while others are writing
+                            for (Task<?> other : em.getTasksWithAnyTag(ImmutableList.of("shared", ownTag))) {
+                                assertNotNull(other);
+                            }
+                            if (j % 2 == 0) em.deleteTask(t);
+                        }
+                    } catch (Exception e) {
+                        exceptions.add(e);
+                    }
+                }};
+            thread.start();
+            threads.add(thread);
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join(TIMEOUT_MS*3);
+        }
+        if (exceptions.size() > 0) throw exceptions.get(0);
+        
+        assertEquals(em.getTasksWithTag("shared").size(), numThreads*numTasksPerThread/2);
+        assertEquals(em.getNumTasksWithTag("shared"), numThreads*numTasksPerThread/2);
+        for (int i = 0; i < numThreads; i++) {
+            assertEquals(em.getNumTasksWithTag("thread-"+i), numTasksPerThread/2);
+        }
+        
+        em.deleteTag("shared");
+        assertEquals(em.getTasksWithTag("shared"), ImmutableSet.of());
+        assertEquals(em.getNumTasksWithTag("thread-0"), 0);
+        assertFalse(em.getTaskTags().contains("thread-0"), "tags="+em.getTaskTags());
+    }
+    
+    @Test
+    public void testTagIndexKeepsTasksSubmittedWhileTagDrainsToEmpty() throws Exception {
+        final int numThreads = 8;
+        final int numTasksPerThread = 500;
+        final List<Exception> exceptions = Lists.newCopyOnWriteArrayList();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = Lists.newArrayList();
+        for (int i = 0; i < numThreads; i++) {
+            Thread thread = new Thread() {
+                @Override public void run() {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < numTasksPerThread; j++) {
+                            // every thread deletes its task straight away, so the tag is repeatedly emptied
+                            Task<?> t = em.submit(MutableMap.of("tag", "drained"), newNoop());
+                            t.get();
+                            Set<Task<?>> live = em.tasksWithTagLiveOrNull("drained");
+                            assertTrue(live != null && live.contains(t), "task "+t+" lost from tag");
+                            em.deleteTask(t);
+                        }
+                    } catch (Exception e) {
+                        exceptions.add(e);
+                    } catch (AssertionError e) {
+                        exceptions.add(new Exception(e));
+                    }
+                }};
+            thread.start();
+            threads.add(thread);
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join(TIMEOUT_MS*3);
+        }
+        if (exceptions.size() > 0) throw exceptions.get(0);
+        
+        assertEquals(em.getNumTasksWithTag("drained"), 0);
+        assertFalse(em.getTaskTags().contains("drained"), "tags="+em.getTaskTags());
+    }
+    
     @Test
     public void testRetrievedTasksIncludesTasksInProgress() throws Exception {
         final CountDownLatch runningLatch = new CountDownLatch(1);
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.task.BasicExecutionManager.ThreadingMode;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Runs in {@link ThreadingMode#VIRTUAL} mode where the JVM supports it,
+ * otherwise checks the fall-back to {@link ThreadingMode#UNBOUNDED}.
+ */
+public class VirtualThreadExecutionManagerTest {
+
+    private BasicExecutionManager em;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        BrooklynProperties props = BrooklynProperties.Factory.newEmpty();
+        props.put(BasicExecutionManager.THREADING_MODE, ThreadingMode.VIRTUAL);
+        em = new BasicExecutionManager("mycontext", props);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (em != null) em.shutdownNow();
+    }
+
+    @Test
+    public void testThreadingModeOrFallback() {
+        boolean virtualSupported;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            virtualSupported = true;
+        } catch (NoSuchMethodException e) {
+            virtualSupported = false;
+        }
+        assertEquals(em.getThreadingMode(), virtualSupported ? ThreadingMode.VIRTUAL : ThreadingMode.UNBOUNDED);
+    }
+
+    @Test
+    public void testCurrentTaskAvailableInNestedTasks() throws Exception {
+        Task<Boolean> outer = em.submit(MutableMap.of(), new Callable<Boolean>() {
+            @Override public Boolean call() throws Exception {
+                final Task<?> self = Tasks.current();
+                Task<Task<?>> inner = em.submit(MutableMap.of(), new Callable<Task<?>>() {
+                    @Override public Task<?> call() {
+                        return Tasks.current();
+                    }});
+                Task<?> innerCurrent = inner.get(Duration.TEN_SECONDS);
+                return innerCurrent==inner && Tasks.current()==self;
+            }});
+        assertTrue(outer.get(Duration.TEN_SECONDS));
+        assertEquals(Tasks.current(), null);
+    }
+
+    @Test
+    public void testManyConcurrentBlockingTasks() throws Exception {
+        int numTasks = 1000;
+        final CountDownLatch allStarted = new CountDownLatch(numTasks);
+        final CountDownLatch release = new CountDownLatch(1);
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (int i = 0; i < numTasks; i++) {
+            tasks.add(em.submit(MutableMap.of("tag", TaskTags.BLOCKING_TASK), new Callable<Void>() {
+                @Override public Void call() throws Exception {
+                    allStarted.countDown();
+                    release.await();
+                    return null;
+                }}));
+        }
+        assertTrue(allStarted.await(30, TimeUnit.SECONDS));
+        release.countDown();
+        for (Task<?> task : tasks) {
+            task.get(Duration.TEN_SECONDS);
+        }
+    }
+
+    @Test
+    public void testSingleThreadedSchedulerPreservesOrder() throws Exception {
+        em.setTaskSchedulerForTag("category1", SingleThreadedScheduler.class);
+        final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            final int counter = i;
+            tasks.add(em.submit(MutableMap.of("tag", "category1"), new Runnable() {
+                @Override public void run() {
+                    order.add(counter);
+                }}));
+        }
+        for (Task<?> task : tasks) {
+            task.get(Duration.TEN_SECONDS);
+        }
+        List<Integer> expected = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) expected.add(i);
+        assertEquals(order, ImmutableList.copyOf(expected));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.brooklyn.api.mgmt.ExecutionContext;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.task.BasicExecutionManager.ThreadingMode;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+
+public class WorkStealingExecutionManagerTest {
+
+    private BasicExecutionManager em;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        BrooklynProperties props = BrooklynProperties.Factory.newEmpty();
+        props.put(BasicExecutionManager.THREADING_MODE, ThreadingMode.WORK_STEALING);
+        // deliberately tiny, to check that tasks waiting on other tasks do not starve the pool
+        props.put(BasicExecutionManager.WORK_STEALING_PARALLELISM, 1);
+        props.put(BasicExecutionManager.BLOCKING_POOL_MAX_THREADS, 2);
+        em = new BasicExecutionManager("mycontext", props);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (em != null) em.shutdownNow();
+    }
+
+    @Test
+    public void testThreadingModeFromConfig() {
+        assertEquals(em.getThreadingMode(), ThreadingMode.WORK_STEALING);
+        BasicExecutionManager other = new BasicExecutionManager("othercontext");
+        try {
+            assertEquals(other.getThreadingMode(), ThreadingMode.UNBOUNDED);
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNestedWaitsDoNotDeadlockAndKeepCurrentTask() throws Exception {
+        Task<Boolean> outer = em.submit(MutableMap.of("tag", "A"), new Callable<Boolean>() {
+            @Override public Boolean call() throws Exception {
+                final Task<?> self = Tasks.current();
+                Task<Integer> inner = em.submit(MutableMap.of("tag", "A"), new Callable<Integer>() {
+                    @Override public Integer call() {
+                        return Tasks.current()!=self ? 1 : 0;
+                    }});
+                boolean innerOk = inner.get(Duration.TEN_SECONDS)==1;
+                return innerOk && Tasks.current()==self;
+            }});
+        assertTrue(outer.get(Duration.TEN_SECONDS));
+    }
+
+    @Test
+    public void testBlockingTasksUseSeparatePool() throws Exception {
+        Task<String> nonBlocking = em.submit(MutableMap.of(), new CurrentThreadName());
+        Task<String> blocking = em.submit(MutableMap.of("tag", TaskTags.BLOCKING_TASK), new CurrentThreadName());
+        assertTrue(nonBlocking.get(Duration.TEN_SECONDS).contains("-ws-"), nonBlocking.get());
+        assertFalse(blocking.get(Duration.TEN_SECONDS).contains("-ws-"), blocking.get());
+    }
+
+    @Test
+    public void testListenersInvoked() throws Exception {
+        final List<Task<?>> done = new CopyOnWriteArrayList<Task<?>>();
+        em.addListener(new ExecutionListener() {
+            @Override public void onTaskDone(Task<?> task) {
+                done.add(task);
+            }});
+        Task<String> t = em.submit(MutableMap.of(), new CurrentThreadName());
+        t.get(Duration.TEN_SECONDS);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!done.contains(t) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertTrue(done.contains(t));
+    }
+
+    @Test
+    public void testQueueMetrics() throws Exception {
+        assertEquals(em.getNumQueuedTasks(), 0);
+        em.submit(MutableMap.of(), new CurrentThreadName()).get(Duration.TEN_SECONDS);
+        assertTrue(em.getNumPoolThreads() >= 1);
+    }
+
+    @Test
+    public void testValueResolverWaitsOnDeferredFuturesDoNotStarvePool() throws Exception {
+        // more waiters than the pool's parallelism; the value is only set by a task submitted after all of them
+        final int numWaiters = 5;
+        final SettableFuture<String> value = SettableFuture.create();
+        final DeferredFutureSupplier<String> supplier = new DeferredFutureSupplier<String>() {
+            @Override public Future<String> getFuture() {
+                return value;
+            }
+            @Override public String get() {
+                return Futures.getUnchecked(value);
+            }};
+        final ExecutionContext exec = new BasicExecutionContext(em);
+        List<Task<String>> waiters = MutableList.of();
+        for (int i = 0; i < numWaiters; i++) {
+            waiters.add(em.submit(MutableMap.of(), new Callable<String>() {
+                @Override public String call() {
+                    return Tasks.resolving(supplier, String.class).context(exec).timeout(Duration.TEN_SECONDS).get();
+                }}));
+        }
+        em.submit(MutableMap.of(), new Runnable() {
+            @Override public void run() {
+                value.set("ready");
+            }});
+        
+        for (Task<String> waiter : waiters) {
+            assertEquals(waiter.get(Duration.TEN_SECONDS), "ready");
+        }
+    }
+
+    private static class CurrentThreadName implements Callable<String> {
+        @Override public String call() {
+            return Thread.currentThread().getName();
+        }
+    }
+}
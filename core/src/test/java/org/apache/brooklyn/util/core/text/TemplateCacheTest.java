@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.text;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.brooklyn.test.Asserts;
+import org.testng.annotations.Test;
+
+import freemarker.template.Template;
+
+public class TemplateCacheTest {
+
+    @Test
+    public void testReusesParsedTemplate() throws Exception {
+        TemplateCache cache = new TemplateCache(10);
+        Template template = cache.getTemplate("${a}");
+        assertSame(cache.getTemplate("${a}"), template);
+        assertNotSame(cache.getTemplate("${b}"), template);
+
+        Map<String, Object> metrics = cache.getMetrics();
+        assertEquals(metrics.get("hits"), 1L);
+        assertEquals(metrics.get("misses"), 2L);
+        assertEquals(metrics.get("size"), 2L);
+    }
+
+    @Test
+    public void testEvictsBeyondMaxSize() throws Exception {
+        TemplateCache cache = new TemplateCache(2);
+        for (int i = 0; i < 5; i++) {
+            cache.getTemplate("${a"+i+"}");
+        }
+        Map<String, Object> metrics = cache.getMetrics();
+        assertEquals(metrics.get("size"), 2L);
+        assertEquals(metrics.get("evictions"), 3L);
+    }
+
+    @Test
+    public void testParsesEveryTimeWhenDisabled() throws Exception {
+        TemplateCache cache = new TemplateCache(0);
+        assertNotSame(cache.getTemplate("${a}"), cache.getTemplate("${a}"));
+        assertEquals(cache.getMetrics().get("hits"), 0L);
+    }
+
+    @Test
+    public void testInvalidTemplateNotCached() throws Exception {
+        TemplateCache cache = new TemplateCache(10);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.getTemplate("${a");
+                Asserts.shouldHaveFailedPreviously();
+            } catch (IOException e) {
+                // expected; freemarker's ParseException
+            }
+        }
+        assertEquals(cache.getMetrics().get("misses"), 2L);
+        assertEquals(cache.getMetrics().get("size"), 0L);
+    }
+}
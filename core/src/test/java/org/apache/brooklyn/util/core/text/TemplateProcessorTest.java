@@ -65,6 +65,16 @@ public class TemplateProcessorTest extends BrooklynAppUnitTestSupport {
         assertEquals(result, "myval");
     }
     
+    @Test
+    public void testCachesParsedTemplateInManagementContext() {
+        TemplateCache cache = TemplateCache.forManagementContext(mgmt);
+        long hits = (Long) cache.getMetrics().get("hits");
+        String templateContents = "cached ${mykey}";
+        assertEquals(TemplateProcessor.processTemplateContents(templateContents, app, ImmutableMap.of("mykey", "myval")), "cached myval");
+        assertEquals(TemplateProcessor.processTemplateContents(templateContents, app, ImmutableMap.of("mykey", "otherval")), "cached otherval");
+        assertEquals(cache.getMetrics().get("hits"), hits + 1);
+    }
+    
     @Test
     public void testEntityConfig() {
         TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class)
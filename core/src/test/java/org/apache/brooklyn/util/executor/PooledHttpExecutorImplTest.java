@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.http.executor.HttpRequest;
+import org.apache.brooklyn.util.http.executor.HttpResponse;
+import org.apache.brooklyn.util.http.executor.apacheclient.PooledHttpExecutorImpl;
+import org.apache.brooklyn.util.stream.Streams;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.mockwebserver.Dispatcher;
+import com.google.mockwebserver.MockResponse;
+import com.google.mockwebserver.RecordedRequest;
+
+/** Runs the {@link HttpExecutorImplTest} tests against {@link PooledHttpExecutorImpl}, plus tests of pooling and deduplication. */
+public class PooledHttpExecutorImplTest extends HttpExecutorImplTest {
+
+    @Override
+    protected Map<?, ?> getProps() {
+        return ImmutableMap.of(HttpExecutorFactory.HTTP_EXECUTOR_CLASS_CONFIG, PooledHttpExecutorImpl.class.getName());
+    }
+
+    @Test
+    public void testReusesConnection() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("first"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("second"));
+        PooledHttpExecutorImpl executor = new PooledHttpExecutorImpl();
+        try {
+            assertEquals(readContent(executor.execute(newGet())), "first");
+            assertEquals(readContent(executor.execute(newGet())), "second");
+        } finally {
+            executor.close();
+        }
+        // sequence number counts the requests on the same connection
+        assertEquals(server.takeRequest().getSequenceNumber(), 0);
+        assertEquals(server.takeRequest().getSequenceNumber(), 1);
+    }
+
+    @Test
+    public void testDeduplicatesConcurrentIdenticalGets() throws Exception {
+        final CountDownLatch responseLatch = new CountDownLatch(1);
+        server.setDispatcher(new Dispatcher() {
+            @Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                responseLatch.await();
+                return new MockResponse().setResponseCode(200).setBody("shared");
+            }});
+        final PooledHttpExecutorImpl executor = new PooledHttpExecutorImpl();
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Callable<String> get = new Callable<String>() {
+                @Override public String call() throws Exception {
+                    return readContent(executor.execute(newGet()));
+                }};
+            Future<String> first = threads.submit(get);
+            Future<String> second = threads.submit(get);
+            Asserts.succeedsEventually(new Runnable() {
+                @Override public void run() {
+                    assertEquals(executor.getDedupedCount(), 1);
+                }});
+            responseLatch.countDown();
+
+            assertEquals(first.get(), "shared");
+            assertEquals(second.get(), "shared");
+            assertEquals(server.getRequestCount(), 1);
+            assertEquals(executor.getRequestCount(), 1);
+        } finally {
+            responseLatch.countDown();
+            threads.shutdownNow();
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testDoesNotShareCookiesBetweenRequests() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200).addHeader("Set-Cookie", "session=abc123; Path=/").setBody("first"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("second"));
+        PooledHttpExecutorImpl executor = new PooledHttpExecutorImpl();
+        try {
+            assertEquals(readContent(executor.execute(newGet())), "first");
+            assertEquals(readContent(executor.execute(newGet())), "second");
+        } finally {
+            executor.close();
+        }
+        assertNull(server.takeRequest().getHeader("Cookie"));
+        assertNull(server.takeRequest().getHeader("Cookie"));
+    }
+
+    private HttpRequest newGet() throws Exception {
+        return new HttpRequest.Builder()
+                .method("GET")
+                .uri(baseUrl.toURI())
+                .build();
+    }
+
+    private String readContent(HttpResponse response) throws Exception {
+        try {
+            return new String(ByteStreams.toByteArray(response.getContent()));
+        } finally {
+            Streams.closeQuietly(response);
+        }
+    }
+}
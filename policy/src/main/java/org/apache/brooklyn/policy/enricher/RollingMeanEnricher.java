@@ -18,8 +18,6 @@
  */
 package org.apache.brooklyn.policy.enricher;
 
-import java.util.LinkedList;
-
 import org.apache.brooklyn.api.catalog.Catalog;
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
@@ -27,6 +25,7 @@ import org.apache.brooklyn.api.sensor.SensorEvent;
 import org.apache.brooklyn.enricher.stock.AbstractTypeTransformingEnricher;
 import org.apache.brooklyn.util.core.flags.SetFromFlag;
 import org.apache.brooklyn.util.javalang.JavaClassNames;
+import org.apache.brooklyn.util.math.RollingDoubleWindow;
 
 
 /**
@@ -36,7 +35,7 @@ import org.apache.brooklyn.util.javalang.JavaClassNames;
 //@Catalog(name="Rolling Mean", description="Transforms a sensor into a rolling average based on a fixed "
 //        + "window size. This is useful for smoothing sample type metrics, such as latency or CPU time")
 public class RollingMeanEnricher<T extends Number> extends AbstractTypeTransformingEnricher<T,Double> {
-    private LinkedList<T> values = new LinkedList<T>();
+    private RollingDoubleWindow values = new RollingDoubleWindow();
     
     @SetFromFlag
     int windowSize;
@@ -55,27 +54,19 @@ public class RollingMeanEnricher<T extends Number> extends AbstractTypeTransform
     /** @returns null when no data has been received or windowSize is 0 */
     public Double getAverage() {
         pruneValues();
-        return values.size() == 0 ? null : sum(values) / values.size();
+        return values.size() == 0 ? null : values.getSum() / values.size();
     }
     
     @Override
     public void onEvent(SensorEvent<T> event) {
-        values.addLast(event.getValue());
+        values.add(event.getTimestamp(), event.getValue().doubleValue());
         pruneValues();
         entity.sensors().set((AttributeSensor<Double>)target, getAverage());
     }
     
     private void pruneValues() {
-        while(windowSize > -1 && values.size() > windowSize) {
-            values.removeFirst();
-        }
-    }
-    
-    private double sum(Iterable<? extends Number> vals) {
-        double result = 0;
-        for (Number val : vals) {
-            result += val.doubleValue();
+        if (windowSize > -1) {
+            values.pruneToSize(windowSize);
         }
-        return result;
     }
 }
@@ -209,4 +209,33 @@ public interface ApplicationApi {
             @DefaultValue(".*")
             @QueryParam("typeRegex") String typeRegex);
 
+    @GET
+    @Path("/{application}/sensors/stream")
+    @Produces("text/event-stream")
+    @ApiOperation(value = "Stream changes to sensor values of an application, or of an entity and its descendants, as server-sent events",
+            notes = "Sends current values first, then changes, coalesced per entity and sensor; "
+                    + "an 'overflow' event is sent if changes were dropped because the client is not keeping up")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Application or entity missing")
+    })
+    public Response streamSensors(
+            @ApiParam(value = "Application ID or name", required = true)
+            @PathParam("application") String application,
+            @ApiParam(value = "Entity ID or name, to stream only that entity and its descendants; defaults to the whole application", required = false)
+            @QueryParam("entity") String entity,
+            @ApiParam(value = "Glob of sensor names to include", required = false)
+            @DefaultValue("*")
+            @QueryParam("sensors") String sensorGlob,
+            @ApiParam(value = "Return raw sensor data instead of display values", required = false)
+            @DefaultValue("false")
+            @QueryParam("raw") Boolean raw,
+            @ApiParam(value = "Minimum period between updates for the same sensor, e.g. 500ms", required = false)
+            @DefaultValue("1s")
+            @QueryParam("coalesce") String coalescePeriod,
+            @ApiParam(value = "Maximum number of distinct pending sensor values held for this client", required = false)
+            @DefaultValue("1000")
+            @QueryParam("maxPending") Integer maxPending,
+            @ApiParam(value = "Maximum time to stream for, e.g. 1h; defaults to until the client disconnects", required = false)
+            @QueryParam("timeout") String timeout);
+
 }
@@ -20,21 +20,42 @@ package org.apache.brooklyn.rest.filter;
 
 import javax.annotation.Priority;
 import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.Provider;
 
+import org.apache.brooklyn.rest.util.ETags;
+
 @Provider
 @Priority(200)
-public class NoCacheFilter implements ContainerResponseFilter {
+public class NoCacheFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        // in case an earlier request on this thread did not get as far as the response filter
+        ETags.clearForCurrentResponse();
+    }
 
     @Override
     public void filter(ContainerRequestContext request, ContainerResponseContext response) {
         //https://developer.mozilla.org/en-US/docs/Web/HTTP/Caching_FAQ
         MultivaluedMap<String, Object> headers = response.getHeaders();
-        headers.putSingle(HttpHeaders.CACHE_CONTROL, "no-cache, no-store");
+        // always cleared here, so that it is not seen by the thread's next request
+        EntityTag etag = ETags.getAndClearForCurrentResponse();
+        if (etag != null && response.getStatus() == Response.Status.OK.getStatusCode()) {
+            // clients may keep the response, but must revalidate it (getting a 304 if unchanged)
+            headers.putSingle(HttpHeaders.ETAG, etag);
+            headers.putSingle(HttpHeaders.CACHE_CONTROL, "no-cache");
+        } else if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+            headers.putSingle(HttpHeaders.CACHE_CONTROL, "no-cache");
+        } else {
+            headers.putSingle(HttpHeaders.CACHE_CONTROL, "no-cache, no-store");
+        }
         headers.putSingle("Pragma", "no-cache");
         headers.putSingle(HttpHeaders.EXPIRES, "0");
     }
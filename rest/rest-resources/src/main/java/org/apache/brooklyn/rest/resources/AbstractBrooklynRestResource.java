@@ -19,7 +19,11 @@
 package org.apache.brooklyn.rest.resources;
 
 import javax.annotation.Nullable;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.ext.ContextResolver;
 
@@ -29,6 +33,7 @@ import org.apache.brooklyn.api.mgmt.ManagementContext;
 import org.apache.brooklyn.core.config.render.RendererHints;
 import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
 import org.apache.brooklyn.rest.util.BrooklynRestResourceUtils;
+import org.apache.brooklyn.rest.util.ETags;
 import org.apache.brooklyn.rest.util.ManagementContextProvider;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.rest.util.json.BrooklynJacksonJsonProvider;
@@ -44,6 +49,8 @@ public abstract class AbstractBrooklynRestResource {
 
     protected @Context UriInfo ui;
 
+    protected @Context Request request;
+
     @Context
     private ContextResolver<ManagementContext> mgmt;
 
@@ -73,6 +80,20 @@ public abstract class AbstractBrooklynRestResource {
         return brooklynRestResourceUtils;
     }
     
+    /**
+     * Responds with {@code 304 Not Modified} (by throwing) if the request's {@code If-None-Match} matches
+     * the given ETag; otherwise records the ETag to be sent with the response.
+     */
+    protected void checkNotModified(EntityTag etag) {
+        if (request != null) {
+            ResponseBuilder notModified = request.evaluatePreconditions(etag);
+            if (notModified != null) {
+                throw new WebApplicationException(notModified.build());
+            }
+        }
+        ETags.setForCurrentResponse(etag);
+    }
+
     protected ObjectMapper mapper() {
         return mapper(mgmt());
     }
@@ -30,6 +30,7 @@ import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
 import org.apache.brooklyn.rest.api.ActivityApi;
 import org.apache.brooklyn.rest.domain.TaskSummary;
 import org.apache.brooklyn.rest.transform.TaskTransformer;
+import org.apache.brooklyn.rest.util.ETags;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 
 import java.util.*;
@@ -81,7 +82,21 @@ public class ActivityResource extends AbstractBrooklynRestResource implements Ac
         if (!(t instanceof HasTaskChildren)) {
             return Collections.emptyList();
         }
-        return new LinkedList<TaskSummary>(Collections2.transform(Lists.newArrayList(((HasTaskChildren) t).getChildren()),
+        List<Task<?>> children = Lists.newArrayList(((HasTaskChildren) t).getChildren());
+        // summaries of running tasks include live status, so can only say "not modified" once all children are done
+        boolean allDone = true;
+        ETags.Builder etag = ETags.builder("task-children").put(taskId);
+        for (Task<?> child : children) {
+            if (!child.isDone()) {
+                allDone = false;
+                break;
+            }
+            etag.task(child);
+        }
+        if (allDone) {
+            checkNotModified(etag.build());
+        }
+        return new LinkedList<TaskSummary>(Collections2.transform(children,
                 TaskTransformer.fromTask(ui.getBaseUriBuilder())));
     }
 
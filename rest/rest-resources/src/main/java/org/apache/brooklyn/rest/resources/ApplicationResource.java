@@ -50,6 +50,7 @@ import org.apache.brooklyn.api.sensor.Sensor;
 import org.apache.brooklyn.api.typereg.RegisteredType;
 import org.apache.brooklyn.core.config.ConstraintViolationException;
 import org.apache.brooklyn.core.entity.Attributes;
+import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityPredicates;
 import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
 import org.apache.brooklyn.core.entity.trait.Startable;
@@ -74,6 +75,8 @@ import org.apache.brooklyn.rest.transform.ApplicationTransformer;
 import org.apache.brooklyn.rest.transform.EntityTransformer;
 import org.apache.brooklyn.rest.transform.TaskTransformer;
 import org.apache.brooklyn.rest.util.BrooklynRestResourceUtils;
+import org.apache.brooklyn.rest.util.ETags;
+import org.apache.brooklyn.rest.util.SensorEventStreamer;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.ResourceUtils;
@@ -177,9 +180,9 @@ public class ApplicationResource extends AbstractBrooklynRestResource implements
     @Override
     public List<EntityDetail> fetch(String entityIds) {
 
-        List<EntityDetail> entitySummaries = Lists.newArrayList();
+        List<Entity> entities = Lists.newArrayList();
         for (Entity application : mgmt().getApplications()) {
-            entitySummaries.add(fromEntity(application));
+            entities.add(application);
         }
 
         if (entityIds != null) {
@@ -193,12 +196,24 @@ public class ApplicationResource extends AbstractBrooklynRestResource implements
                 Entity entity = mgmt().getEntityManager().getEntity(entityId.trim());
                 while (entity != null && entity.getParent() != null) {
                     if (Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, entity)) {
-                        entitySummaries.add(fromEntity(entity));
+                        entities.add(entity);
                     }
                     entity = entity.getParent();
                 }
             }
         }
+        
+        // details include all descendants, so they all contribute to the ETag
+        ETags.Builder etag = ETags.builder("fetch");
+        for (Entity entity : entities) {
+            etag.entities(Entities.descendantsAndSelf(entity));
+        }
+        checkNotModified(etag.build());
+        
+        List<EntityDetail> entitySummaries = Lists.newArrayList();
+        for (Entity entity : entities) {
+            entitySummaries.add(fromEntity(entity));
+        }
         return entitySummaries;
     }
 
@@ -465,6 +480,33 @@ public class ApplicationResource extends AbstractBrooklynRestResource implements
         return getSensorMap(sensor, descs);
     }
 
+    @Override
+    public Response streamSensors(String application, String entityToken, String sensorGlob, Boolean raw,
+            String coalescePeriod, Integer maxPending, String timeout) {
+        Entity root = Strings.isBlank(entityToken) ? brooklyn().getApplication(application) : brooklyn().getEntity(application, entityToken);
+        if (!Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, root)) {
+            throw WebResourceUtils.forbidden("User '%s' is not authorized to see entity '%s'",
+                    Entitlements.getEntitlementContext().user(), root);
+        }
+        Duration coalesce, maxDuration;
+        try {
+            coalesce = Duration.parse(coalescePeriod);
+            maxDuration = Strings.isBlank(timeout) ? null : Duration.parse(timeout);
+        } catch (Exception e) {
+            throw WebResourceUtils.badRequest(e, "Invalid duration");
+        }
+        if (maxPending == null || maxPending <= 0) {
+            throw WebResourceUtils.badRequest("maxPending must be positive");
+        }
+        
+        // entitlements are checked against the requesting user as events arrive, on other threads
+        SensorEventStreamer streamer = new SensorEventStreamer(mgmt(), root, sensorGlob, Entitlements.getEntitlementContext(),
+                mapper(), Boolean.TRUE.equals(raw), coalesce, maxPending, maxDuration);
+        return Response.ok(streamer, SensorEventStreamer.MEDIA_TYPE)
+                .header("Cache-Control", "no-cache")
+                .build();
+    }
+
     public static Map<String, Object> getSensorMap(String sensor, Iterable<Entity> descs) {
         if (Iterables.isEmpty(descs))
             return Collections.emptyMap();
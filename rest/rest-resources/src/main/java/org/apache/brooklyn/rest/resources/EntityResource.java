@@ -54,6 +54,7 @@ import org.apache.brooklyn.rest.transform.EntityTransformer;
 import org.apache.brooklyn.rest.transform.LocationTransformer;
 import org.apache.brooklyn.rest.transform.LocationTransformer.LocationDetailLevel;
 import org.apache.brooklyn.rest.transform.TaskTransformer;
+import org.apache.brooklyn.rest.util.ETags;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.core.ResourceUtils;
@@ -78,9 +79,13 @@ public class EntityResource extends AbstractBrooklynRestResource implements Enti
     
     @Override
     public List<EntitySummary> list(final String application) {
-        return FluentIterable
+        List<Entity> children = FluentIterable
                 .from(brooklyn().getApplication(application).getChildren())
                 .filter(EntitlementPredicates.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY))
+                .toList();
+        checkNotModified(ETags.builder("entities").entities(children).build());
+        return FluentIterable
+                .from(children)
                 .transform(EntityTransformer.fromEntity(ui.getBaseUriBuilder()))
                 .toList();
     }
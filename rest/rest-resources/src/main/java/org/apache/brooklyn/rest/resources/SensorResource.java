@@ -34,6 +34,7 @@ import org.apache.brooklyn.rest.api.SensorApi;
 import org.apache.brooklyn.rest.domain.SensorSummary;
 import org.apache.brooklyn.rest.filter.HaHotStateRequired;
 import org.apache.brooklyn.rest.transform.SensorTransformer;
+import org.apache.brooklyn.rest.util.ETags;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.core.task.ValueResolver;
 import org.apache.brooklyn.util.text.Strings;
@@ -80,6 +81,8 @@ public class SensorResource extends AbstractBrooklynRestResource implements Sens
                     Entitlements.getEntitlementContext().user(), entity);
         }
 
+        checkNotModified(ETags.builder("sensors").put(raw).entity(entity).build());
+
         Map<String, Object> sensorMap = Maps.newHashMap();
         @SuppressWarnings("rawtypes")
         Iterable<AttributeSensor> sensors = filter(entity.getEntityType().getSensors(), AttributeSensor.class);
@@ -69,13 +69,13 @@ import org.apache.brooklyn.util.core.flags.TypeCoercions;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.javalang.Reflections;
 import org.apache.brooklyn.util.net.Urls;
+import org.apache.brooklyn.util.text.StringPredicates;
 import org.apache.brooklyn.util.text.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
@@ -593,14 +593,11 @@ public class BrooklynRestResourceUtils {
     }
 
     public Iterable<Entity> descendantsOfType(String application, String entity, final String typeRegex) {
-        Iterable<Entity> result = descendantsOfAnyType(application, entity);
-        return Iterables.filter(result, new Predicate<Entity>() {
-            @Override
-            public boolean apply(Entity entity) {
-                if (entity==null) return false;
-                return (entity.getEntityType().getName().matches(typeRegex));
-            }
-        });
+        if (Strings.isBlank(typeRegex) || ".*".equals(typeRegex)) {
+            return descendantsOfAnyType(application, entity);
+        }
+        // looks up the entities of the matching types, rather than walking what may be a large tree
+        return Entities.descendantsAndSelfWithTypeName(getEntity(application, entity), StringPredicates.<String>matchesRegex(typeRegex));
     }
 
     public void reloadBrooklynProperties() {
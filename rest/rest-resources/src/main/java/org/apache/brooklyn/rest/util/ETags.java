@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.core.EntityTag;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.core.mgmt.internal.EntityManagementSupport;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Computes ETags for REST responses from cheap change indicators, such as the per-entity
+ * {@link org.apache.brooklyn.core.mgmt.internal.EntityManagementSupport#getChangeCount() change count},
+ * so that unchanged responses can be answered with {@code 304 Not Modified} without building them.
+ * <p>
+ * The ETag for the current request is held in a thread-local until the response is sent,
+ * where {@link org.apache.brooklyn.rest.filter.NoCacheFilter} adds it as a header; that filter also
+ * clears it at the start and end of every request, so it cannot leak to the thread's next request.
+ */
+@Beta
+public class ETags {
+
+    private static final ThreadLocal<EntityTag> currentResponseETag = new ThreadLocal<EntityTag>();
+
+    /** Builds an ETag; the requesting user is always included, as entitlements affect what is returned. */
+    public static class Builder {
+        private final Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        private Builder(String discriminator) {
+            EntitlementContext context = Entitlements.getEntitlementContext();
+            putString(context == null ? null : context.user());
+            putString(discriminator);
+        }
+
+        public Builder put(@Nullable Object value) {
+            putString(value == null ? null : value.toString());
+            return this;
+        }
+
+        /**
+         * includes the entity's identity and its change count, with the change count's epoch and the management node,
+         * as the count is not persisted so restarts at zero after a restart, rebind or failover
+         */
+        public Builder entity(Entity entity) {
+            EntityManagementSupport managementSupport = ((EntityInternal) entity).getManagementSupport();
+            putString(entity.getId());
+            putString(((EntityInternal) entity).getManagementContext().getManagementNodeId());
+            putString(managementSupport.getChangeEpoch());
+            hasher.putLong(managementSupport.getChangeCount());
+            return this;
+        }
+
+        public Builder entities(Iterable<? extends Entity> entities) {
+            for (Entity entity : entities) {
+                entity(entity);
+            }
+            return this;
+        }
+
+        /** includes the task's identity and whether (and when) it completed */
+        public Builder task(Task<?> task) {
+            putString(task.getId());
+            hasher.putBoolean(task.isDone());
+            hasher.putLong(task.isDone() ? task.getEndTimeUtc() : -1);
+            return this;
+        }
+
+        private void putString(@Nullable String value) {
+            if (value == null) {
+                hasher.putInt(-1);
+            } else {
+                hasher.putInt(value.length());
+                hasher.putString(value, Charsets.UTF_8);
+            }
+        }
+
+        public EntityTag build() {
+            return new EntityTag(hasher.hash().toString());
+        }
+    }
+
+    public static Builder builder(String discriminator) {
+        return new Builder(discriminator);
+    }
+
+    /** records the ETag to be sent with the response to the current request */
+    public static void setForCurrentResponse(@Nullable EntityTag etag) {
+        if (etag == null) {
+            currentResponseETag.remove();
+        } else {
+            currentResponseETag.set(etag);
+        }
+    }
+
+    /** clears any ETag recorded for the current request */
+    public static void clearForCurrentResponse() {
+        currentResponseETag.remove();
+    }
+
+    /** returns and clears any ETag recorded for the current request */
+    @Nullable
+    public static EntityTag getAndClearForCurrentResponse() {
+        EntityTag result = currentResponseETag.get();
+        currentResponseETag.remove();
+        return result;
+    }
+}
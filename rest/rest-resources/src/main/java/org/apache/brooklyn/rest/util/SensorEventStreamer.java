@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.api.mgmt.SubscriptionHandle;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.Sensor;
+import org.apache.brooklyn.api.sensor.SensorEvent;
+import org.apache.brooklyn.api.sensor.SensorEventListener;
+import org.apache.brooklyn.core.entity.AbstractEntity;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements.EntityAndItem;
+import org.apache.brooklyn.core.sensor.BasicSensorEvent;
+import org.apache.brooklyn.rest.resources.AbstractBrooklynRestResource.RestValueResolver;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.text.WildcardGlobs;
+import org.apache.brooklyn.util.time.CountdownTimer;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Streams changes to attribute sensors of an entity and its descendants as
+ * <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">server-sent events</a>.
+ * <p>
+ * Events come from a subscription in the {@link org.apache.brooklyn.api.mgmt.SubscriptionManager} to each entity
+ * in the subtree (following children as they are added and removed), so events elsewhere cost nothing; whether
+ * each entity and sensor can be seen is checked once, when first streamed.
+ * The current values are sent first, and after that only changes. Changes are coalesced per entity and
+ * sensor, so a client gets at most one value per sensor in each period. At most {@code maxPending}
+ * distinct entity-sensor values are buffered per client. Further changes are dropped, and the
+ * client is sent an {@code overflow} event so it can re-read the current state.
+ * <p>
+ * Each event is written as {@code event: sensor} with JSON data containing
+ * {@code entity}, {@code sensor}, {@code value} and {@code timestamp}.
+ * The stream ends when the client disconnects, the root entity is unmanaged, or {@code maxDuration} elapses.
+ */
+@Beta
+public class SensorEventStreamer implements StreamingOutput {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorEventStreamer.class);
+
+    public static final String MEDIA_TYPE = "text/event-stream";
+
+    /** how often a comment line is written when there is nothing to send, so dead clients are detected */
+    private static final Duration HEARTBEAT_PERIOD = Duration.seconds(15);
+
+    private final ManagementContext mgmt;
+    private final Entity root;
+    private final String sensorGlob;
+    private final EntitlementContext entitlementContext;
+    private final ObjectMapper mapper;
+    private final boolean raw;
+    private final Duration coalescePeriod;
+    private final int maxPending;
+    private final Duration maxDuration;
+
+    /** latest pending value for each entity and sensor; guarded by itself */
+    private final Map<String, SensorEvent<?>> pending = new LinkedHashMap<String, SensorEvent<?>>();
+    private final AtomicLong droppedCount = new AtomicLong();
+    /** subscription to each entity in the subtree; guarded by itself, as is {@link #closed} */
+    private final Map<String, SubscriptionHandle> subscriptions = new HashMap<String, SubscriptionHandle>();
+    private boolean closed = false;
+    /** whether each sensor (by entity id and sensor name) matches the glob and may be seen */
+    private final ConcurrentMap<String, Boolean> sensorVisibility = new ConcurrentHashMap<String, Boolean>();
+    private long eventId = 0;
+
+    public SensorEventStreamer(ManagementContext mgmt, Entity root, @Nullable String sensorGlob,
+            @Nullable EntitlementContext entitlementContext, ObjectMapper mapper, boolean raw,
+            Duration coalescePeriod, int maxPending, @Nullable Duration maxDuration) {
+        this.mgmt = checkNotNull(mgmt, "mgmt");
+        this.root = checkNotNull(root, "root");
+        this.sensorGlob = Strings.isBlank(sensorGlob) ? "*" : sensorGlob;
+        this.entitlementContext = entitlementContext;
+        this.mapper = checkNotNull(mapper, "mapper");
+        this.raw = raw;
+        this.coalescePeriod = Duration.max(checkNotNull(coalescePeriod, "coalescePeriod"), Duration.millis(10));
+        this.maxPending = maxPending;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, Charsets.UTF_8);
+        try {
+            subscribe();
+            CountdownTimer timer = (maxDuration == null) ? null : CountdownTimer.newInstanceStarted(maxDuration);
+            CountdownTimer heartbeat = CountdownTimer.newInstanceStarted(HEARTBEAT_PERIOD);
+            while (true) {
+                if (writePending(writer)) {
+                    heartbeat = CountdownTimer.newInstanceStarted(HEARTBEAT_PERIOD);
+                } else if (heartbeat.isExpired()) {
+                    writer.write(":\n\n");
+                    writer.flush();
+                    heartbeat = CountdownTimer.newInstanceStarted(HEARTBEAT_PERIOD);
+                }
+                if (!Entities.isManaged(root)) {
+                    writeEvent(writer, "end", MutableMap.<String, Object>of("reason", "unmanaged"));
+                    writer.flush();
+                    break;
+                }
+                if (timer != null && timer.isExpired()) {
+                    writeEvent(writer, "end", MutableMap.<String, Object>of("reason", "timeout"));
+                    writer.flush();
+                    break;
+                }
+                Thread.sleep(coalescePeriod.toMilliseconds());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // client went away
+            if (log.isDebugEnabled()) log.debug("Sensor event stream for "+root+" closed: "+e);
+        } finally {
+            unsubscribe();
+        }
+    }
+
+    /** subscribes to the root and its descendants, and queues their current values */
+    @VisibleForTesting
+    void subscribe() {
+        subscribeSubtree(root);
+    }
+
+    @VisibleForTesting
+    void unsubscribe() {
+        synchronized (subscriptions) {
+            closed = true;
+            for (SubscriptionHandle subscription : subscriptions.values()) {
+                mgmt.getSubscriptionManager().unsubscribe(subscription);
+            }
+            subscriptions.clear();
+        }
+    }
+
+    private void subscribeSubtree(Entity top) {
+        for (Entity entity : Entities.descendantsAndSelf(top)) {
+            if (subscribe(entity)) enqueueCurrentValues(entity);
+        }
+    }
+
+    private void unsubscribeSubtree(Entity top) {
+        synchronized (subscriptions) {
+            for (Entity entity : Entities.descendantsAndSelf(top)) {
+                SubscriptionHandle subscription = subscriptions.remove(entity.getId());
+                if (subscription != null) mgmt.getSubscriptionManager().unsubscribe(subscription);
+            }
+        }
+    }
+
+    /**
+     * Subscribes to the entity's sensors, to stream its attributes (if it can be seen) and follow changes to its children;
+     * returns true if newly subscribed and its attributes are streamed.
+     */
+    private boolean subscribe(Entity entity) {
+        synchronized (subscriptions) {
+            if (closed || subscriptions.containsKey(entity.getId())) return false;
+            final boolean visible = mgmt.getEntitlementManager().isEntitled(entitlementContext, Entitlements.SEE_ENTITY, entity);
+            subscriptions.put(entity.getId(), mgmt.getSubscriptionManager().subscribe(
+                    MutableMap.<String, Object>of("subscriber", this), entity, (Sensor<Object>) null,
+                    new SensorEventListener<Object>() {
+                        @Override public void onEvent(SensorEvent<Object> event) {
+                            if (AbstractEntity.CHILD_ADDED.equals(event.getSensor())) {
+                                subscribeSubtree((Entity) event.getValue());
+                            } else if (AbstractEntity.CHILD_REMOVED.equals(event.getSensor())) {
+                                unsubscribeSubtree((Entity) event.getValue());
+                            } else if (visible) {
+                                onSensorEvent(event);
+                            }
+                        }}));
+            return visible;
+        }
+    }
+
+    /** queues an event from an entity in the subtree which can be seen, if its sensor is included */
+    @VisibleForTesting
+    void onSensorEvent(SensorEvent<?> event) {
+        Entity source = event.getSource();
+        if (!(event.getSensor() instanceof AttributeSensor) || source == null) return;
+        String key = source.getId() + "/" + event.getSensor().getName();
+        if (!isSensorVisible(key, source, event.getSensor().getName())) return;
+
+        synchronized (pending) {
+            if (pending.size() >= maxPending && !pending.containsKey(key)) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+            pending.put(key, event);
+        }
+    }
+
+    private boolean isSensorVisible(String key, Entity source, String sensorName) {
+        Boolean result = sensorVisibility.get(key);
+        if (result == null) {
+            result = WildcardGlobs.isGlobMatched(sensorGlob, sensorName)
+                    && mgmt.getEntitlementManager().isEntitled(entitlementContext, Entitlements.SEE_SENSOR, new EntityAndItem<String>(source, sensorName));
+            sensorVisibility.put(key, result);
+        }
+        return result;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void enqueueCurrentValues(Entity entity) {
+        for (Sensor<?> sensor : entity.getEntityType().getSensors()) {
+            if (!(sensor instanceof AttributeSensor)) continue;
+            Object value = entity.getAttribute((AttributeSensor<?>) sensor);
+            if (value == null) continue;
+            onSensorEvent(new BasicSensorEvent((AttributeSensor) sensor, entity, value));
+        }
+    }
+
+    /** writes and flushes all pending events; returns whether anything was written */
+    @VisibleForTesting
+    boolean writePending(Writer writer) throws IOException {
+        boolean written = false;
+        long dropped = droppedCount.getAndSet(0);
+        if (dropped > 0) {
+            writeEvent(writer, "overflow", MutableMap.<String, Object>of("dropped", dropped));
+            written = true;
+        }
+        List<SensorEvent<?>> events;
+        synchronized (pending) {
+            events = ImmutableList.copyOf(pending.values());
+            pending.clear();
+        }
+        for (SensorEvent<?> event : events) {
+            writeEvent(writer, "sensor", MutableMap.<String, Object>of(
+                    "entity", event.getSource().getId(),
+                    "sensor", event.getSensor().getName(),
+                    "value", resolve(event),
+                    "timestamp", event.getTimestamp()));
+            written = true;
+        }
+        if (written) writer.flush();
+        return written;
+    }
+
+    private Object resolve(SensorEvent<?> event) {
+        try {
+            return RestValueResolver.resolving(event.getValue()).mapper(mapper).preferJson(true)
+                    .asJerseyOutermostReturnValue(false).raw(raw).context(event.getSource())
+                    .timeout(Duration.ZERO).renderAs(event.getSensor()).resolve();
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            log.debug("Unable to resolve value of "+event+" for sensor event stream (sending as string): "+e);
+            return String.valueOf(event.getValue());
+        }
+    }
+
+    private void writeEvent(Writer writer, String type, Map<String, Object> data) throws IOException {
+        writer.write("id: " + (++eventId) + "\n");
+        writer.write("event: " + type + "\n");
+        writer.write("data: " + mapper.writeValueAsString(data) + "\n\n");
+    }
+}
@@ -19,9 +19,12 @@
 package org.apache.brooklyn.rest.resources;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
 
 import java.util.Map;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -33,6 +36,7 @@ import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.rest.api.SensorApi;
 import org.apache.brooklyn.rest.domain.ApplicationSpec;
 import org.apache.brooklyn.rest.domain.EntitySpec;
+import org.apache.brooklyn.rest.filter.NoCacheFilter;
 import org.apache.brooklyn.rest.test.config.render.TestRendererHints;
 import org.apache.brooklyn.rest.testing.BrooklynRestResourceTest;
 import org.apache.brooklyn.rest.testing.mocks.RestMockSimpleEntity;
@@ -74,6 +78,13 @@ public class SensorResourceTest extends BrooklynRestResourceTest {
 
     EntityInternal entity;
 
+    @Override
+    protected void addDefaultResources() {
+        super.addDefaultResources();
+        // adds the ETag header to responses
+        addResource(new NoCacheFilter());
+    }
+
     /**
      * Sets up the application and entity.
      * <p>
@@ -120,6 +131,34 @@ public class SensorResourceTest extends BrooklynRestResourceTest {
         }
     }
 
+    @Test
+    public void testBatchSensorReadNotModifiedUntilSensorChanges() throws Exception {
+        Response first = client().path(SENSORS_ENDPOINT + "/current-state")
+                .accept(MediaType.APPLICATION_JSON)
+                .get();
+        assertEquals(first.getStatus(), 200);
+        String etag = first.getHeaderString(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        Response unchanged = client().path(SENSORS_ENDPOINT + "/current-state")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .get();
+        assertEquals(unchanged.getStatus(), 304);
+
+        entity.sensors().set(SENSOR, 54321);
+        try {
+            Response changed = client().path(SENSORS_ENDPOINT + "/current-state")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.IF_NONE_MATCH, etag)
+                    .get();
+            assertEquals(changed.getStatus(), 200);
+            assertNotEquals(changed.getHeaderString(HttpHeaders.ETAG), etag);
+        } finally {
+            entity.sensors().set(SENSOR, 12345);
+        }
+    }
+
     /** Check setting {@code raw} to {@code true} ignores display value hint. */
     @Test(dependsOnMethods = "testBatchSensorRead")
     public void testBatchSensorReadRaw() throws Exception {
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.concurrent.Callable;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementClass;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementManager;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements.EntityAndItem;
+import org.apache.brooklyn.core.mgmt.entitlement.WebEntitlementContext;
+import org.apache.brooklyn.core.sensor.BasicSensorEvent;
+import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.rest.util.json.BrooklynJacksonJsonProvider;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.brooklyn.util.time.Time;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+
+public class SensorEventStreamerTest extends BrooklynAppUnitTestSupport {
+
+    @Test
+    public void testCoalescesChangesToSameSensor() throws Exception {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        SensorEventStreamer streamer = newStreamer(app, "*", 100);
+
+        streamer.onSensorEvent(new BasicSensorEvent<String>(TestEntity.NAME, entity, "first"));
+        streamer.onSensorEvent(new BasicSensorEvent<String>(TestEntity.NAME, entity, "second"));
+
+        String output = writePending(streamer);
+        assertEquals(countOccurrences(output, "event: sensor"), 1, "output="+output);
+        assertTrue(output.contains("\"value\":\"second\""), "output="+output);
+        assertTrue(output.contains("\"entity\":\""+entity.getId()+"\""), "output="+output);
+        assertEquals(writePending(streamer), "");
+    }
+
+    @Test
+    public void testFiltersBySensorGlobAndSubtree() throws Exception {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity sibling = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        SensorEventStreamer streamer = newStreamer(entity, "test.seq*", 100);
+        streamer.subscribe();
+        try {
+            entity.sensors().set(TestEntity.NAME, "excluded-by-glob");
+            sibling.sensors().set(TestEntity.SEQUENCE, 2);
+            entity.sensors().set(TestEntity.SEQUENCE, 1);
+
+            String output = writePendingEventually(streamer);
+            assertEquals(countOccurrences(output, "event: sensor"), 1, "output="+output);
+            assertTrue(output.contains("\"sensor\":\"test.sequence\""), "output="+output);
+            assertFalse(output.contains(sibling.getId()), "output="+output);
+        } finally {
+            streamer.unsubscribe();
+        }
+    }
+
+    @Test
+    public void testFollowsChildrenAddedToSubtree() throws Exception {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        SensorEventStreamer streamer = newStreamer(entity, "test.sequence", 100);
+        streamer.subscribe();
+        try {
+            TestEntity child = entity.addChild(EntitySpec.create(TestEntity.class));
+            // streamed whether set before the child is subscribed to (as a current value) or after (as a change)
+            child.sensors().set(TestEntity.SEQUENCE, 3);
+
+            String output = writePendingEventually(streamer);
+            assertTrue(output.contains("\"entity\":\""+child.getId()+"\""), "output="+output);
+        } finally {
+            streamer.unsubscribe();
+        }
+    }
+
+    @Test
+    public void testFiltersByEntitlements() throws Exception {
+        TestEntity visible = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity hidden = app.createAndManageChild(EntitySpec.create(TestEntity.class).displayName(HIDDEN_ENTITY_NAME));
+        SensorEventStreamer streamer = new SensorEventStreamer(mgmt, app, "test.*", new WebEntitlementContext(RESTRICTED_USER, null, null, null),
+                BrooklynJacksonJsonProvider.findAnyObjectMapper(mgmt), false, Duration.ONE_SECOND, 100, null);
+        streamer.subscribe();
+        try {
+            hidden.sensors().set(TestEntity.SEQUENCE, 1);
+            visible.sensors().set(TestEntity.NAME, HIDDEN_SENSOR_VALUE);
+            visible.sensors().set(TestEntity.SEQUENCE, 2);
+
+            String output = writePendingEventually(streamer);
+            assertTrue(output.contains("\"value\":2"), "output="+output);
+            assertFalse(output.contains(hidden.getId()), "output="+output);
+            assertFalse(output.contains(HIDDEN_SENSOR_VALUE), "output="+output);
+        } finally {
+            streamer.unsubscribe();
+        }
+    }
+
+    @Test
+    public void testReportsOverflowWhenTooManyPending() throws Exception {
+        TestEntity entity1 = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity entity2 = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        SensorEventStreamer streamer = newStreamer(app, "*", 1);
+
+        streamer.onSensorEvent(new BasicSensorEvent<Integer>(TestEntity.SEQUENCE, entity1, 1));
+        streamer.onSensorEvent(new BasicSensorEvent<Integer>(TestEntity.SEQUENCE, entity2, 2));
+        // same key as the pending value, so is not dropped
+        streamer.onSensorEvent(new BasicSensorEvent<Integer>(TestEntity.SEQUENCE, entity1, 3));
+
+        String output = writePending(streamer);
+        assertTrue(output.contains("event: overflow"), "output="+output);
+        assertTrue(output.contains("\"dropped\":1"), "output="+output);
+        assertTrue(output.contains("\"value\":3"), "output="+output);
+        assertFalse(output.contains(entity2.getId()), "output="+output);
+    }
+
+    @Test
+    public void testStreamSendsCurrentValuesThenEnds() throws Exception {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        entity.sensors().set(TestEntity.SEQUENCE, 123);
+        SensorEventStreamer streamer = new SensorEventStreamer(mgmt, app, "test.sequence", null,
+                BrooklynJacksonJsonProvider.findAnyObjectMapper(mgmt), false, Duration.millis(10), 100, Duration.millis(200));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.write(out);
+        String output = new String(out.toByteArray(), Charsets.UTF_8);
+
+        assertTrue(output.contains("\"value\":123"), "output="+output);
+        assertTrue(output.contains("event: end"), "output="+output);
+    }
+
+    @Override
+    protected BrooklynProperties getBrooklynProperties() {
+        BrooklynProperties result = BrooklynProperties.Factory.newEmpty();
+        result.put(Entitlements.GLOBAL_ENTITLEMENT_MANAGER, RestrictingEntitlementManager.class.getName());
+        return result;
+    }
+
+    private static final String RESTRICTED_USER = "restricted";
+    private static final String HIDDEN_ENTITY_NAME = "hidden";
+    private static final String HIDDEN_SENSOR_VALUE = "hidden-value";
+
+    /** hides entities named {@link #HIDDEN_ENTITY_NAME} and the {@link TestEntity#NAME} sensor from {@link #RESTRICTED_USER} */
+    public static class RestrictingEntitlementManager implements EntitlementManager {
+        @Override
+        public <T> boolean isEntitled(EntitlementContext context, EntitlementClass<T> entitlementClass, T entitlementClassArgument) {
+            if (context == null || !RESTRICTED_USER.equals(context.user())) return true;
+            if (Entitlements.SEE_ENTITY.equals(entitlementClass)) {
+                return !HIDDEN_ENTITY_NAME.equals(((Entity) entitlementClassArgument).getDisplayName());
+            }
+            if (Entitlements.SEE_SENSOR.equals(entitlementClass)) {
+                return !TestEntity.NAME.getName().equals(((EntityAndItem<?>) entitlementClassArgument).getItem());
+            }
+            return true;
+        }
+    }
+
+    private SensorEventStreamer newStreamer(Entity root, String glob, int maxPending) {
+        return new SensorEventStreamer(mgmt, root, glob, null, BrooklynJacksonJsonProvider.findAnyObjectMapper(mgmt),
+                false, Duration.ONE_SECOND, maxPending, null);
+    }
+
+    private String writePending(SensorEventStreamer streamer) throws Exception {
+        StringWriter writer = new StringWriter();
+        streamer.writePending(writer);
+        return writer.toString();
+    }
+
+    /** waits for pending events (delivered asynchronously by subscriptions), then writes everything pending */
+    private String writePendingEventually(final SensorEventStreamer streamer) throws Exception {
+        final StringBuilder result = new StringBuilder();
+        Asserts.succeedsEventually(new Callable<Void>() {
+            @Override public Void call() throws Exception {
+                result.append(writePending(streamer));
+                assertTrue(result.toString().contains("event: sensor"), "output="+result);
+                return null;
+            }});
+        // allow any other events published at the same time to be delivered
+        Time.sleep(Duration.millis(100));
+        result.append(writePending(streamer));
+        return result.toString();
+    }
+
+    private int countOccurrences(String text, String match) {
+        return text.split(match, -1).length - 1;
+    }
+}
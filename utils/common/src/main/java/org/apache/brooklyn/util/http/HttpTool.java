@@ -39,6 +39,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.annotation.Nullable;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLSession;
@@ -82,6 +83,7 @@ import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -460,7 +462,7 @@ public class HttpTool {
     }
     
     public static class HttpPostBuilder extends HttpEntityEnclosingRequestBaseBuilder<HttpPostBuilder, HttpPost> {
-        HttpPostBuilder(URI uri) {
+        public HttpPostBuilder(URI uri) {
             super(new HttpPost(uri));
         }
     }
@@ -544,9 +546,17 @@ public class HttpTool {
     }
     
     public static HttpToolResponse execAndConsume(HttpClient httpClient, HttpUriRequest req) {
+        return execAndConsume(httpClient, req, null);
+    }
+
+    /**
+     * As {@link #execAndConsume(HttpClient, HttpUriRequest)}, but with the given context for the request
+     * (e.g. holding its credentials, so that the client can be shared by requests with different credentials).
+     */
+    public static HttpToolResponse execAndConsume(HttpClient httpClient, HttpUriRequest req, @Nullable HttpContext context) {
         long startTime = System.currentTimeMillis();
         try {
-            HttpResponse httpResponse = httpClient.execute(req);
+            HttpResponse httpResponse = (context != null) ? httpClient.execute(req, context) : httpClient.execute(req);
             
             try {
                 return new HttpToolResponse(httpResponse, startTime);
@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.http.executor.apacheclient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.http.HttpTool;
+import org.apache.brooklyn.util.http.HttpToolResponse;
+import org.apache.brooklyn.util.http.executor.Credentials;
+import org.apache.brooklyn.util.http.executor.HttpConfig;
+import org.apache.brooklyn.util.http.executor.HttpExecutor;
+import org.apache.brooklyn.util.http.executor.HttpRequest;
+import org.apache.brooklyn.util.http.executor.HttpResponse;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * An {@link HttpExecutor} which keeps connections open in a pool, to be re-used by later requests
+ * to the same host (rather than creating a client and connection for each request, as {@link HttpExecutorImpl} does),
+ * so that it can be shared by many callers, such as all the http feeds of a management context.
+ * <p>
+ * There is a pool for each combination of {@link HttpConfig} settings, limited to {@link #MAX_CONNECTIONS_PER_HOST}
+ * connections to each host and {@link #MAX_CONNECTIONS_TOTAL} in all; connections idle for longer than
+ * {@link #IDLE_TIMEOUT} are closed. Credentials are given to each request, rather than to the shared client.
+ * <p>
+ * Concurrent identical GET and HEAD requests are deduplicated: while one is in progress, the same request
+ * from another caller waits for its response, rather than being sent again. Responses are read in full,
+ * so can be read by each caller.
+ * <p>
+ * Requests are synchronous, as for all {@link HttpExecutor} implementations, and use HTTP/1.1.
+ */
+@Beta
+public class PooledHttpExecutorImpl implements HttpExecutor, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PooledHttpExecutorImpl.class);
+
+    /** property for the maximum number of connections in each pool */
+    public static final String MAX_CONNECTIONS_TOTAL = "maxConnectionsTotal";
+
+    /** property for the maximum number of connections to each host (strictly, route) in each pool */
+    public static final String MAX_CONNECTIONS_PER_HOST = "maxConnectionsPerHost";
+
+    /** property for the time after which idle connections are closed */
+    public static final String IDLE_TIMEOUT = "idleTimeout";
+
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 200;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.THIRTY_SECONDS;
+
+    private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+
+    private static final HttpConfig DEFAULT_CONFIG = HttpConfig.builder()
+            .laxRedirect(false)
+            .trustAll(false)
+            .trustSelfSigned(false)
+            .build();
+
+    private final int maxConnectionsTotal;
+    private final int maxConnectionsPerHost;
+    private final Duration idleTimeout;
+
+    /** clients (each with its own pool), keyed by laxRedirect, trustAll and trustSelfSigned */
+    private final Map<List<Boolean>, HttpClient> clients = Maps.newLinkedHashMap();
+    private final ConcurrentMap<RequestKey, ListenableFuture<HttpResponse>> inProgress = new ConcurrentHashMap<RequestKey, ListenableFuture<HttpResponse>>();
+    private final AtomicLong lastIdleCheck = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong dedupedCount = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * A must have constructor, for {@code HttpExecutorFactory}.
+     * Supports properties {@link #MAX_CONNECTIONS_TOTAL}, {@link #MAX_CONNECTIONS_PER_HOST} and {@link #IDLE_TIMEOUT}.
+     */
+    public PooledHttpExecutorImpl(Map<?, ?> props) {
+        this(toInt(props.get(MAX_CONNECTIONS_TOTAL), DEFAULT_MAX_CONNECTIONS_TOTAL),
+                toInt(props.get(MAX_CONNECTIONS_PER_HOST), DEFAULT_MAX_CONNECTIONS_PER_HOST),
+                props.get(IDLE_TIMEOUT) != null ? Duration.of(props.get(IDLE_TIMEOUT)) : DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public PooledHttpExecutorImpl() {
+        this(DEFAULT_MAX_CONNECTIONS_TOTAL, DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public PooledHttpExecutorImpl(int maxConnectionsTotal, int maxConnectionsPerHost, Duration idleTimeout) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeout = idleTimeout;
+    }
+
+    private static int toInt(Object val, int defaultVal) {
+        if (val == null) return defaultVal;
+        if (val instanceof Number) return ((Number) val).intValue();
+        return Integer.parseInt(val.toString().trim());
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        String method = request.method().toUpperCase();
+        if (!(HttpExecutor.GET.equals(method) || HttpExecutor.HEAD.equals(method))) {
+            return executeNow(request);
+        }
+
+        RequestKey key = new RequestKey(request);
+        SettableFuture<HttpResponse> future = SettableFuture.create();
+        ListenableFuture<HttpResponse> existing = inProgress.putIfAbsent(key, future);
+        if (existing != null) {
+            dedupedCount.incrementAndGet();
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                Throwables.propagateIfPossible(e.getCause(), IOException.class);
+                throw Exceptions.propagate(e.getCause());
+            } catch (InterruptedException e) {
+                throw Exceptions.propagate(e);
+            }
+        }
+        try {
+            HttpResponse response = executeNow(request);
+            future.set(response);
+            return response;
+        } catch (Throwable t) {
+            future.setException(t);
+            Throwables.propagateIfPossible(t, IOException.class);
+            throw Exceptions.propagate(t);
+        } finally {
+            inProgress.remove(key, future);
+        }
+    }
+
+    protected HttpResponse executeNow(HttpRequest request) throws IOException {
+        if (closed) throw new IllegalStateException("Executor "+this+" has been closed");
+        requestCount.incrementAndGet();
+        closeIdleConnectionsIfDue();
+
+        HttpConfig config = (request.config() != null) ? request.config() : DEFAULT_CONFIG;
+        HttpClient httpClient = getClient(config);
+        URI uri = request.uri();
+
+        HttpClientContext context = HttpClientContext.create();
+        // the clients are shared by all callers, so cookies set for one request must not be sent on others
+        context.setCookieStore(new BasicCookieStore());
+        if (request.credentials() != null) {
+            CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            credentialsProvider.setCredentials(new AuthScope(uri.getHost(), uri.getPort()),
+                    new UsernamePasswordCredentials(request.credentials().getUser(), request.credentials().getPassword()));
+            context.setCredentialsProvider(credentialsProvider);
+        }
+
+        HttpUriRequest req;
+        switch (request.method().toUpperCase()) {
+        case HttpExecutor.GET:
+            req = new HttpTool.HttpGetBuilder(uri).headers(request.headers()).build();
+            break;
+        case HttpExecutor.HEAD:
+            req = new HttpTool.HttpHeadBuilder(uri).headers(request.headers()).build();
+            break;
+        case HttpExecutor.POST:
+            req = new HttpTool.HttpPostBuilder(uri).headers(request.headers()).body(orEmpty(request.body())).build();
+            break;
+        case HttpExecutor.PUT:
+            req = new HttpTool.HttpPutBuilder(uri).headers(request.headers()).body(orEmpty(request.body())).build();
+            break;
+        case HttpExecutor.DELETE:
+            req = new HttpTool.HttpDeleteBuilder(uri).headers(request.headers()).build();
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported method '"+request.method()+"' for URI "+uri);
+        }
+
+        // reads the full response, so the connection goes back to the pool
+        HttpToolResponse response = HttpTool.execAndConsume(httpClient, req, context);
+        return new HttpResponseWrapper(response);
+    }
+
+    protected synchronized HttpClient getClient(HttpConfig config) {
+        List<Boolean> key = ImmutableList.of(config.laxRedirect(), config.trustAll(), config.trustSelfSigned());
+        HttpClient result = clients.get(key);
+        if (result == null) {
+            PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnectionsTotal);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+            result = HttpTool.httpClientBuilder()
+                    .clientConnectionManager(connectionManager)
+                    .https(true)
+                    .laxRedirect(config.laxRedirect())
+                    .trustAll(config.trustAll())
+                    .trustSelfSigned(config.trustSelfSigned())
+                    .build();
+            clients.put(key, result);
+        }
+        return result;
+    }
+
+    private void closeIdleConnectionsIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastIdleCheck.get();
+        if (now - last < idleTimeout.toMilliseconds() / 2 || !lastIdleCheck.compareAndSet(last, now)) return;
+        synchronized (this) {
+            for (HttpClient client : clients.values()) {
+                client.getConnectionManager().closeExpiredConnections();
+                client.getConnectionManager().closeIdleConnections(idleTimeout.toMilliseconds(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    protected byte[] orEmpty(byte[] val) {
+        return (val != null) ? val : EMPTY_BYTE_ARRAY;
+    }
+
+    /** number of requests sent */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /** number of requests answered with the response to an identical request already in progress, rather than being sent */
+    public long getDedupedCount() {
+        return dedupedCount.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            for (HttpClient client : clients.values()) {
+                try {
+                    client.getConnectionManager().shutdown();
+                } catch (Exception e) {
+                    LOG.debug("Problem closing connections of "+this+" (continuing): "+e, e);
+                }
+            }
+            clients.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"[maxConnectionsTotal="+maxConnectionsTotal+"; maxConnectionsPerHost="+maxConnectionsPerHost+"]";
+    }
+
+    /** identifies requests which can be answered with the same response */
+    private static class RequestKey {
+        private final String method;
+        private final URI uri;
+        private final Multimap<String, String> headers;
+        private final String user;
+        private final String password;
+        private final boolean laxRedirect;
+        private final boolean trustAll;
+        private final boolean trustSelfSigned;
+        private final byte[] body;
+
+        RequestKey(HttpRequest request) {
+            HttpConfig config = (request.config() != null) ? request.config() : DEFAULT_CONFIG;
+            Credentials credentials = request.credentials();
+            this.method = request.method().toUpperCase();
+            this.uri = request.uri();
+            this.headers = request.headers();
+            this.user = (credentials != null) ? credentials.getUser() : null;
+            this.password = (credentials != null) ? credentials.getPassword() : null;
+            this.laxRedirect = config.laxRedirect();
+            this.trustAll = config.trustAll();
+            this.trustSelfSigned = config.trustSelfSigned();
+            this.body = request.body();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(method, uri, headers, user);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RequestKey)) return false;
+            RequestKey o = (RequestKey) obj;
+            return method.equals(o.method) && uri.equals(o.uri) && headers.equals(o.headers)
+                    && Objects.equal(user, o.user) && Objects.equal(password, o.password)
+                    && laxRedirect == o.laxRedirect && trustAll == o.trustAll && trustSelfSigned == o.trustSelfSigned
+                    && Arrays.equals(body, o.body);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.math;
+
+import java.util.NoSuchElementException;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+
+/**
+ * A window of timestamped values, oldest first, held in primitive ring buffers (growing as needed),
+ * for rolling means and similar enrichers.
+ * <p>
+ * Appending and removing the oldest value are constant time (amortized, when the buffers grow).
+ * The sum of the values and the time-weighted sum used by time-window means are kept as running totals,
+ * so are also constant time (amortized: the totals are recomputed from all values after as many changes
+ * as there are values, so floating-point error does not accumulate, and when they include non-finite values
+ * which are then removed).
+ * <p>
+ * {@link Double#NaN} can be used to record a timestamp with no value; it is ignored in the time-weighted sum.
+ * <p>
+ * Not thread-safe.
+ */
+@Beta
+public class RollingDoubleWindow {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private long[] timestamps;
+    private double[] values;
+    /** whether the entry rules out the constant-time time-weighted sum (no value, non-positive or out-of-order timestamp) */
+    private boolean[] irregular;
+    private int head;
+    private int size;
+
+    private double sum;
+    private boolean sumStale;
+    private int changesSinceSum;
+
+    /** sum of (t[i] - t[i-1]) * v[i] for i >= 1; only maintained while there are no irregular entries */
+    private double weightedSum;
+    private boolean weightedSumStale;
+    private int changesSinceWeightedSum;
+    private int numIrregular;
+
+    public RollingDoubleWindow() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public RollingDoubleWindow(int initialCapacity) {
+        Preconditions.checkArgument(initialCapacity > 0, "initialCapacity must be positive");
+        timestamps = new long[initialCapacity];
+        values = new double[initialCapacity];
+        irregular = new boolean[initialCapacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** appends a value, which should normally be no older than the newest value */
+    public void add(long timestamp, double value) {
+        if (size == values.length) grow();
+        boolean isIrregular = Double.isNaN(value) || timestamp <= 0 || (size > 0 && timestamp < getLastTimestamp());
+        if (!weightedSumStale) {
+            if (isIrregular) {
+                weightedSumStale = true;
+            } else if (size > 0) {
+                weightedSum += (timestamp - getLastTimestamp()) * value;
+            }
+        }
+        int i = physical(size);
+        timestamps[i] = timestamp;
+        values[i] = value;
+        irregular[i] = isIrregular;
+        if (isIrregular) numIrregular++;
+        size++;
+        sum += value;
+        changesSinceSum++;
+        changesSinceWeightedSum++;
+    }
+
+    /** removes the oldest value */
+    public void removeFirst() {
+        if (size == 0) throw new NoSuchElementException();
+        double value = values[head];
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            sumStale = true;
+        } else {
+            sum -= value;
+        }
+        if (!weightedSumStale && size > 1) {
+            // the next entry's segment started at the entry being removed
+            int next = physical(1);
+            weightedSum -= (timestamps[next] - timestamps[head]) * values[next];
+        }
+        if (irregular[head]) numIrregular--;
+        head = physical(1);
+        size--;
+        changesSinceSum++;
+        changesSinceWeightedSum++;
+    }
+
+    /** removes the oldest values until at most the given number remain */
+    public void pruneToSize(int maxSize) {
+        while (size > maxSize) {
+            removeFirst();
+        }
+    }
+
+    /**
+     * Removes values older than the cutoff, but keeps the newest such value (as the value in effect at
+     * the cutoff), i.e. removes the oldest value while the one after it is also older than the cutoff.
+     */
+    public void pruneBefore(long cutoff) {
+        while (size > 1 && timestamps[physical(1)] < cutoff) {
+            removeFirst();
+        }
+    }
+
+    /** @param index position from the oldest value (0) to the newest ({@code size()-1}) */
+    public long getTimestamp(int index) {
+        return timestamps[physical(checkIndex(index))];
+    }
+
+    /** @param index position from the oldest value (0) to the newest ({@code size()-1}) */
+    public double getValue(int index) {
+        return values[physical(checkIndex(index))];
+    }
+
+    public long getLastTimestamp() {
+        return getTimestamp(size - 1);
+    }
+
+    public double getLastValue() {
+        return getValue(size - 1);
+    }
+
+    /** the oldest timestamp which is positive, or -1 if there is none */
+    public long getFirstPositiveTimestamp() {
+        for (int i = 0; i < size; i++) {
+            long timestamp = timestamps[physical(i)];
+            if (timestamp > 0) return timestamp;
+        }
+        return -1;
+    }
+
+    /** sum of all values */
+    public double getSum() {
+        if (sumStale || changesSinceSum > Math.max(size, DEFAULT_INITIAL_CAPACITY)) {
+            double result = 0;
+            for (int i = 0; i < size; i++) {
+                result += values[physical(i)];
+            }
+            sum = result;
+            sumStale = false;
+            changesSinceSum = 0;
+        }
+        return sum;
+    }
+
+    /**
+     * Sum of each value weighted by the time for which it held, from {@code windowStart} to the newest value:
+     * each value (ignoring {@link Double#NaN}) is taken to hold from the previous value's timestamp
+     * (or from {@code windowStart}, for the first) until its own timestamp. Values older than
+     * {@code windowStart} are ignored (other than as the start of the following value's period).
+     * <p>
+     * Constant time if the window has been {@link #pruneBefore(long) pruned} to {@code windowStart}
+     * and all values have positive, ordered timestamps.
+     */
+    public double getTimeWeightedSum(long windowStart) {
+        if (numIrregular == 0 && (size < 2 || timestamps[physical(1)] >= windowStart)) {
+            if (weightedSumStale || changesSinceWeightedSum > Math.max(size, DEFAULT_INITIAL_CAPACITY)) {
+                double result = 0;
+                for (int i = 1; i < size; i++) {
+                    result += (timestamps[physical(i)] - timestamps[physical(i-1)]) * values[physical(i)];
+                }
+                weightedSum = result;
+                weightedSumStale = false;
+                changesSinceWeightedSum = 0;
+            }
+            if (size == 0) return 0;
+            long firstTimestamp = timestamps[head];
+            if (firstTimestamp >= windowStart) {
+                return (firstTimestamp - windowStart) * values[head] + weightedSum;
+            } else {
+                // the second value held only from the window start, not from the first value
+                return (size < 2) ? 0 : weightedSum - (windowStart - firstTimestamp) * values[physical(1)];
+            }
+        }
+
+        long start = windowStart;
+        double result = 0;
+        for (int i = 0; i < size; i++) {
+            // ignores missing and out-of-date values (and also values that are received out-of-order)
+            double value = values[physical(i)];
+            long timestamp = timestamps[physical(i)];
+            if (!Double.isNaN(value) && timestamp >= start) {
+                result += (timestamp - start) * value;
+                start = timestamp;
+            }
+        }
+        return result;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index "+index+", size "+size);
+        return index;
+    }
+
+    private int physical(int index) {
+        int i = head + index;
+        return (i < values.length) ? i : i - values.length;
+    }
+
+    private void grow() {
+        int newCapacity = values.length * 2;
+        long[] newTimestamps = new long[newCapacity];
+        double[] newValues = new double[newCapacity];
+        boolean[] newIrregular = new boolean[newCapacity];
+        for (int i = 0; i < size; i++) {
+            int p = physical(i);
+            newTimestamps[i] = timestamps[p];
+            newValues[i] = values[p];
+            newIrregular[i] = irregular[p];
+        }
+        timestamps = newTimestamps;
+        values = newValues;
+        irregular = newIrregular;
+        head = 0;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"[size="+size+"]";
+    }
+}
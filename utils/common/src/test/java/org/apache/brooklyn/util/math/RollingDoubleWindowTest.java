@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.math;
+
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RollingDoubleWindowTest {
+
+    @Test
+    public void testAddAndRemoveAcrossGrowthAndWrap() {
+        RollingDoubleWindow window = new RollingDoubleWindow(2);
+        for (int i = 1; i <= 5; i++) {
+            window.add(i, i*10);
+        }
+        window.removeFirst();
+        window.removeFirst();
+        window.add(6, 60);
+        Assert.assertEquals(window.size(), 4);
+        Assert.assertEquals(window.getTimestamp(0), 3);
+        Assert.assertEquals(window.getValue(0), 30d);
+        Assert.assertEquals(window.getLastTimestamp(), 6);
+        Assert.assertEquals(window.getLastValue(), 60d);
+        Assert.assertEquals(window.getSum(), 30d+40+50+60);
+    }
+
+    @Test
+    public void testPruneToSizeAndBefore() {
+        RollingDoubleWindow window = new RollingDoubleWindow();
+        for (int i = 1; i <= 10; i++) {
+            window.add(i*100, i);
+        }
+        window.pruneToSize(8);
+        Assert.assertEquals(window.getTimestamp(0), 300);
+
+        // keeps the last value before the cutoff
+        window.pruneBefore(650);
+        Assert.assertEquals(window.getTimestamp(0), 600);
+        Assert.assertEquals(window.size(), 5);
+    }
+
+    @Test
+    public void testSumRecoversWhenNonFiniteValueRemoved() {
+        RollingDoubleWindow window = new RollingDoubleWindow();
+        window.add(1, Double.NaN);
+        window.add(2, 2);
+        Assert.assertTrue(Double.isNaN(window.getSum()));
+        window.removeFirst();
+        Assert.assertEquals(window.getSum(), 2d);
+    }
+
+    @Test
+    public void testTimeWeightedSum() {
+        RollingDoubleWindow window = new RollingDoubleWindow();
+        window.add(1000, 10);
+        window.add(1100, 20);
+        window.add(1300, 30);
+        window.add(1600, 40);
+        window.add(2000, 50);
+        Assert.assertEquals(window.getTimeWeightedSum(1000), 20*100d + 30*200 + 40*300 + 50*400);
+
+        window.pruneBefore(1200);
+        Assert.assertEquals(window.getTimeWeightedSum(1200), 20*0d + 30*100 + 40*300 + 50*400);
+    }
+
+    @Test
+    public void testTimeWeightedSumIgnoresMissingAndOutOfOrderValues() {
+        RollingDoubleWindow window = new RollingDoubleWindow();
+        window.add(1000, 10);
+        window.add(1100, Double.NaN);
+        window.add(1300, 30);
+        window.add(1200, 99);
+        window.add(1600, 40);
+        Assert.assertEquals(window.getTimeWeightedSum(1000), 30*300d + 40*300);
+
+        window.pruneBefore(1500);
+        Assert.assertEquals(window.getTimeWeightedSum(1500), 40*100d);
+
+        // once the irregular values have gone, the running sum is used again
+        window.add(1700, 50);
+        window.pruneBefore(1650);
+        Assert.assertEquals(window.size(), 2);
+        Assert.assertEquals(window.getTimeWeightedSum(1650), 50*50d);
+    }
+
+    @Test
+    public void testTimeWeightedSumMatchesFullComputation() {
+        Random random = new Random(1234);
+        RollingDoubleWindow window = new RollingDoubleWindow();
+        long time = 1;
+        for (int i = 0; i < 1000; i++) {
+            time += 1 + random.nextInt(100);
+            window.add(time, random.nextDouble() * 100);
+            long windowStart = time - 1000;
+            window.pruneBefore(windowStart);
+            windowStart = Math.max(windowStart, window.getTimestamp(0));
+
+            double expected = 0;
+            long start = windowStart;
+            for (int j = 0; j < window.size(); j++) {
+                if (window.getTimestamp(j) >= start) {
+                    expected += (window.getTimestamp(j) - start) * window.getValue(j);
+                    start = window.getTimestamp(j);
+                }
+            }
+            Assert.assertEquals(window.getTimeWeightedSum(windowStart), expected, 0.000001 * Math.abs(expected) + 0.000001, "iteration "+i);
+        }
+    }
+}